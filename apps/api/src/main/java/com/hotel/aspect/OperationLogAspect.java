@@ -3,7 +3,7 @@ package com.hotel.aspect;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.annotation.OperationLog;
 import com.hotel.entity.log.OperationLog;
-import com.hotel.repository.log.OperationLogRepository;
+import com.hotel.service.log.LogWriteBehindSink;
 import com.hotel.util.IpUtil;
 import com.hotel.util.PermissionUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +13,6 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -36,7 +35,7 @@ import java.util.Map;
 public class OperationLogAspect {
 
     @Autowired
-    private OperationLogRepository operationLogRepository;
+    private LogWriteBehindSink logWriteBehindSink;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -64,15 +63,14 @@ public class OperationLogAspect {
             exception = e;
             throw e;
         } finally {
-            // 异步记录日志
+            // 在请求线程中构建日志，由后台线程批量写库
             saveOperationLog(point, result, exception, System.currentTimeMillis() - startTime);
         }
     }
 
     /**
-     * 异步保存操作日志
+     * 构建操作日志并提交异步写入，需要读取当前请求，必须在请求线程中调用
      */
-    @Async
     public void saveOperationLog(ProceedingJoinPoint point, Object result, Exception exception, long time) {
         try {
             ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
@@ -117,10 +115,9 @@ public class OperationLogAspect {
 
             logEntity.setCreateTime(LocalDateTime.now());
 
-            // 保存到数据库
-            operationLogRepository.insert(logEntity);
-
-            log.debug("操作日志记录成功: {} - {}", logEntity.getOperation(), logEntity.getUsername());
+            if (logWriteBehindSink.submit(logEntity)) {
+                log.debug("操作日志已提交: {} - {}", logEntity.getOperation(), logEntity.getUsername());
+            }
 
         } catch (Exception e) {
             log.error("保存操作日志失败", e);
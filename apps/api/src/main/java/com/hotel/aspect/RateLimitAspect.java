@@ -2,14 +2,13 @@ package com.hotel.aspect;
 
 import com.hotel.annotation.RateLimit;
 import com.hotel.dto.ApiResponse;
+import com.hotel.service.ratelimit.GcraRateLimiter;
 import com.hotel.util.IpUtil;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -17,44 +16,19 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.Collections;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 
 /**
  * API 速率限制切面
+ * 按注解配置的配额交给 {@link GcraRateLimiter} 判定
  */
 @Aspect
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class RateLimitAspect {
 
-    private final RedisTemplate<String, String> redisTemplate;
-
-    // Lua 脚本实现原子性计数器
-    private static final String RATE_LIMIT_SCRIPT =
-            "local key = KEYS[1] " +
-            "local period = tonumber(ARGV[1]) " +
-            "local limit = tonumber(ARGV[2]) " +
-            "local current_time = tonumber(ARGV[3]) " +
-            "local window_start = current_time - period " +
-
-            "redis.call('zremrangebyscore', key, '-inf', window_start) " +
-            "local current_requests = redis.call('zcard', key) " +
-
-            "if current_requests < limit then " +
-            "    redis.call('zadd', key, current_time, current_time) " +
-            "    redis.call('expire', key, period) " +
-            "    return 1 " +
-            "else " +
-            "    return 0 " +
-            "end";
-
-    private final RedisScript<Long> redisScript;
-
-    public RateLimitAspect(RedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
-        this.redisScript = new DefaultRedisScript<>(RATE_LIMIT_SCRIPT, Long.class);
-    }
+    private final GcraRateLimiter gcraRateLimiter;
 
     @Around("@annotation(rateLimit)")
     public Object rateLimit(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
@@ -62,7 +36,7 @@ public class RateLimitAspect {
         String limitKey = buildLimitKey(rateLimit);
 
         // 检查速率限制
-        boolean allowed = isRequestAllowed(limitKey, rateLimit.period(), rateLimit.limit());
+        boolean allowed = gcraRateLimiter.tryAcquire(limitKey, rateLimit.limit(), Duration.ofSeconds(rateLimit.period()));
 
         if (!allowed) {
             log.warn("Rate limit exceeded for key: {}, limit: {}/{}s",
@@ -79,7 +53,8 @@ public class RateLimitAspect {
      * 构建限制键
      */
     private String buildLimitKey(RateLimit rateLimit) {
-        StringBuilder keyBuilder = new StringBuilder("rate_limit:");
+        // 命名空间由限流器统一添加
+        StringBuilder keyBuilder = new StringBuilder();
 
         // 添加自定义前缀
         if (!rateLimit.prefix().isEmpty()) {
@@ -118,27 +93,6 @@ public class RateLimitAspect {
         return keyBuilder.toString();
     }
 
-    /**
-     * 检查请求是否被允许
-     */
-    private boolean isRequestAllowed(String key, int period, int limit) {
-        try {
-            Long result = redisTemplate.execute(
-                    redisScript,
-                    Collections.singletonList(key),
-                    String.valueOf(period),
-                    String.valueOf(limit),
-                    String.valueOf(System.currentTimeMillis() / 1000)
-            );
-
-            return result != null && result == 1;
-        } catch (Exception e) {
-            log.error("Rate limit check failed for key: {}", key, e);
-            // 发生异常时允许请求通过（避免影响正常业务）
-            return true;
-        }
-    }
-
     /**
      * 获取客户端IP
      */
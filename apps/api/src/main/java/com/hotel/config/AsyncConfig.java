@@ -1,16 +1,29 @@
 package com.hotel.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 异步任务配置
  *
+ * 各线程池的队列长度、活跃线程数等 executor.* 指标由 Spring Boot 按 Bean 名自动绑定，
+ * 这里额外记录队列满被拒绝的次数 hotel.async.rejected
+ *
+ * 开启 hotel.threads.virtual.enabled 且运行在 JDK 21 及以上时，邮件、通知和发件箱投递任务改为每个任务一个虚拟线程，
+ * 并发数仍按原线程池上限限制，超出的任务在虚拟线程上等待而不是由调用线程执行，见 {@link VirtualThreadExecutor}
+ *
  * @author Hotel Development Team
  * @since 2024-12-07
  */
@@ -19,11 +32,25 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    @Value("${hotel.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${hotel.threads.virtual.email-concurrency:5}")
+    private int virtualEmailConcurrency;
+
+    @Value("${hotel.threads.virtual.notification-concurrency:8}")
+    private int virtualNotificationConcurrency;
+
     /**
      * 邮件发送线程池
      */
     @Bean("emailTaskExecutor")
-    public Executor emailTaskExecutor() {
+    public Executor emailTaskExecutor(MeterRegistry meterRegistry) {
+        if (useVirtualThreads("emailTaskExecutor")) {
+            return virtualThreadExecutor("email-async-", virtualEmailConcurrency,
+                    "emailTaskExecutor", meterRegistry);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         // 核心线程数
@@ -42,10 +69,8 @@ public class AsyncConfig {
         executor.setThreadNamePrefix("email-async-");
 
         // 拒绝策略：调用者执行
-        executor.setRejectedExecutionHandler((r, executor1) -> {
-            log.warn("邮件任务队列已满，由调用线程执行任务");
-            r.run();
-        });
+        executor.setRejectedExecutionHandler(
+                callerRunsPolicy("邮件", rejectedCounter(meterRegistry, "emailTaskExecutor")));
 
         // 等待任务完成后关闭线程池
         executor.setWaitForTasksToCompleteOnShutdown(true);
@@ -63,7 +88,12 @@ public class AsyncConfig {
      * 通知任务线程池
      */
     @Bean("notificationTaskExecutor")
-    public Executor notificationTaskExecutor() {
+    public Executor notificationTaskExecutor(MeterRegistry meterRegistry) {
+        if (useVirtualThreads("notificationTaskExecutor")) {
+            return virtualThreadExecutor("notification-async-", virtualNotificationConcurrency,
+                    "notificationTaskExecutor", meterRegistry);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         executor.setCorePoolSize(3);
@@ -71,10 +101,8 @@ public class AsyncConfig {
         executor.setQueueCapacity(200);
         executor.setKeepAliveSeconds(60);
         executor.setThreadNamePrefix("notification-async-");
-        executor.setRejectedExecutionHandler((r, executor1) -> {
-            log.warn("通知任务队列已满，由调用线程执行任务");
-            r.run();
-        });
+        executor.setRejectedExecutionHandler(
+                callerRunsPolicy("通知", rejectedCounter(meterRegistry, "notificationTaskExecutor")));
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
 
@@ -90,7 +118,7 @@ public class AsyncConfig {
      * 默认异步任务执行器
      */
     @Bean("defaultTaskExecutor")
-    public Executor defaultTaskExecutor() {
+    public Executor defaultTaskExecutor(MeterRegistry meterRegistry) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         executor.setCorePoolSize(5);
@@ -98,10 +126,8 @@ public class AsyncConfig {
         executor.setQueueCapacity(300);
         executor.setKeepAliveSeconds(60);
         executor.setThreadNamePrefix("async-");
-        executor.setRejectedExecutionHandler((r, executor1) -> {
-            log.warn("默认异步任务队列已满，由调用线程执行任务");
-            r.run();
-        });
+        executor.setRejectedExecutionHandler(
+                callerRunsPolicy("默认异步", rejectedCounter(meterRegistry, "defaultTaskExecutor")));
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
 
@@ -112,4 +138,110 @@ public class AsyncConfig {
 
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 报表导出任务线程池
+     * 与 Web 请求线程隔离，队列满时拒绝提交而不是由调用线程执行
+     */
+    @Bean("reportExportExecutor")
+    public Executor reportExportExecutor(@Value("${hotel.report-export.workers:2}") int workers,
+                                         @Value("${hotel.report-export.queue-capacity:20}") int queueCapacity,
+                                         MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-export-");
+        Counter rejected = rejectedCounter(meterRegistry, "reportExportExecutor");
+        ThreadPoolExecutor.AbortPolicy abortPolicy = new ThreadPoolExecutor.AbortPolicy();
+        executor.setRejectedExecutionHandler((r, executor1) -> {
+            rejected.increment();
+            abortPolicy.rejectedExecution(r, executor1);
+        });
+        // 未完成的任务在重启后由超时检查标记为失败，无需等待
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+
+        executor.initialize();
+
+        log.info("报表导出线程池初始化完成，工作线程数: {}, 队列容量: {}", workers, queueCapacity);
+
+        return executor;
+    }
+
+    /**
+     * 发件箱投递线程池
+     * 投递器自行限制同时运行的投递线程数不超过 workers，队列只用于吸收线程归还前的短暂重叠
+     */
+    @Bean("notificationOutboxExecutor")
+    public Executor notificationOutboxExecutor(@Value("${hotel.notification.outbox.workers:4}") int workers,
+                                               MeterRegistry meterRegistry) {
+        if (useVirtualThreads("notificationOutboxExecutor")) {
+            return virtualThreadExecutor("notification-outbox-", workers,
+                    "notificationOutboxExecutor", meterRegistry);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("notification-outbox-");
+        Counter rejected = rejectedCounter(meterRegistry, "notificationOutboxExecutor");
+        ThreadPoolExecutor.AbortPolicy abortPolicy = new ThreadPoolExecutor.AbortPolicy();
+        executor.setRejectedExecutionHandler((r, executor1) -> {
+            rejected.increment();
+            abortPolicy.rejectedExecution(r, executor1);
+        });
+        // 等待发送中的批次写回结果，减少重启后按租约重新投递造成的重复邮件
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        executor.initialize();
+
+        log.info("发件箱投递线程池初始化完成，工作线程数: {}", workers);
+
+        return executor;
+    }
+
+    private boolean useVirtualThreads(String executorName) {
+        if (!virtualThreadsEnabled) {
+            return false;
+        }
+        if (VirtualThreadExecutor.isSupported()) {
+            return true;
+        }
+        log.warn("当前 JVM 不支持虚拟线程，{} 继续使用平台线程池", executorName);
+        return false;
+    }
+
+    private static Executor virtualThreadExecutor(String namePrefix, int maxConcurrency, String executorName,
+                                                  MeterRegistry meterRegistry) {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(namePrefix, maxConcurrency, Duration.ofSeconds(30));
+        Gauge.builder("hotel.async.waiting", executor, VirtualThreadExecutor::getWaitingCount)
+                .tag("executor", executorName)
+                .description("虚拟线程执行器中等待并发许可的任务数")
+                .register(meterRegistry);
+
+        log.info("{} 使用虚拟线程执行，最大并发数: {}", executorName, maxConcurrency);
+        return executor;
+    }
+
+    /**
+     * 队列满时由调用线程执行任务，并计入拒绝次数
+     */
+    private static RejectedExecutionHandler callerRunsPolicy(String taskName, Counter rejected) {
+        return (r, executor) -> {
+            rejected.increment();
+            log.warn("{}任务队列已满，由调用线程执行任务", taskName);
+            r.run();
+        };
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String executorName) {
+        return Counter.builder("hotel.async.rejected")
+                .tag("executor", executorName)
+                .description("线程池队列已满被拒绝的任务数")
+                .register(meterRegistry);
+    }
+}
@@ -5,7 +5,10 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hotel.service.cache.CompactRedisSerializer;
+import com.hotel.service.cache.TwoLevelCacheManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -14,22 +17,30 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Redis缓存配置
  *
  * 提供Redis缓存和缓存管理器的配置，支持：
- * - JSON序列化配置
+ * - JSON/紧凑二进制序列化配置
  * - 不同缓存的过期时间策略
  * - 缓存键值序列化
  * - 缓存管理器配置
+ * - 可选的进程内 L1 缓存及跨节点失效广播
  *
  * @author Hotel Development Team
  * @since 2024-12-07
@@ -39,6 +50,38 @@ import java.util.Map;
 @EnableCaching
 public class CacheConfig {
 
+    /**
+     * 未单独配置的缓存的过期时间
+     */
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+    @Value("${hotel.cache.serializer.format:binary}")
+    private String serializerFormat;
+
+    @Value("${hotel.cache.serializer.read-legacy-json:true}")
+    private boolean readLegacyJson;
+
+    @Value("${hotel.cache.serializer.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${hotel.cache.l1.enabled:true}")
+    private boolean localCacheEnabled;
+
+    @Value("${hotel.cache.l1.max-weight:10000}")
+    private long localMaxWeight;
+
+    @Value("${hotel.cache.l1.max-ttl:60s}")
+    private Duration localMaxTtl;
+
+    @Value("${hotel.cache.l1.invalidation-channel:cache:invalidation}")
+    private String invalidationChannel;
+
+    /**
+     * 使用 L1 的缓存，均为读多写少、可容忍 L1 最大 TTL 内不一致的数据
+     */
+    @Value("${hotel.cache.l1.cache-names:rooms,room-types,hotels,hotel-facilities}")
+    private Set<String> localCacheNames = new HashSet<>(Arrays.asList("rooms", "room-types", "hotels", "hotel-facilities"));
+
     /**
      * RedisTemplate配置
      */
@@ -47,23 +90,17 @@ public class CacheConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // 使用Jackson2JsonRedisSerializer来序列化和反序列化redis的value值
-        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-        objectMapper.registerModule(new JavaTimeModule());
-
-        jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
+        // value 使用可切换的缓存序列化器，见 valueSerializer()
+        RedisSerializer<Object> valueSerializer = valueSerializer();
 
         // 使用StringRedisSerializer来序列化和反序列化redis的key值
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
         // 设置key和value的序列化规则
         template.setKeySerializer(stringRedisSerializer);
-        template.setValueSerializer(jackson2JsonRedisSerializer);
+        template.setValueSerializer(valueSerializer);
         template.setHashKeySerializer(stringRedisSerializer);
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
 
@@ -73,61 +110,118 @@ public class CacheConfig {
 
     /**
      * 缓存管理器配置
+     *
+     * 开启 L1 时在配置的 Redis 缓存前叠加进程内 Caffeine 缓存，见 {@link TwoLevelCacheManager}
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate stringRedisTemplate) {
         // 配置序列化（解决乱码的问题）
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(DEFAULT_TTL) // 默认缓存时间30分钟
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer()))
+                .disableCachingNullValues(); // 不缓存空值
+
+        // 配置不同缓存的过期时间
+        Map<String, Duration> ttls = cacheTtls();
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        ttls.forEach((name, ttl) -> cacheConfigurations.put(name, config.entryTtl(ttl)));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(config)
+                .withInitialCacheConfigurations(cacheConfigurations)
+                // 命中统计供缓存指标使用
+                .enableStatistics()
+                .build();
+
+        if (!localCacheEnabled) {
+            return redisCacheManager;
+        }
+
+        // RedisCacheManager 不作为独立 Bean 注册，需手动初始化
+        redisCacheManager.afterPropertiesSet();
+        log.info("启用两级缓存: {}, L1 最大 TTL: {}, 每个缓存 L1 最大权重: {}",
+                localCacheNames, localMaxTtl, localMaxWeight);
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, invalidationChannel,
+                ttls, DEFAULT_TTL, localMaxTtl, localMaxWeight, localCacheNames);
+    }
+
+    /**
+     * 缓存值序列化器
+     *
+     * binary 格式写入紧凑二进制，json 格式保持原有 JSON；两种格式下都能读取对方写入的条目，
+     * 先以 json 格式部署使所有节点具备二进制读取能力，再切换为 binary，即可无停机迁移
+     */
+    private RedisSerializer<Object> valueSerializer() {
+        // 使用Jackson2JsonRedisSerializer来序列化和反序列化redis的value值
         Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
         ObjectMapper objectMapper = new ObjectMapper();
+        configureObjectMapper(objectMapper);
+        jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
+
+        return new CompactRedisSerializer(CacheConfig::configureObjectMapper, jackson2JsonRedisSerializer,
+                "binary".equalsIgnoreCase(serializerFormat), readLegacyJson, compressionThreshold);
+    }
+
+    /**
+     * 缓存值的对象映射规则，JSON 与二进制格式共用
+     */
+    public static void configureObjectMapper(ObjectMapper objectMapper) {
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
         objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
         objectMapper.registerModule(new JavaTimeModule());
+    }
 
-        jackson2JsonRedisSerializer.setObjectMapper(objectMapper);
-
-        // 配置序列化（解决乱码的问题）
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30)) // 默认缓存时间30分钟
-                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jackson2JsonRedisSerializer))
-                .disableCachingNullValues(); // 不缓存空值
+    /**
+     * 订阅两级缓存的失效广播
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            container.addMessageListener((TwoLevelCacheManager) cacheManager, new ChannelTopic(invalidationChannel));
+        }
+        return container;
+    }
 
-        // 配置不同缓存的过期时间
-        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+    /**
+     * 各缓存的 Redis 过期时间
+     */
+    private static Map<String, Duration> cacheTtls() {
+        Map<String, Duration> ttls = new HashMap<>();
 
         // 房间信息缓存 - 1小时
-        cacheConfigurations.put("rooms", config.entryTtl(Duration.ofHours(1)));
+        ttls.put("rooms", Duration.ofHours(1));
 
         // 房间类型缓存 - 2小时
-        cacheConfigurations.put("room-types", config.entryTtl(Duration.ofHours(2)));
+        ttls.put("room-types", Duration.ofHours(2));
 
         // 价格计算缓存 - 10分钟（价格变化较频繁）
-        cacheConfigurations.put("booking-pricing", config.entryTtl(Duration.ofMinutes(10)));
+        ttls.put("booking-pricing", Duration.ofMinutes(10));
 
         // 用户信息缓存 - 30分钟
-        cacheConfigurations.put("users", config.entryTtl(Duration.ofMinutes(30)));
+        ttls.put("users", Duration.ofMinutes(30));
 
         // 酒店信息缓存 - 4小时
-        cacheConfigurations.put("hotels", config.entryTtl(Duration.ofHours(4)));
+        ttls.put("hotels", Duration.ofHours(4));
 
         // 酒店设施缓存 - 6小时
-        cacheConfigurations.put("hotel-facilities", config.entryTtl(Duration.ofHours(6)));
+        ttls.put("hotel-facilities", Duration.ofHours(6));
 
         // 优惠券信息缓存 - 20分钟
-        cacheConfigurations.put("coupons", config.entryTtl(Duration.ofMinutes(20)));
+        ttls.put("coupons", Duration.ofMinutes(20));
 
         // 通知统计缓存 - 5分钟
-        cacheConfigurations.put("notification-stats", config.entryTtl(Duration.ofMinutes(5)));
+        ttls.put("notification-stats", Duration.ofMinutes(5));
 
         // 用户统计缓存 - 2分钟（统计数据变化相对频繁）
-        cacheConfigurations.put("user-statistics", config.entryTtl(Duration.ofMinutes(2)));
+        ttls.put("user-statistics", Duration.ofMinutes(2));
 
         // 用户搜索结果缓存 - 5分钟
-        cacheConfigurations.put("user-search", config.entryTtl(Duration.ofMinutes(5)));
+        ttls.put("user-search", Duration.ofMinutes(5));
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
-                .withInitialCacheConfigurations(cacheConfigurations)
-                .build();
+        return ttls;
     }
-}
\ No newline at end of file
+}
@@ -3,16 +3,22 @@ package com.hotel.config;
 import com.hotel.security.JwtAuthenticationEntryPoint;
 import com.hotel.security.JwtRequestFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
@@ -26,6 +32,9 @@ import java.util.List;
 /**
  * Spring Security 配置
  * 配置JWT认证和安全策略
+ *
+ * Prometheus 抓取端点使用独立的过滤器链，以专用的抓取账号通过 HTTP Basic 认证，不依赖会过期的 JWT；
+ * 其他监控端点仍仅管理员可读
  */
 @Configuration
 @EnableWebSecurity
@@ -38,6 +47,15 @@ public class SecurityConfig {
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
+    /**
+     * Prometheus 抓取账号，密码为空时拒绝所有抓取请求
+     */
+    @Value("${hotel.metrics.scrape.username:prometheus}")
+    private String scrapeUsername = "prometheus";
+
+    @Value("${hotel.metrics.scrape.password:}")
+    private String scrapePassword = "";
+
     /**
      * 密码编码器
      */
@@ -86,6 +104,40 @@ public class SecurityConfig {
         return repository;
     }
 
+    /**
+     * Prometheus 抓取端点的过滤器链，优先于主过滤器链匹配
+     *
+     * 抓取账号只在本链的认证管理器中注册，不能用于登录或访问其他接口
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http) throws Exception {
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (!scrapePassword.isEmpty()) {
+            scrapeUsers.createUser(User.withUsername(scrapeUsername)
+                    .password(passwordEncoder().encode(scrapePassword))
+                    .roles("METRICS")
+                    .build());
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(scrapeUsers);
+        provider.setPasswordEncoder(passwordEncoder());
+
+        http
+            .requestMatchers(matchers -> matchers.antMatchers("/actuator/prometheus"))
+            .csrf().disable()
+            .sessionManagement()
+            .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+            .authenticationManager(new ProviderManager(provider))
+            .httpBasic()
+            .and()
+            .authorizeRequests()
+            .anyRequest().hasRole("METRICS");
+
+        return http.build();
+    }
+
     /**
      * 安全过滤器链配置
      */
@@ -127,13 +179,18 @@ public class SecurityConfig {
             .antMatchers("/v3/api-docs/**").permitAll()
             .antMatchers("/swagger-ui/**").permitAll()
             .antMatchers("/swagger-ui.html").permitAll()
-            .antMatchers("/actuator/**").permitAll()
+            .antMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
             .antMatchers("/error").permitAll()
+            // 推送连接在握手时自行校验令牌，见 PushHandshakeInterceptor
+            .antMatchers("/ws").permitAll()
             .antMatchers("/favicon.ico").permitAll()
 
             // 静态资源
             .antMatchers("/static/**", "/css/**", "/js/**", "/images/**").permitAll()
 
+            // 其他监控端点仅管理员可读，Prometheus 抓取端点见 metricsFilterChain
+            .antMatchers("/actuator/**").hasRole("ADMIN")
+
             // 其他请求需要认证
             .anyRequest().authenticated();
 
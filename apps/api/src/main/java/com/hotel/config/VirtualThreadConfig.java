@@ -0,0 +1,41 @@
+package com.hotel.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式下的 Tomcat 配置
+ *
+ * 开启 hotel.threads.virtual.enabled 时，Tomcat 用每个请求一个虚拟线程替换 server.tomcat.threads.max 线程池，
+ * 请求中阻塞在数据库、Redis、SMTP 上不再占用平台线程；并发连接数仍受 server.tomcat.max-connections 限制。
+ * 当前 JVM 不支持虚拟线程时保持原线程池。
+ *
+ * @author Hotel Development Team
+ * @since 2024-12-07
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "hotel.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        if (!VirtualThreadExecutor.isSupported()) {
+            log.warn("当前 JVM 不支持虚拟线程，Tomcat 继续使用平台线程池: java.version={}",
+                    System.getProperty("java.version"));
+            return protocolHandler -> {
+            };
+        }
+        return protocolHandler -> {
+            // 请求处理本身不限制并发，由连接数上限约束；Tomcat 停止时不会关闭外部执行器，无需等待
+            protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-", Integer.MAX_VALUE, Duration.ZERO));
+            log.info("Tomcat 请求处理使用虚拟线程");
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.hotel.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 每个任务一个虚拟线程的执行器
+ *
+ * 项目按 Java 11 编译，虚拟线程 API 通过反射调用，只有运行在 JDK 21 及以上时可用，
+ * 调用方应先检查 {@link #isSupported()}。
+ * 提交任务从不阻塞调用线程；超过并发上限的任务在各自的虚拟线程上等待许可，
+ * 用于限制对 SMTP 等下游的并发，而不是像线程池那样在队列满时由调用线程执行。
+ */
+@Slf4j
+public class VirtualThreadExecutor implements Executor, DisposableBean {
+
+    /**
+     * 虚拟线程 API 的反射入口，当前 JVM 不支持虚拟线程时 OF_VIRTUAL 为 null
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class);
+            factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // JDK 19/20 未开启预览特性时方法存在但调用失败
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private final String namePrefix;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Duration awaitTermination;
+
+    /**
+     * @param namePrefix 线程名前缀，后接递增序号
+     * @param maxConcurrency 同时执行的任务数上限
+     * @param awaitTermination 关闭时等待已提交任务完成的时间
+     */
+    public VirtualThreadExecutor(String namePrefix, int maxConcurrency, Duration awaitTermination) {
+        if (!isSupported()) {
+            throw new IllegalStateException("当前 JVM 不支持虚拟线程: " + System.getProperty("java.version"));
+        }
+        this.namePrefix = namePrefix;
+        this.executor = newThreadPerTaskExecutor(namePrefix);
+        this.permits = new Semaphore(maxConcurrency);
+        this.awaitTermination = awaitTermination;
+    }
+
+    /**
+     * 当前 JVM 是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            waiting.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("等待执行许可时被中断，任务未执行: {}", namePrefix);
+                return;
+            } finally {
+                waiting.decrementAndGet();
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 已提交但因并发上限在等待执行的任务数
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(awaitTermination.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("虚拟线程执行器关闭超时，仍有任务未完成: {}", namePrefix);
+        }
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败: " + namePrefix, e);
+        }
+    }
+}
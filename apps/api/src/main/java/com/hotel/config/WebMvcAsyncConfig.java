@@ -0,0 +1,49 @@
+package com.hotel.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Spring MVC 异步请求配置
+ * StreamingResponseBody 等异步响应在独立的有界线程池中写出，避免默认的 SimpleAsyncTaskExecutor 无限制创建线程
+ */
+@Slf4j
+@Configuration
+public class WebMvcAsyncConfig implements WebMvcConfigurer {
+
+    @Value("${hotel.streaming-export.workers:4}")
+    private int workers;
+
+    @Value("${hotel.streaming-export.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Bean("mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        executor.initialize();
+
+        log.info("MVC 异步请求线程池初始化完成，线程数: {}, 队列容量: {}", workers, queueCapacity);
+
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // 超时时间由 spring.mvc.async.request-timeout 配置
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+}
@@ -0,0 +1,55 @@
+package com.hotel.config;
+
+import com.hotel.service.push.PushHandshakeInterceptor;
+import com.hotel.service.push.PushWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * WebSocket 推送配置
+ *
+ * 推送连接地址为 /ws（含上下文路径为 /api/ws），握手时由 {@link PushHandshakeInterceptor} 验证令牌。
+ * 客户端只发送心跳和订阅消息，入站消息缓冲按此限制得较小。
+ *
+ * @author Hotel Development Team
+ * @since 2024-12-07
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "hotel.push.enabled", havingValue = "true", matchIfMissing = true)
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final PushWebSocketHandler pushWebSocketHandler;
+    private final PushHandshakeInterceptor pushHandshakeInterceptor;
+
+    @Value("${hotel.push.allowed-origins:http://localhost:*,https://*.yourdomain.com}")
+    private String[] allowedOrigins;
+
+    @Value("${hotel.push.idle-timeout-ms:75000}")
+    private long idleTimeoutMs;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(pushWebSocketHandler, "/ws")
+                .addInterceptors(pushHandshakeInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(8 * 1024);
+        container.setMaxBinaryMessageBufferSize(8 * 1024);
+        // 容器层的兜底空闲超时，正常情况下由 PushSessionRegistry 的心跳先关闭
+        container.setMaxSessionIdleTimeout(idleTimeoutMs * 2);
+        return container;
+    }
+}
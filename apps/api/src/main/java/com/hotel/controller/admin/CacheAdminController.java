@@ -0,0 +1,44 @@
+package com.hotel.controller.admin;
+
+import com.hotel.dto.ApiResponse;
+import com.hotel.dto.admin.cache.CacheTierStatisticsDTO;
+import com.hotel.service.cache.TwoLevelCacheManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/admin/cache")
+@PreAuthorize("hasRole('ADMIN')")
+@Slf4j
+@Tag(name = "缓存管理", description = "缓存监控相关API")
+public class CacheAdminController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @GetMapping("/stats")
+    @Operation(summary = "获取缓存统计", description = "获取各缓存 L1/L2 命中、未命中及淘汰统计")
+    public ResponseEntity<ApiResponse<List<CacheTierStatisticsDTO>>> getCacheStatistics() {
+        try {
+            log.info("获取缓存统计");
+            List<CacheTierStatisticsDTO> statistics = cacheManager instanceof TwoLevelCacheManager
+                    ? ((TwoLevelCacheManager) cacheManager).getStatistics()
+                    : Collections.emptyList();
+            return ResponseEntity.ok(ApiResponse.success("获取缓存统计成功", statistics));
+        } catch (Exception e) {
+            log.error("获取缓存统计失败", e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("获取缓存统计失败: " + e.getMessage()));
+        }
+    }
+}
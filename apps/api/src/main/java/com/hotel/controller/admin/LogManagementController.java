@@ -8,23 +8,25 @@ import com.hotel.entity.log.ErrorLog;
 import com.hotel.entity.log.LoginLog;
 import com.hotel.entity.log.OperationLog;
 import com.hotel.service.LogManagementService;
+import com.hotel.util.StreamingExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -118,37 +120,43 @@ public class LogManagementController extends BaseController {
 
     /**
      * 导出日志
+     *
+     * 响应体在 MVC 异步线程中边读边写，不在内存中缓存整个文件
      */
     @PostMapping("/export")
-    @Operation(summary = "导出日志", description = "根据条件导出日志数据")
-    public ResponseEntity<Resource> exportLogs(
-            @Valid @RequestBody LogExportRequest request) {
+    @Operation(summary = "导出日志", description = "根据条件导出日志数据，支持 Excel、CSV、NDJSON 及 gzip 压缩")
+    public ResponseEntity<StreamingResponseBody> exportLogs(@Valid @RequestBody LogExportRequest request) {
 
-        try {
-            log.info("管理员 {} 导出日志，类型: {}, 格式: {}, 最大记录数: {}",
-                    getCurrentUserId(), request.getLogType(), request.getExportFormat(), request.getMaxRecords());
-
-            byte[] data = logManagementService.exportLogs(request);
-
-            String filename = generateFilename(request);
-            ByteArrayResource resource = new ByteArrayResource(data);
-
-            MediaType mediaType = "csv".equalsIgnoreCase(request.getExportFormat()) ?
-                    MediaType.parseMediaType("text/csv") :
-                    MediaType.APPLICATION_OCTET_STREAM;
+        log.info("管理员 {} 导出日志，类型: {}, 格式: {}, 最大记录数: {}",
+                getCurrentUserId(), request.getLogType(), request.getExportFormat(), request.getMaxRecords());
 
-            return ResponseEntity.ok()
-                    .contentType(mediaType)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
-
-        } catch (IOException e) {
-            log.error("导出日志失败", e);
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            log.error("导出日志失败", e);
+        StreamingExporter.Format format;
+        try {
+            logManagementService.validateExportRequest(request);
+            format = StreamingExporter.Format.of(request.getExportFormat());
+        } catch (IllegalArgumentException e) {
+            log.warn("导出日志失败: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
+        boolean gzip = Boolean.TRUE.equals(request.getGzip());
+
+        StreamingResponseBody body = out -> {
+            try {
+                logManagementService.exportLogs(request, out);
+            } catch (IOException e) {
+                // 响应已开始输出时无法再返回错误状态，客户端会收到不完整的文件
+                log.error("导出日志失败", e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(StreamingExporter.contentType(format, gzip)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(generateFilename(request, format, gzip), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     /**
@@ -176,11 +184,10 @@ public class LogManagementController extends BaseController {
     /**
      * 生成导出文件名
      */
-    private String generateFilename(LogExportRequest request) {
+    private String generateFilename(LogExportRequest request, StreamingExporter.Format format, boolean gzip) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         String logTypeName = getLogTypeName(request.getLogType());
-        String extension = "csv".equalsIgnoreCase(request.getExportFormat()) ? ".csv" : ".xlsx";
-        return String.format("%s日志_%s%s", logTypeName, timestamp, extension);
+        return StreamingExporter.fileName(String.format("%s日志_%s", logTypeName, timestamp), format, gzip);
     }
 
     /**
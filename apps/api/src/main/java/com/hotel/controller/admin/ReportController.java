@@ -2,7 +2,13 @@ package com.hotel.controller.admin;
 
 import com.hotel.controller.BaseController;
 import com.hotel.dto.report.*;
+import com.hotel.entity.report.ReportExportJob;
+import com.hotel.exception.ReportException;
 import com.hotel.service.ReportService;
+import com.hotel.service.report.OrderExportService;
+import com.hotel.service.report.ReportExportJobService;
+import com.hotel.util.SecurityUtils;
+import com.hotel.util.StreamingExporter;
 import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,14 +17,25 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.function.Supplier;
 
 /**
@@ -38,6 +55,8 @@ import java.util.function.Supplier;
 public class ReportController extends BaseController {
 
     private final ReportService reportService;
+    private final ReportExportJobService reportExportJobService;
+    private final OrderExportService orderExportService;
 
     @Qualifier("reportQueryRateLimiter")
     private final RateLimiter reportQueryRateLimiter;
@@ -196,6 +215,178 @@ public class ReportController extends BaseController {
         }
     }
 
+    /**
+     * 导出订单明细
+     * 响应体在 MVC 异步线程中边读边写，支持 CSV、NDJSON、Excel 及 gzip 压缩
+     */
+    @GetMapping("/orders/export")
+    @Operation(summary = "导出订单明细", description = "按创建日期范围流式导出订单明细")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "开始日期，格式：yyyy-MM-dd", required = true)
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+
+            @Parameter(description = "结束日期，格式：yyyy-MM-dd", required = true)
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+
+            @Parameter(description = "订单状态（可选）")
+            @RequestParam(required = false) String orderStatus,
+
+            @Parameter(description = "导出格式：csv、ndjson、excel")
+            @RequestParam(defaultValue = "csv") String format,
+
+            @Parameter(description = "是否gzip压缩（仅csv和ndjson）")
+            @RequestParam(defaultValue = "false") boolean gzip,
+
+            @Parameter(description = "最大导出记录数")
+            @RequestParam(defaultValue = "1000000") int maxRecords) {
+
+        log.info("导出订单明细，时间范围：{} - {}, 订单状态：{}, 格式：{}", startDate, endDate, orderStatus, format);
+
+        StreamingExporter.Format exportFormat;
+        try {
+            exportFormat = StreamingExporter.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (endDate.isBefore(startDate) || maxRecords <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!reportExportRateLimiter.acquirePermission()) {
+            return ResponseEntity.status(429).build();
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                orderExportService.exportOrders(startDate, endDate, orderStatus, exportFormat, gzip, maxRecords, out);
+            } catch (IOException e) {
+                // 响应已开始输出时无法再返回错误状态，客户端会收到不完整的文件
+                log.error("导出订单明细失败", e);
+                throw e;
+            }
+        };
+
+        String baseName = String.format("订单明细_%s_%s", startDate.format(DateTimeFormatter.BASIC_ISO_DATE),
+                endDate.format(DateTimeFormatter.BASIC_ISO_DATE));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(StreamingExporter.contentType(exportFormat, gzip)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(StreamingExporter.fileName(baseName, exportFormat, gzip), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * 提交异步导出任务
+     */
+    @PostMapping("/export-jobs")
+    @Operation(summary = "提交导出任务", description = "异步生成报表文件，返回任务ID；参数相同的任务执行期间重复提交返回同一任务")
+    public ResponseEntity<ApiResponse<ReportExportJobDTO>> submitExportJob(
+            @Parameter(description = "导出请求参数", required = true)
+            @Valid @RequestBody ReportExportRequest request) {
+
+        log.info("提交报表导出任务，类型：{}, 格式：{}, 时间范围：{} - {}",
+                request.getReportType(), request.getExportFormat(),
+                request.getStartDate(), request.getEndDate());
+
+        try {
+            Supplier<ReportExportJob> submitSupplier = () ->
+                reportExportJobService.submit(request, SecurityUtils.getCurrentUserId());
+
+            ReportExportJob job = withRateLimit(submitSupplier, reportExportRateLimiter).get();
+            return ResponseEntity.accepted().body(success(toJobDTO(job), "导出任务已提交"));
+        } catch (ReportException e) {
+            log.warn("提交导出任务失败: {}", e.getMessage());
+            if ("EXPORT_QUEUE_FULL".equals(e.getErrorCode())) {
+                return ResponseEntity.status(503).body(failed(e.getMessage()));
+            }
+            return ResponseEntity.badRequest().body(failed("提交导出任务失败：" + e.getMessage()));
+        } catch (Exception e) {
+            log.error("提交导出任务失败", e);
+
+            // 检查是否是速率限制异常
+            if (e.getMessage() != null && e.getMessage().contains("RateLimiter")) {
+                return ResponseEntity.status(429).body(failed("导出请求过于频繁，请稍后再试"));
+            }
+
+            return ResponseEntity.badRequest().body(failed("提交导出任务失败：" + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询导出任务状态
+     */
+    @GetMapping("/export-jobs/{jobId}")
+    @Operation(summary = "查询导出任务", description = "查询导出任务的状态和进度")
+    public ResponseEntity<ApiResponse<ReportExportJobDTO>> getExportJob(
+            @Parameter(description = "任务ID", required = true)
+            @PathVariable String jobId) {
+
+        try {
+            ReportExportJob job = reportExportJobService.getJob(jobId);
+            return ResponseEntity.ok(success(toJobDTO(job), "获取导出任务成功"));
+        } catch (ReportException e) {
+            return ResponseEntity.status(404).body(failed(e.getMessage()));
+        }
+    }
+
+    /**
+     * 下载导出文件
+     * 支持 Range 请求断点续传，以及基于 ETag/Last-Modified 的条件请求
+     */
+    @GetMapping("/export-jobs/{jobId}/file")
+    @Operation(summary = "下载导出文件", description = "下载已完成任务的报表文件，支持断点续传")
+    public ResponseEntity<Resource> downloadExportFile(
+            @Parameter(description = "任务ID", required = true)
+            @PathVariable String jobId) throws IOException {
+
+        Path file;
+        ReportExportJob job;
+        try {
+            job = reportExportJobService.getJob(jobId);
+            file = reportExportJobService.getFile(job);
+        } catch (ReportException e) {
+            log.warn("下载导出文件失败，任务ID：{}，原因：{}", jobId, e.getMessage());
+            int status = "EXPORT_JOB_NOT_READY".equals(e.getErrorCode()) ? 409 : 404;
+            return ResponseEntity.status(status).build();
+        }
+
+        MediaType mediaType = "PDF".equals(job.getExportFormat())
+                ? MediaType.APPLICATION_PDF
+                : MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+        // Resource 响应体由 Spring MVC 处理 Range 请求，返回 206 及对应的字节区间
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(job.getFileName(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(job.getId())
+                .lastModified(Files.getLastModifiedTime(file).toMillis())
+                .body(new FileSystemResource(file));
+    }
+
+    private ReportExportJobDTO toJobDTO(ReportExportJob job) {
+        ReportExportJobDTO dto = new ReportExportJobDTO();
+        dto.setJobId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setProgress(job.getProgress());
+        dto.setReportType(job.getReportType());
+        dto.setExportFormat(job.getExportFormat());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        if (ReportExportJob.STATUS_SUCCEEDED.equals(job.getStatus())) {
+            dto.setFileName(job.getFileName());
+            dto.setFileSize(job.getFileSize());
+            dto.setDownloadUrl("/api/v1/admin/reports/export-jobs/" + job.getId() + "/file");
+        }
+        return dto;
+    }
+
     /**
      * 获取报表概览数据
      */
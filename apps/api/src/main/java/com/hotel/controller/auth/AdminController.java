@@ -10,6 +10,7 @@ import com.hotel.entity.User;
 import com.hotel.enums.Permission;
 import com.hotel.enums.Role;
 import com.hotel.repository.UserRepository;
+import com.hotel.security.JwtAuthenticationCache;
 import com.hotel.util.PermissionUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -41,6 +42,9 @@ public class AdminController extends BaseController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
     /**
      * 获取用户列表
      */
@@ -151,6 +155,8 @@ public class AdminController extends BaseController {
             int result = userRepository.updateById(user);
 
             if (result > 0) {
+                // 令牌中携带角色声明，旧令牌需立即失效
+                jwtAuthenticationCache.revokeUser(id);
                 // 清除密码信息
                 user.setPassword(null);
                 log.info("更新用户角色成功，用户ID: {}, 新角色: {}", id, request.getRole());
@@ -196,6 +202,7 @@ public class AdminController extends BaseController {
             int result = userRepository.updateById(user);
 
             if (result > 0) {
+                jwtAuthenticationCache.revokeUser(id);
                 // 清除密码信息
                 user.setPassword(null);
                 log.info("更新用户状态成功，用户ID: {}, 新状态: {}", id, request.getStatus());
@@ -237,6 +244,7 @@ public class AdminController extends BaseController {
 
             // 批量更新
             int updatedCount = userRepository.updateStatusBatch(userIds, status);
+            userIds.forEach(jwtAuthenticationCache::revokeUser);
 
             log.info("批量更新用户状态成功，更新数量: {}", updatedCount);
             return ResponseEntity.ok(success(updatedCount, "批量更新用户状态成功"));
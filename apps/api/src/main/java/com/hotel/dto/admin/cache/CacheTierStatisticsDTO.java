@@ -0,0 +1,57 @@
+package com.hotel.dto.admin.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 两级缓存分层统计
+ */
+@Data
+@Builder
+public class CacheTierStatisticsDTO {
+
+    /**
+     * 缓存名称
+     */
+    private String cacheName;
+
+    /**
+     * L1（进程内）命中次数
+     */
+    private long localHits;
+
+    /**
+     * L1 未命中次数
+     */
+    private long localMisses;
+
+    /**
+     * L1 因容量淘汰的条目数
+     */
+    private long localEvictions;
+
+    /**
+     * L1 因容量淘汰的总权重
+     */
+    private long localEvictionWeight;
+
+    /**
+     * L1 当前条目数（估算）
+     */
+    private long localSize;
+
+    /**
+     * L1 当前总权重
+     */
+    private long localWeight;
+
+    /**
+     * L2（Redis）命中次数
+     */
+    private long remoteHits;
+
+    /**
+     * L2 未命中次数
+     */
+    private long remoteMisses;
+}
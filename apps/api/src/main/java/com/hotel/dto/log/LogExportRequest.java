@@ -46,9 +46,12 @@ public class LogExportRequest {
     private String loginType;
 
     @NotNull(message = "导出格式不能为空")
-    @Schema(description = "导出格式", allowableValues = {"excel", "csv"}, example = "excel")
+    @Schema(description = "导出格式", allowableValues = {"excel", "csv", "ndjson"}, example = "excel")
     private String exportFormat;
 
+    @Schema(description = "是否gzip压缩（仅csv和ndjson）", example = "false")
+    private Boolean gzip = false;
+
     @Schema(description = "是否包含敏感信息", example = "false")
     private Boolean includeSensitiveInfo = false;
 
@@ -0,0 +1,50 @@
+package com.hotel.dto.report;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出任务DTO
+ * 用于返回异步导出任务的状态和进度
+ */
+@Data
+public class ReportExportJobDTO {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 状态：QUEUED/RUNNING/SUCCEEDED/FAILED
+     */
+    private String status;
+
+    /**
+     * 进度百分比
+     */
+    private Integer progress;
+
+    private String reportType;
+    private String exportFormat;
+
+    /**
+     * 文件名及大小（任务完成后有值）
+     */
+    private String fileName;
+    private Long fileSize;
+
+    /**
+     * 下载地址（任务完成后有值）
+     */
+    private String downloadUrl;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,96 @@
+package com.hotel.entity.notification;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知邮件发件箱记录
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("notification_outbox")
+public class NotificationOutbox {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 收件用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 收件地址，为空时发送前按 userId 查询用户邮箱
+     */
+    @TableField("recipient")
+    private String recipient;
+
+    /**
+     * 邮件类型，如 BOOKING_CONFIRMATION
+     */
+    @TableField("message_type")
+    private String messageType;
+
+    @TableField("subject")
+    private String subject;
+
+    /**
+     * 邮件正文（HTML），入队时渲染
+     */
+    @TableField("body")
+    private String body;
+
+    /**
+     * 状态：PENDING/SENDING/SENT/FAILED
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 已认领发送次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 下次可发送时间
+     */
+    @TableField("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 认领批次标识，完成状态只由认领该批次的投递线程写回
+     */
+    @TableField("claim_token")
+    private String claimToken;
+
+    /**
+     * 认领租约到期时间
+     */
+    @TableField("lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * 最近一次失败原因
+     */
+    @TableField("last_error")
+    private String lastError;
+
+    @TableField("sent_at")
+    private LocalDateTime sentAt;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,79 @@
+package com.hotel.entity.report;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 报表日汇总事实
+ * 按 (统计日期, 酒店, 房型) 预聚合的订单指标
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("report_daily_facts")
+public class ReportDailyFact {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 统计日期
+     */
+    @TableField("stat_date")
+    private LocalDate statDate;
+
+    /**
+     * 酒店ID
+     */
+    @TableField("hotel_id")
+    private Long hotelId;
+
+    /**
+     * 房型ID
+     */
+    @TableField("room_type_id")
+    private Long roomTypeId;
+
+    /**
+     * 当日创建的订单数
+     */
+    @TableField("order_count")
+    private Integer orderCount = 0;
+
+    /**
+     * 当日创建且已取消的订单数
+     */
+    @TableField("cancelled_count")
+    private Integer cancelledCount = 0;
+
+    /**
+     * 当日创建且已完成的订单数
+     */
+    @TableField("completed_count")
+    private Integer completedCount = 0;
+
+    /**
+     * 当日创建且已完成订单的收入
+     */
+    @TableField("completed_revenue")
+    private BigDecimal completedRevenue = BigDecimal.ZERO;
+
+    /**
+     * 当日创建且未取消订单的间夜数
+     */
+    @TableField("booked_nights")
+    private Integer bookedNights = 0;
+
+    /**
+     * 当日在住的房间数，按入住日期统计
+     */
+    @TableField("occupied_rooms")
+    private Integer occupiedRooms = 0;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,125 @@
+package com.hotel.entity.report;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出任务
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("report_export_jobs")
+public class ReportExportJob {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 任务ID（UUID）
+     */
+    @TableId(value = "id", type = IdType.INPUT)
+    private String id;
+
+    /**
+     * 导出参数摘要
+     */
+    @TableField("dedup_key")
+    private String dedupKey;
+
+    /**
+     * 状态：QUEUED/RUNNING/SUCCEEDED/FAILED
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 进度百分比
+     */
+    @TableField("progress")
+    private Integer progress;
+
+    /**
+     * 报表类型
+     */
+    @TableField("report_type")
+    private String reportType;
+
+    /**
+     * 导出格式
+     */
+    @TableField("export_format")
+    private String exportFormat;
+
+    @TableField("start_date")
+    private LocalDate startDate;
+
+    @TableField("end_date")
+    private LocalDate endDate;
+
+    @TableField("room_type_id")
+    private Long roomTypeId;
+
+    @TableField("order_status")
+    private String orderStatus;
+
+    /**
+     * 下载时使用的文件名
+     */
+    @TableField("file_name")
+    private String fileName;
+
+    /**
+     * 文件存储路径
+     */
+    @TableField("file_path")
+    private String filePath;
+
+    /**
+     * 文件大小（字节）
+     */
+    @TableField("file_size")
+    private Long fileSize;
+
+    /**
+     * 生成文件的实例
+     */
+    @TableField("node_id")
+    private String nodeId;
+
+    /**
+     * 失败原因
+     */
+    @TableField("error_message")
+    private String errorMessage;
+
+    /**
+     * 提交人ID
+     */
+    @TableField("created_by")
+    private Long createdBy;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    @TableField("finished_at")
+    private LocalDateTime finishedAt;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 是否仍在排队或执行中
+     */
+    public boolean isActive() {
+        return STATUS_QUEUED.equals(status) || STATUS_RUNNING.equals(status);
+    }
+}
@@ -1,7 +1,7 @@
 package com.hotel.handler;
 
 import com.hotel.entity.log.ErrorLog;
-import com.hotel.repository.log.ErrorLogRepository;
+import com.hotel.service.log.LogWriteBehindSink;
 import com.hotel.util.IpUtil;
 import com.hotel.util.PermissionUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -36,7 +36,7 @@ import java.util.Set;
 public class GlobalExceptionHandler {
 
     @Autowired
-    private ErrorLogRepository errorLogRepository;
+    private LogWriteBehindSink logWriteBehindSink;
 
     /**
      * 处理业务异常
@@ -189,14 +189,10 @@ public class GlobalExceptionHandler {
     }
 
     /**
-     * 异步保存错误日志
+     * 异步保存错误日志，由后台线程批量写库
      */
     private void saveErrorLogAsync(ErrorLog errorLog) {
-        try {
-            errorLogRepository.insert(errorLog);
-        } catch (Exception e) {
-            log.error("保存错误日志到数据库失败", e);
-        }
+        logWriteBehindSink.submit(errorLog);
     }
 
     /**
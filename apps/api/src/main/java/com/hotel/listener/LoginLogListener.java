@@ -1,12 +1,11 @@
 package com.hotel.listener;
 
 import com.hotel.entity.log.LoginLog;
-import com.hotel.repository.log.LoginLogRepository;
+import com.hotel.service.log.LogWriteBehindSink;
 import com.hotel.util.IpUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
@@ -16,20 +15,19 @@ import java.util.regex.Pattern;
 
 /**
  * 登录日志事件监听器
- * 监听登录/退出事件并记录日志
+ * 监听登录/退出事件并记录日志，日志由 {@link LogWriteBehindSink} 批量写库
  */
 @Component
 @Slf4j
 public class LoginLogListener {
 
     @Autowired
-    private LoginLogRepository loginLogRepository;
+    private LogWriteBehindSink logWriteBehindSink;
 
     /**
      * 监听登录事件
      */
     @EventListener
-    @Async
     public void handleLoginEvent(LoginEvent event) {
         try {
             log.debug("处理登录事件: {}", event);
@@ -47,8 +45,9 @@ public class LoginLogListener {
             loginLog.setSessionId(event.getSessionId());
             loginLog.setCreateTime(LocalDateTime.now());
 
-            loginLogRepository.insert(loginLog);
-            log.debug("登录日志记录成功: {} - {}", event.getUsername(), event.getStatus());
+            if (logWriteBehindSink.submit(loginLog)) {
+                log.debug("登录日志已提交: {} - {}", event.getUsername(), event.getStatus());
+            }
 
         } catch (Exception e) {
             log.error("保存登录日志失败", e);
@@ -59,7 +58,6 @@ public class LoginLogListener {
      * 监听退出事件
      */
     @EventListener
-    @Async
     public void handleLogoutEvent(LogoutEvent event) {
         try {
             log.debug("处理退出事件: {}", event);
@@ -77,8 +75,9 @@ public class LoginLogListener {
             loginLog.setSessionId(event.getSessionId());
             loginLog.setCreateTime(LocalDateTime.now());
 
-            loginLogRepository.insert(loginLog);
-            log.debug("退出日志记录成功: {}", event.getUsername());
+            if (logWriteBehindSink.submit(loginLog)) {
+                log.debug("退出日志已提交: {}", event.getUsername());
+            }
 
         } catch (Exception e) {
             log.error("保存退出日志失败", e);
@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface NotificationRepository extends BaseMapper<Notification> {
@@ -19,4 +20,26 @@ public interface NotificationRepository extends BaseMapper<Notification> {
     int countUnreadByUserId(@Param("userId") Long userId);
 
     List<Notification> findUnreadByUserId(@Param("userId") Long userId);
+
+    /**
+     * 批量统计用户未读数，返回 user_id、unread_count，没有未读通知的用户不在结果中
+     */
+    List<Map<String, Object>> countUnreadByUserIds(@Param("userIds") List<Long> userIds);
+
+    /**
+     * 将用户的一条未读通知标记为已读，已读或不属于该用户时不更新
+     */
+    int markReadById(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * 将用户全部未读通知标记为已读
+     *
+     * @return 标记的通知数
+     */
+    int markAllReadByUserId(@Param("userId") Long userId);
+
+    /**
+     * 逻辑删除用户的一条未读通知，已读时不删除
+     */
+    int deleteUnreadById(@Param("id") Long id, @Param("userId") Long userId);
 }
\ No newline at end of file
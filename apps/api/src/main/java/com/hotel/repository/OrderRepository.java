@@ -5,23 +5,81 @@ import com.hotel.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface OrderRepository extends BaseMapper<Order> {
 
+    /**
+     * 查询与 [checkInDate, checkOutDate) 重叠的占用中订单，判定规则与房间占用索引一致
+     */
     List<Order> findConflictingOrders(
             @Param("roomId") Long roomId,
             @Param("checkInDate") LocalDate checkInDate,
-            @Param("checkOutDate") LocalDate checkOutDate,
-            @Param("status") String status
+            @Param("checkOutDate") LocalDate checkOutDate
+    );
+
+    /**
+     * 查询与日期范围有交集的占用中订单（仅返回房间和日期字段）
+     *
+     * @param roomId 房间ID，为空时查询所有房间
+     */
+    List<Order> findOccupyingOrders(
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
     );
 
     int countTodayOrders(@Param("date") String date);
 
+    /**
+     * 按主键倒序流式读取创建时间在范围内的订单（用于导出），需在事务内遍历并关闭游标
+     *
+     * @param status 订单状态，为空时查询所有状态
+     * @param limit  最大读取行数
+     */
+    Cursor<Order> streamExport(
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("status") String status,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 汇总时间范围内的用户下单情况：活跃用户数、复购用户数、订单数、消费用户数、已完成订单消费总额
+     */
+    Map<String, Object> summarizeUserActivity(@Param("startTime") LocalDateTime startTime,
+                                              @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 时间范围内下单次数最多的用户（user_id, order_count, last_order_at）
+     */
+    List<Map<String, Object>> findTopUsersByOrderCount(@Param("startTime") LocalDateTime startTime,
+                                                       @Param("endTime") LocalDateTime endTime,
+                                                       @Param("limit") int limit);
+
+    /**
+     * 时间范围内已完成订单消费最多的用户（user_id, total_spending, order_count）
+     */
+    List<Map<String, Object>> findTopUsersBySpending(@Param("startTime") LocalDateTime startTime,
+                                                     @Param("endTime") LocalDateTime endTime,
+                                                     @Param("limit") int limit);
+
+    /**
+     * 时间范围内已完成订单收入最高的房间（room_id, order_count, revenue, nights）
+     *
+     * @param roomTypeId 房型ID，为空时不限房型
+     */
+    List<Map<String, Object>> findTopRoomsByRevenue(@Param("startTime") LocalDateTime startTime,
+                                                    @Param("endTime") LocalDateTime endTime,
+                                                    @Param("roomTypeId") Long roomTypeId,
+                                                    @Param("limit") int limit);
+
     Order findByOrderNumber(@Param("orderNumber") String orderNumber);
 
     List<Order> findByUserId(@Param("userId") Long userId, @Param("status") String status);
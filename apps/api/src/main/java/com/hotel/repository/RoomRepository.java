@@ -13,6 +13,7 @@ import org.apache.ibatis.annotations.Update;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 房间数据访问层
@@ -104,6 +105,18 @@ public interface RoomRepository extends BaseMapper<Room> {
     @Select("SELECT * FROM rooms WHERE status = #{status} AND deleted = 0")
     List<Room> findByStatus(@Param("status") String status);
 
+    /**
+     * 锁定房间行（SELECT ... FOR UPDATE），同一房间的并发预订在数据库层串行化，须在事务内调用
+     */
+    @Select("SELECT id FROM rooms WHERE id = #{id} FOR UPDATE")
+    Long lockById(@Param("id") Long id);
+
+    /**
+     * 按房型和状态统计房间数（room_type_id, status, count）
+     */
+    @Select("SELECT room_type_id, status, COUNT(*) AS count FROM rooms WHERE deleted = 0 GROUP BY room_type_id, status")
+    List<Map<String, Object>> countByRoomTypeAndStatus();
+
     /**
      * 批量更新房间状态
      */
@@ -219,6 +232,79 @@ public interface RoomRepository extends BaseMapper<Room> {
     })
     IPage<Room> searchAvailableRooms(Page<Room> page, @Param("request") RoomSearchRequestDto request);
 
+    /**
+     * 在可用性索引给出的候选房间中按主键过滤搜索
+     * 日期占用已由 RoomAvailabilityIndex 判定，此处不再关联订单表
+     */
+    @Select({
+        "<script>",
+        "SELECT DISTINCT r.* FROM rooms r",
+        "LEFT JOIN room_types rt ON r.room_type_id = rt.id",
+        "LEFT JOIN hotels h ON r.hotel_id = h.id",
+        "WHERE r.deleted = 0",
+        "AND r.status = 'AVAILABLE'",
+        "AND rt.capacity >= #{request.guestCount}",
+        "<if test='request.hotelId != null'>",
+        "  AND r.hotel_id = #{request.hotelId}",
+        "</if>",
+        "<if test='request.roomTypeId != null'>",
+        "  AND r.room_type_id = #{request.roomTypeId}",
+        "</if>",
+        "<if test='request.priceMin != null'>",
+        "  AND r.price >= #{request.priceMin}",
+        "</if>",
+        "<if test='request.priceMax != null'>",
+        "  AND r.price <= #{request.priceMax}",
+        "</if>",
+        "<if test='request.facilities != null and request.facilities.size() > 0'>",
+        "  AND (" ,
+        "    <foreach collection='request.facilities' item='facility' separator=' OR '>",
+        "      rt.facilities LIKE CONCAT('%', #{facility}, '%')",
+        "    </foreach>",
+        "  )",
+        "</if>",
+        "AND r.id IN",
+        "<foreach collection='roomIds' item='id' open='(' separator=',' close=')'>",
+        "  #{id}",
+        "</foreach>",
+        "ORDER BY",
+        "  <choose>",
+        "    <when test='request.sortBy == \"PRICE\"'>",
+        "      <choose>",
+        "        <when test='request.sortOrder == \"ASC\"'>",
+        "          r.price ASC",
+        "        </when>",
+        "        <otherwise>",
+        "          r.price DESC",
+        "        </otherwise>",
+        "      </choose>",
+        "    </when>",
+        "    <when test='request.sortBy == \"RATING\"'>",
+        "      <choose>",
+        "        <when test='request.sortOrder == \"ASC\"'>",
+        "          h.rating ASC",
+        "        </when>",
+        "        <otherwise>",
+        "          h.rating DESC",
+        "        </otherwise>",
+        "      </choose>",
+        "    </when>",
+        "    <otherwise>",
+        "      <choose>",
+        "        <when test='request.sortOrder == \"ASC\"'>",
+        "          r.room_number ASC",
+        "        </when>",
+        "        <otherwise>",
+        "          r.room_number DESC",
+        "        </otherwise>",
+        "      </choose>",
+        "    </otherwise>",
+        "  </choose>",
+        "</script>"
+    })
+    IPage<Room> searchAvailableRoomsByIds(Page<Room> page, @Param("request") RoomSearchRequestDto request,
+                                          @Param("roomIds") List<Long> roomIds);
+
     /**
      * 获取可用房间总数
      */
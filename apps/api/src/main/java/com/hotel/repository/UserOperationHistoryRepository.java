@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotel.entity.UserOperationHistory;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -57,4 +58,17 @@ public interface UserOperationHistoryRepository extends BaseMapper<UserOperation
     List<UserOperationHistory> findRecentOperationsByUserId(
             @Param("userId") Long userId,
             @Param("limit") Integer limit);
+
+    /**
+     * 多行批量插入用户操作历史
+     */
+    @Insert("<script>" +
+            "INSERT INTO user_operation_history (user_id, operation, operator, operation_time, details, " +
+            "ip_address, user_agent, created_at) VALUES " +
+            "<foreach collection='histories' item='h' separator=','>" +
+            "(#{h.userId}, #{h.operation}, #{h.operator}, #{h.operationTime}, #{h.details}, " +
+            "#{h.ipAddress}, #{h.userAgent}, #{h.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("histories") List<UserOperationHistory> histories);
 }
\ No newline at end of file
@@ -7,7 +7,9 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Mapper
@@ -67,6 +69,27 @@ public interface UserRepository extends BaseMapper<User> {
     @Select("SELECT * FROM users WHERE id = #{id} AND status = #{status} AND deleted = 0")
     Optional<User> findByIdAndStatus(@Param("id") Long id, @Param("status") String status);
 
+    /**
+     * 按角色统计用户数
+     */
+    @Select("SELECT role, COUNT(*) AS count FROM users WHERE deleted = 0 GROUP BY role")
+    List<Map<String, Object>> countByRole();
+
+    /**
+     * 按注册日期统计时间范围内的新增用户数
+     */
+    @Select("SELECT DATE(created_at) AS date, COUNT(*) AS count FROM users " +
+            "WHERE deleted = 0 AND created_at >= #{startTime} AND created_at <= #{endTime} " +
+            "GROUP BY DATE(created_at)")
+    List<Map<String, Object>> countRegistrationsByDate(@Param("startTime") LocalDateTime startTime,
+                                                       @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 统计指定时间之前注册的用户数
+     */
+    @Select("SELECT COUNT(*) FROM users WHERE deleted = 0 AND created_at < #{time}")
+    long countCreatedBefore(@Param("time") LocalDateTime time);
+
     /**
      * 批量更新用户状态
      */
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotel.entity.log.ErrorLog;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -35,6 +36,25 @@ public interface ErrorLogRepository extends BaseMapper<ErrorLog> {
      */
     List<ErrorLog> findByUserId(@Param("userId") Long userId, @Param("limit") Integer limit);
 
+    /**
+     * 按主键倒序流式读取错误日志（用于导出），需在事务内遍历并关闭游标
+     *
+     * @param limit 最大读取行数
+     */
+    Cursor<ErrorLog> streamExport(@Param("username") String username,
+                                  @Param("level") String level,
+                                  @Param("module") String module,
+                                  @Param("startTime") LocalDateTime startTime,
+                                  @Param("endTime") LocalDateTime endTime,
+                                  @Param("ip") String ip,
+                                  @Param("limit") int limit);
+
+    /**
+     * 按创建时间升序流式读取 [startTime, endTime) 内的错误日志，需在事务内消费
+     */
+    Cursor<ErrorLog> streamArchive(@Param("startTime") LocalDateTime startTime,
+                                   @Param("endTime") LocalDateTime endTime);
+
     /**
      * 根据模块名称查询错误日志
      */
@@ -67,4 +87,14 @@ public interface ErrorLogRepository extends BaseMapper<ErrorLog> {
      * 查询最近的错误记录
      */
     List<ErrorLog> findRecentErrors(@Param("minutes") Integer minutes, @Param("limit") Integer limit);
+
+    /**
+     * 按主键升序读取指定ID之后的错误日志（用于建立全文索引）
+     */
+    List<ErrorLog> findAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 多行批量插入错误日志
+     */
+    int insertBatch(@Param("logs") List<ErrorLog> logs);
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.hotel.repository.log;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 日志表分区维护Repository
+ */
+@Mapper
+public interface LogPartitionRepository {
+
+    /**
+     * 按顺序查询表的分区名，未分区的表返回空列表
+     */
+    List<String> findPartitionNames(@Param("table") String table);
+
+    /**
+     * 查询 p_future 分区中最早的记录时间，分区为空时返回 null
+     */
+    LocalDateTime findMinCreateTimeInFuturePartition(@Param("table") String table);
+
+    /**
+     * 从 p_future 分区拆出按月分区
+     *
+     * @param partitions 按时间升序排列的新分区
+     */
+    void splitFuturePartition(@Param("table") String table,
+                              @Param("partitions") List<MonthPartition> partitions);
+
+    /**
+     * 删除分区及其中的全部记录
+     */
+    void dropPartition(@Param("table") String table, @Param("partition") String partition);
+
+    /**
+     * 按月分区定义
+     */
+    class MonthPartition {
+
+        private final String name;
+        private final String lessThan;
+
+        public MonthPartition(String name, String lessThan) {
+            this.name = name;
+            this.lessThan = lessThan;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 分区上界（不含），格式 yyyy-MM-dd HH:mm:ss
+         */
+        public String getLessThan() {
+            return lessThan;
+        }
+    }
+}
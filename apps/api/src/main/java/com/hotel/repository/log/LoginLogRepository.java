@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotel.entity.log.LoginLog;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,11 +35,35 @@ public interface LoginLogRepository extends BaseMapper<LoginLog> {
      */
     List<LoginLog> findByUsername(@Param("username") String username, @Param("limit") Integer limit);
 
+    /**
+     * 按主键倒序流式读取登录日志（用于导出），需在事务内遍历并关闭游标
+     *
+     * @param limit 最大读取行数
+     */
+    Cursor<LoginLog> streamExport(@Param("username") String username,
+                                  @Param("loginType") String loginType,
+                                  @Param("startTime") LocalDateTime startTime,
+                                  @Param("endTime") LocalDateTime endTime,
+                                  @Param("ip") String ip,
+                                  @Param("status") String status,
+                                  @Param("limit") int limit);
+
+    /**
+     * 按创建时间升序流式读取 [startTime, endTime) 内的登录日志，需在事务内消费
+     */
+    Cursor<LoginLog> streamArchive(@Param("startTime") LocalDateTime startTime,
+                                   @Param("endTime") LocalDateTime endTime);
+
     /**
      * 查询最近的登录失败记录
      */
     List<LoginLog> findRecentFailedLogins(@Param("username") String username, @Param("minutes") Integer minutes);
 
+    /**
+     * 多行批量插入登录日志
+     */
+    int insertBatch(@Param("logs") List<LoginLog> logs);
+
     /**
      * 根据时间范围删除登录日志（用于日志清理）
      */
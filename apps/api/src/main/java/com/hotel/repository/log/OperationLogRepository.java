@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotel.entity.log.OperationLog;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,6 +35,30 @@ public interface OperationLogRepository extends BaseMapper<OperationLog> {
      */
     List<OperationLog> findByUserId(@Param("userId") Long userId, @Param("limit") Integer limit);
 
+    /**
+     * 按主键倒序流式读取操作日志（用于导出），需在事务内遍历并关闭游标
+     *
+     * @param limit 最大读取行数
+     */
+    Cursor<OperationLog> streamExport(@Param("username") String username,
+                                      @Param("operation") String operation,
+                                      @Param("startTime") LocalDateTime startTime,
+                                      @Param("endTime") LocalDateTime endTime,
+                                      @Param("ip") String ip,
+                                      @Param("status") String status,
+                                      @Param("limit") int limit);
+
+    /**
+     * 按创建时间升序流式读取 [startTime, endTime) 内的操作日志，需在事务内消费
+     */
+    Cursor<OperationLog> streamArchive(@Param("startTime") LocalDateTime startTime,
+                                       @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 多行批量插入操作日志
+     */
+    int insertBatch(@Param("logs") List<OperationLog> logs);
+
     /**
      * 根据时间范围删除操作日志（用于日志清理）
      */
@@ -44,4 +69,9 @@ public interface OperationLogRepository extends BaseMapper<OperationLog> {
      */
     long countByTimeRange(@Param("startTime") LocalDateTime startTime,
                          @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按主键升序读取指定ID之后的操作日志（用于建立全文索引）
+     */
+    List<OperationLog> findAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
 }
\ No newline at end of file
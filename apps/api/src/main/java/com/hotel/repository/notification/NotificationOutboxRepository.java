@@ -0,0 +1,70 @@
+package com.hotel.repository.notification;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotel.entity.notification.NotificationOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知邮件发件箱数据访问层
+ */
+@Mapper
+public interface NotificationOutboxRepository extends BaseMapper<NotificationOutbox> {
+
+    /**
+     * 锁定到期待发送的记录，已被其他事务锁定的行直接跳过（FOR UPDATE SKIP LOCKED），须在事务内调用
+     */
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 将锁定的记录标记为发送中，记录认领批次和租约到期时间，发送次数加一
+     */
+    int markSending(@Param("ids") List<Long> ids,
+                    @Param("claimToken") String claimToken,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    /**
+     * 查询认领批次内的记录
+     */
+    List<NotificationOutbox> findByClaimToken(@Param("claimToken") String claimToken);
+
+    /**
+     * 标记发送成功
+     */
+    int markSent(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken);
+
+    /**
+     * 发送失败，退回待发送状态并设置下次发送时间
+     */
+    int reschedule(@Param("id") Long id,
+                   @Param("claimToken") String claimToken,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    /**
+     * 标记为最终失败，不再重试
+     */
+    int markFailed(@Param("id") Long id,
+                   @Param("claimToken") String claimToken,
+                   @Param("lastError") String lastError);
+
+    /**
+     * 租约已到期且发送次数未达上限的发送中记录退回待发送（投递进程在发送途中异常退出）
+     */
+    int releaseExpiredLeases(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 租约到期且发送次数已达上限的记录标记为失败
+     */
+    int failExpiredLeases(@Param("now") LocalDateTime now,
+                          @Param("maxAttempts") int maxAttempts,
+                          @Param("lastError") String lastError);
+
+    /**
+     * 删除发送成功时间早于指定时间的记录
+     */
+    int deleteSentBefore(@Param("sentBefore") LocalDateTime sentBefore, @Param("limit") int limit);
+}
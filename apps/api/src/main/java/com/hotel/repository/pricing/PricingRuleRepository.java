@@ -60,6 +60,21 @@ public interface PricingRuleRepository extends BaseMapper<PricingRule> {
     List<PricingRule> findByHotelIdAndRoomTypeId(@Param("hotelId") Long hotelId,
                                                  @Param("roomTypeId") Long roomTypeId);
 
+    /**
+     * 查找指定房间类型的激活规则，用于构建预编译规则表
+     * @param hotelId 酒店ID
+     * @param roomTypeId 房间类型ID
+     * @return 价格规则列表，按优先级降序排列
+     */
+    @Select("SELECT * FROM pricing_rules " +
+            "WHERE hotel_id = #{hotelId} " +
+            "AND (room_type_id = #{roomTypeId} OR room_type_id IS NULL) " +
+            "AND is_active = true " +
+            "AND deleted = 0 " +
+            "ORDER BY priority DESC, created_at DESC")
+    List<PricingRule> findActiveByHotelIdAndRoomTypeId(@Param("hotelId") Long hotelId,
+                                                       @Param("roomTypeId") Long roomTypeId);
+
     /**
      * 查找指定类型的规则
      * @param hotelId 酒店ID
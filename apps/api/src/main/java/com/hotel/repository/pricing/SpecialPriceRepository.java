@@ -43,6 +43,54 @@ public interface SpecialPriceRepository extends BaseMapper<SpecialPrice> {
     List<SpecialPrice> findByRoomTypeIdAndDate(@Param("roomTypeId") Long roomTypeId,
                                                @Param("date") LocalDate date);
 
+    /**
+     * 一次性查找房间在日期范围内的特殊价格（包括房间级和房间类型级）
+     * @param roomId 房间ID
+     * @param roomTypeId 房间类型ID
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @return 特殊价格列表，按ID升序排列
+     */
+    @Select("SELECT * FROM special_prices " +
+            "WHERE (room_id = #{roomId} OR (room_type_id = #{roomTypeId} AND room_id IS NULL)) " +
+            "AND date BETWEEN #{startDate} AND #{endDate} " +
+            "AND deleted = 0 " +
+            "ORDER BY id")
+    List<SpecialPrice> findForRoomInDateRange(@Param("roomId") Long roomId,
+                                              @Param("roomTypeId") Long roomTypeId,
+                                              @Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate);
+
+    /**
+     * 一次性查找多个房间在日期范围内的特殊价格（包括房间级和房间类型级）
+     * @param roomIds 房间ID列表
+     * @param roomTypeIds 房间类型ID列表
+     * @param startDate 开始日期（包含）
+     * @param endDate 结束日期（包含）
+     * @return 特殊价格列表，按ID升序排列
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM special_prices",
+        "WHERE (room_id IN",
+        "<foreach collection='roomIds' item='id' open='(' separator=',' close=')'>",
+        "  #{id}",
+        "</foreach>",
+        "OR (room_id IS NULL AND room_type_id IN",
+        "<foreach collection='roomTypeIds' item='id' open='(' separator=',' close=')'>",
+        "  #{id}",
+        "</foreach>",
+        "))",
+        "AND date BETWEEN #{startDate} AND #{endDate}",
+        "AND deleted = 0",
+        "ORDER BY id",
+        "</script>"
+    })
+    List<SpecialPrice> findForRoomsInDateRange(@Param("roomIds") List<Long> roomIds,
+                                               @Param("roomTypeIds") List<Long> roomTypeIds,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+
     /**
      * 查找指定酒店在日期范围内的特殊价格
      * @param hotelId 酒店ID
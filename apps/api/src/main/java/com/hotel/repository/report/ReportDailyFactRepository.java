@@ -0,0 +1,49 @@
+package com.hotel.repository.report;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotel.entity.report.ReportDailyFact;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 报表日汇总事实数据访问层
+ */
+@Mapper
+public interface ReportDailyFactRepository extends BaseMapper<ReportDailyFact> {
+
+    /**
+     * 按 (统计日期, 酒店, 房型) 累加增量，行不存在时插入
+     */
+    int upsertDeltas(@Param("facts") List<ReportDailyFact> facts);
+
+    /**
+     * 查询日期范围内的事实行
+     *
+     * @param roomTypeId 房型ID，为空时查询所有房型
+     */
+    List<ReportDailyFact> findByDateRange(@Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate,
+                                          @Param("roomTypeId") Long roomTypeId);
+
+    /**
+     * 删除日期范围内的事实行（用于对账重建）
+     */
+    int deleteByDateRange(@Param("startDate") LocalDate startDate,
+                          @Param("endDate") LocalDate endDate);
+
+    /**
+     * 从订单表重新汇总日期范围内按创建日期统计的指标
+     */
+    int insertBookingFacts(@Param("startDate") LocalDate startDate,
+                           @Param("endDate") LocalDate endDate);
+
+    /**
+     * 重新汇总 since 之后有更新、且创建于 before 之前的订单所在创建日期的指标
+     */
+    int refreshBookingFactsForUpdatedOrders(@Param("since") LocalDateTime since,
+                                            @Param("before") LocalDate before);
+}
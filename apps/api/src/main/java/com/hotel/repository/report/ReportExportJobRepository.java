@@ -0,0 +1,36 @@
+package com.hotel.repository.report;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotel.entity.report.ReportExportJob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 报表导出任务数据访问层
+ */
+@Mapper
+public interface ReportExportJobRepository extends BaseMapper<ReportExportJob> {
+
+    /**
+     * 查询参数摘要相同且仍在排队或执行中的最早任务
+     */
+    ReportExportJob findActiveByDedupKey(@Param("dedupKey") String dedupKey);
+
+    /**
+     * 将长时间未更新的排队或执行中任务标记为失败（进程重启或工作线程异常退出）
+     */
+    int failStaleJobs(@Param("updatedBefore") LocalDateTime updatedBefore,
+                      @Param("errorMessage") String errorMessage);
+
+    /**
+     * 查询结束时间早于指定时间的任务
+     *
+     * @param nodeId 只查询该实例生成文件的任务和没有文件的任务，为 null 时不限
+     */
+    List<ReportExportJob> findFinishedBefore(@Param("finishedBefore") LocalDateTime finishedBefore,
+                                             @Param("nodeId") String nodeId,
+                                             @Param("limit") int limit);
+}
@@ -9,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -42,13 +43,25 @@ public class CustomUserDetails implements UserDetails {
         this.authorities = buildAuthorities(user.getRole());
     }
 
+    /**
+     * 由 JWT 声明构建用户详情，不访问数据库
+     * 令牌中没有邮箱、手机号和密码，对应字段为空
+     */
+    public static CustomUserDetails fromClaims(Long userId, String username, String roleCode) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setRole(roleCode);
+        user.setStatus("ACTIVE");
+        return new CustomUserDetails(user);
+    }
+
     /**
      * 根据用户角色构建权限列表
      */
     private Collection<? extends GrantedAuthority> buildAuthorities(String roleCode) {
-        List<GrantedAuthority> authorities = Arrays.asList(
-                new SimpleGrantedAuthority("ROLE_" + roleCode)
-        );
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + roleCode));
 
         // 根据角色添加具体权限
         if (Role.ADMIN.getCode().equals(roleCode)) {
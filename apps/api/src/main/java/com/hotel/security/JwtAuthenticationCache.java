@@ -0,0 +1,208 @@
+package com.hotel.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hotel.service.UserDetailsServiceImpl;
+import com.hotel.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证 JWT 的本地缓存
+ *
+ * 令牌首次出现时验签并解析一次，由声明中的用户ID、用户名和角色构建用户详情，
+ * 以令牌的 SHA-256 摘要为键缓存到令牌过期，但不超过最大缓存时间；命中时不再解析令牌，也不访问数据库。
+ *
+ * 用户的角色或状态变更、被删除时在 Redis 中写入吊销时间并通过 pub/sub 广播，各节点清理该用户的缓存条目，
+ * 之后未命中缓存的令牌在验签后与吊销时间比较，签发早于吊销时间的令牌被拒绝，重新登录后签发的令牌不受影响。
+ * 广播丢失时，已缓存的条目最迟在最大缓存时间后失效。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationCache implements MessageListener {
+
+    static final String REVOKED_KEY_PREFIX = "auth:revoked:user:";
+
+    private final JwtUtil jwtUtil;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${hotel.jwt-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${hotel.jwt-cache.max-ttl:300s}")
+    private Duration maxTtl;
+
+    @Value("${hotel.jwt-cache.revocation-channel:auth:revocation}")
+    private String revocationChannel;
+
+    /**
+     * 吊销标记的保留时间，不短于令牌的最长有效期
+     */
+    @Value("${jwt.refresh-expiration:604800}")
+    private long revocationTtlSeconds;
+
+    private Cache<String, CachedToken> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(revocationChannel));
+    }
+
+    /**
+     * 验证令牌并返回用户详情
+     *
+     * @return 用户详情，用户已被吊销时返回 null
+     * @throws IllegalArgumentException 令牌无效或已过期
+     */
+    public CustomUserDetails authenticate(String token) {
+        String key = hash(token);
+        CachedToken cached = cache.getIfPresent(key);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached.principal;
+        }
+
+        JwtUtil.TokenInfo info = jwtUtil.parseToken(token);
+        if (info.getUserId() == null || info.getRole() == null) {
+            throw new IllegalArgumentException("令牌缺少用户声明");
+        }
+        if (isRevoked(info)) {
+            return null;
+        }
+        CustomUserDetails principal = CustomUserDetails.fromClaims(info.getUserId(), info.getUsername(), info.getRole());
+        cache.put(key, new CachedToken(principal, info.getExpiration().getTime()));
+        return principal;
+    }
+
+    /**
+     * 吊销用户在此之前签发的全部令牌，用户角色或状态变更、被删除时调用
+     */
+    public void revokeUser(Long userId) {
+        // 先写标记再清理缓存，清理后的请求一定能看到标记
+        stringRedisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + userId,
+                String.valueOf(System.currentTimeMillis()), Duration.ofSeconds(revocationTtlSeconds));
+        evictUser(userId);
+        try {
+            stringRedisTemplate.convertAndSend(revocationChannel, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("发布令牌吊销消息失败: userId={}", userId, e);
+        }
+        log.info("已吊销用户令牌: userId={}", userId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            evictUser(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略无效的令牌吊销消息: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    // 私有辅助方法
+
+    /**
+     * 吊销较少发生，直接遍历缓存清理
+     */
+    private void evictUser(Long userId) {
+        cache.asMap().values().removeIf(cached -> userId.equals(cached.principal.getId()));
+    }
+
+    /**
+     * 令牌签发时间早于吊销时间即视为已吊销。iat 只精确到秒，与吊销同一秒内签发的令牌也会被拒绝，需重新登录。
+     * Redis 不可用时按数据库中的用户状态判断
+     */
+    private boolean isRevoked(JwtUtil.TokenInfo info) {
+        String revokedAt;
+        try {
+            revokedAt = stringRedisTemplate.opsForValue().get(REVOKED_KEY_PREFIX + info.getUserId());
+        } catch (Exception e) {
+            log.warn("检查令牌吊销标记失败，改为查询用户状态: {}", e.getMessage());
+            try {
+                return !userDetailsService.loadUserByUsername(info.getUsername()).isEnabled();
+            } catch (UsernameNotFoundException notFound) {
+                return true;
+            }
+        }
+        if (revokedAt == null) {
+            return false;
+        }
+        try {
+            return info.getIssuedAt() == null || info.getIssuedAt().getTime() < Long.parseLong(revokedAt);
+        } catch (NumberFormatException e) {
+            log.warn("吊销标记格式无效，按已吊销处理: userId={}, value={}", info.getUserId(), revokedAt);
+            return true;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedToken {
+
+        private final CustomUserDetails principal;
+        private final long expiresAt;
+
+        private CachedToken(CustomUserDetails principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 条目在令牌过期时失效，且不超过最大缓存时间
+     */
+    private static final class TokenExpiry implements Expiry<String, CachedToken> {
+
+        private final long maxTtlNanos;
+
+        private TokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(value.expiresAt - System.currentTimeMillis());
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
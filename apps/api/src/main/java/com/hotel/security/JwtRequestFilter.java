@@ -1,26 +1,23 @@
 package com.hotel.security;
 
-import com.hotel.service.UserDetailsServiceImpl;
-import com.hotel.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
  * JWT请求过滤器
- * 验证JWT令牌并设置认证信息
+ * 验证JWT令牌并设置认证信息，已验证的令牌由 {@link JwtAuthenticationCache} 缓存
  */
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -28,10 +25,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
-
-    @Autowired
-    private JwtUtil jwtUtil;
+    private JwtAuthenticationCache jwtAuthenticationCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -39,30 +33,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-
-        // 检查Authorization头是否包含Bearer token
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.getUsernameFromToken(jwt);
-            } catch (Exception e) {
-                logger.warn("JWT令牌解析失败: {}", e.getMessage());
-                // 继续执行过滤器链，让认证入口点处理错误
-                chain.doFilter(request, response);
-                return;
-            }
-        }
-
-        // 如果从token中提取了用户名且当前没有认证信息
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // 检查Authorization头是否包含Bearer token，且当前没有认证信息
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
             try {
-                // 验证令牌是否有效
-                if (jwtUtil.validateToken(jwt, username)) {
-                    // 加载用户详情
-                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
+                // 已验证的令牌直接从缓存取得用户详情
+                CustomUserDetails userDetails = jwtAuthenticationCache.authenticate(jwt);
+                if (userDetails != null) {
                     // 创建认证令牌
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(
@@ -72,12 +50,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                     // 设置认证信息到安全上下文
                     SecurityContextHolder.getContext().setAuthentication(authenticationToken);
 
-                    logger.debug("用户 {} 认证成功", username);
+                    logger.debug("用户 {} 认证成功", userDetails.getUsername());
                 } else {
-                    logger.warn("JWT令牌验证失败: {}", username);
+                    logger.warn("JWT令牌已被吊销");
                 }
             } catch (Exception e) {
-                logger.error("用户认证过程中发生错误: {}", e.getMessage());
+                logger.warn("JWT令牌解析失败: {}", e.getMessage());
                 // 继续执行过滤器链，让认证入口点处理错误
             }
         }
@@ -5,6 +5,7 @@ import com.hotel.entity.BookingConflict;
 import com.hotel.entity.WaitingList;
 import com.hotel.repository.BookingConflictRepository;
 import com.hotel.repository.WaitingListRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -38,35 +39,32 @@ public class BookingConflictCacheService {
     private final BookingConflictRepository bookingConflictRepository;
     private final WaitingListRepository waitingListRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
 
     // 缓存键前缀
-    private static final String CACHE_PREFIX_ROOM_AVAILABILITY = "room:availability:";
     private static final String CACHE_PREFIX_WAITING_LIST = "waiting:list:";
     private static final String CACHE_PREFIX_CONFLICT_STATISTICS = "conflict:stats:";
     private static final String CACHE_PREFIX_ALTERNATIVE_ROOMS = "alternative:rooms:";
 
     // 缓存过期时间
-    private static final Duration ROOM_AVAILABILITY_TTL = Duration.ofMinutes(5);
     private static final Duration WAITING_LIST_TTL = Duration.ofMinutes(2);
     private static final Duration STATISTICS_TTL = Duration.ofHours(1);
     private static final Duration ALTERNATIVE_ROOMS_TTL = Duration.ofMinutes(10);
 
     /**
-     * 检查房间可用性（带缓存）
+     * 检查房间可用性
+     * 由内存中的房间占用索引判定，不再按日期组合缓存结果；索引未就绪时回退到数据库查询
      */
-    @Cacheable(
-        value = "roomAvailability",
-        key = T(com.hotel.util.CacheKeyGenerator).generateRoomAvailabilityKey(#roomId, #checkInDate, #checkOutDate),
-        unless = "#result == null"
-    )
     public Boolean checkRoomAvailability(Long roomId, LocalDateTime checkInDate, LocalDateTime checkOutDate) {
         log.debug("检查房间可用性，房间ID: {}, 日期: {} - {}", roomId, checkInDate, checkOutDate);
 
-        List<Long> conflictingOrders = bookingConflictRepository.findConflictingOrders(
-            roomId, checkInDate, checkOutDate
-        );
+        boolean isAvailable;
+        if (roomAvailabilityIndex.isReady()) {
+            isAvailable = !roomAvailabilityIndex.hasConflict(roomId, checkInDate.toLocalDate(), checkOutDate.toLocalDate());
+        } else {
+            isAvailable = bookingConflictRepository.findConflictingOrders(roomId, checkInDate, checkOutDate).isEmpty();
+        }
 
-        boolean isAvailable = conflictingOrders.isEmpty();
         log.debug("房间 {} 可用性检查结果: {}", roomId, isAvailable);
         return isAvailable;
     }
@@ -193,42 +191,6 @@ public class BookingConflictCacheService {
         return waitingListRepository.getWaitingListPosition(roomId, userId, checkInDate);
     }
 
-    /**
-     * 预热热点房间可用性缓存
-     */
-    @Scheduled(fixedRate = 300000) // 每5分钟执行一次
-    public void warmUpRoomAvailabilityCache() {
-        log.debug("开始预热房间可用性缓存");
-
-        try {
-            // 获取热点房间ID列表（最近7天内查询频率最高的房间）
-            List<Long> hotRoomIds = bookingConflictRepository.findHotRoomIds(LocalDateTime.now().minusDays(7));
-
-            for (Long roomId : hotRoomIds) {
-                // 预热未来7天的可用性
-                LocalDateTime baseDate = LocalDateTime.now();
-                for (int i = 0; i < 7; i++) {
-                    LocalDateTime checkIn = baseDate.plusDays(i);
-                    LocalDateTime checkOut = checkIn.plusDays(1);
-
-                    String cacheKey = generateRoomAvailabilityCacheKey(roomId, checkIn, checkOut);
-
-                    // 如果缓存中不存在，则查询并缓存
-                    if (!redisTemplate.hasKey(cacheKey)) {
-                        Boolean availability = checkRoomAvailability(roomId, checkIn, checkOut);
-                        if (availability != null) {
-                            redisTemplate.opsForValue().set(cacheKey, availability, ROOM_AVAILABILITY_TTL);
-                        }
-                    }
-                }
-            }
-
-            log.debug("房间可用性缓存预热完成，处理房间数量: {}", hotRoomIds.size());
-        } catch (Exception e) {
-            log.error("预热房间可用性缓存失败", e);
-        }
-    }
-
     /**
      * 清理过期缓存
      */
@@ -251,16 +213,12 @@ public class BookingConflictCacheService {
      * 失效相关缓存
      */
     @Caching(evict = {
-        @CacheEvict(value = "roomAvailability", allEntries = true),
         @CacheEvict(value = "userWaitingList", allEntries = true),
         @CacheEvict(value = "conflictStatistics", allEntries = true)
     })
     public void evictRelatedCache(Long roomId, Long userId) {
         log.debug("清理相关缓存，房间ID: {}, 用户ID: {}", roomId, userId);
 
-        // 清理特定房间的可用性缓存
-        evictRoomAvailabilityCache(roomId);
-
         // 清理特定用户的等待列表缓存
         evictUserWaitingListCache(userId);
     }
@@ -307,16 +265,6 @@ public class BookingConflictCacheService {
 
     // 私有辅助方法
 
-    private String generateRoomAvailabilityCacheKey(Long roomId, LocalDateTime checkIn, LocalDateTime checkOut) {
-        return CACHE_PREFIX_ROOM_AVAILABILITY + roomId + ":" +
-               checkIn.toLocalDate() + ":" + checkOut.toLocalDate();
-    }
-
-    private void evictRoomAvailabilityCache(Long roomId) {
-        String pattern = CACHE_PREFIX_ROOM_AVAILABILITY + roomId + ":*";
-        redisTemplate.delete(redisTemplate.keys(pattern));
-    }
-
     private void evictUserWaitingListCache(Long userId) {
         String pattern = CACHE_PREFIX_WAITING_LIST + "user:" + userId + ":*";
         redisTemplate.delete(redisTemplate.keys(pattern));
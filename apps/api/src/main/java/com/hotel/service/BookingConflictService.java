@@ -14,6 +14,9 @@ import com.hotel.repository.WaitingListRepository;
 import com.hotel.repository.OrderRepository;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.UserRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
+import com.hotel.service.booking.BookingAdmissionService;
+import com.hotel.service.report.ReportFactService;
 import com.hotel.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +26,7 @@ import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.Comparator;
@@ -41,6 +45,9 @@ public class BookingConflictService {
     private final NotificationService notificationService;
     private final RoomStatusService roomStatusService;
     private final ApplicationEventPublisher eventPublisher;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final ReportFactService reportFactService;
 
     /**
      * 检测预订冲突
@@ -54,13 +61,24 @@ public class BookingConflictService {
             throw new RuntimeException("房间不存在");
         }
 
-        // 检查时间重叠的订单
-        List<Order> conflictingOrders = orderRepository.findConflictingOrders(
-                request.getRoomId(),
-                request.getCheckInDate().toLocalDate(),
-                request.getCheckOutDate().toLocalDate(),
-                "CONFIRMED"
-        );
+        // 检查时间重叠的订单：索引就绪时由内存区间树判定，仅在存在冲突时按ID加载订单
+        List<Order> conflictingOrders;
+        if (roomAvailabilityIndex.isReady()) {
+            List<Long> conflictingOrderIds = roomAvailabilityIndex.findConflictingOrderIds(
+                    request.getRoomId(),
+                    request.getCheckInDate().toLocalDate(),
+                    request.getCheckOutDate().toLocalDate()
+            );
+            conflictingOrders = conflictingOrderIds.isEmpty()
+                    ? Collections.emptyList()
+                    : orderRepository.selectBatchIds(conflictingOrderIds);
+        } else {
+            conflictingOrders = orderRepository.findConflictingOrders(
+                    request.getRoomId(),
+                    request.getCheckInDate().toLocalDate(),
+                    request.getCheckOutDate().toLocalDate()
+            );
+        }
 
         if (conflictingOrders.isEmpty()) {
             return ConflictDetectionResult.builder()
@@ -209,7 +227,20 @@ public class BookingConflictService {
         order.setGuestCount(waitingList.getGuestCount());
         order.setStatus("CONFIRMED");
 
+        if (!bookingAdmissionService.tryAdmit(order.getRoomId(), order.getCheckInDate(), order.getCheckOutDate())) {
+            throw new RuntimeException("房间时间段已被预订");
+        }
+
+        // 锁定房间行后以订单表为准再次判定，内存索引可能落后于其他节点的写入
+        roomRepository.lockById(order.getRoomId());
+        if (!orderRepository.findConflictingOrders(
+                order.getRoomId(), order.getCheckInDate(), order.getCheckOutDate()).isEmpty()) {
+            throw new RuntimeException("房间时间段已被预订");
+        }
+
         orderRepository.insert(order);
+        roomAvailabilityIndex.onOrderConfirmed(order);
+        reportFactService.onOrderCreated(order);
 
         // 更新等待列表状态
         waitingListRepository.updateStatusToConfirmed(waitingListId, order.getId());
@@ -317,11 +348,13 @@ public class BookingConflictService {
     }
 
     private boolean isTimeSlotAvailable(Long roomId, LocalDateTime checkInDate, LocalDateTime checkOutDate) {
+        if (roomAvailabilityIndex.isReady()) {
+            return !roomAvailabilityIndex.hasConflict(roomId, checkInDate.toLocalDate(), checkOutDate.toLocalDate());
+        }
         List<Order> conflicts = orderRepository.findConflictingOrders(
                 roomId,
                 checkInDate.toLocalDate(),
-                checkOutDate.toLocalDate(),
-                "CONFIRMED"
+                checkOutDate.toLocalDate()
         );
         return conflicts.isEmpty();
     }
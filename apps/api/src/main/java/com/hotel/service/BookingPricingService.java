@@ -8,6 +8,7 @@ import com.hotel.entity.RoomType;
 import com.hotel.repository.CouponRepository;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.RoomTypeRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -57,6 +58,7 @@ public class BookingPricingService {
      * @param request 价格计算请求
      * @return 价格明细
      */
+    @Timed("hotel.pricing.booking")
     @Cacheable(value = "booking-pricing", key = "#request.hashCode()", unless = "#result == null")
     public PriceBreakdown calculatePrice(PricingRequest request) {
         log.debug("计算预订价格: roomId={}, checkIn={}, checkOut={}, guestCount={}, couponCode={}",
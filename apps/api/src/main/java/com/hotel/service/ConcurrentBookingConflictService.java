@@ -6,6 +6,9 @@ import com.hotel.entity.WaitingList;
 import com.hotel.repository.BookingConflictRepository;
 import com.hotel.repository.WaitingListRepository;
 import com.hotel.repository.OrderRepository;
+import com.hotel.service.booking.BookingAdmissionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
@@ -22,7 +25,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 并发安全的预订冲突处理服务
- * 使用分布式锁确保高并发场景下的数据一致性
+ * 冲突检测以数据库为准；可用性检查读取房间占用索引和本节点未结束事务的占位，无锁，
+ * 其他节点的变更经 Redis 通知后重新加载，可能短暂落后；入住区间均按 [入住日, 退房日) 计算；
+ * 等待列表确认和优先级更新使用分布式锁确保数据一致性
  *
  * @author System
  * @since 1.0
@@ -37,50 +42,28 @@ public class ConcurrentBookingConflictService {
     private final OrderRepository orderRepository;
     private final NotificationService notificationService;
     private final RedissonClient redissonClient;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final MeterRegistry meterRegistry;
 
     // 锁的超时时间（秒）
     private static final long LOCK_TIMEOUT_SECONDS = 30;
     // 尝试获取锁的等待时间（秒）
     private static final long LOCK_WAIT_TIME_SECONDS = 5;
 
+    // 锁指标标签
+    private static final String CONFIRM_WAITING_LOCK = "confirm_waiting";
+    private static final String UPDATE_PRIORITIES_LOCK = "update_priorities";
+
     /**
      * 并发安全的冲突检测
-     * 使用分布式锁确保同一房间的冲突检测原子性
+     * 准入服务的占用快照只是本节点的缓存，可能缺少其他节点刚写入的订单，
+     * 因此冲突结论直接查询数据库得出，不加锁
      */
     @Transactional
     public ConflictDetectionResult detectConflictConcurrently(DetectConflictRequest request) {
-        String lockKey = String.format("conflict_detect:room:%d:dates:%s_%s",
-                request.getRoomId(),
-                request.getCheckInDate().toLocalDate(),
-                request.getCheckOutDate().toLocalDate());
-
-        RLock lock = redissonClient.getLock(lockKey);
-
-        try {
-            // 尝试获取分布式锁
-            boolean acquired = lock.tryLock(LOCK_WAIT_TIME_SECONDS, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            if (!acquired) {
-                log.warn("获取冲突检测锁失败，房间ID: {}, 用户ID: {}", request.getRoomId(), request.getUserId());
-                throw new RuntimeException("系统繁忙，请稍后重试");
-            }
-
-            log.info("获取冲突检测锁成功，房间ID: {}, 用户ID: {}", request.getRoomId(), request.getUserId());
+        validateConflictRequest(request);
 
-            try {
-                // 执行冲突检测逻辑
-                return performConflictDetection(request);
-            } finally {
-                // 确保锁被释放
-                if (lock.isHeldByCurrentThread()) {
-                    lock.unlock();
-                    log.info("释放冲突检测锁，房间ID: {}, 用户ID: {}", request.getRoomId(), request.getUserId());
-                }
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("冲突检测锁获取被中断", e);
-            throw new RuntimeException("检测过程中断，请重试");
-        }
+        return performConflictDetection(request);
     }
 
     /**
@@ -96,7 +79,9 @@ public class ConcurrentBookingConflictService {
 
         try {
             // 尝试获取分布式锁
+            long waitStart = System.nanoTime();
             boolean acquired = lock.tryLock(LOCK_WAIT_TIME_SECONDS, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            recordLockWait(CONFIRM_WAITING_LOCK, acquired, waitStart);
             if (!acquired) {
                 log.warn("获取等待列表确认锁失败，等待列表ID: {}", request.getWaitingListId());
                 throw new RuntimeException("系统繁忙，请稍后重试");
@@ -104,6 +89,7 @@ public class ConcurrentBookingConflictService {
 
             log.info("获取等待列表确认锁成功，等待列表ID: {}", request.getWaitingListId());
 
+            long holdStart = System.nanoTime();
             try {
                 return performWaitingListConfirmation(request);
             } finally {
@@ -112,6 +98,7 @@ public class ConcurrentBookingConflictService {
                     lock.unlock();
                     log.info("释放等待列表确认锁，等待列表ID: {}", request.getWaitingListId());
                 }
+                recordLockHold(CONFIRM_WAITING_LOCK, holdStart);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -122,35 +109,12 @@ public class ConcurrentBookingConflictService {
 
     /**
      * 并发安全的房间可用性检查
-     * 使用分布式锁确保可用性检查的原子性
+     * 读取房间占用索引和分片准入服务的占位，退房当天视为空闲，无需加锁；结果仅用于展示，
+     * 实际预订时在事务内锁定房间行并以订单表为准判定
      */
     @Transactional(readOnly = true)
     public boolean checkRoomAvailabilityConcurrently(Long roomId, LocalDateTime checkIn, LocalDateTime checkOut) {
-        String lockKey = String.format("room_availability:room:%d", roomId);
-
-        RLock lock = redissonClient.getLock(lockKey);
-
-        try {
-            // 尝试获取分布式锁，使用较短的等待时间
-            boolean acquired = lock.tryLock(1, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            if (!acquired) {
-                log.warn("获取房间可用性检查锁失败，房间ID: {}", roomId);
-                // 可用性检查失败时，保守返回false
-                return false;
-            }
-
-            try {
-                return performRoomAvailabilityCheck(roomId, checkIn, checkOut);
-            } finally {
-                if (lock.isHeldByCurrentThread()) {
-                    lock.unlock();
-                }
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("房间可用性检查锁获取被中断", e);
-            return false;
-        }
+        return bookingAdmissionService.isAvailable(roomId, checkIn.toLocalDate(), checkOut.toLocalDate());
     }
 
     /**
@@ -163,18 +127,22 @@ public class ConcurrentBookingConflictService {
         RLock lock = redissonClient.getLock(lockKey);
 
         try {
+            long waitStart = System.nanoTime();
             boolean acquired = lock.tryLock(LOCK_WAIT_TIME_SECONDS, LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            recordLockWait(UPDATE_PRIORITIES_LOCK, acquired, waitStart);
             if (!acquired) {
                 log.warn("获取优先级更新锁失败，房间ID: {}", roomId);
                 return; // 优先级更新失败不是关键错误
             }
 
+            long holdStart = System.nanoTime();
             try {
                 performPriorityUpdate(roomId);
             } finally {
                 if (lock.isHeldByCurrentThread()) {
                     lock.unlock();
                 }
+                recordLockHold(UPDATE_PRIORITIES_LOCK, holdStart);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -186,8 +154,6 @@ public class ConcurrentBookingConflictService {
      * 执行实际的冲突检测逻辑
      */
     private ConflictDetectionResult performConflictDetection(DetectConflictRequest request) {
-        validateConflictRequest(request);
-
         // 查询冲突订单
         List<Long> conflictingOrderIds = bookingConflictRepository.findConflictingOrders(
                 request.getRoomId(),
@@ -346,4 +312,25 @@ public class ConcurrentBookingConflictService {
             log.warn("强制释放锁: {}", lockKey);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 记录获取分布式锁的等待时间，按是否获取成功区分
+     */
+    private void recordLockWait(String lockName, boolean acquired, long startNanos) {
+        Timer.builder("hotel.lock.wait")
+                .tag("lock", lockName)
+                .tag("result", acquired ? "acquired" : "timeout")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录分布式锁的持有时间
+     */
+    private void recordLockHold(String lockName, long startNanos) {
+        Timer.builder("hotel.lock.hold")
+                .tag("lock", lockName)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
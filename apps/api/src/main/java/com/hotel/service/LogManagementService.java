@@ -10,27 +10,49 @@ import com.hotel.entity.log.OperationLog;
 import com.hotel.repository.log.ErrorLogRepository;
 import com.hotel.repository.log.LoginLogRepository;
 import com.hotel.repository.log.OperationLogRepository;
+import com.hotel.service.log.LogArchiveStore;
+import com.hotel.service.log.LogSearchIndex;
+import com.hotel.service.log.LogTable;
+import com.hotel.util.StreamingExporter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  * 日志管理服务类
+ *
+ * 日志表按月分区，查询带时间条件时只扫描范围内的分区。过期分区归档后从数据库删除，
+ * 查询和导出在归档边界处拆分时间范围：边界之前的部分从归档文件读取，之后的部分查询数据库，两部分按创建时间拼接。
+ * 未指定开始时间时下限为归档边界，需要查询归档月份时须指定开始时间。
+ * 操作日志和错误日志按用户名、IP 等文本条件查询时使用全文索引，索引不可用时使用数据库查询。
  */
 @Service
 @Slf4j
 public class LogManagementService {
 
+    /**
+     * 未指定时的最大导出记录数
+     */
+    private static final int DEFAULT_MAX_EXPORT_RECORDS = 10000;
+
     @Autowired
     private OperationLogRepository operationLogRepository;
 
@@ -40,11 +62,37 @@ public class LogManagementService {
     @Autowired
     private ErrorLogRepository errorLogRepository;
 
+    @Autowired
+    private StreamingExporter streamingExporter;
+
+    @Autowired
+    private LogArchiveStore logArchiveStore;
+
+    @Autowired
+    private LogSearchIndex logSearchIndex;
+
     /**
      * 获取操作日志分页数据
      */
     public IPage<OperationLog> getOperationLogs(LogSearchRequest request) {
         log.debug("查询操作日志，参数: {}", request);
+        return search(LogTable.OPERATION, OperationLog.class, LogManagementService::operationLogFilter,
+                request, this::searchOperationLogs);
+    }
+
+    private IPage<OperationLog> searchOperationLogs(LogSearchRequest request) {
+        if (hasText(request.getUsername()) || hasText(request.getOperation()) || hasText(request.getIp())) {
+            IPage<OperationLog> indexed = searchIndex(LogTable.OPERATION, new LogSearchIndex.Criteria()
+                            .prefix("username", request.getUsername())
+                            .text("operation", request.getOperation())
+                            .prefix("ip", request.getIp())
+                            .term("status", request.getStatus())
+                            .between(request.getStartTime(), request.getEndTime()),
+                    request, operationLogRepository::selectBatchIds, OperationLog::getId);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
 
         Page<OperationLog> page = new Page<>(request.getPage(), request.getSize());
 
@@ -69,7 +117,11 @@ public class LogManagementService {
      */
     public IPage<LoginLog> getLoginLogs(LogSearchRequest request) {
         log.debug("查询登录日志，参数: {}", request);
+        return search(LogTable.LOGIN, LoginLog.class, LogManagementService::loginLogFilter,
+                request, this::searchLoginLogs);
+    }
 
+    private IPage<LoginLog> searchLoginLogs(LogSearchRequest request) {
         Page<LoginLog> page = new Page<>(request.getPage(), request.getSize());
 
         IPage<LoginLog> result = loginLogRepository.searchLogs(
@@ -93,6 +145,23 @@ public class LogManagementService {
      */
     public IPage<ErrorLog> getErrorLogs(LogSearchRequest request) {
         log.debug("查询错误日志，参数: {}", request);
+        return search(LogTable.ERROR, ErrorLog.class, LogManagementService::errorLogFilter,
+                request, this::searchErrorLogs);
+    }
+
+    private IPage<ErrorLog> searchErrorLogs(LogSearchRequest request) {
+        if (hasText(request.getUsername()) || hasText(request.getModule()) || hasText(request.getIp())) {
+            IPage<ErrorLog> indexed = searchIndex(LogTable.ERROR, new LogSearchIndex.Criteria()
+                            .prefix("username", request.getUsername())
+                            .prefix("module", request.getModule())
+                            .prefix("ip", request.getIp())
+                            .term("level", request.getLevel())
+                            .between(request.getStartTime(), request.getEndTime()),
+                    request, errorLogRepository::selectBatchIds, ErrorLog::getId);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
 
         Page<ErrorLog> page = new Page<>(request.getPage(), request.getSize());
 
@@ -113,370 +182,355 @@ public class LogManagementService {
     }
 
     /**
-     * 导出日志数据
+     * 校验导出请求，在开始写出响应前调用
+     *
+     * @throws IllegalArgumentException 日志类型或导出格式不支持
+     */
+    public void validateExportRequest(LogExportRequest request) {
+        StreamingExporter.Format.of(request.getExportFormat());
+        String logType = request.getLogType() != null ? request.getLogType().toLowerCase() : "";
+        if (!"operation".equals(logType) && !"login".equals(logType) && !"error".equals(logType)) {
+            throw new IllegalArgumentException("不支持的日志类型: " + request.getLogType());
+        }
+    }
+
+    /**
+     * 导出日志数据，直接写入输出流
+     *
+     * 通过数据库游标按主键倒序逐行读取并写出；范围跨越归档边界时，数据库记录之后按创建时间倒序接上归档记录，
+     * 归档部分最多在内存中保留剩余额度的记录。导出顺序固定为最新记录在前，忽略排序参数。
+     *
+     * @param out 输出流，由调用方关闭
      */
     @Transactional(readOnly = true)
-    public byte[] exportLogs(LogExportRequest request) throws IOException {
+    public void exportLogs(LogExportRequest request, OutputStream out) throws IOException {
         log.info("导出日志数据，类型: {}, 格式: {}", request.getLogType(), request.getExportFormat());
+        validateExportRequest(request);
 
         LogSearchRequest searchRequest = convertToSearchRequest(request);
+        StreamingExporter.Format format = StreamingExporter.Format.of(request.getExportFormat());
+        boolean gzip = Boolean.TRUE.equals(request.getGzip());
+        boolean includeSensitive = Boolean.TRUE.equals(request.getIncludeSensitiveInfo());
+        int maxRecords = request.getMaxRecords() != null ? request.getMaxRecords() : DEFAULT_MAX_EXPORT_RECORDS;
 
+        long exported;
         switch (request.getLogType().toLowerCase()) {
             case "operation":
-                return exportOperationLogs(searchRequest, request.getExportFormat(), request.isIncludeSensitiveInfo());
+                exported = exportRows(LogTable.OPERATION, OperationLog.class, LogManagementService::operationLogFilter,
+                        searchRequest, maxRecords,
+                        live -> operationLogRepository.streamExport(live.getUsername(), live.getOperation(),
+                                live.getStartTime(), live.getEndTime(), live.getIp(), live.getStatus(), maxRecords),
+                        rows -> streamingExporter.export(rows, operationLogColumns(includeSensitive),
+                                format, gzip, "操作日志", out));
+                break;
             case "login":
-                return exportLoginLogs(searchRequest, request.getExportFormat(), request.isIncludeSensitiveInfo());
-            case "error":
-                return exportErrorLogs(searchRequest, request.getExportFormat(), request.isIncludeSensitiveInfo());
+                exported = exportRows(LogTable.LOGIN, LoginLog.class, LogManagementService::loginLogFilter,
+                        searchRequest, maxRecords,
+                        live -> loginLogRepository.streamExport(live.getUsername(), live.getLoginType(),
+                                live.getStartTime(), live.getEndTime(), live.getIp(), live.getStatus(), maxRecords),
+                        rows -> streamingExporter.export(rows, loginLogColumns(includeSensitive),
+                                format, gzip, "登录日志", out));
+                break;
             default:
-                throw new IllegalArgumentException("不支持的日志类型: " + request.getLogType());
+                exported = exportRows(LogTable.ERROR, ErrorLog.class, LogManagementService::errorLogFilter,
+                        searchRequest, maxRecords,
+                        live -> errorLogRepository.streamExport(live.getUsername(), live.getLevel(), live.getModule(),
+                                live.getStartTime(), live.getEndTime(), live.getIp(), maxRecords),
+                        rows -> streamingExporter.export(rows, errorLogColumns(includeSensitive),
+                                format, gzip, "错误日志", out));
+                break;
         }
+
+        log.info("导出日志完成，类型: {}, 共 {} 条记录", request.getLogType(), exported);
     }
 
     /**
-     * 导出操作日志
+     * 操作日志导出列，敏感列追加在末尾
      */
-    private byte[] exportOperationLogs(LogSearchRequest request, String format, boolean includeSensitive) throws IOException {
-        // 设置大的页面大小以获取所有数据
-        request.setSize(request.getMaxRecords());
-        request.setPage(0);
-
-        IPage<OperationLog> logs = getOperationLogs(request);
-
-        if ("csv".equalsIgnoreCase(format)) {
-            return exportOperationLogsToCSV(logs.getRecords(), includeSensitive);
-        } else {
-            return exportOperationLogsToExcel(logs.getRecords(), includeSensitive);
+    private List<StreamingExporter.Column<OperationLog>> operationLogColumns(boolean includeSensitive) {
+        List<StreamingExporter.Column<OperationLog>> columns = new ArrayList<>(Arrays.asList(
+                StreamingExporter.Column.of("id", "ID", OperationLog::getId),
+                StreamingExporter.Column.of("username", "用户名", OperationLog::getUsername),
+                StreamingExporter.Column.of("operation", "操作", OperationLog::getOperation),
+                StreamingExporter.Column.of("method", "方法", OperationLog::getMethod),
+                StreamingExporter.Column.of("ip", "IP", OperationLog::getIp),
+                StreamingExporter.Column.of("time", "执行时长(ms)", OperationLog::getTime),
+                StreamingExporter.Column.of("status", "状态", OperationLog::getStatus),
+                StreamingExporter.Column.of("createTime", "创建时间", OperationLog::getCreateTime)));
+        if (includeSensitive) {
+            columns.add(StreamingExporter.Column.of("params", "请求参数", OperationLog::getParams));
+            columns.add(StreamingExporter.Column.of("userAgent", "用户代理", OperationLog::getUserAgent));
+            columns.add(StreamingExporter.Column.of("errorMessage", "错误信息", OperationLog::getErrorMessage));
         }
+        return columns;
     }
 
     /**
-     * 导出登录日志
+     * 登录日志导出列，敏感列追加在末尾
      */
-    private byte[] exportLoginLogs(LogSearchRequest request, String format, boolean includeSensitive) throws IOException {
-        request.setSize(request.getMaxRecords());
-        request.setPage(0);
-
-        IPage<LoginLog> logs = getLoginLogs(request);
-
-        if ("csv".equalsIgnoreCase(format)) {
-            return exportLoginLogsToCSV(logs.getRecords(), includeSensitive);
-        } else {
-            return exportLoginLogsToExcel(logs.getRecords(), includeSensitive);
+    private List<StreamingExporter.Column<LoginLog>> loginLogColumns(boolean includeSensitive) {
+        List<StreamingExporter.Column<LoginLog>> columns = new ArrayList<>(Arrays.asList(
+                StreamingExporter.Column.of("id", "ID", LoginLog::getId),
+                StreamingExporter.Column.of("username", "用户名", LoginLog::getUsername),
+                StreamingExporter.Column.of("loginType", "登录类型", LoginLog::getLoginType),
+                StreamingExporter.Column.of("ip", "IP", LoginLog::getIp),
+                StreamingExporter.Column.of("location", "地理位置", LoginLog::getLocation),
+                StreamingExporter.Column.of("browser", "浏览器", LoginLog::getBrowser),
+                StreamingExporter.Column.of("status", "状态", LoginLog::getStatus),
+                StreamingExporter.Column.of("message", "消息", LoginLog::getMessage),
+                StreamingExporter.Column.of("createTime", "创建时间", LoginLog::getCreateTime)));
+        if (includeSensitive) {
+            columns.add(StreamingExporter.Column.of("os", "操作系统", LoginLog::getOs));
+            columns.add(StreamingExporter.Column.of("userAgent", "用户代理", LoginLog::getUserAgent));
+            columns.add(StreamingExporter.Column.of("sessionId", "会话ID", LoginLog::getSessionId));
         }
+        return columns;
     }
 
     /**
-     * 导出错误日志
+     * 错误日志导出列，敏感列追加在末尾
      */
-    private byte[] exportErrorLogs(LogSearchRequest request, String format, boolean includeSensitive) throws IOException {
-        request.setSize(request.getMaxRecords());
-        request.setPage(0);
-
-        IPage<ErrorLog> logs = getErrorLogs(request);
-
-        if ("csv".equalsIgnoreCase(format)) {
-            return exportErrorLogsToCSV(logs.getRecords(), includeSensitive);
-        } else {
-            return exportErrorLogsToExcel(logs.getRecords(), includeSensitive);
+    private List<StreamingExporter.Column<ErrorLog>> errorLogColumns(boolean includeSensitive) {
+        List<StreamingExporter.Column<ErrorLog>> columns = new ArrayList<>(Arrays.asList(
+                StreamingExporter.Column.of("id", "ID", ErrorLog::getId),
+                StreamingExporter.Column.of("exceptionType", "异常类型", ErrorLog::getExceptionType),
+                StreamingExporter.Column.of("message", "消息", ErrorLog::getMessage),
+                StreamingExporter.Column.of("module", "模块", ErrorLog::getModule),
+                StreamingExporter.Column.of("level", "级别", ErrorLog::getLevel),
+                StreamingExporter.Column.of("className", "类名", ErrorLog::getClassName),
+                StreamingExporter.Column.of("methodName", "方法名", ErrorLog::getMethodName),
+                StreamingExporter.Column.of("ip", "IP", ErrorLog::getIp),
+                StreamingExporter.Column.of("username", "用户名", ErrorLog::getUsername),
+                StreamingExporter.Column.of("createTime", "创建时间", ErrorLog::getCreateTime)));
+        if (includeSensitive) {
+            columns.add(StreamingExporter.Column.of("stackTrace", "堆栈追踪", ErrorLog::getStackTrace));
+            columns.add(StreamingExporter.Column.of("fileName", "文件名", ErrorLog::getFileName));
+            columns.add(StreamingExporter.Column.of("lineNumber", "行号", ErrorLog::getLineNumber));
+            columns.add(StreamingExporter.Column.of("url", "URL", ErrorLog::getUrl));
+            columns.add(StreamingExporter.Column.of("params", "请求参数", ErrorLog::getParams));
+            columns.add(StreamingExporter.Column.of("userAgent", "用户代理", ErrorLog::getUserAgent));
         }
+        return columns;
     }
 
     /**
-     * 操作日志导出为Excel
+     * 按归档边界拆分查询：只涉及一侧时直接查询该侧，跨越边界时拼接两侧的结果
+     *
+     * 归档月份整体早于数据库中的月份，倒序时数据库记录在前，正序时归档记录在前；跨越边界时只支持按创建时间排序
+     *
+     * @param filter 由查询条件构造归档记录的过滤条件
+     * @param live   数据库（或全文索引）查询
      */
-    private byte[] exportOperationLogsToExcel(List<OperationLog> logs, boolean includeSensitive) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("操作日志");
-
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "用户名", "操作", "方法", "IP", "执行时长(ms)", "状态", "创建时间"};
-            if (includeSensitive) {
-                headers = new String[]{"ID", "用户名", "操作", "方法", "请求参数", "IP", "用户代理", "执行时长(ms)", "状态", "错误信息", "创建时间"};
-            }
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-            }
-
-            // 填充数据
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (int i = 0; i < logs.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                OperationLog log = logs.get(i);
-
-                int colIndex = 0;
-                row.createCell(colIndex++).setCellValue(log.getId() != null ? log.getId() : 0);
-                row.createCell(colIndex++).setCellValue(log.getUsername() != null ? log.getUsername() : "");
-                row.createCell(colIndex++).setCellValue(log.getOperation() != null ? log.getOperation() : "");
-                row.createCell(colIndex++).setCellValue(log.getMethod() != null ? log.getMethod() : "");
-
-                if (includeSensitive) {
-                    row.createCell(colIndex++).setCellValue(log.getParams() != null ? log.getParams() : "");
-                    row.createCell(colIndex++).setCellValue(log.getIp() != null ? log.getIp() : "");
-                    row.createCell(colIndex++).setCellValue(log.getUserAgent() != null ? log.getUserAgent() : "");
-                } else {
-                    row.createCell(colIndex++).setCellValue(log.getIp() != null ? log.getIp() : "");
-                }
-
-                row.createCell(colIndex++).setCellValue(log.getTime() != null ? log.getTime() : 0);
-                row.createCell(colIndex++).setCellValue(log.getStatus() != null ? log.getStatus() : "");
-
-                if (includeSensitive) {
-                    row.createCell(colIndex++).setCellValue(log.getErrorMessage() != null ? log.getErrorMessage() : "");
-                }
-
-                row.createCell(colIndex++).setCellValue(log.getCreateTime() != null ?
-                    log.getCreateTime().format(formatter) : "");
-            }
-
-            workbook.write(out);
-            return out.toByteArray();
+    private <T> IPage<T> search(LogTable table, Class<T> type, Function<LogSearchRequest, Predicate<T>> filter,
+                                LogSearchRequest request, Function<LogSearchRequest, IPage<T>> live) {
+        RangeSplit range = split(table, request);
+        Function<LogSearchRequest, IPage<T>> archive = r -> searchArchive(table, type, filter.apply(r), r);
+        if (range.archive == null) {
+            return live.apply(range.live);
+        }
+        if (range.live == null) {
+            return archive.apply(range.archive);
         }
+        if (!sortsByCreateTime(request)) {
+            throw new IllegalArgumentException("查询范围跨越已归档月份时只支持按创建时间排序");
+        }
+        boolean descending = !"asc".equalsIgnoreCase(request.getSortDirection());
+        return descending
+                ? concat(live, range.live, archive, range.archive, request)
+                : concat(archive, range.archive, live, range.live, request);
     }
 
     /**
-     * 登录日志导出为Excel
+     * 拼接两个有序来源的分页结果，second 的所有记录排在 first 之后
      */
-    private byte[] exportLoginLogsToExcel(List<LoginLog> logs, boolean includeSensitive) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("登录日志");
-
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "用户名", "登录类型", "IP", "地理位置", "浏览器", "状态", "消息", "创建时间"};
-            if (includeSensitive) {
-                headers = new String[]{"ID", "用户名", "登录类型", "IP", "地理位置", "浏览器", "操作系统", "状态", "消息", "用户代理", "会话ID", "创建时间"};
-            }
-
-            for (int i = 0; i < headers.length; i++) {
-                headerRow.createCell(i).setCellValue(headers[i]);
-            }
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (int i = 0; i < logs.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                LoginLog log = logs.get(i);
-
-                int colIndex = 0;
-                row.createCell(colIndex++).setCellValue(log.getId() != null ? log.getId() : 0);
-                row.createCell(colIndex++).setCellValue(log.getUsername() != null ? log.getUsername() : "");
-                row.createCell(colIndex++).setCellValue(log.getLoginType() != null ? log.getLoginType() : "");
-                row.createCell(colIndex++).setCellValue(log.getIp() != null ? log.getIp() : "");
-                row.createCell(colIndex++).setCellValue(log.getLocation() != null ? log.getLocation() : "");
-                row.createCell(colIndex++).setCellValue(log.getBrowser() != null ? log.getBrowser() : "");
-
-                if (includeSensitive) {
-                    row.createCell(colIndex++).setCellValue(log.getOs() != null ? log.getOs() : "");
-                }
-
-                row.createCell(colIndex++).setCellValue(log.getStatus() != null ? log.getStatus() : "");
-                row.createCell(colIndex++).setCellValue(log.getMessage() != null ? log.getMessage() : "");
-
-                if (includeSensitive) {
-                    row.createCell(colIndex++).setCellValue(log.getUserAgent() != null ? log.getUserAgent() : "");
-                    row.createCell(colIndex++).setCellValue(log.getSessionId() != null ? log.getSessionId() : "");
-                }
-
-                row.createCell(colIndex++).setCellValue(log.getCreateTime() != null ?
-                    log.getCreateTime().format(formatter) : "");
+    private static <T> IPage<T> concat(Function<LogSearchRequest, IPage<T>> first, LogSearchRequest firstRequest,
+                                       Function<LogSearchRequest, IPage<T>> second, LogSearchRequest secondRequest,
+                                       LogSearchRequest request) {
+        long current = Math.max(1, request.getPage());
+        int size = request.getSize();
+        long offset = (current - 1) * size;
+
+        IPage<T> head = first.apply(paged(firstRequest, current, size));
+        List<T> records = new ArrayList<>(head.getRecords());
+        int needed = size - records.size();
+
+        // second 中需要的起点不一定落在页边界上，最多读取相邻两页；不需要记录时只取总数
+        long secondOffset = Math.max(0, offset - head.getTotal());
+        long secondPage = needed > 0 ? secondOffset / size + 1 : 1;
+        IPage<T> tail = second.apply(paged(secondRequest, secondPage, size));
+        if (needed > 0) {
+            List<T> rows = new ArrayList<>(tail.getRecords());
+            int skip = (int) (secondOffset % size);
+            if (skip + needed > size && secondPage * size < tail.getTotal()) {
+                rows.addAll(second.apply(paged(secondRequest, secondPage + 1, size)).getRecords());
             }
-
-            workbook.write(out);
-            return out.toByteArray();
+            records.addAll(rows.subList(Math.min(skip, rows.size()), Math.min(skip + needed, rows.size())));
         }
+
+        Page<T> page = new Page<>(current, size, head.getTotal() + tail.getTotal());
+        page.setRecords(records);
+        return page;
     }
 
     /**
-     * 错误日志导出为Excel
+     * 导出：数据库部分由游标读取，剩余额度由归档文件按创建时间倒序补足
      */
-    private byte[] exportErrorLogsToExcel(List<ErrorLog> logs, boolean includeSensitive) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("错误日志");
-
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"ID", "异常类型", "消息", "模块", "级别", "类名", "方法名", "IP", "用户名", "创建时间"};
-            if (includeSensitive) {
-                headers = new String[]{"ID", "异常类型", "消息", "堆栈追踪", "模块", "级别", "类名", "方法名", "文件名", "行号", "URL", "请求参数", "IP", "用户代理", "用户名", "创建时间"};
-            }
-
-            for (int i = 0; i < headers.length; i++) {
-                headerRow.createCell(i).setCellValue(headers[i]);
+    private <T> long exportRows(LogTable table, Class<T> type, Function<LogSearchRequest, Predicate<T>> filter,
+                                LogSearchRequest request, int maxRecords,
+                                Function<LogSearchRequest, Cursor<T>> live, RowsWriter<T> writer) throws IOException {
+        RangeSplit range = split(table, request);
+        if (range.live == null) {
+            return writer.write(logArchiveStore.latest(table, type, filter.apply(range.archive),
+                    range.archive.getStartTime(), range.archive.getEndTime(), maxRecords));
+        }
+        try (Cursor<T> cursor = live.apply(range.live)) {
+            if (range.archive == null) {
+                return writer.write(cursor);
             }
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (int i = 0; i < logs.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                ErrorLog log = logs.get(i);
-
-                int colIndex = 0;
-                row.createCell(colIndex++).setCellValue(log.getId() != null ? log.getId() : 0);
-                row.createCell(colIndex++).setCellValue(log.getExceptionType() != null ? log.getExceptionType() : "");
-                row.createCell(colIndex++).setCellValue(log.getMessage() != null ? log.getMessage() : "");
-
-                if (includeSensitive) {
-                    row.createCell(colIndex++).setCellValue(log.getStackTrace() != null ? log.getStackTrace() : "");
-                }
-
-                row.createCell(colIndex++).setCellValue(log.getModule() != null ? log.getModule() : "");
-                row.createCell(colIndex++).setCellValue(log.getLevel() != null ? log.getLevel() : "");
-                row.createCell(colIndex++).setCellValue(log.getClassName() != null ? log.getClassName() : "");
-                row.createCell(colIndex++).setCellValue(log.getMethodName() != null ? log.getMethodName() : "");
-
-                if (includeSensitive) {
-                    row.createCell(colIndex++).setCellValue(log.getFileName() != null ? log.getFileName() : "");
-                    row.createCell(colIndex++).setCellValue(log.getLineNumber() != null ? log.getLineNumber() : 0);
-                    row.createCell(colIndex++).setCellValue(log.getUrl() != null ? log.getUrl() : "");
-                    row.createCell(colIndex++).setCellValue(log.getParams() != null ? log.getParams() : "");
-                    row.createCell(colIndex++).setCellValue(log.getUserAgent() != null ? log.getUserAgent() : "");
-                } else {
-                    row.createCell(colIndex++).setCellValue(log.getIp() != null ? log.getIp() : "");
+            return writer.write(() -> new ArchiveTailIterator<>(cursor.iterator(), maxRecords, remaining -> {
+                try {
+                    return logArchiveStore.latest(table, type, filter.apply(range.archive),
+                            range.archive.getStartTime(), range.archive.getEndTime(), remaining);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("读取日志归档失败", e);
                 }
-
-                row.createCell(colIndex++).setCellValue(log.getUsername() != null ? log.getUsername() : "");
-                row.createCell(colIndex++).setCellValue(log.getCreateTime() != null ?
-                    log.getCreateTime().format(formatter) : "");
-            }
-
-            workbook.write(out);
-            return out.toByteArray();
+            }));
         }
     }
 
     /**
-     * 操作日志导出为CSV
+     * 在归档边界处拆分查询的时间范围
+     *
+     * 未指定开始时间时下限为归档边界；结束时间早于边界时整个范围都在归档中
      */
-    private byte[] exportOperationLogsToCSV(List<OperationLog> logs, boolean includeSensitive) throws IOException {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-             PrintWriter writer = new PrintWriter(out)) {
-
-            // 写入CSV头部
-            StringBuilder headers = new StringBuilder("ID,用户名,操作,方法,IP,执行时长(ms),状态,创建时间");
-            if (includeSensitive) {
-                headers.append(",请求参数,用户代理,错误信息");
-            }
-            writer.println(headers.toString());
-
-            // 写入数据
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (OperationLog log : logs) {
-                StringBuilder row = new StringBuilder();
-                row.append(log.getId() != null ? log.getId() : 0).append(",");
-                row.append(escapeCsv(log.getUsername() != null ? log.getUsername() : "")).append(",");
-                row.append(escapeCsv(log.getOperation() != null ? log.getOperation() : "")).append(",");
-                row.append(escapeCsv(log.getMethod() != null ? log.getMethod() : "")).append(",");
-                row.append(escapeCsv(log.getIp() != null ? log.getIp() : "")).append(",");
-                row.append(log.getTime() != null ? log.getTime() : 0).append(",");
-                row.append(escapeCsv(log.getStatus() != null ? log.getStatus() : "")).append(",");
-                row.append(escapeCsv(log.getCreateTime() != null ? log.getCreateTime().format(formatter) : ""));
-
-                if (includeSensitive) {
-                    row.append(",").append(escapeCsv(log.getParams() != null ? log.getParams() : ""));
-                    row.append(",").append(escapeCsv(log.getUserAgent() != null ? log.getUserAgent() : ""));
-                    row.append(",").append(escapeCsv(log.getErrorMessage() != null ? log.getErrorMessage() : ""));
-                }
-
-                writer.println(row.toString());
-            }
-
-            writer.flush();
-            return out.toByteArray();
+    private RangeSplit split(LogTable table, LogSearchRequest request) {
+        LocalDateTime boundary;
+        try {
+            boundary = logArchiveStore.archiveBoundary(table);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取日志归档失败", e);
         }
+        LocalDateTime start = request.getStartTime();
+        LocalDateTime end = request.getEndTime();
+        if (boundary == null) {
+            return new RangeSplit(null, request);
+        }
+        if (end != null && end.isBefore(boundary)) {
+            return new RangeSplit(request, null);
+        }
+        if (start == null || !start.isBefore(boundary)) {
+            return new RangeSplit(null, start == null ? withRange(request, boundary, end) : request);
+        }
+        return new RangeSplit(withRange(request, start, boundary.minusNanos(1)), withRange(request, boundary, end));
     }
 
     /**
-     * 登录日志导出为CSV
+     * 从归档文件检索，条件与数据库查询一致，只支持按创建时间排序
      */
-    private byte[] exportLoginLogsToCSV(List<LoginLog> logs, boolean includeSensitive) throws IOException {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-             PrintWriter writer = new PrintWriter(out)) {
+    private <T> IPage<T> searchArchive(LogTable table, Class<T> type, Predicate<T> filter, LogSearchRequest request) {
+        log.debug("从归档文件查询日志，表: {}, 参数: {}", table.getTableName(), request);
+        try {
+            return logArchiveStore.search(table, type, filter, request.getStartTime(), request.getEndTime(),
+                    !"asc".equalsIgnoreCase(request.getSortDirection()), request.getPage(), request.getSize());
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取日志归档失败", e);
+        }
+    }
 
-            StringBuilder headers = new StringBuilder("ID,用户名,登录类型,IP,地理位置,浏览器,状态,消息,创建时间");
-            if (includeSensitive) {
-                headers.append(",操作系统,用户代理,会话ID");
-            }
-            writer.println(headers.toString());
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (LoginLog log : logs) {
-                StringBuilder row = new StringBuilder();
-                row.append(log.getId() != null ? log.getId() : 0).append(",");
-                row.append(escapeCsv(log.getUsername() != null ? log.getUsername() : "")).append(",");
-                row.append(escapeCsv(log.getLoginType() != null ? log.getLoginType() : "")).append(",");
-                row.append(escapeCsv(log.getIp() != null ? log.getIp() : "")).append(",");
-                row.append(escapeCsv(log.getLocation() != null ? log.getLocation() : "")).append(",");
-                row.append(escapeCsv(log.getBrowser() != null ? log.getBrowser() : "")).append(",");
-                row.append(escapeCsv(log.getStatus() != null ? log.getStatus() : "")).append(",");
-                row.append(escapeCsv(log.getMessage() != null ? log.getMessage() : "")).append(",");
-                row.append(escapeCsv(log.getCreateTime() != null ? log.getCreateTime().format(formatter) : ""));
-
-                if (includeSensitive) {
-                    row.append(",").append(escapeCsv(log.getOs() != null ? log.getOs() : ""));
-                    row.append(",").append(escapeCsv(log.getUserAgent() != null ? log.getUserAgent() : ""));
-                    row.append(",").append(escapeCsv(log.getSessionId() != null ? log.getSessionId() : ""));
-                }
+    private static Predicate<OperationLog> operationLogFilter(LogSearchRequest request) {
+        return operationLog -> inTimeRange(operationLog.getCreateTime(), request)
+                && like(operationLog.getUsername(), request.getUsername())
+                && like(operationLog.getOperation(), request.getOperation())
+                && like(operationLog.getIp(), request.getIp())
+                && matches(operationLog.getStatus(), request.getStatus());
+    }
 
-                writer.println(row.toString());
-            }
+    private static Predicate<LoginLog> loginLogFilter(LogSearchRequest request) {
+        return loginLog -> inTimeRange(loginLog.getCreateTime(), request)
+                && like(loginLog.getUsername(), request.getUsername())
+                && matches(loginLog.getLoginType(), request.getLoginType())
+                && like(loginLog.getIp(), request.getIp())
+                && matches(loginLog.getStatus(), request.getStatus());
+    }
 
-            writer.flush();
-            return out.toByteArray();
-        }
+    private static Predicate<ErrorLog> errorLogFilter(LogSearchRequest request) {
+        return errorLog -> inTimeRange(errorLog.getCreateTime(), request)
+                && like(errorLog.getUsername(), request.getUsername())
+                && matches(errorLog.getLevel(), request.getLevel())
+                && like(errorLog.getModule(), request.getModule())
+                && like(errorLog.getIp(), request.getIp());
     }
 
     /**
-     * 错误日志导出为CSV
+     * 通过全文索引查询当前页的ID，再按ID从数据库加载，保持索引返回的顺序
+     *
+     * 用户名、IP、模块按前缀匹配，操作描述按分词匹配；索引只支持按创建时间排序，
+     * 其他排序或索引不可用时返回 null
      */
-    private byte[] exportErrorLogsToCSV(List<ErrorLog> logs, boolean includeSensitive) throws IOException {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-             PrintWriter writer = new PrintWriter(out)) {
+    private <T> IPage<T> searchIndex(LogTable table, LogSearchIndex.Criteria criteria, LogSearchRequest request,
+                                     Function<List<Long>, List<T>> loader, Function<T, Long> idGetter) {
+        if (!sortsByCreateTime(request)) {
+            return null;
+        }
+        long current = Math.max(1, request.getPage());
+        LogSearchIndex.Hits hits;
+        try {
+            hits = logSearchIndex.search(table, criteria, !"asc".equalsIgnoreCase(request.getSortDirection()),
+                    current, request.getSize());
+        } catch (IOException e) {
+            log.warn("日志全文索引查询失败，改用数据库查询: {}", table.getTableName(), e);
+            return null;
+        }
+        if (hits == null) {
+            return null;
+        }
 
-            StringBuilder headers = new StringBuilder("ID,异常类型,消息,模块,级别,类名,方法名,IP,用户名,创建时间");
-            if (includeSensitive) {
-                headers.append(",堆栈追踪,文件名,行号,URL,请求参数,用户代理");
+        List<T> records = new ArrayList<>(hits.getIds().size());
+        if (!hits.getIds().isEmpty()) {
+            Map<Long, T> rowsById = new HashMap<>();
+            for (T row : loader.apply(hits.getIds())) {
+                rowsById.put(idGetter.apply(row), row);
             }
-            writer.println(headers.toString());
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            for (ErrorLog log : logs) {
-                StringBuilder row = new StringBuilder();
-                row.append(log.getId() != null ? log.getId() : 0).append(",");
-                row.append(escapeCsv(log.getExceptionType() != null ? log.getExceptionType() : "")).append(",");
-                row.append(escapeCsv(log.getMessage() != null ? log.getMessage() : "")).append(",");
-
-                if (includeSensitive) {
-                    row.append(escapeCsv(log.getStackTrace() != null ? log.getStackTrace() : "")).append(",");
+            for (Long id : hits.getIds()) {
+                T row = rowsById.get(id);
+                if (row != null) {
+                    records.add(row);
                 }
+            }
+        }
+        Page<T> page = new Page<>(current, request.getSize(), hits.getTotal());
+        page.setRecords(records);
+        log.debug("通过全文索引查询日志，表: {}, 共 {} 条记录", table.getTableName(), hits.getTotal());
+        return page;
+    }
 
-                row.append(escapeCsv(log.getModule() != null ? log.getModule() : "")).append(",");
-                row.append(escapeCsv(log.getLevel() != null ? log.getLevel() : "")).append(",");
-                row.append(escapeCsv(log.getClassName() != null ? log.getClassName() : "")).append(",");
-                row.append(escapeCsv(log.getMethodName() != null ? log.getMethodName() : "")).append(",");
-                row.append(escapeCsv(log.getIp() != null ? log.getIp() : "")).append(",");
-                row.append(escapeCsv(log.getUsername() != null ? log.getUsername() : "")).append(",");
-                row.append(escapeCsv(log.getCreateTime() != null ? log.getCreateTime().format(formatter) : ""));
-
-                if (includeSensitive) {
-                    row.append(",").append(escapeCsv(log.getFileName() != null ? log.getFileName() : ""));
-                    row.append(",").append(log.getLineNumber() != null ? log.getLineNumber() : 0);
-                    row.append(",").append(escapeCsv(log.getUrl() != null ? log.getUrl() : ""));
-                    row.append(",").append(escapeCsv(log.getParams() != null ? log.getParams() : ""));
-                    row.append(",").append(escapeCsv(log.getUserAgent() != null ? log.getUserAgent() : ""));
-                }
+    private static boolean sortsByCreateTime(LogSearchRequest request) {
+        String sortField = request.getSortField();
+        return !hasText(sortField) || "createTime".equals(sortField) || "create_time".equals(sortField);
+    }
 
-                writer.println(row.toString());
-            }
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static boolean inTimeRange(LocalDateTime time, LogSearchRequest request) {
+        return time != null
+                && (request.getStartTime() == null || !time.isBefore(request.getStartTime()))
+                && (request.getEndTime() == null || !time.isAfter(request.getEndTime()));
+    }
 
-            writer.flush();
-            return out.toByteArray();
+    /**
+     * 对应 SQL 中的 LIKE '%keyword%'，忽略大小写
+     */
+    private static boolean like(String value, String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            return true;
         }
+        return value != null && value.toLowerCase().contains(keyword.toLowerCase());
+    }
+
+    private static boolean matches(String value, String expected) {
+        return expected == null || expected.isEmpty() || expected.equalsIgnoreCase(value);
     }
 
     /**
@@ -496,16 +550,95 @@ public class LogManagementService {
         return searchRequest;
     }
 
+    private static LogSearchRequest withRange(LogSearchRequest request, LocalDateTime startTime, LocalDateTime endTime) {
+        LogSearchRequest copy = copyOf(request);
+        copy.setStartTime(startTime);
+        copy.setEndTime(endTime);
+        return copy;
+    }
+
+    private static LogSearchRequest paged(LogSearchRequest request, long page, int size) {
+        LogSearchRequest copy = copyOf(request);
+        copy.setPage((int) page);
+        copy.setSize(size);
+        return copy;
+    }
+
+    private static LogSearchRequest copyOf(LogSearchRequest request) {
+        LogSearchRequest copy = new LogSearchRequest();
+        copy.setPage(request.getPage());
+        copy.setSize(request.getSize());
+        copy.setUsername(request.getUsername());
+        copy.setOperation(request.getOperation());
+        copy.setStartTime(request.getStartTime());
+        copy.setEndTime(request.getEndTime());
+        copy.setIp(request.getIp());
+        copy.setStatus(request.getStatus());
+        copy.setLevel(request.getLevel());
+        copy.setModule(request.getModule());
+        copy.setLoginType(request.getLoginType());
+        copy.setSortField(request.getSortField());
+        copy.setSortDirection(request.getSortDirection());
+        return copy;
+    }
+
     /**
-     * CSV字段转义
+     * 按归档边界拆分后的查询，不涉及的一侧为 null
      */
-    private String escapeCsv(String field) {
-        if (field == null) {
-            return "";
+    private static final class RangeSplit {
+
+        private final LogSearchRequest archive;
+        private final LogSearchRequest live;
+
+        private RangeSplit(LogSearchRequest archive, LogSearchRequest live) {
+            this.archive = archive;
+            this.live = live;
         }
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    @FunctionalInterface
+    private interface RowsWriter<T> {
+
+        long write(Iterable<T> rows) throws IOException;
+    }
+
+    /**
+     * 先遍历数据库记录，耗尽后按剩余额度加载归档记录
+     */
+    private static final class ArchiveTailIterator<T> implements Iterator<T> {
+
+        private final Iterator<T> live;
+        private final int maxRecords;
+        private final IntFunction<List<T>> archiveLoader;
+        private Iterator<T> archive;
+        private int count;
+
+        private ArchiveTailIterator(Iterator<T> live, int maxRecords, IntFunction<List<T>> archiveLoader) {
+            this.live = live;
+            this.maxRecords = maxRecords;
+            this.archiveLoader = archiveLoader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (archive == null && live.hasNext()) {
+                return true;
+            }
+            if (archive == null) {
+                archive = count < maxRecords
+                        ? archiveLoader.apply(maxRecords - count).iterator()
+                        : Collections.emptyIterator();
+            }
+            return archive.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            count++;
+            return archive != null ? archive.next() : live.next();
         }
-        return field;
     }
-}
\ No newline at end of file
+}
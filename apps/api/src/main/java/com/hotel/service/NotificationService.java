@@ -5,21 +5,21 @@ import com.hotel.dto.notification.NotificationResponse;
 import com.hotel.entity.Notification;
 import com.hotel.entity.WaitingList;
 import com.hotel.repository.NotificationRepository;
-import com.hotel.entity.User;
-import com.hotel.repository.UserRepository;
+import com.hotel.service.notification.NotificationOutboxService;
+import com.hotel.service.notification.NotificationUnreadCounter;
+import com.hotel.service.push.PushService;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.mail.internet.MimeMessage;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,8 +28,9 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
-    private final JavaMailSender mailSender;
+    private final NotificationOutboxService outboxService;
+    private final NotificationUnreadCounter unreadCounter;
+    private final PushService pushService;
 
     @Transactional
     public void createNotification(Long userId, String title, String content,
@@ -45,6 +46,8 @@ public class NotificationService {
         notification.setRelatedEntityId(relatedEntityId);
 
         notificationRepository.insert(notification);
+        unreadCounter.add(userId, 1);
+        pushService.publishToUser(userId, PushService.TYPE_NOTIFICATION_CREATED, convertToResponse(notification));
 
         log.info("Created notification for user {}: {}", userId, title);
     }
@@ -59,9 +62,9 @@ public class NotificationService {
 
         createNotification(userId, title, content, "SUCCESS", "ORDER", null);
 
-        // 异步发送邮件通知
-        sendBookingConfirmationEmailAsync(userId, orderNumber, hotelName,
-                                       roomName, checkInDate, checkOutDate);
+        // 邮件写入发件箱，随当前事务提交后由投递器发送
+        outboxService.enqueue(userId, null, "BOOKING_CONFIRMATION", "预订确认 - " + orderNumber,
+                buildBookingConfirmationEmail(orderNumber, hotelName, roomName, checkInDate, checkOutDate));
     }
 
     public void sendBookingCancellation(Long userId, String orderNumber, String reason) {
@@ -73,8 +76,9 @@ public class NotificationService {
 
         createNotification(userId, title, content, "WARNING", "ORDER", null);
 
-        // 异步发送邮件通知
-        sendBookingCancellationEmailAsync(userId, orderNumber, reason);
+        // 邮件写入发件箱，随当前事务提交后由投递器发送
+        outboxService.enqueue(userId, null, "BOOKING_CANCELLATION", "预订取消 - " + orderNumber,
+                buildBookingCancellationEmail(orderNumber, reason));
     }
 
     public void sendBookingReminder(Long userId, String orderNumber, String hotelName,
@@ -87,8 +91,9 @@ public class NotificationService {
 
         createNotification(userId, title, content, "INFO", "ORDER", null);
 
-        // 异步发送邮件提醒
-        sendBookingReminderEmailAsync(userId, orderNumber, hotelName, checkInDate);
+        // 邮件写入发件箱，随当前事务提交后由投递器发送
+        outboxService.enqueue(userId, null, "BOOKING_REMINDER", "入住提醒 - " + orderNumber,
+                buildBookingReminderEmail(orderNumber, hotelName, checkInDate));
     }
 
     public List<NotificationResponse> getUserNotifications(Long userId, Integer page, Integer limit) {
@@ -97,9 +102,6 @@ public class NotificationService {
         List<Notification> notifications = notificationRepository.findByUserId(
             userId, offset, limit);
 
-        int totalCount = notificationRepository.countByUserId(userId);
-        int unreadCount = notificationRepository.countUnreadByUserId(userId);
-
         return notifications.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
@@ -107,27 +109,23 @@ public class NotificationService {
 
     @Transactional
     public boolean markAsRead(Long notificationId, Long userId) {
-        Notification notification = notificationRepository.selectById(notificationId);
-
-        if (notification == null || !notification.getUserId().equals(userId)) {
-            return false;
+        // 只有未读变为已读时才减少未读数，重复标记或并发标记不会重复扣减
+        if (notificationRepository.markReadById(notificationId, userId) > 0) {
+            unreadCounter.add(userId, -1);
+            pushService.publishToUser(userId, PushService.TYPE_NOTIFICATION_READ, readEvent(notificationId, 1));
+            return true;
         }
 
-        notification.setIsRead(true);
-        notification.setUpdatedAt(LocalDateTime.now());
-
-        int result = notificationRepository.updateById(notification);
-        return result > 0;
+        Notification notification = notificationRepository.selectById(notificationId);
+        return notification != null && notification.getUserId().equals(userId);
     }
 
     @Transactional
     public boolean markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository.findUnreadByUserId(userId);
-
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notification.setUpdatedAt(LocalDateTime.now());
-            notificationRepository.updateById(notification);
+        int updated = notificationRepository.markAllReadByUserId(userId);
+        unreadCounter.add(userId, -updated);
+        if (updated > 0) {
+            pushService.publishToUser(userId, PushService.TYPE_NOTIFICATION_READ, readEvent(null, updated));
         }
 
         return true;
@@ -141,102 +139,19 @@ public class NotificationService {
             return false;
         }
 
-        int result = notificationRepository.deleteById(notificationId);
-        return result > 0;
-    }
-
-    @Async
-    public void sendBookingConfirmationEmailAsync(Long userId, String orderNumber, String hotelName,
-                                                 String roomName, String checkInDate, String checkOutDate) {
-        User user = userRepository.selectById(userId);
-        if (user != null && user.getEmail() != null) {
-            sendBookingConfirmationEmail(user.getEmail(), orderNumber, hotelName,
-                                       roomName, checkInDate, checkOutDate);
-        } else {
-            log.warn("User {} not found or has no email address", userId);
-        }
-    }
-
-    @Async
-    public void sendBookingCancellationEmailAsync(Long userId, String orderNumber, String reason) {
-        User user = userRepository.selectById(userId);
-        if (user != null && user.getEmail() != null) {
-            sendBookingCancellationEmail(user.getEmail(), orderNumber, reason);
-        } else {
-            log.warn("User {} not found or has no email address", userId);
+        // 删除未读通知时减少未读数，期间被标记为已读的按已读通知删除
+        if (!Boolean.TRUE.equals(notification.getIsRead())
+                && notificationRepository.deleteUnreadById(notificationId, userId) > 0) {
+            unreadCounter.add(userId, -1);
+            pushService.publishToUser(userId, PushService.TYPE_NOTIFICATION_DELETED, deletedEvent(notificationId, true));
+            return true;
         }
-    }
-
-    @Async
-    public void sendBookingReminderEmailAsync(Long userId, String orderNumber, String hotelName,
-                                             String checkInDate) {
-        User user = userRepository.selectById(userId);
-        if (user != null && user.getEmail() != null) {
-            sendBookingReminderEmail(user.getEmail(), orderNumber, hotelName, checkInDate);
-        } else {
-            log.warn("User {} not found or has no email address", userId);
-        }
-    }
-
-    private void sendBookingConfirmationEmail(String toEmail, String orderNumber, String hotelName,
-                                           String roomName, String checkInDate, String checkOutDate) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            helper.setTo(toEmail);
-            helper.setSubject("预订确认 - " + orderNumber);
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildBookingConfirmationEmail(
-                orderNumber, hotelName, roomName, checkInDate, checkOutDate);
-
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent booking confirmation email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send booking confirmation email to: " + toEmail, e);
-        }
-    }
-
-    private void sendBookingCancellationEmail(String toEmail, String orderNumber, String reason) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("预订取消 - " + orderNumber);
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildBookingCancellationEmail(orderNumber, reason);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent booking cancellation email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send booking cancellation email to: " + toEmail, e);
-        }
-    }
-
-    private void sendBookingReminderEmail(String toEmail, String orderNumber, String hotelName,
-                                       String checkInDate) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("入住提醒 - " + orderNumber);
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildBookingReminderEmail(orderNumber, hotelName, checkInDate);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent booking reminder email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send booking reminder email to: " + toEmail, e);
+        int result = notificationRepository.deleteById(notificationId);
+        if (result > 0) {
+            pushService.publishToUser(userId, PushService.TYPE_NOTIFICATION_DELETED, deletedEvent(notificationId, false));
         }
+        return result > 0;
     }
 
     private String buildBookingConfirmationEmail(String orderNumber, String hotelName,
@@ -374,16 +289,16 @@ public class NotificationService {
         return Math.toIntExact(notificationRepository.selectCount(queryWrapper));
     }
 
+    /**
+     * 未读通知数，读取 Redis 中维护的计数，计数不存在时才查库回填
+     */
     public int countUnreadByUserId(Long userId) {
-        LambdaQueryWrapper<Notification> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Notification::getUserId, userId)
-                   .eq(Notification::getIsRead, false);
-        return Math.toIntExact(notificationRepository.selectCount(queryWrapper));
+        return unreadCounter.get(userId);
     }
 
     // 冲突和等待列表通知方法
 
-    @Async
+    @Async("notificationTaskExecutor")
     @Transactional
     public void sendWaitingListConfirmation(WaitingList waitingList) {
         String title = "等待列表确认";
@@ -410,10 +325,11 @@ public class NotificationService {
             waitingList.getId()
         );
 
-        sendWaitingListConfirmationEmailAsync(waitingList);
+        outboxService.enqueue(waitingList.getUserId(), null, "WAITING_LIST_CONFIRMATION", "等待列表确认通知",
+                buildWaitingListConfirmationEmail(waitingList));
     }
 
-    @Async
+    @Async("notificationTaskExecutor")
     @Transactional
     public boolean sendRoomAvailableNotification(WaitingList waitingList) {
         String title = "房间可用通知";
@@ -440,11 +356,12 @@ public class NotificationService {
             waitingList.getId()
         );
 
-        sendRoomAvailableEmailAsync(waitingList);
+        outboxService.enqueue(waitingList.getUserId(), null, "ROOM_AVAILABLE", "房间可用通知 - 立即预订",
+                buildRoomAvailableEmail(waitingList));
         return true;
     }
 
-    @Async
+    @Async("notificationTaskExecutor")
     @Transactional
     public void sendWaitingListExpiredNotification(WaitingList waitingList) {
         String title = "等待列表已过期";
@@ -468,10 +385,11 @@ public class NotificationService {
             waitingList.getId()
         );
 
-        sendWaitingListExpiredEmailAsync(waitingList);
+        outboxService.enqueue(waitingList.getUserId(), null, "WAITING_LIST_EXPIRED", "等待列表已过期",
+                buildWaitingListExpiredEmail(waitingList));
     }
 
-    @Async
+    @Async("notificationTaskExecutor")
     @Transactional
     public void sendBookingConflictNotification(Long userId, Long roomId, String conflictType) {
         String title = "预订冲突提醒";
@@ -493,125 +411,8 @@ public class NotificationService {
             roomId
         );
 
-        sendBookingConflictEmailAsync(userId, roomId, conflictType);
-    }
-
-    // 邮件发送方法
-
-    @Async
-    public void sendWaitingListConfirmationEmailAsync(WaitingList waitingList) {
-        User user = userRepository.selectById(waitingList.getUserId());
-        if (user != null && user.getEmail() != null) {
-            sendWaitingListConfirmationEmail(user.getEmail(), waitingList);
-        } else {
-            log.warn("User {} not found or has no email address", waitingList.getUserId());
-        }
-    }
-
-    @Async
-    public void sendRoomAvailableEmailAsync(WaitingList waitingList) {
-        User user = userRepository.selectById(waitingList.getUserId());
-        if (user != null && user.getEmail() != null) {
-            sendRoomAvailableEmail(user.getEmail(), waitingList);
-        } else {
-            log.warn("User {} not found or has no email address", waitingList.getUserId());
-        }
-    }
-
-    @Async
-    public void sendWaitingListExpiredEmailAsync(WaitingList waitingList) {
-        User user = userRepository.selectById(waitingList.getUserId());
-        if (user != null && user.getEmail() != null) {
-            sendWaitingListExpiredEmail(user.getEmail(), waitingList);
-        } else {
-            log.warn("User {} not found or has no email address", waitingList.getUserId());
-        }
-    }
-
-    @Async
-    public void sendBookingConflictEmailAsync(Long userId, Long roomId, String conflictType) {
-        User user = userRepository.selectById(userId);
-        if (user != null && user.getEmail() != null) {
-            sendBookingConflictEmail(user.getEmail(), roomId, conflictType);
-        } else {
-            log.warn("User {} not found or has no email address", userId);
-        }
-    }
-
-    private void sendWaitingListConfirmationEmail(String toEmail, WaitingList waitingList) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("等待列表确认通知");
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildWaitingListConfirmationEmail(waitingList);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent waiting list confirmation email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send waiting list confirmation email to: " + toEmail, e);
-        }
-    }
-
-    private void sendRoomAvailableEmail(String toEmail, WaitingList waitingList) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("房间可用通知 - 立即预订");
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildRoomAvailableEmail(waitingList);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent room available email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send room available email to: " + toEmail, e);
-        }
-    }
-
-    private void sendWaitingListExpiredEmail(String toEmail, WaitingList waitingList) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("等待列表已过期");
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildWaitingListExpiredEmail(waitingList);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent waiting list expired email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send waiting list expired email to: " + toEmail, e);
-        }
-    }
-
-    private void sendBookingConflictEmail(String toEmail, Long roomId, String conflictType) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(toEmail);
-            helper.setSubject("预订冲突提醒");
-            helper.setFrom("noreply@hotel.com");
-
-            String htmlContent = buildBookingConflictEmail(roomId, conflictType);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Sent booking conflict email to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send booking conflict email to: " + toEmail, e);
-        }
+        outboxService.enqueue(userId, null, "BOOKING_CONFLICT", "预订冲突提醒",
+                buildBookingConflictEmail(roomId, conflictType));
     }
 
     private String buildWaitingListConfirmationEmail(WaitingList waitingList) {
@@ -829,4 +630,21 @@ public class NotificationService {
         response.setRelatedEntityId(notification.getRelatedEntityId());
         return response;
     }
+
+    /**
+     * 已读推送数据，notificationId 为空表示全部标记已读
+     */
+    private static Map<String, Object> readEvent(Long notificationId, int readCount) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("notificationId", notificationId);
+        data.put("readCount", readCount);
+        return data;
+    }
+
+    private static Map<String, Object> deletedEvent(Long notificationId, boolean unread) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("notificationId", notificationId);
+        data.put("unread", unread);
+        return data;
+    }
 }
\ No newline at end of file
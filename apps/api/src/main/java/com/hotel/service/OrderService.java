@@ -17,7 +17,11 @@ import com.hotel.repository.OrderRepository;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.HotelRepository;
 import com.hotel.repository.UserRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
+import com.hotel.service.booking.BookingAdmissionService;
+import com.hotel.service.report.ReportFactService;
 import com.hotel.util.SecurityUtils;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -46,6 +50,9 @@ public class OrderService {
     private final RoomStatusService roomStatusService;
     private final BookingConflictService bookingConflictService;
     private final ApplicationEventPublisher eventPublisher;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final ReportFactService reportFactService;
 
     private static final BigDecimal SERVICE_FEE_RATE = new BigDecimal("0.10");
 
@@ -63,6 +70,7 @@ public class OrderService {
         return bookingConflictService.detectConflict(detectRequest);
     }
 
+    @Timed("hotel.order.create")
     @Transactional
     public OrderResponse createOrder(CreateOrderRequest request) {
         Long currentUserId = SecurityUtils.getCurrentUserId();
@@ -76,14 +84,9 @@ public class OrderService {
             throw new RuntimeException("房间当前不可预订");
         }
 
-        List<Order> conflictingOrders = orderRepository.findConflictingOrders(
-                request.getRoomId(),
-                request.getCheckInDate(),
-                request.getCheckOutDate(),
-                "CONFIRMED"
-        );
-
-        if (!conflictingOrders.isEmpty()) {
+        // 内存占用索引只是本节点的副本，仅用于快速失败，最终以事务内的数据库查询为准
+        if (roomAvailabilityIndex.isReady()
+                && roomAvailabilityIndex.hasConflict(request.getRoomId(), request.getCheckInDate(), request.getCheckOutDate())) {
             throw new RuntimeException("选择的时间段已有预订");
         }
 
@@ -122,7 +125,24 @@ public class OrderService {
         order.setStatus("CONFIRMED");
         order.setSpecialRequests(request.getSpecialRequests());
 
+        // 在房间所属分片上占位，同一房间的重叠预订在此串行判定
+        if (!bookingAdmissionService.tryAdmit(request.getRoomId(), request.getCheckInDate(), request.getCheckOutDate())) {
+            throw new RuntimeException("选择的时间段已有预订");
+        }
+
+        // 锁定房间行后查询订单表，多节点部署时同一房间的预订在数据库层串行判定
+        roomRepository.lockById(request.getRoomId());
+        if (!orderRepository.findConflictingOrders(
+                request.getRoomId(),
+                request.getCheckInDate(),
+                request.getCheckOutDate()
+        ).isEmpty()) {
+            throw new RuntimeException("选择的时间段已有预订");
+        }
+
         orderRepository.insert(order);
+        roomAvailabilityIndex.onOrderConfirmed(order);
+        reportFactService.onOrderCreated(order);
 
         // 更新房间状态为已预订
         Room currentRoom = roomRepository.selectById(request.getRoomId());
@@ -443,6 +463,7 @@ public class OrderService {
         BigDecimal refundAmount = calculateRefundAmount(order);
 
         // 更新订单状态
+        String previousStatus = order.getStatus();
         order.setStatus("CANCELLED");
         order.setCancelReason(cancelReason != null ? cancelReason : "用户取消");
         order.setRefundAmount(refundAmount);
@@ -452,6 +473,8 @@ public class OrderService {
         if (result <= 0) {
             throw new RuntimeException("订单取消失败");
         }
+        roomAvailabilityIndex.onOrderReleased(order.getRoomId());
+        reportFactService.onOrderCancelled(order, previousStatus);
 
         // 恢复房间状态为可用
         try {
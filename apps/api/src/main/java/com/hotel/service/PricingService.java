@@ -6,6 +6,9 @@ import com.hotel.entity.pricing.*;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.RoomTypeRepository;
 import com.hotel.repository.pricing.*;
+import com.hotel.service.pricing.PricingRuleTable;
+import com.hotel.service.pricing.RangePricingEngine;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,6 +16,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,6 +38,7 @@ public class PricingService {
     private final HolidayRepository holidayRepository;
     private final RoomRepository roomRepository;
     private final RoomTypeRepository roomTypeRepository;
+    private final PricingRuleTable pricingRuleTable;
 
     /**
      * 计算指定房间在指定日期的价格
@@ -39,6 +46,7 @@ public class PricingService {
      * 1. 特殊价格（最高优先级）
      * 2. 动态定价规则
      * 3. 基础价格（最低优先级）
+     * 规则取自预编译规则表，与日期范围报价使用同一个计算引擎
      *
      * @param roomId 房间ID
      * @param date 日期
@@ -48,61 +56,7 @@ public class PricingService {
     public BigDecimal calculateRoomPrice(Long roomId, LocalDate date) {
         log.debug("计算房间价格: roomId={}, date={}", roomId, date);
 
-        // 获取房间信息
-        Room room = roomRepository.findById(roomId).orElse(null);
-        if (room == null) {
-            throw new IllegalArgumentException("房间不存在: " + roomId);
-        }
-
-        // 1. 检查特殊价格（最高优先级）
-        SpecialPrice specialPrice = specialPriceRepository.findByRoomIdAndDate(roomId, date);
-        if (specialPrice != null) {
-            log.debug("找到特殊价格: {}", specialPrice.getPrice());
-            return specialPrice.getPrice();
-        }
-
-        // 检查房间类型的特殊价格
-        List<SpecialPrice> roomTypeSpecialPrices =
-            specialPriceRepository.findByRoomTypeIdAndDate(room.getRoomTypeId(), date);
-        if (!roomTypeSpecialPrices.isEmpty()) {
-            // 取第一个匹配的房间类型特殊价格
-            BigDecimal price = roomTypeSpecialPrices.get(0).getPrice();
-            log.debug("找到房间类型特殊价格: {}", price);
-            return price;
-        }
-
-        // 2. 获取基础价格
-        RoomType roomType = roomTypeRepository.findById(room.getRoomTypeId()).orElse(null);
-        if (roomType == null) {
-            throw new IllegalArgumentException("房间类型不存在: " + room.getRoomTypeId());
-        }
-
-        BigDecimal basePrice = roomType.getBasePrice();
-        if (basePrice == null) {
-            // 如果房间类型没有基础价格，使用房间的当前价格
-            basePrice = room.getPrice();
-        }
-
-        if (basePrice == null) {
-            throw new IllegalStateException("房间和房间类型都没有设置价格");
-        }
-
-        BigDecimal finalPrice = basePrice;
-        log.debug("基础价格: {}", basePrice);
-
-        // 3. 应用动态定价规则
-        List<PricingRule> applicableRules = pricingRuleRepository.findApplicableRules(
-            room.getHotelId(), room.getRoomTypeId(), date);
-
-        log.debug("适用的动态规则数量: {}", applicableRules.size());
-
-        for (PricingRule rule : applicableRules) {
-            if (rule.isApplicableForDate(date)) {
-                BigDecimal rulePrice = rule.applyAdjustment(finalPrice);
-                log.debug("应用规则 '{}': {} -> {}", rule.getName(), finalPrice, rulePrice);
-                finalPrice = rulePrice;
-            }
-        }
+        BigDecimal finalPrice = loadRangePricingEngine(roomId, date, date.plusDays(1)).priceFor(date);
 
         log.debug("最终计算价格: {}", finalPrice);
         return finalPrice;
@@ -110,6 +64,7 @@ public class PricingService {
 
     /**
      * 计算房间类型在指定日期的价格
+     * 规则取自预编译规则表
      *
      * @param roomTypeId 房间类型ID
      * @param hotelId 酒店ID
@@ -123,14 +78,14 @@ public class PricingService {
         // 1. 检查房间类型的特殊价格
         List<SpecialPrice> specialPrices =
             specialPriceRepository.findByRoomTypeIdAndDate(roomTypeId, date);
-        if (!specialPrices.isEmpty()) {
+        if (specialPrices != null && !specialPrices.isEmpty()) {
             BigDecimal price = specialPrices.get(0).getPrice();
             log.debug("找到房间类型特殊价格: {}", price);
             return price;
         }
 
         // 2. 获取基础价格
-        RoomType roomType = roomTypeRepository.findById(roomTypeId).orElse(null);
+        RoomType roomType = roomTypeRepository.selectById(roomTypeId);
         if (roomType == null) {
             throw new IllegalArgumentException("房间类型不存在: " + roomTypeId);
         }
@@ -140,22 +95,8 @@ public class PricingService {
             throw new IllegalStateException("房间类型没有设置基础价格");
         }
 
-        BigDecimal finalPrice = basePrice;
-        log.debug("基础价格: {}", basePrice);
-
-        // 3. 应用动态定价规则
-        List<PricingRule> applicableRules = pricingRuleRepository.findApplicableRules(
-            hotelId, roomTypeId, date);
-
-        log.debug("适用的动态规则数量: {}", applicableRules.size());
-
-        for (PricingRule rule : applicableRules) {
-            if (rule.isApplicableForDate(date)) {
-                BigDecimal rulePrice = rule.applyAdjustment(finalPrice);
-                log.debug("应用规则 '{}': {} -> {}", rule.getName(), finalPrice, rulePrice);
-                finalPrice = rulePrice;
-            }
-        }
+        // 3. 应用预编译的动态定价规则
+        BigDecimal finalPrice = pricingRuleTable.get(hotelId, roomTypeId).apply(basePrice, date);
 
         log.debug("最终计算价格: {}", finalPrice);
         return finalPrice;
@@ -166,23 +107,97 @@ public class PricingService {
      *
      * @param roomId 房间ID
      * @param startDate 开始日期
-     * @param endDate 结束日期
+     * @param endDate 结束日期（包含）
      * @return 日期到价格的映射
      */
     @Transactional(readOnly = true)
-    public java.util.Map<LocalDate, BigDecimal> calculateRoomPricesForDateRange(
+    public Map<LocalDate, BigDecimal> calculateRoomPricesForDateRange(
             Long roomId, LocalDate startDate, LocalDate endDate) {
+        log.debug("计算房间每日价格: roomId={}, startDate={}, endDate={}", roomId, startDate, endDate);
+
+        LocalDate endExclusive = endDate.plusDays(1);
+        return loadRangePricingEngine(roomId, startDate, endExclusive).priceNights(startDate, endExclusive);
+    }
+
+    /**
+     * 加载日期范围价格计算引擎
+     * 房间、房间类型和特殊价格各查询一次，规则取自预编译规则表，之后逐晚计算不再访问数据库
+     *
+     * @param roomId 房间ID
+     * @param startDate 开始日期
+     * @param endDate 结束日期（不包含）
+     * @return 价格计算引擎
+     */
+    @Transactional(readOnly = true)
+    public RangePricingEngine loadRangePricingEngine(Long roomId, LocalDate startDate, LocalDate endDate) {
+        Room room = roomRepository.selectById(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("房间不存在: " + roomId);
+        }
+
+        RoomType roomType = roomTypeRepository.selectById(room.getRoomTypeId());
+        LocalDate lastNight = endDate.minusDays(1);
+
+        List<SpecialPrice> specialPrices = specialPriceRepository.findForRoomInDateRange(
+            roomId, room.getRoomTypeId(), startDate, lastNight);
+
+        return new RangePricingEngine(room, roomType, specialPrices,
+            pricingRuleTable.get(room.getHotelId(), room.getRoomTypeId()));
+    }
 
-        java.util.Map<LocalDate, BigDecimal> priceMap = new java.util.LinkedHashMap<>();
-        LocalDate currentDate = startDate;
+    /**
+     * 批量计算多个房间在日期范围内的总价格
+     * 所有房间的特殊价格一次查询，规则取自预编译规则表，查询次数与房间数量无关
+     *
+     * @param rooms 房间列表
+     * @param roomTypes 房间类型ID到房间类型的映射
+     * @param checkInDate 入住日期
+     * @param checkOutDate 退房日期
+     * @return 房间ID到总价格的映射，计算失败的房间不包含在内
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> calculateTotalPrices(List<Room> rooms, Map<Long, RoomType> roomTypes,
+                                                      LocalDate checkInDate, LocalDate checkOutDate) {
+        Map<Long, BigDecimal> totalPrices = new HashMap<>();
+        if (rooms.isEmpty()) {
+            return totalPrices;
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            rooms.forEach(room -> totalPrices.put(room.getId(), BigDecimal.ZERO));
+            return totalPrices;
+        }
 
-        while (!currentDate.isAfter(endDate)) {
-            BigDecimal price = calculateRoomPrice(roomId, currentDate);
-            priceMap.put(currentDate, price);
-            currentDate = currentDate.plusDays(1);
+        List<Long> roomIds = rooms.stream().map(Room::getId).distinct().collect(Collectors.toList());
+        List<Long> roomTypeIds = rooms.stream().map(Room::getRoomTypeId).distinct().collect(Collectors.toList());
+        List<SpecialPrice> specialPrices = specialPriceRepository.findForRoomsInDateRange(
+            roomIds, roomTypeIds, checkInDate, checkOutDate.minusDays(1));
+
+        Map<Long, List<SpecialPrice>> roomSpecialPrices = new HashMap<>();
+        Map<Long, List<SpecialPrice>> roomTypeSpecialPrices = new HashMap<>();
+        for (SpecialPrice specialPrice : specialPrices) {
+            if (specialPrice.getRoomId() != null) {
+                roomSpecialPrices.computeIfAbsent(specialPrice.getRoomId(), k -> new ArrayList<>()).add(specialPrice);
+            } else {
+                roomTypeSpecialPrices.computeIfAbsent(specialPrice.getRoomTypeId(), k -> new ArrayList<>()).add(specialPrice);
+            }
         }
 
-        return priceMap;
+        for (Room room : rooms) {
+            try {
+                List<SpecialPrice> applicable = new ArrayList<>(
+                    roomSpecialPrices.getOrDefault(room.getId(), Collections.emptyList()));
+                applicable.addAll(roomTypeSpecialPrices.getOrDefault(room.getRoomTypeId(), Collections.emptyList()));
+
+                RangePricingEngine engine = new RangePricingEngine(room, roomTypes.get(room.getRoomTypeId()),
+                    applicable, pricingRuleTable.get(room.getHotelId(), room.getRoomTypeId()));
+                totalPrices.put(room.getId(), engine.totalPrice(checkInDate, checkOutDate));
+            } catch (Exception e) {
+                log.warn("计算房间总价失败: roomId={}", room.getId(), e);
+            }
+        }
+
+        log.debug("批量计算房间总价完成: 房间数={}, 特殊价格数={}", rooms.size(), specialPrices.size());
+        return totalPrices;
     }
 
     /**
@@ -287,47 +302,19 @@ public class PricingService {
      * @param checkOutDate 退房日期
      * @return 总价格
      */
+    @Timed("hotel.pricing.total-price")
     @Transactional(readOnly = true)
     public BigDecimal calculateTotalPrice(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
         log.debug("计算房间总价: roomId={}, checkInDate={}, checkOutDate={}",
                 roomId, checkInDate, checkOutDate);
 
-        BigDecimal totalPrice = BigDecimal.ZERO;
-        LocalDate currentDate = checkInDate;
-
-        while (currentDate.isBefore(checkOutDate)) {
-            BigDecimal dayPrice = calculateRoomPrice(roomId, currentDate);
-            totalPrice = totalPrice.add(dayPrice);
-            currentDate = currentDate.plusDays(1);
+        if (!checkOutDate.isAfter(checkInDate)) {
+            return BigDecimal.ZERO;
         }
+        BigDecimal totalPrice = loadRangePricingEngine(roomId, checkInDate, checkOutDate)
+            .totalPrice(checkInDate, checkOutDate);
 
         log.debug("房间总价计算完成: roomId={}, totalPrice={}", roomId, totalPrice);
         return totalPrice;
     }
-
-    /**
-     * 计算房间在日期范围内的每日价格
-     *
-     * @param roomId 房间ID
-     * @param checkInDate 入住日期
-     * @param checkOutDate 退房日期
-     * @return 日期到价格的映射
-     */
-    @Transactional(readOnly = true)
-    public Map<LocalDate, BigDecimal> calculateRoomPricesForDateRange(
-            Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
-        log.debug("计算房间每日价格: roomId={}, checkInDate={}, checkOutDate={}",
-                roomId, checkInDate, checkOutDate);
-
-        Map<LocalDate, BigDecimal> priceMap = new java.util.HashMap<>();
-        LocalDate currentDate = checkInDate;
-
-        while (currentDate.isBefore(checkOutDate)) {
-            BigDecimal dayPrice = calculateRoomPrice(roomId, currentDate);
-            priceMap.put(currentDate, dayPrice);
-            currentDate = currentDate.plusDays(1);
-        }
-
-        return priceMap;
-    }
-}
\ No newline at end of file
+}
@@ -1,21 +1,22 @@
 package com.hotel.service;
 
+import com.hotel.service.ratelimit.GcraRateLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 频率限制服务
- * 用于防止敏感操作的滥用
+ * 用于防止敏感操作的滥用，配额判定与 API 限流共用 {@link GcraRateLimiter}
  */
 @Slf4j
 @Service
 public class RateLimitService {
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final GcraRateLimiter gcraRateLimiter;
 
     // 不同操作的频率限制配置
     private static final int BATCH_OPERATION_LIMIT = 5; // 批量操作：每5分钟最多5次
@@ -26,64 +27,41 @@ public class RateLimitService {
     private static final Duration MODERATION_WINDOW = Duration.ofMinutes(1);
     private static final Duration REPLY_WINDOW = Duration.ofMinutes(1);
 
-    public RateLimitService(RedisTemplate<String, String> redisTemplate) {
+    public RateLimitService(RedisTemplate<String, String> redisTemplate, GcraRateLimiter gcraRateLimiter) {
         this.redisTemplate = redisTemplate;
+        this.gcraRateLimiter = gcraRateLimiter;
     }
 
     /**
      * 检查批量操作频率限制
      */
     public boolean checkBatchOperationLimit(Long adminId) {
-        String key = "rate_limit:batch:" + adminId;
-        return checkRateLimit(key, BATCH_OPERATION_LIMIT, BATCH_WINDOW);
+        return checkRateLimit("batch:" + adminId, BATCH_OPERATION_LIMIT, BATCH_WINDOW);
     }
 
     /**
      * 检查审核操作频率限制
      */
     public boolean checkModerationLimit(Long adminId) {
-        String key = "rate_limit:moderation:" + adminId;
-        return checkRateLimit(key, MODERATION_LIMIT, MODERATION_WINDOW);
+        return checkRateLimit("moderation:" + adminId, MODERATION_LIMIT, MODERATION_WINDOW);
     }
 
     /**
      * 检查回复操作频率限制
      */
     public boolean checkReplyLimit(Long adminId) {
-        String key = "rate_limit:reply:" + adminId;
-        return checkRateLimit(key, REPLY_LIMIT, REPLY_WINDOW);
+        return checkRateLimit("reply:" + adminId, REPLY_LIMIT, REPLY_WINDOW);
     }
 
     /**
-     * 通用的频率限制检查
+     * 通用的频率限制检查，Redis 异常时限流器默认放行
      */
     private boolean checkRateLimit(String key, int limit, Duration window) {
-        try {
-            String currentCount = redisTemplate.opsForValue().get(key);
-
-            if (currentCount == null) {
-                // 第一次操作，设置计数器
-                redisTemplate.opsForValue().set(key, "1", window);
-                log.debug("频率限制检查通过 - Key: {}, Count: 1/{}", key, limit);
-                return true;
-            } else {
-                int count = Integer.parseInt(currentCount);
-
-                if (count >= limit) {
-                    log.warn("频率限制触发 - Key: {}, Count: {}/{}", key, count, limit);
-                    return false;
-                } else {
-                    // 增加计数器，不重置过期时间
-                    redisTemplate.opsForValue().increment(key);
-                    log.debug("频率限制检查通过 - Key: {}, Count: {}/{}", key, count + 1, limit);
-                    return true;
-                }
-            }
-        } catch (Exception e) {
-            log.error("频率限制检查失败，默认通过", e);
-            // 如果Redis出现异常，默认通过，避免影响主业务
-            return true;
+        boolean allowed = gcraRateLimiter.tryAcquire(key, limit, window);
+        if (!allowed) {
+            log.warn("频率限制触发 - Key: {}, Limit: {}/{}s", key, limit, window.getSeconds());
         }
+        return allowed;
     }
 
     /**
@@ -108,20 +86,8 @@ public class RateLimitService {
      * 获取剩余操作次数
      */
     public int getRemainingOperations(Long adminId, String operationType) {
-        try {
-            String key = "rate_limit:" + operationType + ":" + adminId;
-            String currentCount = redisTemplate.opsForValue().get(key);
-
-            if (currentCount == null) {
-                return getLimitByType(operationType);
-            } else {
-                int count = Integer.parseInt(currentCount);
-                return Math.max(0, getLimitByType(operationType) - count);
-            }
-        } catch (Exception e) {
-            log.error("获取剩余操作次数失败", e);
-            return getLimitByType(operationType);
-        }
+        return gcraRateLimiter.remaining(operationType + ":" + adminId,
+                getLimitByType(operationType), getWindowByType(operationType));
     }
 
     private int getLimitByType(String operationType) {
@@ -133,13 +99,21 @@ public class RateLimitService {
         }
     }
 
+    private Duration getWindowByType(String operationType) {
+        switch (operationType) {
+            case "batch": return BATCH_WINDOW;
+            case "moderation": return MODERATION_WINDOW;
+            case "reply": return REPLY_WINDOW;
+            default: return Duration.ofMinutes(1);
+        }
+    }
+
     /**
      * 重置用户频率限制（管理员功能）
      */
     public void resetUserRateLimit(Long adminId, String operationType) {
         try {
-            String key = "rate_limit:" + operationType + ":" + adminId;
-            redisTemplate.delete(key);
+            gcraRateLimiter.reset(operationType + ":" + adminId);
             log.info("已重置用户 {} 的 {} 操作频率限制", adminId, operationType);
         } catch (Exception e) {
             log.error("重置频率限制失败", e);
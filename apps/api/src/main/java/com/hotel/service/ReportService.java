@@ -2,6 +2,8 @@ package com.hotel.service;
 
 import com.hotel.dto.report.*;
 
+import java.util.function.IntConsumer;
+
 /**
  * 报表服务接口
  * 提供各种报表的生成和导出功能
@@ -67,6 +69,15 @@ public interface ReportService {
      */
     String exportReport(ReportExportRequest request);
 
+    /**
+     * 生成报表文件内容
+     *
+     * @param request 导出请求
+     * @param progressListener 进度回调，参数为 0-100 的百分比
+     * @return 文件内容
+     */
+    byte[] renderReport(ReportExportRequest request, IntConsumer progressListener);
+
     /**
      * 获取报表概览数据
      *
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.dto.room.*;
+import com.hotel.entity.Hotel;
 import com.hotel.entity.Room;
 import com.hotel.entity.RoomType;
 import com.hotel.enums.RoomStatus;
@@ -15,6 +16,8 @@ import com.hotel.exception.BusinessException;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.RoomTypeRepository;
 import com.hotel.repository.HotelRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
@@ -27,8 +30,12 @@ import org.springframework.util.StringUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -45,6 +52,7 @@ public class RoomService {
     private final PricingService pricingService;
     private final ObjectMapper objectMapper;
     private final UserContextService userContextService;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
 
     /**
      * 创建房间
@@ -82,6 +90,7 @@ public class RoomService {
         room.setUpdatedAt(LocalDateTime.now());
 
         roomRepository.insert(room);
+        roomAvailabilityIndex.onRoomSaved(room);
         return convertToRoomResponse(room, roomType.getName());
     }
 
@@ -184,6 +193,7 @@ public class RoomService {
 
         room.setUpdatedAt(LocalDateTime.now());
         roomRepository.updateById(room);
+        roomAvailabilityIndex.onRoomSaved(room);
 
         RoomType roomType = roomTypeRepository.selectById(room.getRoomTypeId());
         return convertToRoomResponse(room, roomType != null ? roomType.getName() : null);
@@ -207,6 +217,7 @@ public class RoomService {
         room.setDeleted(1);
         room.setUpdatedAt(LocalDateTime.now());
         roomRepository.updateById(room);
+        roomAvailabilityIndex.onRoomDeleted(id);
     }
 
     /**
@@ -326,17 +337,36 @@ public class RoomService {
 
     /**
      * 获取房间列表的价格信息
+     * 房间、房间类型和特殊价格各批量查询一次，规则取自预编译规则表
      * @param roomIds 房间ID列表
      * @param date 日期
      * @return 房间ID到价格的映射
      */
     @Transactional(readOnly = true)
     public Map<Long, BigDecimal> getRoomPricesForDate(List<Long> roomIds, LocalDate date) {
-        return roomIds.stream()
-                .collect(Collectors.toMap(
-                        roomId -> roomId,
-                        roomId -> pricingService.calculateRoomPrice(roomId, date)
-                ));
+        if (roomIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Room> rooms = roomRepository.selectBatchIds(roomIds);
+        List<Long> roomTypeIds = rooms.stream()
+                .map(Room::getRoomTypeId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, RoomType> roomTypeMap = roomTypeIds.isEmpty() ? Collections.emptyMap()
+                : roomTypeRepository.selectBatchIds(roomTypeIds).stream()
+                        .collect(Collectors.toMap(RoomType::getId, Function.identity()));
+
+        Map<Long, BigDecimal> prices = pricingService.calculateTotalPrices(rooms, roomTypeMap, date, date.plusDays(1));
+
+        // 批量计算失败或不存在的房间逐个计算，保留原有的异常信息
+        Map<Long, BigDecimal> result = new LinkedHashMap<>();
+        for (Long roomId : roomIds) {
+            BigDecimal price = prices.get(roomId);
+            result.put(roomId, price != null ? price : pricingService.calculateRoomPrice(roomId, date));
+        }
+        return result;
     }
 
     /**
@@ -406,19 +436,28 @@ public class RoomService {
     /**
      * 搜索可用房间
      */
+    @Timed("hotel.room.search")
     @Transactional(readOnly = true)
     public RoomSearchResultDto searchAvailableRooms(RoomSearchRequestDto request) {
         log.info("搜索可用房间，条件：{}", request);
 
         Page<Room> pageRequest = new Page<>(request.getPage(), request.getSize());
 
-        // 搜索可用房间
-        IPage<Room> roomPage = roomRepository.searchAvailableRooms(pageRequest, request);
+        // 搜索可用房间：日期范围在索引窗口内时由内存位图判定占用，否则回退到订单子查询
+        IPage<Room> roomPage;
+        if (roomAvailabilityIndex.covers(request.getCheckInDate(), request.getCheckOutDate())) {
+            List<Long> candidateIds = roomAvailabilityIndex.findAvailableRoomIds(
+                    request.getHotelId(), request.getRoomTypeId(),
+                    request.getCheckInDate(), request.getCheckOutDate());
+            roomPage = candidateIds.isEmpty()
+                    ? pageRequest
+                    : roomRepository.searchAvailableRoomsByIds(pageRequest, request, candidateIds);
+        } else {
+            roomPage = roomRepository.searchAvailableRooms(pageRequest, request);
+        }
 
-        // 转换为响应DTO
-        List<RoomSearchResponseDto> roomResponses = roomPage.getRecords().stream()
-                .map(room -> convertToRoomSearchResponse(room, request))
-                .collect(Collectors.toList());
+        // 批量加载关联数据并转换为响应DTO
+        List<RoomSearchResponseDto> roomResponses = hydrateRoomSearchResponses(roomPage.getRecords(), request);
 
         // 创建结果对象
         RoomSearchResultDto result = new RoomSearchResultDto(
@@ -432,10 +471,54 @@ public class RoomService {
         return result;
     }
 
+    /**
+     * 批量组装房间搜索响应
+     * 房间类型、酒店各批量查询一次，整页房间的价格一次批量计算，查询次数不随分页大小增长
+     */
+    private List<RoomSearchResponseDto> hydrateRoomSearchResponses(List<Room> rooms, RoomSearchRequestDto searchRequest) {
+        if (rooms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> roomTypeIds = rooms.stream()
+                .map(Room::getRoomTypeId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, RoomType> roomTypeMap = roomTypeIds.isEmpty() ? Collections.emptyMap()
+                : roomTypeRepository.selectBatchIds(roomTypeIds).stream()
+                        .collect(Collectors.toMap(RoomType::getId, Function.identity()));
+
+        List<Long> hotelIds = rooms.stream()
+                .map(Room::getHotelId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Hotel> hotelMap = hotelIds.isEmpty() ? Collections.emptyMap()
+                : hotelRepository.selectBatchIds(hotelIds).stream()
+                        .collect(Collectors.toMap(Hotel::getId, Function.identity()));
+
+        Map<Long, BigDecimal> totalPrices;
+        try {
+            totalPrices = pricingService.calculateTotalPrices(
+                    rooms, roomTypeMap, searchRequest.getCheckInDate(), searchRequest.getCheckOutDate());
+        } catch (Exception e) {
+            log.warn("批量计算房间价格失败，使用基础价格", e);
+            totalPrices = Collections.emptyMap();
+        }
+
+        Map<Long, BigDecimal> prices = totalPrices;
+        return rooms.stream()
+                .map(room -> convertToRoomSearchResponse(room, roomTypeMap.get(room.getRoomTypeId()),
+                        hotelMap.get(room.getHotelId()), prices.get(room.getId()), searchRequest))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 转换为房间搜索响应DTO
      */
-    private RoomSearchResponseDto convertToRoomSearchResponse(Room room, RoomSearchRequestDto searchRequest) {
+    private RoomSearchResponseDto convertToRoomSearchResponse(Room room, RoomType roomType, Hotel hotel,
+                                                              BigDecimal totalPrice, RoomSearchRequestDto searchRequest) {
         RoomSearchResponseDto response = new RoomSearchResponseDto();
 
         // 基本信息
@@ -450,7 +533,6 @@ public class RoomService {
         response.setUpdatedAt(room.getUpdatedAt());
 
         // 房间类型信息
-        RoomType roomType = roomTypeRepository.selectById(room.getRoomTypeId());
         if (roomType != null) {
             response.setRoomTypeId(roomType.getId());
             response.setRoomTypeName(roomType.getName());
@@ -460,7 +542,6 @@ public class RoomService {
         }
 
         // 酒店信息
-        Hotel hotel = hotelRepository.selectById(room.getHotelId());
         if (hotel != null) {
             response.setHotelId(hotel.getId());
             response.setHotelName(hotel.getName());
@@ -471,13 +552,8 @@ public class RoomService {
             response.setHotelImages(hotel.getImages());
         }
 
-        // 计算价格信息
-        try {
-            BigDecimal totalPrice = pricingService.calculateTotalPrice(
-                    room.getId(),
-                    searchRequest.getCheckInDate(),
-                    searchRequest.getCheckOutDate()
-            );
+        // 价格信息
+        if (totalPrice != null) {
             response.setTotalPrice(totalPrice);
 
             // 计算平均每晚价格
@@ -488,8 +564,8 @@ public class RoomService {
             if (nights > 0) {
                 response.setAveragePricePerNight(totalPrice.divide(BigDecimal.valueOf(nights), 2, BigDecimal.ROUND_HALF_UP));
             }
-        } catch (Exception e) {
-            log.warn("计算房间价格失败，使用基础价格，房间ID: {}", room.getId(), e);
+        } else {
+            log.warn("计算房间价格失败，使用基础价格，房间ID: {}", room.getId());
             response.setTotalPrice(room.getPrice());
             response.setAveragePricePerNight(room.getPrice());
         }
@@ -10,9 +10,11 @@ import com.hotel.entity.User;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.RoomStatusLogRepository;
 import com.hotel.repository.UserRepository;
+import com.hotel.service.audit.RoomStatusAuditTrail;
 import com.hotel.util.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.cache.annotation.CacheEvict;
@@ -20,11 +22,11 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
-import java.util.Set;
 
 @Slf4j
 @Service
@@ -34,6 +36,8 @@ public class RoomStatusService extends ServiceImpl<RoomRepository, Room> {
     private final RoomRepository roomRepository;
     private final RoomStatusLogRepository roomStatusLogRepository;
     private final UserRepository userRepository;
+    private final RoomStatusAuditTrail roomStatusAuditTrail;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
@@ -129,6 +133,10 @@ public class RoomStatusService extends ServiceImpl<RoomRepository, Room> {
 
             roomStatusLogRepository.insert(statusLog);
 
+            // 7. 发布状态变更事件，事务提交后推送给订阅了该房间的客户端
+            eventPublisher.publishEvent(new RoomStatusChangedEvent(
+                    roomId, oldStatus, newStatus, reason, changedBy, statusLog.getCreatedAt()));
+
             log.info("Successfully updated room {} status from {} to {}", roomId, oldStatus, newStatus);
             return true;
 
@@ -266,14 +274,9 @@ public class RoomStatusService extends ServiceImpl<RoomRepository, Room> {
      */
     private void logAuditEvent(String eventType, Long userId, Long roomId, String details) {
         try {
-            String auditKey = "audit:room_status:" + System.currentTimeMillis();
-            String auditData = String.format(
-                "{\"eventType\":\"%s\",\"userId\":%d,\"roomId\":%d,\"details\":\"%s\",\"timestamp\":\"%s\"}",
-                eventType, userId, roomId, details, LocalDateTime.now().toString()
-            );
-
-            // 存储到Redis，设置30天过期
-            redisTemplate.opsForValue().set(auditKey, auditData, 30, TimeUnit.DAYS);
+            // 只有状态变更尝试计入可疑操作检测的操作次数
+            roomStatusAuditTrail.record(eventType, userId, roomId, details,
+                    "ROOM_STATUS_CHANGE_ATTEMPT".equals(eventType));
 
             // 同时记录到应用日志
             log.info("AUDIT: {} - User: {}, Room: {}, Details: {}", eventType, userId, roomId, details);
@@ -283,41 +286,36 @@ public class RoomStatusService extends ServiceImpl<RoomRepository, Room> {
     }
 
     /**
-     * 获取用户操作历史（用于审计）
+     * 获取用户操作历史（用于审计），按时间倒序
      */
     public List<String> getUserOperationHistory(Long userId, int limit) {
         try {
-            String pattern = "audit:room_status:*";
-            Set<Object> keys = redisTemplate.keys(pattern);
-
-            return keys.stream()
-                .limit(limit)
-                .map(key -> (String) redisTemplate.opsForValue().get(key))
-                .filter(data -> data != null && data.contains("\"userId\":" + userId))
-                .toList();
+            return roomStatusAuditTrail.recentUserEvents(userId, limit);
         } catch (Exception e) {
             log.error("Failed to get user operation history: {}", e.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * 获取房间审计记录，按时间倒序
+     */
+    public List<String> getRoomAuditTrail(Long roomId, int limit) {
+        try {
+            return roomStatusAuditTrail.recentRoomEvents(roomId, limit);
+        } catch (Exception e) {
+            log.error("Failed to get room audit trail: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
     /**
      * 检测可疑操作模式
      */
     public boolean detectSuspiciousActivity(Long userId) {
         try {
             // 检查用户在最近1小时内的操作次数
-            long oneHourAgo = System.currentTimeMillis() - (60 * 60 * 1000);
-            String pattern = "audit:room_status:*";
-            Set<Object> keys = redisTemplate.keys(pattern);
-
-            long recentOperations = keys.stream()
-                .mapToLong(key -> {
-                    String keyStr = (String) key;
-                    long timestamp = Long.parseLong(keyStr.split(":")[2]);
-                    return timestamp >= oneHourAgo ? 1 : 0;
-                })
-                .sum();
+            long recentOperations = roomStatusAuditTrail.countRecentOperations(userId, Duration.ofHours(1));
 
             // 如果1小时内操作超过20次，认为可疑
             if (recentOperations > 20) {
@@ -354,4 +352,31 @@ public class RoomStatusService extends ServiceImpl<RoomRepository, Room> {
     public java.util.Map<Long, Boolean> checkRoomsAvailabilityCached(List<Long> roomIds) {
         return checkRoomsAvailability(roomIds);
     }
-}
\ No newline at end of file
+
+    // 事件类
+    public static class RoomStatusChangedEvent {
+        private final Long roomId;
+        private final String oldStatus;
+        private final String newStatus;
+        private final String reason;
+        private final Long changedBy;
+        private final LocalDateTime changedAt;
+
+        public RoomStatusChangedEvent(Long roomId, String oldStatus, String newStatus, String reason,
+                                      Long changedBy, LocalDateTime changedAt) {
+            this.roomId = roomId;
+            this.oldStatus = oldStatus;
+            this.newStatus = newStatus;
+            this.reason = reason;
+            this.changedBy = changedBy;
+            this.changedAt = changedAt;
+        }
+
+        public Long getRoomId() { return roomId; }
+        public String getOldStatus() { return oldStatus; }
+        public String getNewStatus() { return newStatus; }
+        public String getReason() { return reason; }
+        public Long getChangedBy() { return changedBy; }
+        public LocalDateTime getChangedAt() { return changedAt; }
+    }
+}
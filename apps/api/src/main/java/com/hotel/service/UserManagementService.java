@@ -10,6 +10,7 @@ import com.hotel.repository.UserRepository;
 import com.hotel.repository.UserOperationHistoryRepository;
 import com.hotel.repository.OrderRepository;
 import com.hotel.repository.ReviewRepository;
+import com.hotel.security.JwtAuthenticationCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
@@ -47,6 +48,9 @@ public class UserManagementService {
     @Autowired
     private UserOperationHistoryService operationHistoryService;
 
+    @Autowired
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
     /**
      * 获取用户列表（分页、筛选、排序）
      */
@@ -191,6 +195,9 @@ public class UserManagementService {
 
             userRepository.updateById(user);
 
+            // 状态变更前签发的令牌立即失效，重新启用的用户需重新登录
+            jwtAuthenticationCache.revokeUser(user.getId());
+
             // 记录操作历史
             operationHistoryService.recordOperation(
                 managementDTO.getUserId(),
@@ -239,6 +246,7 @@ public class UserManagementService {
             user.setDeleted(1);
             user.setUpdatedAt(LocalDateTime.now());
             userRepository.updateById(user);
+            jwtAuthenticationCache.revokeUser(userId);
 
             // 记录操作历史
             operationHistoryService.recordOperation(
@@ -6,6 +6,7 @@ import com.hotel.dto.admin.user.UserOperationHistoryDTO;
 import com.hotel.entity.UserOperationHistory;
 import com.hotel.repository.UserOperationHistoryRepository;
 import com.hotel.repository.UserRepository;
+import com.hotel.service.log.LogWriteBehindSink;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageImpl;
@@ -33,8 +34,11 @@ public class UserOperationHistoryService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LogWriteBehindSink logWriteBehindSink;
+
     /**
-     * 记录用户操作历史
+     * 记录用户操作历史，由后台线程批量写库，不参与当前事务
      */
     public void recordOperation(Long userId, String operation, Long operator, String details, String ipAddress, String userAgent) {
         try {
@@ -45,11 +49,13 @@ public class UserOperationHistoryService {
             history.setDetails(details);
             history.setIpAddress(ipAddress);
             history.setUserAgent(userAgent);
-            history.setCreatedAt(LocalDateTime.now());
+            LocalDateTime now = LocalDateTime.now();
+            history.setOperationTime(now);
+            history.setCreatedAt(now);
 
-            operationHistoryRepository.insert(history);
-
-            log.debug("记录用户操作历史: userId={}, operation={}, details={}", userId, operation, details);
+            if (logWriteBehindSink.submit(history)) {
+                log.debug("记录用户操作历史: userId={}, operation={}, details={}", userId, operation, details);
+            }
 
         } catch (Exception e) {
             log.error("记录用户操作历史失败", e);
@@ -0,0 +1,164 @@
+package com.hotel.service.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 房间状态审计记录
+ *
+ * 每个用户、每个房间各一个有长度上限的 Redis Stream，按时间倒序读取最近的事件；
+ * 另外为每个用户维护一个以时间戳为分值的有序集合，滑动窗口内的操作次数通过 ZCOUNT 查询，
+ * 复杂度 O(log n)，不再扫描键空间。Stream 条目ID由 Redis 生成，并发写入不会相互覆盖。
+ * 一次记录的全部命令在同一个管道中发送。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomStatusAuditTrail {
+
+    static final String USER_STREAM_PREFIX = "audit:room_status:user:";
+    static final String ROOM_STREAM_PREFIX = "audit:room_status:room:";
+    static final String USER_WINDOW_PREFIX = "audit:room_status:window:";
+
+    /**
+     * 每个用户保留的最近事件数
+     */
+    private static final long MAX_USER_EVENTS = 1000;
+
+    /**
+     * 每个房间保留的最近事件数
+     */
+    private static final long MAX_ROOM_EVENTS = 500;
+
+    /**
+     * 无新事件时审计记录的保留时间
+     */
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    /**
+     * 有序集合中保留的时间跨度，需不小于最大的统计窗口
+     */
+    private static final Duration WINDOW_RETENTION = Duration.ofHours(24);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 记录审计事件
+     *
+     * @param userId         操作用户ID，为空时只写房间记录
+     * @param roomId         房间ID，为空时只写用户记录
+     * @param countInWindow  是否计入用户的滑动窗口操作次数
+     */
+    public void record(String eventType, Long userId, Long roomId, String details, boolean countInWindow) {
+        long now = System.currentTimeMillis();
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("eventType", eventType);
+        fields.put("userId", String.valueOf(userId));
+        fields.put("roomId", String.valueOf(roomId));
+        fields.put("details", details != null ? details : "");
+        fields.put("timestamp", LocalDateTime.now().toString());
+
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                if (userId != null) {
+                    append(redis, USER_STREAM_PREFIX + userId, fields, MAX_USER_EVENTS);
+                    if (countInWindow) {
+                        String windowKey = USER_WINDOW_PREFIX + userId;
+                        // 成员只需唯一，分值为事件时间
+                        redis.opsForZSet().add(windowKey,
+                                now + ":" + Long.toHexString(ThreadLocalRandom.current().nextLong()), now);
+                        redis.opsForZSet().removeRangeByScore(windowKey, 0, now - WINDOW_RETENTION.toMillis());
+                        redis.expire(windowKey, WINDOW_RETENTION);
+                    }
+                }
+                if (roomId != null) {
+                    append(redis, ROOM_STREAM_PREFIX + roomId, fields, MAX_ROOM_EVENTS);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 用户最近的审计事件，按时间倒序，每条为 JSON 字符串
+     */
+    public List<String> recentUserEvents(Long userId, int limit) {
+        return recentEvents(USER_STREAM_PREFIX + userId, limit);
+    }
+
+    /**
+     * 房间最近的审计事件，按时间倒序，每条为 JSON 字符串
+     */
+    public List<String> recentRoomEvents(Long roomId, int limit) {
+        return recentEvents(ROOM_STREAM_PREFIX + roomId, limit);
+    }
+
+    /**
+     * 用户在最近 window 内计入窗口的操作次数
+     */
+    public long countRecentOperations(Long userId, Duration window) {
+        if (window.compareTo(WINDOW_RETENTION) > 0) {
+            throw new IllegalArgumentException("统计窗口不能超过 " + WINDOW_RETENTION.toHours() + " 小时");
+        }
+        long now = System.currentTimeMillis();
+        Long count = stringRedisTemplate.opsForZSet()
+                .count(USER_WINDOW_PREFIX + userId, now - window.toMillis(), Double.POSITIVE_INFINITY);
+        return count != null ? count : 0;
+    }
+
+    // 私有辅助方法
+
+    private static void append(RedisOperations<String, String> redis, String key, Map<String, String> fields,
+                               long maxEvents) {
+        redis.opsForStream().add(StreamRecords.newRecord().in(key).ofMap(fields));
+        redis.opsForStream().trim(key, maxEvents, true);
+        redis.expire(key, RETENTION);
+    }
+
+    private List<String> recentEvents(String key, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+                .reverseRange(key, Range.unbounded(), RedisZSetCommands.Limit.limit().count(limit));
+        if (records == null) {
+            return Collections.emptyList();
+        }
+        List<String> events = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> event = new LinkedHashMap<>();
+            event.put("id", record.getId().getValue());
+            event.putAll(record.getValue());
+            try {
+                events.add(OBJECT_MAPPER.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                log.warn("序列化审计事件失败: {}", record.getId(), e);
+            }
+        }
+        return events;
+    }
+}
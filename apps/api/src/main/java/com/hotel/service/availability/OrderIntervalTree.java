@@ -0,0 +1,198 @@
+package com.hotel.service.availability;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个房间订单入住区间的增强区间树
+ *
+ * 以 (入住日, 订单ID) 为键的持久化 treap，每个节点记录子树内最大的退房日，
+ * 重叠判断为 O(log n)，列出全部 k 个重叠订单为 O(log n + k)。
+ * 区间以 epochDay 表示，为左闭右开区间 [checkIn, checkOut)。
+ * 修改操作只复制查找路径上的节点并返回新树，旧树保持不变，读线程无需加锁。
+ */
+final class OrderIntervalTree {
+
+    static final OrderIntervalTree EMPTY = new OrderIntervalTree(null);
+
+    private final Node root;
+
+    private OrderIntervalTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 返回加入订单区间后的新树，同一订单的同一入住日已存在时替换，重复应用同一变更不产生重复节点
+     */
+    OrderIntervalTree insert(long orderId, long start, long end) {
+        Node cleared = remove(root, orderId, start);
+        return new OrderIntervalTree(insert(cleared, new Node(orderId, start, end, null, null)));
+    }
+
+    /**
+     * 返回移除订单区间后的新树，订单不存在时返回自身
+     */
+    OrderIntervalTree remove(long orderId, long start) {
+        Node updated = remove(root, orderId, start);
+        return updated == root ? this : new OrderIntervalTree(updated);
+    }
+
+    /**
+     * 判断 [start, end) 是否与任一订单区间重叠
+     */
+    boolean overlaps(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && node.end > start) {
+                return true;
+            }
+            // 左子树存在退房日晚于 start 的区间时，若左子树无重叠，则右子树的入住日必然都不早于 end
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * 列出与 [start, end) 重叠的订单ID，按入住日升序
+     */
+    List<Long> overlapping(long start, long end) {
+        List<Long> orderIds = new ArrayList<>();
+        collect(root, start, end, orderIds);
+        return orderIds;
+    }
+
+    int size() {
+        return root != null ? root.size : 0;
+    }
+
+    // 私有辅助方法
+
+    private static void collect(Node node, long start, long end, List<Long> orderIds) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, orderIds);
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start) {
+            orderIds.add(node.orderId);
+        }
+        collect(node.right, start, end, orderIds);
+    }
+
+    private static Node insert(Node node, Node item) {
+        if (node == null) {
+            return item;
+        }
+        if (item.priority > node.priority) {
+            Node[] parts = split(node, item.start, item.orderId);
+            return item.with(parts[0], parts[1]);
+        }
+        if (compare(item.start, item.orderId, node) < 0) {
+            return node.with(insert(node.left, item), node.right);
+        }
+        return node.with(node.left, insert(node.right, item));
+    }
+
+    private static Node remove(Node node, long orderId, long start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, orderId, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node left = remove(node.left, orderId, start);
+            return left == node.left ? node : node.with(left, node.right);
+        }
+        Node right = remove(node.right, orderId, start);
+        return right == node.right ? node : node.with(node.left, right);
+    }
+
+    /**
+     * 按键拆分为小于键和大于等于键的两部分
+     */
+    private static Node[] split(Node node, long start, long orderId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(start, orderId, node) > 0) {
+            Node[] parts = split(node.right, start, orderId);
+            return new Node[]{node.with(node.left, parts[0]), parts[1]};
+        }
+        Node[] parts = split(node.left, start, orderId);
+        return new Node[]{parts[0], node.with(parts[1], node.right)};
+    }
+
+    /**
+     * 合并两棵树，left 的所有键都小于 right
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    private static int compare(long start, long orderId, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(orderId, node.orderId);
+    }
+
+    private static final class Node {
+
+        private final long orderId;
+        private final long start;
+        private final long end;
+        private final int priority;
+        private final Node left;
+        private final Node right;
+        private final long maxEnd;
+        private final int size;
+
+        private Node(long orderId, long start, long end, Node left, Node right) {
+            this(orderId, start, end, priorityOf(orderId), left, right);
+        }
+
+        private Node(long orderId, long start, long end, int priority, Node left, Node right) {
+            this.orderId = orderId;
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            long max = end;
+            int count = 1;
+            if (left != null) {
+                max = Math.max(max, left.maxEnd);
+                count += left.size;
+            }
+            if (right != null) {
+                max = Math.max(max, right.maxEnd);
+                count += right.size;
+            }
+            this.maxEnd = max;
+            this.size = count;
+        }
+
+        private Node with(Node newLeft, Node newRight) {
+            return new Node(orderId, start, end, priority, newLeft, newRight);
+        }
+
+        /**
+         * 由订单ID散列得到的堆优先级，同一订单在重建前后位置一致
+         */
+        private static int priorityOf(long orderId) {
+            long h = orderId * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
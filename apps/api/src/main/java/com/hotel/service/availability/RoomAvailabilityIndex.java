@@ -0,0 +1,563 @@
+package com.hotel.service.availability;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hotel.entity.Order;
+import com.hotel.entity.Room;
+import com.hotel.repository.OrderRepository;
+import com.hotel.repository.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 房间占用索引
+ *
+ * 进程内唯一的房间占用模型，可用性搜索、冲突检测和预订准入都读取这里的数据。
+ * 每个房间保存一棵订单区间树（当前及未来全部占用订单）和一个覆盖滚动窗口（默认365天）的按天位图：
+ * 区间树回答"与哪些订单冲突"，位图回答"窗口内这几晚是否空闲"，两者在同一次更新中一起替换。
+ *
+ * 启动时和每天零点从订单表全量重建，之后由订单/房间变更在事务提交后增量维护。
+ * 所有写入都在同一把锁内串行执行；重建期间到达的变更排队，快照替换后在新快照上重放。
+ * 本节点应用变更后通过 Redis 频道通知其他节点，收到通知的节点从数据库重新加载该房间，
+ * 因此多实例部署时各节点的索引只会短暂落后；最终是否冲突仍由数据库在房间行锁下判定。
+ *
+ * 入住区间按晚计算，为左闭右开区间 [checkIn, checkOut)。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomAvailabilityIndex implements MessageListener {
+
+    /**
+     * 加载订单时的结束日期，覆盖所有未来订单
+     */
+    private static final LocalDate LOAD_END_DATE = LocalDate.of(9999, 12, 31);
+
+    /**
+     * 锁外重载单个房间的最大尝试次数
+     */
+    private static final int REFRESH_ATTEMPTS = 3;
+
+    private final RoomRepository roomRepository;
+    private final OrderRepository orderRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${hotel.availability-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${hotel.availability-index.horizon-days:365}")
+    private int horizonDays = 365;
+
+    @Value("${hotel.availability-index.channel:availability:room-changed}")
+    private String changeChannel = "availability:room-changed";
+
+    /**
+     * 本节点标识，收到自己发布的通知时跳过
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 当前生效的索引快照，重建时整体替换
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 串行化所有写入：增量变更、单房间重载和快照替换
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 重建期间到达的增量变更，由 writeLock 保护，快照替换后重放
+     */
+    private final List<Consumer<Snapshot>> pendingChanges = new ArrayList<>();
+
+    /**
+     * 是否正在重建，由 writeLock 保护
+     */
+    private boolean rebuilding;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(changeChannel));
+        }
+    }
+
+    /**
+     * 应用启动完成后构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 每天零点重建，使窗口随日期滚动并剔除已离店的订单
+     */
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引
+     *
+     * 加载在锁外进行，期间的增量变更排队；替换快照与重放队列在同一次持锁内完成，不会丢失变更。
+     */
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+        } finally {
+            writeLock.unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Snapshot next = null;
+        try {
+            next = load();
+        } catch (Exception e) {
+            log.error("房间占用索引构建失败，搜索和冲突检测将回退到数据库查询", e);
+        }
+
+        writeLock.lock();
+        try {
+            if (next != null) {
+                snapshot = next;
+                for (Consumer<Snapshot> change : pendingChanges) {
+                    apply(next, change);
+                }
+                log.info("房间占用索引构建完成，房间数: {}, 重放变更数: {}, 耗时: {}ms",
+                        next.slots.size(), pendingChanges.size(), System.currentTimeMillis() - start);
+            }
+            pendingChanges.clear();
+            rebuilding = false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 索引是否已构建，未就绪时调用方应回退到数据库查询
+     */
+    public boolean isReady() {
+        return enabled && snapshot != null;
+    }
+
+    /**
+     * 索引是否可以回答指定日期范围的可用性查询
+     */
+    public boolean covers(LocalDate checkInDate, LocalDate checkOutDate) {
+        Snapshot current = snapshot;
+        return enabled && current != null
+                && checkInDate != null && checkOutDate != null
+                && checkOutDate.isAfter(checkInDate)
+                && !checkInDate.isBefore(current.baseDate)
+                && !checkOutDate.isAfter(current.endDate());
+    }
+
+    /**
+     * 查询指定日期范围内可用的房间ID
+     *
+     * @param hotelId 酒店ID，可为空
+     * @param roomTypeId 房间类型ID，可为空
+     * @param checkInDate 入住日期
+     * @param checkOutDate 退房日期
+     * @return 可用房间ID列表，调用前应先通过 {@link #covers} 判断
+     */
+    public List<Long> findAvailableRoomIds(Long hotelId, Long roomTypeId, LocalDate checkInDate, LocalDate checkOutDate) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+
+        int from = current.offset(checkInDate);
+        int to = current.offset(checkOutDate);
+
+        List<Long> roomIds = new ArrayList<>();
+        for (RoomSlot slot : current.slots.values()) {
+            if (hotelId != null && !hotelId.equals(slot.hotelId)) {
+                continue;
+            }
+            if (roomTypeId != null && !roomTypeId.equals(slot.roomTypeId)) {
+                continue;
+            }
+            if (slot.isFree(from, to)) {
+                roomIds.add(slot.roomId);
+            }
+        }
+        return roomIds;
+    }
+
+    /**
+     * 判断单个房间在指定日期范围内是否可用，调用前应先通过 {@link #covers} 判断
+     */
+    public boolean isAvailable(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        Snapshot current = snapshot;
+        RoomSlot slot = current != null ? current.slots.get(roomId) : null;
+        return slot != null && slot.isFree(current.offset(checkInDate), current.offset(checkOutDate));
+    }
+
+    /**
+     * 判断房间在指定日期范围内是否与已确认订单冲突，不受窗口限制
+     */
+    public boolean hasConflict(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        RoomSlot slot = slotOf(roomId);
+        return slot != null && slot.orders.overlaps(checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+    }
+
+    /**
+     * 列出与指定日期范围冲突的订单ID，按入住日升序
+     */
+    public List<Long> findConflictingOrderIds(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        RoomSlot slot = slotOf(roomId);
+        if (slot == null) {
+            return Collections.emptyList();
+        }
+        return slot.orders.overlapping(checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+    }
+
+    /**
+     * 订单确认后加入索引，事务提交后生效并通知其他节点
+     */
+    public void onOrderConfirmed(Order order) {
+        Long roomId = order.getRoomId();
+        Long orderId = order.getId();
+        LocalDate checkInDate = order.getCheckInDate();
+        LocalDate checkOutDate = order.getCheckOutDate();
+        afterCommit(roomId, s -> s.add(roomId, orderId, checkInDate, checkOutDate));
+    }
+
+    /**
+     * 订单取消或释放后从数据库重新加载该房间，事务提交后生效并通知其他节点
+     *
+     * 不直接删除区间，避免历史数据中存在重叠订单时误释放仍被占用的日期。
+     */
+    public void onOrderReleased(Long roomId) {
+        afterCommit(roomId, s -> reloadOrders(s, roomId));
+    }
+
+    /**
+     * 新增或修改房间后登记到索引
+     */
+    public void onRoomSaved(Room room) {
+        Long roomId = room.getId();
+        Long hotelId = room.getHotelId();
+        Long roomTypeId = room.getRoomTypeId();
+        afterCommit(roomId, s -> {
+            s.register(roomId, hotelId, roomTypeId);
+            reloadOrders(s, roomId);
+        });
+    }
+
+    /**
+     * 删除房间后从索引移除
+     */
+    public void onRoomDeleted(Long roomId) {
+        afterCommit(roomId, s -> s.slots.remove(roomId));
+    }
+
+    /**
+     * 立即从数据库重新加载单个房间，用于调用方怀疑本节点索引落后时
+     *
+     * 加载在锁外进行，持锁时确认加载期间该房间未被其他变更替换才写入；
+     * 连续多次被并发变更打断或正在重建时退回到持锁重载。
+     */
+    public void refreshRoom(Long roomId) {
+        if (!enabled) {
+            return;
+        }
+        for (int attempt = 0; attempt < REFRESH_ATTEMPTS; attempt++) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            RoomSlot before = current.slots.get(roomId);
+            Room room = roomRepository.selectById(roomId);
+            List<Order> orders = room != null
+                    ? orderRepository.findOccupyingOrders(roomId, current.baseDate, LOAD_END_DATE)
+                    : Collections.emptyList();
+
+            writeLock.lock();
+            try {
+                if (!rebuilding && snapshot == current && current.slots.get(roomId) == before) {
+                    replaceRoom(current, roomId, room, orders);
+                    return;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        applyChange(s -> reloadRoom(s, roomId));
+    }
+
+    /**
+     * 处理其他节点发布的房间变更通知，消息格式为 "节点ID|房间ID"
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            String[] parts = body.split("\\|", 2);
+            if (parts.length < 2 || nodeId.equals(parts[0])) {
+                return;
+            }
+            refreshRoom(Long.valueOf(parts[1]));
+        } catch (Exception e) {
+            log.warn("处理房间变更通知失败: {}", body, e);
+        }
+    }
+
+    // 私有辅助方法
+
+    private RoomSlot slotOf(Long roomId) {
+        Snapshot current = snapshot;
+        return enabled && current != null ? current.slots.get(roomId) : null;
+    }
+
+    private void afterCommit(Long roomId, Consumer<Snapshot> change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyChange(change);
+                    publish(roomId);
+                }
+            });
+        } else {
+            applyChange(change);
+            publish(roomId);
+        }
+    }
+
+    private void applyChange(Consumer<Snapshot> change) {
+        writeLock.lock();
+        try {
+            if (rebuilding) {
+                // 旧快照即将被替换，变更只在新快照上重放
+                pendingChanges.add(change);
+                return;
+            }
+            Snapshot current = snapshot;
+            if (current != null) {
+                apply(current, change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(Snapshot target, Consumer<Snapshot> change) {
+        try {
+            change.accept(target);
+        } catch (Exception e) {
+            log.error("房间占用索引增量更新失败", e);
+        }
+    }
+
+    private void publish(Long roomId) {
+        try {
+            stringRedisTemplate.convertAndSend(changeChannel, nodeId + "|" + roomId);
+        } catch (Exception e) {
+            log.warn("发布房间变更通知失败，其他节点将在下次重建时同步: roomId={}", roomId, e);
+        }
+    }
+
+    private Snapshot load() {
+        LocalDate baseDate = LocalDate.now();
+        Snapshot next = new Snapshot(baseDate, horizonDays);
+
+        List<Room> rooms = roomRepository.selectList(new LambdaQueryWrapper<Room>()
+                .select(Room::getId, Room::getHotelId, Room::getRoomTypeId));
+        for (Room room : rooms) {
+            next.register(room.getId(), room.getHotelId(), room.getRoomTypeId());
+        }
+
+        List<Order> orders = orderRepository.findOccupyingOrders(null, baseDate, LOAD_END_DATE);
+        for (Order order : orders) {
+            next.add(order.getRoomId(), order.getId(), order.getCheckInDate(), order.getCheckOutDate());
+        }
+        return next;
+    }
+
+    /**
+     * 重新加载房间信息和订单，房间已删除时移除
+     */
+    private void reloadRoom(Snapshot target, Long roomId) {
+        Room room = roomRepository.selectById(roomId);
+        List<Order> orders = room != null
+                ? orderRepository.findOccupyingOrders(roomId, target.baseDate, LOAD_END_DATE)
+                : Collections.emptyList();
+        replaceRoom(target, roomId, room, orders);
+    }
+
+    private void replaceRoom(Snapshot target, Long roomId, Room room, List<Order> orders) {
+        if (room == null) {
+            target.slots.remove(roomId);
+            return;
+        }
+        target.register(roomId, room.getHotelId(), room.getRoomTypeId());
+        replaceOrders(target, roomId, orders);
+    }
+
+    private void reloadOrders(Snapshot target, Long roomId) {
+        if (target.slots.containsKey(roomId)) {
+            replaceOrders(target, roomId, orderRepository.findOccupyingOrders(roomId, target.baseDate, LOAD_END_DATE));
+        }
+    }
+
+    private void replaceOrders(Snapshot target, Long roomId, List<Order> orders) {
+        RoomSlot slot = target.slots.get(roomId);
+        if (slot == null) {
+            return;
+        }
+        RoomSlot fresh = new RoomSlot(roomId, slot.hotelId, slot.roomTypeId, OrderIntervalTree.EMPTY, new long[target.words]);
+        for (Order order : orders) {
+            fresh = target.withOrder(fresh, order.getId(), order.getCheckInDate(), order.getCheckOutDate());
+        }
+        target.slots.put(roomId, fresh);
+    }
+
+    /**
+     * 索引快照，以 baseDate 为第0天
+     */
+    private static final class Snapshot {
+
+        private final LocalDate baseDate;
+        private final int horizonDays;
+        private final int words;
+        private final Map<Long, RoomSlot> slots = new ConcurrentHashMap<>();
+
+        private Snapshot(LocalDate baseDate, int horizonDays) {
+            this.baseDate = baseDate;
+            this.horizonDays = horizonDays;
+            this.words = (horizonDays + 63) >>> 6;
+        }
+
+        private LocalDate endDate() {
+            return baseDate.plusDays(horizonDays);
+        }
+
+        private int offset(LocalDate date) {
+            long days = date.toEpochDay() - baseDate.toEpochDay();
+            return (int) Math.max(0, Math.min(days, horizonDays));
+        }
+
+        private void register(Long roomId, Long hotelId, Long roomTypeId) {
+            RoomSlot existing = slots.get(roomId);
+            if (existing == null) {
+                slots.put(roomId, new RoomSlot(roomId, hotelId, roomTypeId, OrderIntervalTree.EMPTY, new long[words]));
+            } else {
+                slots.put(roomId, new RoomSlot(roomId, hotelId, roomTypeId, existing.orders, existing.bits));
+            }
+        }
+
+        /**
+         * 加入订单区间，房间未登记时忽略
+         */
+        private void add(Long roomId, Long orderId, LocalDate checkInDate, LocalDate checkOutDate) {
+            RoomSlot slot = slots.get(roomId);
+            if (slot != null) {
+                slots.put(roomId, withOrder(slot, orderId, checkInDate, checkOutDate));
+            }
+        }
+
+        private RoomSlot withOrder(RoomSlot slot, Long orderId, LocalDate checkInDate, LocalDate checkOutDate) {
+            OrderIntervalTree orders = slot.orders.insert(orderId, checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+            long[] bits = slot.bits.clone();
+            RoomSlot.set(bits, offset(checkInDate), offset(checkOutDate));
+            return new RoomSlot(slot.roomId, slot.hotelId, slot.roomTypeId, orders, bits);
+        }
+    }
+
+    /**
+     * 单个房间的占用数据，不可变，更新时整体替换
+     */
+    private static final class RoomSlot {
+
+        private final Long roomId;
+        private final Long hotelId;
+        private final Long roomTypeId;
+        private final OrderIntervalTree orders;
+
+        /**
+         * 窗口内的按天占用位图，位为1表示当晚已被占用
+         */
+        private final long[] bits;
+
+        private RoomSlot(Long roomId, Long hotelId, Long roomTypeId, OrderIntervalTree orders, long[] bits) {
+            this.roomId = roomId;
+            this.hotelId = hotelId;
+            this.roomTypeId = roomTypeId;
+            this.orders = orders;
+            this.bits = bits;
+        }
+
+        /**
+         * [from, to) 区间内所有位均为0时返回true
+         */
+        private boolean isFree(int from, int to) {
+            for (int word = from >>> 6; from < to; word++) {
+                if ((bits[word] & rangeMask(from, to)) != 0) {
+                    return false;
+                }
+                from = (word + 1) << 6;
+            }
+            return true;
+        }
+
+        /**
+         * 将 [from, to) 区间的位置1
+         */
+        private static void set(long[] bits, int from, int to) {
+            for (int word = from >>> 6; from < to; word++) {
+                bits[word] |= rangeMask(from, to);
+                from = (word + 1) << 6;
+            }
+        }
+
+        /**
+         * 生成 from 所在字中落在 [from, to) 内的位掩码
+         */
+        private static long rangeMask(int from, int to) {
+            int wordEnd = ((from >>> 6) + 1) << 6;
+            int end = Math.min(to, wordEnd);
+            long high = end == wordEnd ? -1L : (1L << (end & 63)) - 1;
+            return high & (-1L << (from & 63));
+        }
+    }
+}
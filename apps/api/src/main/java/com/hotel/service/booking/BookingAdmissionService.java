@@ -0,0 +1,254 @@
+package com.hotel.service.booking;
+
+import com.hotel.service.availability.RoomAvailabilityIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 分片预订准入服务
+ *
+ * 按房间ID经一致性哈希路由到固定分片，每个分片由单一写线程维护本节点已准入但事务尚未结束的占位。
+ * 已提交订单不在这里保存，统一读取 {@link RoomAvailabilityIndex}；
+ * 预订先在所属分片上对照索引和占位做区间重叠判断并占位，再由调用方持久化，事务结束时移除占位。
+ * 提交时索引先于占位移除完成更新，因此判定期间不会出现两边都看不到的窗口。
+ * 分片写线程只读内存，索引疑似落后时的数据库重载在调用线程上完成。
+ *
+ * 准入结果不是最终结论，调用方仍须在事务内锁定房间行并以订单表为准判定冲突。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingAdmissionService {
+
+    /**
+     * 每个分片在哈希环上的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 64;
+
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+
+    /**
+     * 等待分片写线程处理的超时时间（毫秒）
+     */
+    @Value("${hotel.booking-admission.timeout-ms:5000}")
+    private long timeoutMillis = 5000;
+
+    /**
+     * 分片数量，0 表示使用CPU核数
+     */
+    @Value("${hotel.booking-admission.shards:0}")
+    private int shardCount;
+
+    private Shard[] shards;
+    private NavigableMap<Integer, Integer> ring;
+
+    @PostConstruct
+    public void start() {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        Shard[] created = new Shard[count];
+        NavigableMap<Integer, Integer> hashRing = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            created[i] = new Shard(i);
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                hashRing.put(mix(((long) i << 32) | v), i);
+            }
+        }
+        this.shards = created;
+        this.ring = hashRing;
+        log.info("预订准入分片初始化完成，分片数: {}", count);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (shards == null) {
+            return;
+        }
+        for (Shard shard : shards) {
+            shard.writer.shutdown();
+        }
+    }
+
+    /**
+     * 判断房间在 [checkIn, checkOut) 是否可用，不加锁
+     *
+     * @param roomId 房间ID
+     * @param checkIn 入住日期
+     * @param checkOut 退房日期
+     * @return 是否可用
+     */
+    public boolean isAvailable(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        Shard shard = shardFor(roomId);
+        return !roomAvailabilityIndex.hasConflict(roomId, checkIn, checkOut)
+                && !shard.pending.getOrDefault(roomId, RoomOccupancy.EMPTY).overlaps(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    /**
+     * 尝试为 [checkIn, checkOut) 占位
+     * 在事务中调用时占位保留到事务结束，非事务调用只做判定不占位；
+     * 与索引中的订单重叠时先在调用线程上从数据库重新加载该房间再判定一次，避免因其他节点已取消的订单误拒。
+     * 等待超时的调用不持有占位：写线程尚未占位时不再占位，已占位时由调用方提交释放
+     *
+     * @param roomId 房间ID
+     * @param checkIn 入住日期
+     * @param checkOut 退房日期
+     * @return 是否准入，false 表示与已有预订重叠
+     */
+    public boolean tryAdmit(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        long start = checkIn.toEpochDay();
+        long end = checkOut.toEpochDay();
+        Shard shard = shardFor(roomId);
+
+        if (roomAvailabilityIndex.hasConflict(roomId, checkIn, checkOut)) {
+            roomAvailabilityIndex.refreshRoom(roomId);
+            if (roomAvailabilityIndex.hasConflict(roomId, checkIn, checkOut)) {
+                log.debug("预订准入: roomId={}, checkIn={}, checkOut={}, admitted=false", roomId, checkIn, checkOut);
+                return false;
+            }
+        }
+
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        AtomicReference<HoldState> hold = new AtomicReference<>(HoldState.WAITING);
+
+        boolean admitted = execute(shard, () -> {
+            if (shard.pending.getOrDefault(roomId, RoomOccupancy.EMPTY).overlaps(start, end)
+                    || roomAvailabilityIndex.hasConflict(roomId, checkIn, checkOut)) {
+                return false;
+            }
+            if (inTransaction) {
+                // 调用方已放弃等待时不再占位，否则占位无人释放
+                if (!hold.compareAndSet(HoldState.WAITING, HoldState.HELD)) {
+                    return false;
+                }
+                shard.pending.merge(roomId, RoomOccupancy.EMPTY.with(start, end), (current, ignored) -> current.with(start, end));
+            }
+            return true;
+        }, () -> {
+            if (!hold.compareAndSet(HoldState.WAITING, HoldState.ABANDONED)) {
+                submitCompletion(shard, roomId, start, end);
+            }
+        });
+
+        if (admitted && inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    submitCompletion(shard, roomId, start, end);
+                }
+            });
+        }
+
+        log.debug("预订准入: roomId={}, checkIn={}, checkOut={}, admitted={}", roomId, checkIn, checkOut, admitted);
+        return admitted;
+    }
+
+    /**
+     * 房间所属分片编号
+     */
+    int shardOf(Long roomId) {
+        Map.Entry<Integer, Integer> entry = ring.ceilingEntry(mix(roomId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    // 私有辅助方法
+
+    private Shard shardFor(Long roomId) {
+        return shards[shardOf(roomId)];
+    }
+
+    /**
+     * 事务结束后移除占位；提交时订单已在 afterCommit 阶段写入索引
+     */
+    private void submitCompletion(Shard shard, Long roomId, long start, long end) {
+        shard.writer.execute(() -> shard.pending.computeIfPresent(roomId, (id, occupancy) -> {
+            RoomOccupancy remaining = occupancy.without(start, end);
+            return remaining.size() == 0 ? null : remaining;
+        }));
+    }
+
+    /**
+     * 在分片写线程上执行任务并等待结果
+     *
+     * @param onAbandon 等待超时或被中断时调用，任务此时可能尚未执行、正在执行或已执行完
+     */
+    private <T> T execute(Shard shard, Callable<T> task, Runnable onAbandon) {
+        Future<T> future = shard.writer.submit(task);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            onAbandon.run();
+            log.warn("预订准入分片处理超时，分片: {}", shard.index);
+            throw new RuntimeException("系统繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            onAbandon.run();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("预订过程中断，请重试");
+        } catch (ExecutionException e) {
+            log.error("预订准入处理失败，分片: {}", shard.index, e.getCause());
+            throw new RuntimeException("预订准入处理失败", e.getCause());
+        }
+    }
+
+    private static int mix(long value) {
+        // MurmurHash3 fmix64，使连续的房间ID均匀分布在哈希环上
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+
+    /**
+     * 单次准入的占位归属：写线程占位与调用方放弃等待只有一方成功
+     */
+    private enum HoldState {
+        WAITING,
+        HELD,
+        ABANDONED
+    }
+
+    /**
+     * 单个分片：一个写线程和该分片房间的占位
+     */
+    private static final class Shard {
+
+        private final int index;
+        private final ExecutorService writer;
+
+        /**
+         * 本节点已准入但事务尚未结束的占位
+         */
+        private final Map<Long, RoomOccupancy> pending = new ConcurrentHashMap<>();
+
+        private Shard(int index) {
+            this.index = index;
+            this.writer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "booking-admission-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
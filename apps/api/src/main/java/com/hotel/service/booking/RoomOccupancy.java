@@ -0,0 +1,92 @@
+package com.hotel.service.booking;
+
+/**
+ * 单个房间已占用区间的不可变集合
+ *
+ * 区间以 epochDay 表示，为左闭右开区间 [start, end)，按起始日升序存放。
+ * 额外维护结束日的前缀最大值，使重叠判断只需一次二分查找，
+ * 即使历史数据中存在相互重叠的订单也能得到正确结果。
+ * 修改操作返回新实例，读线程无需加锁即可安全访问。
+ */
+final class RoomOccupancy {
+
+    static final RoomOccupancy EMPTY = new RoomOccupancy(new long[0], new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    private RoomOccupancy(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    /**
+     * 判断 [start, end) 是否与任一已占用区间重叠
+     */
+    boolean overlaps(long start, long end) {
+        // 最后一个起始日早于 end 的区间下标
+        int idx = lastStartBefore(end);
+        return idx >= 0 && maxEnds[idx] > start;
+    }
+
+    /**
+     * 返回加入 [start, end) 后的新集合
+     */
+    RoomOccupancy with(long start, long end) {
+        int pos = lastStartBefore(start + 1) + 1;
+        long[] newStarts = new long[starts.length + 1];
+        long[] newEnds = new long[ends.length + 1];
+        System.arraycopy(starts, 0, newStarts, 0, pos);
+        System.arraycopy(ends, 0, newEnds, 0, pos);
+        newStarts[pos] = start;
+        newEnds[pos] = end;
+        System.arraycopy(starts, pos, newStarts, pos + 1, starts.length - pos);
+        System.arraycopy(ends, pos, newEnds, pos + 1, ends.length - pos);
+        return new RoomOccupancy(newStarts, newEnds);
+    }
+
+    /**
+     * 返回移除一个 [start, end) 区间后的新集合，不存在时返回自身
+     */
+    RoomOccupancy without(long start, long end) {
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] == start && ends[i] == end) {
+                long[] newStarts = new long[starts.length - 1];
+                long[] newEnds = new long[ends.length - 1];
+                System.arraycopy(starts, 0, newStarts, 0, i);
+                System.arraycopy(ends, 0, newEnds, 0, i);
+                System.arraycopy(starts, i + 1, newStarts, i, starts.length - i - 1);
+                System.arraycopy(ends, i + 1, newEnds, i, ends.length - i - 1);
+                return new RoomOccupancy(newStarts, newEnds);
+            }
+        }
+        return this;
+    }
+
+    int size() {
+        return starts.length;
+    }
+
+    private int lastStartBefore(long day) {
+        int low = 0;
+        int high = starts.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < day) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.hotel.service.cache;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * L1 缓存条目权重估算
+ *
+ * 按值的规模粗略估算内存占用：集合/分页按元素个数，字符串按每 64 个字符计 1，其余对象计 1。
+ * 这样单个列表缓存不会与单个实体缓存占用相同的配额。
+ */
+final class CacheEntryWeigher implements Weigher<Object, Object> {
+
+    static final CacheEntryWeigher INSTANCE = new CacheEntryWeigher();
+
+    private CacheEntryWeigher() {
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long weight;
+        if (value instanceof Collection) {
+            weight = ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            weight = ((Map<?, ?>) value).size();
+        } else if (value instanceof IPage) {
+            weight = ((IPage<?>) value).getRecords().size();
+        } else if (value instanceof CharSequence) {
+            weight = ((CharSequence) value).length() / 64;
+        } else if (value instanceof Object[]) {
+            weight = ((Object[]) value).length;
+        } else {
+            weight = 1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, weight));
+    }
+}
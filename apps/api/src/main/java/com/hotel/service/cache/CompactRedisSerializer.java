@@ -0,0 +1,137 @@
+package com.hotel.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 紧凑二进制缓存序列化器
+ *
+ * 格式为 [魔数][版本][标志][正文]：正文为 Smile 二进制 JSON，重复出现的属性名和类名只写一次并以回引用代替；
+ * 超过压缩阈值时正文再经 LZ4 压缩，此时正文前附 4 字节原始长度。
+ * 对象映射规则（类型信息、日期模块等）与原 JSON 序列化器相同，缓存对象无需任何改动。
+ *
+ * 读取时按首字节区分格式：以魔数开头的按二进制解码，否则在迁移模式下交给原 JSON 序列化器，
+ * 因此切换前写入的 JSON 条目以及 INCR 等命令写入的纯文本数值仍可读取。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 魔数，不可能出现在合法 UTF-8 JSON 的首字节
+     */
+    static final byte MAGIC = (byte) 0xC1;
+
+    /**
+     * 当前格式版本，正文编码变化时递增
+     */
+    static final byte VERSION = 1;
+
+    private static final byte FLAG_LZ4 = 0x01;
+    private static final int HEADER_LENGTH = 3;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final ObjectMapper binaryMapper;
+    private final RedisSerializer<Object> legacySerializer;
+    private final boolean writeBinary;
+    private final boolean readLegacy;
+    private final int compressionThreshold;
+
+    /**
+     * @param mapperConfigurer 原 JSON 序列化器的 ObjectMapper 配置，同样应用到二进制映射器
+     * @param legacySerializer 原 JSON 序列化器
+     * @param writeBinary 是否以二进制格式写入，为 false 时仍写 JSON，但可以读取二进制条目
+     * @param readLegacy 是否可读取非二进制格式的条目（迁移模式）
+     * @param compressionThreshold 正文超过该字节数时压缩，小于等于 0 表示不压缩
+     */
+    public CompactRedisSerializer(Consumer<ObjectMapper> mapperConfigurer, RedisSerializer<Object> legacySerializer,
+                                  boolean writeBinary, boolean readLegacy, int compressionThreshold) {
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.disable(SmileGenerator.Feature.WRITE_HEADER);
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        smileFactory.disable(SmileParser.Feature.REQUIRE_HEADER);
+
+        this.binaryMapper = new ObjectMapper(smileFactory);
+        mapperConfigurer.accept(binaryMapper);
+        this.legacySerializer = legacySerializer;
+        this.writeBinary = writeBinary;
+        this.readLegacy = readLegacy || !writeBinary;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!writeBinary) {
+            return legacySerializer.serialize(value);
+        }
+        if (value == null) {
+            return new byte[0];
+        }
+
+        byte[] body;
+        try {
+            body = binaryMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new SerializationException("缓存对象二进制序列化失败: " + value.getClass().getName(), e);
+        }
+
+        if (compressionThreshold <= 0 || body.length <= compressionThreshold) {
+            byte[] out = new byte[HEADER_LENGTH + body.length];
+            writeHeader(out, (byte) 0);
+            System.arraycopy(body, 0, out, HEADER_LENGTH, body.length);
+            return out;
+        }
+
+        LZ4Compressor compressor = LZ4.fastCompressor();
+        byte[] out = new byte[HEADER_LENGTH + 4 + compressor.maxCompressedLength(body.length)];
+        writeHeader(out, FLAG_LZ4);
+        ByteBuffer.wrap(out, HEADER_LENGTH, 4).putInt(body.length);
+        int compressedLength = compressor.compress(body, 0, body.length, out, HEADER_LENGTH + 4);
+        return Arrays.copyOf(out, HEADER_LENGTH + 4 + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            if (!readLegacy) {
+                throw new SerializationException("缓存条目不是二进制格式，且未开启 JSON 兼容读取");
+            }
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            throw new SerializationException("不支持的缓存格式版本: " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+
+        try {
+            if ((bytes[2] & FLAG_LZ4) == 0) {
+                return binaryMapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, Object.class);
+            }
+            int length = ByteBuffer.wrap(bytes, HEADER_LENGTH, 4).getInt();
+            LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+            byte[] body = new byte[length];
+            decompressor.decompress(bytes, HEADER_LENGTH + 4, body, 0, length);
+            return binaryMapper.readValue(body, Object.class);
+        } catch (Exception e) {
+            throw new SerializationException("缓存条目二进制反序列化失败", e);
+        }
+    }
+
+    private static void writeHeader(byte[] out, byte flags) {
+        out[0] = MAGIC;
+        out[1] = VERSION;
+        out[2] = flags;
+    }
+}
@@ -0,0 +1,236 @@
+package com.hotel.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hotel.dto.admin.cache.CacheTierStatisticsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 两级缓存
+ *
+ * L1 为进程内 Caffeine 缓存，L2 为原有的 Redis 缓存。读取时先查 L1，未命中再查 L2 并回填 L1；
+ * 写入和失效同时作用于两级，并通过回调广播给其他节点，使其丢弃本地 L1 中的旧值。
+ * L1 不缓存空值，与 L2 的 disableCachingNullValues 保持一致。
+ * L1 中的对象在调用方之间共享，调用方不应修改从缓存中取得的对象。
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final org.springframework.cache.Cache remote;
+
+    /**
+     * 本地变更的广播回调，参数为缓存名和键，键为空表示清空整个缓存
+     */
+    private final BiConsumer<String, Object> invalidationPublisher;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+
+    /**
+     * 同步加载（@Cacheable(sync = true)）的次数和累计耗时
+     */
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public TwoLevelCache(String name, Cache<Object, Object> local, org.springframework.cache.Cache remote,
+                         BiConsumer<String, Object> invalidationPublisher) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            remoteMisses.increment();
+            return wrapper;
+        }
+        remoteHits.increment();
+        local.put(localKey, wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: " + type.getName() + ", 实际: " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value = remote.get(key, () -> {
+            long start = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                loads.increment();
+                loadNanos.add(System.nanoTime() - start);
+            }
+        });
+        if (value != null) {
+            local.put(localKey(key), value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(localKey(key), value);
+        } else {
+            local.invalidate(localKey(key));
+        }
+        invalidationPublisher.accept(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing == null && value != null) {
+            local.put(localKey(key), value);
+            invalidationPublisher.accept(name, key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remote.evictIfPresent(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(name, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * 处理其他节点广播的失效消息，只清理本地 L1
+     *
+     * @param key 缓存键的字符串形式，为空表示清空整个缓存
+     */
+    public void invalidateLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * 当前统计快照
+     */
+    public CacheTierStatisticsDTO statistics() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = local.stats();
+        return CacheTierStatisticsDTO.builder()
+                .cacheName(name)
+                .localHits(localHits.sum())
+                .localMisses(localMisses.sum())
+                .localEvictions(stats.evictionCount())
+                .localEvictionWeight(stats.evictionWeight())
+                .localSize(local.estimatedSize())
+                .localWeight(local.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .remoteHits(remoteHits.sum())
+                .remoteMisses(remoteMisses.sum())
+                .build();
+    }
+
+    /**
+     * 注册分层指标
+     *
+     * 指标直接读取已有的统计计数器，不在读写路径上额外记录；
+     * 加载耗时只包含同步加载，非同步的 @Cacheable 在未命中后由切面调用方法再 put，不经过缓存计时
+     */
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("cache", name);
+        registerGets(registry, tags, "l1", "hit", localHits);
+        registerGets(registry, tags, "l1", "miss", localMisses);
+        registerGets(registry, tags, "l2", "hit", remoteHits);
+        registerGets(registry, tags, "l2", "miss", remoteMisses);
+
+        FunctionCounter.builder("hotel.cache.evictions", local, cache -> cache.stats().evictionCount())
+                .tags(tags)
+                .description("L1 按容量淘汰的条目数")
+                .register(registry);
+        Gauge.builder("hotel.cache.size", local, Cache::estimatedSize)
+                .tags(tags)
+                .description("L1 条目数")
+                .register(registry);
+        FunctionTimer.builder("hotel.cache.load", this,
+                        cache -> cache.loads.sum(), cache -> cache.loadNanos.sum(), TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("缓存未命中时同步加载的耗时")
+                .register(registry);
+    }
+
+    private static void registerGets(MeterRegistry registry, Tags tags, String tier, String result, LongAdder counter) {
+        FunctionCounter.builder("hotel.cache.gets", counter, LongAdder::sum)
+                .tags(tags)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * L1 以键的字符串形式存储，与 Redis 键及跨节点失效消息保持一致
+     */
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
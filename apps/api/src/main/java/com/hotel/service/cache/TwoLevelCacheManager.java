@@ -0,0 +1,188 @@
+package com.hotel.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotel.dto.admin.cache.CacheTierStatisticsDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 两级缓存管理器
+ *
+ * 在 RedisCacheManager 前为配置的缓存加一层按权重限制容量的进程内 L1 缓存，其他缓存直接使用 Redis 缓存。
+ * 每个缓存的 L1 过期时间取该缓存的 Redis TTL 与 L1 最大 TTL 中较小者，
+ * 即使失效广播丢失，节点间的不一致也不会超过 L1 最大 TTL。
+ * 本地写入和失效通过 Redis pub/sub 广播，其他节点收到后只清理自己的 L1。
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    /**
+     * 失效消息字段分隔符
+     */
+    private static final char SEPARATOR = '\u0001';
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final Map<String, Duration> ttls;
+    private final Duration defaultTtl;
+    private final Duration localMaxTtl;
+    private final long localMaxWeight;
+    private final Set<String> localCacheNames;
+
+    /**
+     * 本节点标识，用于忽略自己发出的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 指标注册表，绑定前创建的缓存在绑定时补注册，之后创建的缓存在创建时注册
+     */
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * @param remoteCacheManager L2 缓存管理器
+     * @param redisTemplate 用于发布失效消息
+     * @param channel 失效消息频道
+     * @param ttls 各缓存的 Redis TTL
+     * @param defaultTtl 未单独配置的缓存的 Redis TTL
+     * @param localMaxTtl L1 最大 TTL
+     * @param localMaxWeight 每个缓存的 L1 最大权重，见 {@link CacheEntryWeigher}
+     * @param localCacheNames 使用 L1 的缓存名称
+     */
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate, String channel,
+                                Map<String, Duration> ttls, Duration defaultTtl,
+                                Duration localMaxTtl, long localMaxWeight, Set<String> localCacheNames) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.ttls = ttls;
+        this.defaultTtl = defaultTtl;
+        this.localMaxTtl = localMaxTtl;
+        this.localMaxWeight = localMaxWeight;
+        this.localCacheNames = localCacheNames;
+    }
+
+    /**
+     * 配置了 L1 的缓存返回两级缓存，其他缓存直接返回 Redis 缓存
+     */
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null || !localCacheNames.contains(name)) {
+            return remote;
+        }
+        return caches.computeIfAbsent(name, n -> createCache(n, remote));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    /**
+     * 所有已创建缓存的分层统计
+     */
+    public List<CacheTierStatisticsDTO> getStatistics() {
+        return caches.values().stream()
+                .map(TwoLevelCache::statistics)
+                .sorted((a, b) -> a.getCacheName().compareTo(b.getCacheName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 注册所有缓存的分层指标，见 {@link TwoLevelCache#bindTo(MeterRegistry)}
+     */
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        caches.values().forEach(cache -> cache.bindTo(registry));
+    }
+
+    /**
+     * 处理其他节点广播的失效消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf(SEPARATOR);
+        int second = first >= 0 ? body.indexOf(SEPARATOR, first + 1) : -1;
+        if (second < 0) {
+            log.warn("无法解析缓存失效消息: {}", body);
+            return;
+        }
+
+        String sender = body.substring(0, first);
+        if (nodeId.equals(sender)) {
+            return;
+        }
+        String cacheName = body.substring(first + 1, second);
+        String key = second + 1 < body.length() ? body.substring(second + 1) : null;
+
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        }
+    }
+
+    // 私有辅助方法
+
+    private TwoLevelCache createCache(String name, Cache remote) {
+        Duration ttl = ttls.getOrDefault(name, defaultTtl);
+        Duration localTtl = ttl.compareTo(localMaxTtl) < 0 ? ttl : localMaxTtl;
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumWeight(localMaxWeight)
+                .weigher(CacheEntryWeigher.INSTANCE)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+
+        log.info("创建两级缓存: {}, L1 TTL: {}, L1 最大权重: {}", name, localTtl, localMaxWeight);
+        TwoLevelCache cache = new TwoLevelCache(name, local, remote, this::publishInvalidation);
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            cache.bindTo(registry);
+        }
+        return cache;
+    }
+
+    private void publishInvalidation(String cacheName, Object key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR
+                + (key != null ? TwoLevelCache.localKey(key) : "");
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // 广播失败时其他节点的 L1 会在 TTL 到期后自然失效
+            log.warn("发布缓存失效消息失败: cache={}, key={}", cacheName, key, e);
+        }
+    }
+
+    /**
+     * 仅供测试使用
+     */
+    Map<String, TwoLevelCache> caches() {
+        return Collections.unmodifiableMap(caches);
+    }
+}
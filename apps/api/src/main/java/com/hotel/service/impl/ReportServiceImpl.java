@@ -1,10 +1,12 @@
 package com.hotel.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.hotel.dto.report.*;
 import com.hotel.entity.Order;
 import com.hotel.entity.User;
 import com.hotel.entity.Room;
 import com.hotel.entity.RoomType;
+import com.hotel.entity.report.ReportDailyFact;
 import com.hotel.exception.ExportException;
 import com.hotel.exception.ReportException;
 import com.hotel.repository.OrderRepository;
@@ -12,6 +14,8 @@ import com.hotel.repository.UserRepository;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.RoomTypeRepository;
 import com.hotel.service.ReportService;
+import com.hotel.service.report.OrderMetricsAggregator;
+import com.hotel.service.report.ReportFactService;
 import com.hotel.util.DataMaskingUtil;
 import com.hotel.util.ExcelExporter;
 import com.hotel.util.PDFExporter;
@@ -38,6 +42,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -51,12 +57,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ReportServiceImpl implements ReportService {
 
+    /**
+     * 排行榜条目数
+     */
+    private static final int TOP_LIMIT = 10;
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final RoomRepository roomRepository;
     private final RoomTypeRepository roomTypeRepository;
     private final ExcelExporter excelExporter;
     private final PDFExporter pdfExporter;
+    private final ReportFactService reportFactService;
 
     @Value("${app.export.path:./exports/reports}")
     private String exportPath;
@@ -70,38 +82,12 @@ public class ReportServiceImpl implements ReportService {
         report.setStartDate(startDate);
         report.setEndDate(endDate);
 
-        // 查询订单数据
-        List<Order> orders = findOrdersByCriteria(startDate, endDate, roomTypeId, orderStatus);
-
-        // 计算基础统计
-        report.setTotalOrders((long) orders.size());
-        report.setTotalRevenue(calculateTotalRevenue(orders));
-        report.setAverageOrderValue(calculateAverageOrderValue(orders));
-
-        // 按状态统计
-        report.setOrdersByStatus(calculateOrdersByStatus(orders));
-
-        // 按房型统计
-        report.setOrdersByRoomType(calculateOrdersByRoomType(orders));
-
-        // 按日期统计
-        report.setOrdersByDate(calculateOrdersByDate(orders, startDate, endDate));
-
-        // 按月份统计收入
-        report.setRevenueByMonth(calculateRevenueByMonth(orders));
-
-        // 按渠道统计（假设渠道信息在订单的特殊请求中）
-        report.setOrdersByChannel(calculateOrdersByChannel(orders));
-
-        // 计算完成率和取消率
-        report.setCompletionRate(calculateCompletionRate(orders));
-        report.setCancellationRate(calculateCancellationRate(orders));
-
-        // 生成趋势数据
-        report.setOrderTrends(generateOrderTrends(orders, startDate, endDate));
-
-        // 房型偏好排行
-        report.setRoomTypePreferences(calculateRoomTypePreferences(orders));
+        // 单次遍历订单累加全部指标
+        Map<Long, Long> roomTypeIdByRoomId = loadRoomTypeIdByRoomId();
+        List<Order> orders = findOrdersByCriteria(startDate, endDate, roomTypeId, orderStatus, roomTypeIdByRoomId);
+        OrderMetricsAggregator aggregator = new OrderMetricsAggregator(startDate, endDate, roomTypeIdByRoomId)
+            .acceptAll(orders);
+        aggregator.writeTo(report, getRoomTypeNames(aggregator.getRoomTypeIds()));
 
         return report;
     }
@@ -115,36 +101,48 @@ public class ReportServiceImpl implements ReportService {
         report.setStartDate(startDate);
         report.setEndDate(endDate);
 
-        // 查询订单数据
-        List<Order> orders = findOrdersByCriteria(startDate, endDate, roomTypeId, null);
+        // 读取预聚合的日汇总数据
+        List<ReportDailyFact> facts = reportFactService.findFacts(startDate, endDate, roomTypeId);
+        FactTotals totals = FactTotals.of(facts);
+        Map<Long, FactTotals> totalsByRoomType = FactTotals.groupBy(facts, ReportDailyFact::getRoomTypeId);
+        Map<Long, String> roomTypeNames = getRoomTypeNames(totalsByRoomType.keySet());
+        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        long totalRoomDays = countRooms(loadRoomCounts(roomTypeId), null) * totalDays;
 
         // 计算总收入
-        report.setTotalRevenue(calculateTotalRevenue(orders));
+        report.setTotalRevenue(totals.revenue);
 
         // 按月份统计收入
-        report.setMonthlyRevenue(calculateRevenueByMonth(orders));
+        report.setMonthlyRevenue(FactTotals.groupBy(facts,
+                fact -> fact.getStatDate().format(DateTimeFormatter.ofPattern("yyyy-MM"))).entrySet().stream()
+            .filter(entry -> entry.getValue().completedCount > 0)
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().revenue)));
 
         // 按房型统计收入
-        report.setRevenueByRoomType(calculateRevenueByRoomType(orders));
+        report.setRevenueByRoomType(calculateRevenueByRoomType(totalsByRoomType, roomTypeNames));
 
         // 计算ADR和RevPAR
-        report.setAverageDailyRate(calculateAverageDailyRate(orders, startDate, endDate));
-        report.setRevenuePerAvailableRoom(calculateRevPAR(orders, startDate, endDate));
+        report.setAverageDailyRate(divide(totals.revenue, totalDays));
+        report.setRevenuePerAvailableRoom(divide(totals.revenue, totalRoomDays));
 
         // 计算入住率
-        report.setOccupancyRate(calculateOccupancyRate(orders, startDate, endDate));
+        report.setOccupancyRate(percentage(totals.occupiedRooms, totalRoomDays));
 
-        // 计算收入增长率（需要与上一个周期对比）
-        report.setRevenueGrowthRate(calculateRevenueGrowthRate(orders, startDate, endDate));
+        // 计算收入增长率（与上一个周期对比）
+        FactTotals previous = FactTotals.of(
+            reportFactService.findFacts(startDate.minusMonths(1), endDate.minusMonths(1), roomTypeId));
+        report.setRevenueGrowthRate(calculateRevenueGrowthRate(totals.revenue, previous.revenue));
 
         // 日收入趋势
-        report.setDailyRevenueTrends(generateDailyRevenueTrends(orders, startDate, endDate));
+        report.setDailyRevenueTrends(generateDailyRevenueTrends(
+            FactTotals.groupBy(facts, ReportDailyFact::getStatDate), startDate, endDate));
 
         // 房型收入贡献排行
-        report.setRoomTypeRevenueContributions(calculateRoomTypeRevenueContributions(orders));
+        report.setRoomTypeRevenueContributions(
+            calculateRoomTypeRevenueContributions(totalsByRoomType, roomTypeNames, totals.revenue));
 
         // 收入预测数据（简单线性预测）
-        report.setRevenueForecasts(generateRevenueForecasts(orders));
+        report.setRevenueForecasts(generateRevenueForecasts(totals.revenue));
 
         return report;
     }
@@ -158,38 +156,51 @@ public class ReportServiceImpl implements ReportService {
         report.setStartDate(startDate);
         report.setEndDate(endDate);
 
-        // 查询所有用户
-        List<User> allUsers = userRepository.findAll();
-        report.setTotalUsers((long) allUsers.size());
+        LocalDateTime startTime = startDate.atStartOfDay();
+        LocalDateTime endTime = endDate.atTime(23, 59, 59);
+
+        // 用户总数
+        long totalUsers = userRepository.selectCount(null);
+        report.setTotalUsers(totalUsers);
 
         // 按月份统计新增用户
-        report.setNewUsersByMonth(calculateNewUsersByMonth(allUsers, startDate, endDate));
+        Map<LocalDate, Long> registrations = new HashMap<>();
+        for (Map<String, Object> row : userRepository.countRegistrationsByDate(startTime, endTime)) {
+            registrations.put(toLocalDate(row.get("date")), toLong(row.get("count")));
+        }
+        report.setNewUsersByMonth(registrations.entrySet().stream()
+            .collect(Collectors.groupingBy(
+                entry -> entry.getKey().format(DateTimeFormatter.ofPattern("yyyy-MM")),
+                Collectors.summingLong(Map.Entry::getValue)
+            )));
 
-        // 计算活跃用户数（在指定时间段内有订单的用户）
-        List<Order> orders = orderRepository.findByCreatedAtBetween(startDate.atStartOfDay(), endDate.atTime(23, 59, 59));
-        Set<Long> activeUserIds = orders.stream().map(Order::getUserId).collect(Collectors.toSet());
-        report.setActiveUsers((long) activeUserIds.size());
+        // 计算活跃用户数（在指定时间段内有订单的用户），由数据库按用户汇总
+        Map<String, Object> activity = orderRepository.summarizeUserActivity(startTime, endTime);
+        long activeUsers = toLong(activity.get("active_users"));
+        report.setActiveUsers(activeUsers);
 
-        // 计算用户留存率（简化版本）
-        report.setUserRetentionRate(calculateUserRetentionRate(orders, startDate, endDate));
+        // 计算用户留存率（简化版本：重复下单用户的比例）
+        report.setUserRetentionRate(percentage(toLong(activity.get("repeat_users")), activeUsers));
 
         // 计算用户转化率
-        report.setUserConversionRate(calculateUserConversionRate(allUsers, activeUserIds));
+        report.setUserConversionRate(percentage(activeUsers, totalUsers));
 
         // 按角色统计用户
-        report.setUsersByRole(calculateUsersByRole(allUsers));
+        report.setUsersByRole(userRepository.countByRole().stream()
+            .collect(Collectors.toMap(row -> String.valueOf(row.get("role")), row -> toLong(row.get("count")))));
 
         // 下单次数最多的用户排行
-        report.setTopUsersByOrders(calculateTopUsersByOrders(orders));
+        report.setTopUsersByOrders(calculateTopUsersByOrders(startTime, endTime));
 
         // 消费金额最多的用户排行
-        report.setTopUsersBySpending(calculateTopUsersBySpending(orders));
+        report.setTopUsersBySpending(calculateTopUsersBySpending(startTime, endTime));
 
         // 用户注册趋势
-        report.setUserRegistrationTrends(generateUserRegistrationTrends(allUsers, startDate, endDate));
+        report.setUserRegistrationTrends(generateUserRegistrationTrends(
+            registrations, userRepository.countCreatedBefore(startTime), startDate, endDate));
 
         // 用户行为分析
-        report.setUserBehaviorAnalysis(calculateUserBehaviorAnalysis(orders));
+        report.setUserBehaviorAnalysis(calculateUserBehaviorAnalysis(activity));
 
         return report;
     }
@@ -203,45 +214,54 @@ public class ReportServiceImpl implements ReportService {
         report.setStartDate(startDate);
         report.setEndDate(endDate);
 
-        // 查询所有房间
-        List<Room> rooms = roomTypeRepository != null && roomTypeId != null
-            ? roomRepository.findByRoomTypeId(roomTypeId)
-            : roomRepository.findAll();
-        report.setTotalRooms((long) rooms.size());
-
-        // 查询房间状态统计
-        Map<String, Long> roomStatusCount = rooms.stream()
-            .collect(Collectors.groupingBy(Room::getStatus, Collectors.counting()));
-
-        report.setMaintenanceRooms(roomStatusCount.getOrDefault("MAINTENANCE", 0L));
-        report.setAvailableRooms(roomStatusCount.getOrDefault("AVAILABLE", 0L));
-
-        // 查询相关订单
-        List<Order> orders = findOrdersByCriteria(startDate, endDate, roomTypeId, null);
+        // 按房型和状态统计房间数
+        Map<Long, Map<String, Long>> roomCounts = loadRoomCounts(roomTypeId);
+        long totalRooms = countRooms(roomCounts, null);
+        report.setTotalRooms(totalRooms);
+        report.setMaintenanceRooms(countRooms(roomCounts, "MAINTENANCE"));
+        report.setAvailableRooms(countRooms(roomCounts, "AVAILABLE"));
+
+        // 读取预聚合的日汇总数据
+        List<ReportDailyFact> facts = reportFactService.findFacts(startDate, endDate, roomTypeId);
+        FactTotals totals = FactTotals.of(facts);
+        Map<Long, FactTotals> totalsByRoomType = FactTotals.groupBy(facts, ReportDailyFact::getRoomTypeId);
+        Set<Long> roomTypeIds = new HashSet<>(roomCounts.keySet());
+        roomTypeIds.addAll(totalsByRoomType.keySet());
+        Map<Long, String> roomTypeNames = getRoomTypeNames(roomTypeIds);
+        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
 
         // 计算入住率
-        report.setOccupancyRate(calculateOccupancyRate(rooms, orders, startDate, endDate));
+        report.setOccupancyRate(percentage(totals.occupiedRooms, totalRooms * totalDays));
 
         // 平均房价
-        report.setAverageRoomRate(calculateAverageRoomRate(rooms, orders));
+        report.setAverageRoomRate(divide(totals.revenue, totals.orderCount));
 
         // 按房型统计入住率
-        report.setRoomUtilization(calculateRoomUtilization(rooms, orders));
+        Map<String, Double> utilization = new HashMap<>();
+        roomCounts.forEach((typeId, counts) -> utilization.put(roomTypeNames.getOrDefault(typeId, "未知房型"),
+            percentage(totalsByRoomType.getOrDefault(typeId, new FactTotals()).occupiedRooms,
+                countRooms(Collections.singletonMap(typeId, counts), null) * totalDays)));
+        report.setRoomUtilization(utilization);
 
         // 按房型统计收入
-        report.setRevenueByRoomType(calculateRevenueByRoomType(orders));
+        report.setRevenueByRoomType(calculateRevenueByRoomType(totalsByRoomType, roomTypeNames));
 
         // 表现最好的房间排行
-        report.setTopPerformingRooms(calculateTopPerformingRooms(rooms, orders));
+        report.setTopPerformingRooms(calculateTopPerformingRooms(startDate, endDate, roomTypeId, roomTypeNames));
 
         // 房间使用趋势
-        report.setRoomUtilizationTrends(generateRoomUtilizationTrends(rooms, orders, startDate, endDate));
+        report.setRoomUtilizationTrends(generateRoomUtilizationTrends(
+            FactTotals.groupBy(facts, ReportDailyFact::getStatDate), totalRooms, startDate, endDate));
 
         // 房型绩效对比
-        report.setRoomTypePerformances(calculateRoomTypePerformances(rooms, orders));
+        report.setRoomTypePerformances(calculateRoomTypePerformances(
+            roomCounts, totalsByRoomType, roomTypeNames, totals.revenue, totalDays));
 
         // 房间维护统计
-        report.setMaintenanceStats(calculateMaintenanceStats(rooms));
+        List<Room> maintenanceRooms = roomRepository.findByStatus("MAINTENANCE").stream()
+            .filter(room -> roomTypeId == null || roomTypeId.equals(room.getRoomTypeId()))
+            .collect(Collectors.toList());
+        report.setMaintenanceStats(calculateMaintenanceStats(maintenanceRooms));
 
         return report;
     }
@@ -265,38 +285,7 @@ public class ReportServiceImpl implements ReportService {
                 request.getExportFormat().toLowerCase());
             Path filePath = exportDir.resolve(fileName);
 
-            byte[] fileContent;
-
-            // 根据报表类型生成对应的报表数据
-            switch (request.getReportType()) {
-                case ORDER:
-                    OrderReportDTO orderReport = generateOrderReport(
-                        request.getStartDate(), request.getEndDate(),
-                        request.getRoomTypeId(), request.getOrderStatus());
-                    fileContent = generateFileContent(orderReport, request.getExportFormat());
-                    break;
-
-                case REVENUE:
-                    RevenueReportDTO revenueReport = generateRevenueReport(
-                        request.getStartDate(), request.getEndDate(), request.getRoomTypeId());
-                    fileContent = generateFileContent(revenueReport, request.getExportFormat());
-                    break;
-
-                case USER:
-                    UserReportDTO userReport = generateUserReport(
-                        request.getStartDate(), request.getEndDate());
-                    fileContent = generateFileContent(userReport, request.getExportFormat());
-                    break;
-
-                case ROOM:
-                    RoomReportDTO roomReport = generateRoomReport(
-                        request.getStartDate(), request.getEndDate(), request.getRoomTypeId());
-                    fileContent = generateFileContent(roomReport, request.getExportFormat());
-                    break;
-
-                default:
-                    throw new IllegalArgumentException("不支持的报表类型: " + request.getReportType());
-            }
+            byte[] fileContent = renderReport(request, progress -> { });
 
             // 写入文件
             Files.write(filePath, fileContent);
@@ -307,6 +296,9 @@ public class ReportServiceImpl implements ReportService {
 
             return fileUrl;
 
+        } catch (ExportException e) {
+            log.error("报表导出失败，类型：{}，格式：{}", request.getReportType(), request.getExportFormat(), e);
+            throw e;
         } catch (IOException e) {
             log.error("报表导出失败，类型：{}，格式：{}", request.getReportType(), request.getExportFormat(), e);
             throw new ExportException(
@@ -324,6 +316,52 @@ public class ReportServiceImpl implements ReportService {
         }
     }
 
+    @Override
+    public byte[] renderReport(ReportExportRequest request, IntConsumer progressListener) {
+        progressListener.accept(10);
+
+        // 根据报表类型生成对应的报表数据
+        Object reportData;
+        switch (request.getReportType()) {
+            case ORDER:
+                reportData = generateOrderReport(
+                    request.getStartDate(), request.getEndDate(),
+                    request.getRoomTypeId(), request.getOrderStatus());
+                break;
+
+            case REVENUE:
+                reportData = generateRevenueReport(
+                    request.getStartDate(), request.getEndDate(), request.getRoomTypeId());
+                break;
+
+            case USER:
+                reportData = generateUserReport(request.getStartDate(), request.getEndDate());
+                break;
+
+            case ROOM:
+                reportData = generateRoomReport(
+                    request.getStartDate(), request.getEndDate(), request.getRoomTypeId());
+                break;
+
+            default:
+                throw new IllegalArgumentException("不支持的报表类型: " + request.getReportType());
+        }
+        progressListener.accept(60);
+
+        try {
+            byte[] fileContent = generateFileContent(reportData, request.getExportFormat());
+            progressListener.accept(90);
+            return fileContent;
+        } catch (IOException e) {
+            throw new ExportException(
+                request.getReportType().toString(),
+                request.getExportFormat(),
+                "报表导出失败: " + e.getMessage(),
+                e
+            );
+        }
+    }
+
     /**
      * 根据格式生成文件内容
      */
@@ -380,48 +418,40 @@ public class ReportServiceImpl implements ReportService {
         LocalDate today = LocalDate.now();
         LocalDate startOfMonth = today.withDayOfMonth(1);
 
+        // 本月日汇总数据
+        List<ReportDailyFact> monthlyFacts = reportFactService.findFacts(startOfMonth, today, null);
+        FactTotals monthly = FactTotals.of(monthlyFacts);
+        FactTotals todayTotals = FactTotals.groupBy(monthlyFacts, ReportDailyFact::getStatDate)
+            .getOrDefault(today, new FactTotals());
+
         // 今日订单数和收入
-        List<Order> todayOrders = orderRepository.findByCreatedAtBetween(
-            today.atStartOfDay(), today.atTime(23, 59, 59));
-        overview.setTodayOrders((long) todayOrders.size());
-        overview.setTodayRevenue(calculateTotalRevenue(todayOrders));
+        overview.setTodayOrders(todayTotals.orderCount);
+        overview.setTodayRevenue(todayTotals.revenue);
 
-        // 本月订单和收入
-        List<Order> monthlyOrders = orderRepository.findByCreatedAtBetween(
-            startOfMonth.atStartOfDay(), today.atTime(23, 59, 59));
-        overview.setMonthlyRevenue(calculateTotalRevenue(monthlyOrders));
+        // 本月收入
+        overview.setMonthlyRevenue(monthly.revenue);
 
-        // 当前入住率（简化计算）
-        overview.setCurrentOccupancyRate(calculateCurrentOccupancyRate());
+        // 当前入住率及房间状态统计
+        Map<Long, Map<String, Long>> roomCounts = loadRoomCounts(null);
+        overview.setCurrentOccupancyRate(percentage(countRooms(roomCounts, "OCCUPIED"), countRooms(roomCounts, null)));
+        overview.setAvailableRooms(countRooms(roomCounts, "AVAILABLE"));
+        overview.setMaintenanceRooms(countRooms(roomCounts, "MAINTENANCE"));
 
         // 本月新增用户
-        List<User> monthlyUsers = userRepository.findByCreatedAtBetween(
-            startOfMonth.atStartOfDay(), today.atTime(23, 59, 59));
-        overview.setMonthlyNewUsers((long) monthlyUsers.size());
-
-        // 房间状态统计
-        List<Room> allRooms = roomRepository.findAll();
-        Map<String, Long> roomStatusCount = allRooms.stream()
-            .collect(Collectors.groupingBy(Room::getStatus, Collectors.counting()));
-        overview.setAvailableRooms(roomStatusCount.getOrDefault("AVAILABLE", 0L));
-        overview.setMaintenanceRooms(roomStatusCount.getOrDefault("MAINTENANCE", 0L));
+        overview.setMonthlyNewUsers(userRepository.selectCount(new LambdaQueryWrapper<User>()
+            .between(User::getCreatedAt, startOfMonth.atStartOfDay(), today.atTime(23, 59, 59))));
 
         // 活跃用户数（近30天）
         LocalDate thirtyDaysAgo = today.minusDays(30);
-        List<Order> recentOrders = orderRepository.findByCreatedAtBetween(
+        Map<String, Object> recentActivity = orderRepository.summarizeUserActivity(
             thirtyDaysAgo.atStartOfDay(), today.atTime(23, 59, 59));
-        Set<Long> activeUserIds = recentOrders.stream().map(Order::getUserId).collect(Collectors.toSet());
-        overview.setActiveUsers((long) activeUserIds.size());
+        overview.setActiveUsers(toLong(recentActivity.get("active_users")));
 
         // 本月订单完成率
-        long completedOrders = monthlyOrders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .count();
-        overview.setMonthlyCompletionRate(monthlyOrders.isEmpty() ? 0.0 :
-            (double) completedOrders / monthlyOrders.size() * 100);
+        overview.setMonthlyCompletionRate(percentage(monthly.completedCount, monthly.orderCount));
 
         // 平均每日房价
-        overview.setAverageDailyRate(calculateAverageDailyRate(monthlyOrders, startOfMonth, today));
+        overview.setAverageDailyRate(divide(monthly.revenue, ChronoUnit.DAYS.between(startOfMonth, today) + 1));
 
         return overview;
     }
@@ -435,273 +465,87 @@ public class ReportServiceImpl implements ReportService {
 
     // ================= 私有辅助方法 =================
 
-    private List<Order> findOrdersByCriteria(LocalDate startDate, LocalDate endDate, Long roomTypeId, String orderStatus) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-
-        if (roomTypeId != null && orderStatus != null) {
-            return orderRepository.findByRoomTypeIdAndStatusAndCreatedAtBetween(
-                roomTypeId, orderStatus, startDateTime, endDateTime);
-        } else if (roomTypeId != null) {
-            return orderRepository.findByRoomTypeIdAndCreatedAtBetween(
-                roomTypeId, startDateTime, endDateTime);
-        } else if (orderStatus != null) {
-            return orderRepository.findByStatusAndCreatedAtBetween(
-                orderStatus, startDateTime, endDateTime);
-        } else {
-            return orderRepository.findByCreatedAtBetween(startDateTime, endDateTime);
+    /**
+     * 查询报表所需的订单字段
+     */
+    private List<Order> findOrdersByCriteria(LocalDate startDate, LocalDate endDate, Long roomTypeId, String orderStatus,
+                                             Map<Long, Long> roomTypeIdByRoomId) {
+        LambdaQueryWrapper<Order> query = new LambdaQueryWrapper<Order>()
+            .select(Order::getId, Order::getRoomId, Order::getStatus, Order::getTotalPrice,
+                Order::getSpecialRequests, Order::getCreatedAt)
+            .between(Order::getCreatedAt, startDate.atStartOfDay(), endDate.atTime(23, 59, 59))
+            .eq(orderStatus != null, Order::getStatus, orderStatus);
+
+        if (roomTypeId != null) {
+            List<Long> roomIds = roomTypeIdByRoomId.entrySet().stream()
+                .filter(entry -> roomTypeId.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+            if (roomIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+            query.in(Order::getRoomId, roomIds);
         }
-    }
-
-    private BigDecimal calculateTotalRevenue(List<Order> orders) {
-        return orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .map(Order::getTotalPrice)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 
-    private BigDecimal calculateAverageOrderValue(List<Order> orders) {
-        if (orders.isEmpty()) return BigDecimal.ZERO;
-        BigDecimal totalRevenue = calculateTotalRevenue(orders);
-        return totalRevenue.divide(BigDecimal.valueOf(orders.size()), 2, RoundingMode.HALF_UP);
+        return orderRepository.selectList(query);
     }
 
-    private Map<String, Long> calculateOrdersByStatus(List<Order> orders) {
-        return orders.stream()
-            .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
-    }
-
-    private Map<String, Long> calculateOrdersByRoomType(List<Order> orders) {
-        return orders.stream()
-            .collect(Collectors.groupingBy(
-                order -> getRoomTypeName(order.getRoomId()),
-                Collectors.counting()
-            ));
-    }
-
-    private Map<String, Long> calculateOrdersByDate(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        Map<String, Long> ordersByDate = new LinkedHashMap<>();
-        LocalDate currentDate = startDate;
-
-        while (!currentDate.isAfter(endDate)) {
-            String dateStr = currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            long count = orders.stream()
-                .filter(order -> order.getCreatedAt().toLocalDate().equals(currentDate))
-                .count();
-            ordersByDate.put(dateStr, count);
-            currentDate = currentDate.plusDays(1);
+    /**
+     * 房间ID -> 房型ID
+     */
+    private Map<Long, Long> loadRoomTypeIdByRoomId() {
+        Map<Long, Long> roomTypeIdByRoomId = new HashMap<>();
+        for (Room room : roomRepository.selectList(new LambdaQueryWrapper<Room>().select(Room::getId, Room::getRoomTypeId))) {
+            roomTypeIdByRoomId.put(room.getId(), room.getRoomTypeId());
         }
-
-        return ordersByDate;
+        return roomTypeIdByRoomId;
     }
 
-    private Map<String, BigDecimal> calculateRevenueByMonth(List<Order> orders) {
-        return orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .collect(Collectors.groupingBy(
-                order -> order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM")),
-                Collectors.mapping(Order::getTotalPrice,
-                    Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-            ));
-    }
-
-    private Map<String, Long> calculateOrdersByChannel(List<Order> orders) {
-        Map<String, Long> channelMap = new HashMap<>();
-
-        if (orders.isEmpty()) {
-            return channelMap;
-        }
-
-        // 基于订单创建时间和用户行为模式分析渠道
-        // 这是一个简化的实现，实际项目中应该有专门的渠道字段
-        for (Order order : orders) {
-            String channel = determineOrderChannel(order);
-            channelMap.put(channel, channelMap.getOrDefault(channel, 0L) + 1);
-        }
-
-        // 如果没有明确的渠道信息，基于模式进行分类
-        if (channelMap.isEmpty()) {
-            // 基于订单时间模式进行合理分布
-            long totalOrders = orders.size();
-            // 假设周末更多线上订单，工作日更多电话订单
-            long weekendOrders = orders.stream()
-                .filter(order -> {
-                    if (order.getCreatedAt() != null) {
-                        int dayOfWeek = order.getCreatedAt().getDayOfWeek().getValue();
-                        return dayOfWeek == 6 || dayOfWeek == 7; // 周六、周日
-                    }
-                    return false;
-                })
-                .count();
-
-            long weekdayOrders = totalOrders - weekendOrders;
-
-            // 基于时间模式估算渠道分布
-            channelMap.put("官网", totalOrders * 40L / 100L);
-            channelMap.put("微信", totalOrders * 30L / 100L);
-            channelMap.put("电话", totalOrders * 20L / 100L);
-            channelMap.put("其他", totalOrders * 10L / 100L);
-        }
-
-        return channelMap;
-    }
+    // ================= 基于日汇总数据的指标 =================
 
     /**
-     * 根据订单特征判断渠道来源
+     * 按房型和状态统计房间数：房型ID -> (状态 -> 房间数)
+     *
+     * @param roomTypeId 房型ID，为空时统计所有房型
      */
-    private String determineOrderChannel(Order order) {
-        // 如果订单有特殊请求字段包含渠道信息，解析它
-        if (order.getSpecialRequests() != null && !order.getSpecialRequests().trim().isEmpty()) {
-            String requests = order.getSpecialRequests().toLowerCase();
-            if (requests.contains("官网") || requests.contains("online") || requests.contains("website")) {
-                return "官网";
-            } else if (requests.contains("微信") || requests.contains("wechat") || requests.contains("小程序")) {
-                return "微信";
-            } else if (requests.contains("电话") || requests.contains("tel") || requests.contains("call")) {
-                return "电话";
-            }
-        }
-
-        // 基于创建时间判断（简化逻辑）
-        if (order.getCreatedAt() != null) {
-            int hour = order.getCreatedAt().getHour();
-            int dayOfWeek = order.getCreatedAt().getDayOfWeek().getValue();
-
-            // 工作时间（9:00-18:00）更可能是电话或官网
-            if (hour >= 9 && hour <= 18 && dayOfWeek >= 1 && dayOfWeek <= 5) {
-                return "官网"; // 工作日网站访问较多
-            }
-            // 晚上和周末更可能是移动端（微信）
-            else if ((hour < 9 || hour > 18) || (dayOfWeek == 6 || dayOfWeek == 7)) {
-                return "微信";
+    private Map<Long, Map<String, Long>> loadRoomCounts(Long roomTypeId) {
+        Map<Long, Map<String, Long>> counts = new HashMap<>();
+        for (Map<String, Object> row : roomRepository.countByRoomTypeAndStatus()) {
+            Long typeId = toLong(row.get("room_type_id"));
+            if (roomTypeId != null && !roomTypeId.equals(typeId)) {
+                continue;
             }
+            counts.computeIfAbsent(typeId, id -> new HashMap<>())
+                .merge(String.valueOf(row.get("status")), toLong(row.get("count")), Long::sum);
         }
-
-        return "其他";
-    }
-
-    private Double calculateCompletionRate(List<Order> orders) {
-        if (orders.isEmpty()) return 0.0;
-        long completedCount = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .count();
-        return (double) completedCount / orders.size() * 100;
+        return counts;
     }
 
-    private Double calculateCancellationRate(List<Order> orders) {
-        if (orders.isEmpty()) return 0.0;
-        long cancelledCount = orders.stream()
-            .filter(order -> "CANCELLED".equals(order.getStatus()))
-            .count();
-        return (double) cancelledCount / orders.size() * 100;
-    }
-
-    private List<OrderReportDTO.OrderTrendData> generateOrderTrends(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        List<OrderReportDTO.OrderTrendData> trends = new ArrayList<>();
-        LocalDate currentDate = startDate;
-
-        while (!currentDate.isAfter(endDate)) {
-            OrderReportDTO.OrderTrendData trend = new OrderReportDTO.OrderTrendData();
-            String dateStr = currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            trend.setDate(dateStr);
-
-            List<Order> dayOrders = orders.stream()
-                .filter(order -> order.getCreatedAt().toLocalDate().equals(currentDate))
-                .collect(Collectors.toList());
-
-            trend.setOrderCount((long) dayOrders.size());
-            trend.setRevenue(calculateTotalRevenue(dayOrders));
-
-            trends.add(trend);
-            currentDate = currentDate.plusDays(1);
-        }
-
-        return trends;
-    }
-
-    private List<OrderReportDTO.RoomTypePreference> calculateRoomTypePreferences(List<Order> orders) {
-        Map<Long, OrderRoomTypeStats> statsMap = orders.stream()
-            .collect(Collectors.groupingBy(
-                Order::getRoomId,
-                Collectors.collectingAndThen(
-                    Collectors.toList(),
-                    orderList -> {
-                        OrderRoomTypeStats stats = new OrderRoomTypeStats();
-                        stats.orderCount = orderList.size();
-                        stats.revenue = calculateTotalRevenue(orderList);
-                        return stats;
-                    }
-                )
-            ));
-
-        return statsMap.entrySet().stream()
-            .map(entry -> {
-                OrderReportDTO.RoomTypePreference preference = new OrderReportDTO.RoomTypePreference();
-                preference.setRoomTypeName(getRoomTypeName(entry.getKey()));
-                preference.setOrderCount((long) entry.getValue().orderCount);
-                preference.setRevenue(entry.getValue().revenue);
-                // 计算百分比
-                preference.setPercentage(orders.isEmpty() ? 0.0 :
-                    (double) entry.getValue().orderCount / orders.size() * 100);
-                return preference;
-            })
-            .sorted(Comparator.comparing(OrderReportDTO.RoomTypePreference::getOrderCount).reversed())
-            .limit(10)
-            .collect(Collectors.toList());
+    /**
+     * 统计房间数
+     *
+     * @param status 房间状态，为空时统计全部状态
+     */
+    private long countRooms(Map<Long, Map<String, Long>> roomCounts, String status) {
+        return roomCounts.values().stream()
+            .mapToLong(counts -> status == null
+                ? counts.values().stream().mapToLong(Long::longValue).sum()
+                : counts.getOrDefault(status, 0L))
+            .sum();
     }
 
-    private Map<String, BigDecimal> calculateRevenueByRoomType(List<Order> orders) {
-        return orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .collect(Collectors.groupingBy(
-                order -> getRoomTypeName(order.getRoomId()),
-                Collectors.mapping(Order::getTotalPrice,
-                    Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
+    private Map<String, BigDecimal> calculateRevenueByRoomType(Map<Long, FactTotals> totalsByRoomType,
+                                                               Map<Long, String> roomTypeNames) {
+        return totalsByRoomType.entrySet().stream()
+            .filter(entry -> entry.getValue().completedCount > 0)
+            .collect(Collectors.toMap(
+                entry -> roomTypeNames.getOrDefault(entry.getKey(), "未知房型"),
+                entry -> entry.getValue().revenue,
+                BigDecimal::add
             ));
     }
 
-    private BigDecimal calculateAverageDailyRate(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        if (orders.isEmpty()) return BigDecimal.ZERO;
-
-        BigDecimal totalRevenue = calculateTotalRevenue(orders);
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-
-        return totalRevenue.divide(BigDecimal.valueOf(totalDays), 2, RoundingMode.HALF_UP);
-    }
-
-    private BigDecimal calculateRevPAR(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        BigDecimal totalRevenue = calculateTotalRevenue(orders);
-        List<Room> allRooms = roomRepository.findAll();
-        long totalRooms = allRooms.size();
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-
-        return totalRevenue.divide(BigDecimal.valueOf(totalRooms * totalDays), 2, RoundingMode.HALF_UP);
-    }
-
-    private Double calculateOccupancyRate(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        // 简化的入住率计算
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        List<Room> allRooms = roomRepository.findAll();
-        long totalRoomDays = allRooms.size() * totalDays;
-
-        long occupiedRoomDays = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .mapToLong(order -> ChronoUnit.DAYS.between(order.getCheckInDate(), order.getCheckOutDate()))
-            .sum();
-
-        return totalRoomDays == 0 ? 0.0 : (double) occupiedRoomDays / totalRoomDays * 100;
-    }
-
-    private Double calculateRevenueGrowthRate(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        // 简化实现：需要与上一个周期对比
-        LocalDate previousStartDate = startDate.minusMonths(1);
-        LocalDate previousEndDate = endDate.minusMonths(1);
-
-        BigDecimal currentRevenue = calculateTotalRevenue(orders);
-        List<Order> previousOrders = orderRepository.findByCreatedAtBetween(
-            previousStartDate.atStartOfDay(), previousEndDate.atTime(23, 59, 59));
-        BigDecimal previousRevenue = calculateTotalRevenue(previousOrders);
-
+    private Double calculateRevenueGrowthRate(BigDecimal currentRevenue, BigDecimal previousRevenue) {
         if (previousRevenue.compareTo(BigDecimal.ZERO) == 0) return 0.0;
 
         return currentRevenue.subtract(previousRevenue)
@@ -709,59 +553,46 @@ public class ReportServiceImpl implements ReportService {
             .multiply(BigDecimal.valueOf(100)).doubleValue();
     }
 
-    private List<RevenueReportDTO.DailyRevenueData> generateDailyRevenueTrends(List<Order> orders, LocalDate startDate, LocalDate endDate) {
+    private List<RevenueReportDTO.DailyRevenueData> generateDailyRevenueTrends(Map<LocalDate, FactTotals> totalsByDate,
+                                                                              LocalDate startDate, LocalDate endDate) {
         List<RevenueReportDTO.DailyRevenueData> trends = new ArrayList<>();
-        LocalDate currentDate = startDate;
 
-        while (!currentDate.isAfter(endDate)) {
-            RevenueReportDTO.DailyRevenueData trend = new RevenueReportDTO.DailyRevenueData();
-            String dateStr = currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            trend.setDate(dateStr);
-
-            List<Order> dayOrders = orders.stream()
-                .filter(order -> order.getCreatedAt().toLocalDate().equals(currentDate))
-                .collect(Collectors.toList());
-
-            trend.setRevenue(calculateTotalRevenue(dayOrders));
-            trend.setOrderCount((long) dayOrders.size());
-            trend.setAverageOrderValue(calculateAverageOrderValue(dayOrders));
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            FactTotals day = totalsByDate.getOrDefault(date, new FactTotals());
 
+            RevenueReportDTO.DailyRevenueData trend = new RevenueReportDTO.DailyRevenueData();
+            trend.setDate(date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            trend.setRevenue(day.revenue);
+            trend.setOrderCount(day.orderCount);
+            trend.setAverageOrderValue(divide(day.revenue, day.orderCount));
             trends.add(trend);
-            currentDate = currentDate.plusDays(1);
         }
 
         return trends;
     }
 
-    private List<RevenueReportDTO.RoomTypeRevenueContribution> calculateRoomTypeRevenueContributions(List<Order> orders) {
-        Map<String, BigDecimal> revenueByRoomType = calculateRevenueByRoomType(orders);
-        BigDecimal totalRevenue = calculateTotalRevenue(orders);
-
-        return revenueByRoomType.entrySet().stream()
+    private List<RevenueReportDTO.RoomTypeRevenueContribution> calculateRoomTypeRevenueContributions(
+            Map<Long, FactTotals> totalsByRoomType, Map<Long, String> roomTypeNames, BigDecimal totalRevenue) {
+        return totalsByRoomType.entrySet().stream()
+            .filter(entry -> entry.getValue().completedCount > 0)
             .map(entry -> {
+                FactTotals typeTotals = entry.getValue();
                 RevenueReportDTO.RoomTypeRevenueContribution contribution = new RevenueReportDTO.RoomTypeRevenueContribution();
-                contribution.setRoomTypeName(entry.getKey());
-                contribution.setRevenue(entry.getValue());
+                contribution.setRoomTypeName(roomTypeNames.getOrDefault(entry.getKey(), "未知房型"));
+                contribution.setRevenue(typeTotals.revenue);
                 contribution.setPercentage(totalRevenue.compareTo(BigDecimal.ZERO) == 0 ? 0.0 :
-                    entry.getValue().divide(totalRevenue, 4, RoundingMode.HALF_UP)
+                    typeTotals.revenue.divide(totalRevenue, 4, RoundingMode.HALF_UP)
                         .multiply(BigDecimal.valueOf(100)).doubleValue());
-
-                // 计算该房型的订单数和平均订单价值
-                List<Order> roomTypeOrders = orders.stream()
-                    .filter(order -> getRoomTypeName(order.getRoomId()).equals(entry.getKey()))
-                    .collect(Collectors.toList());
-                contribution.setOrderCount((long) roomTypeOrders.size());
-                contribution.setAverageOrderValue(calculateAverageOrderValue(roomTypeOrders));
-
+                contribution.setOrderCount(typeTotals.orderCount);
+                contribution.setAverageOrderValue(divide(typeTotals.revenue, typeTotals.orderCount));
                 return contribution;
             })
             .sorted(Comparator.comparing(RevenueReportDTO.RoomTypeRevenueContribution::getRevenue).reversed())
             .collect(Collectors.toList());
     }
 
-    private List<RevenueReportDTO.RevenueForecast> generateRevenueForecasts(List<Order> orders) {
+    private List<RevenueReportDTO.RevenueForecast> generateRevenueForecasts(BigDecimal currentRevenue) {
         List<RevenueReportDTO.RevenueForecast> forecasts = new ArrayList<>();
-        BigDecimal currentRevenue = calculateTotalRevenue(orders);
 
         // 简单的线性预测：基于历史增长趋势预测未来3个月
         Double growthRate = 5.0; // 假设5%的月增长率
@@ -783,383 +614,185 @@ public class ReportServiceImpl implements ReportService {
         return forecasts;
     }
 
-    private Map<String, Long> calculateNewUsersByMonth(List<User> users, LocalDate startDate, LocalDate endDate) {
-        return users.stream()
-            .filter(user -> {
-                LocalDate userDate = user.getCreatedAt().toLocalDate();
-                return !userDate.isBefore(startDate) && !userDate.isAfter(endDate);
-            })
-            .collect(Collectors.groupingBy(
-                user -> user.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM")),
-                Collectors.counting()
-            ));
-    }
-
-    private Double calculateUserRetentionRate(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        // 简化的留存率计算：计算重复下单用户的比例
-        Map<Long, Long> userOrderCounts = orders.stream()
-            .collect(Collectors.groupingBy(Order::getUserId, Collectors.counting()));
-
-        long repeatUsers = userOrderCounts.values().stream()
-            .mapToLong(count -> count > 1 ? 1 : 0)
-            .sum();
-
-        return userOrderCounts.isEmpty() ? 0.0 : (double) repeatUsers / userOrderCounts.size() * 100;
-    }
-
-    private Double calculateUserConversionRate(List<User> allUsers, Set<Long> activeUserIds) {
-        if (allUsers.isEmpty()) return 0.0;
-        return (double) activeUserIds.size() / allUsers.size() * 100;
-    }
+    private List<UserReportDTO.UserOrderSummary> calculateTopUsersByOrders(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Map<String, Object>> rows = orderRepository.findTopUsersByOrderCount(startTime, endTime, TOP_LIMIT);
+        Map<Long, User> users = getUsers(rows);
 
-    private Map<String, Long> calculateUsersByRole(List<User> users) {
-        return users.stream()
-            .collect(Collectors.groupingBy(User::getRole, Collectors.counting()));
-    }
-
-    private List<UserReportDTO.UserOrderSummary> calculateTopUsersByOrders(List<Order> orders) {
-        Map<Long, Long> userOrderCounts = orders.stream()
-            .collect(Collectors.groupingBy(Order::getUserId, Collectors.counting()));
-
-        return userOrderCounts.entrySet().stream()
-            .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
-            .limit(10)
-            .map(entry -> {
+        return rows.stream()
+            .map(row -> {
                 UserReportDTO.UserOrderSummary summary = new UserReportDTO.UserOrderSummary();
-                summary.setUserId(entry.getKey());
-
-                // 查询用户信息
-                Optional<User> userOpt = userRepository.findById(entry.getKey());
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    // 对敏感数据进行脱敏处理
-                    summary.setUsername(DataMaskingUtil.maskName(user.getUsername()));
-                    summary.setEmail(DataMaskingUtil.maskEmail(user.getEmail()));
-                    if (user.getPhone() != null) {
-                        summary.setPhone(DataMaskingUtil.maskPhone(user.getPhone()));
-                    }
-                } else {
-                    summary.setUsername(DataMaskingUtil.maskName("未知用户"));
-                    summary.setEmail("unknown@example.com");
-                }
+                Long userId = toLong(row.get("user_id"));
+                summary.setUserId(userId);
 
-                summary.setOrderCount(entry.getValue());
+                // 对敏感数据进行脱敏处理
+                User user = users.get(userId);
+                summary.setUsername(DataMaskingUtil.maskName(user != null ? user.getUsername() : "未知用户"));
+                summary.setEmail(user != null ? DataMaskingUtil.maskEmail(user.getEmail()) : "unknown@example.com");
 
-                // 设置最后下单时间
-                orders.stream()
-                    .filter(order -> order.getUserId().equals(entry.getKey()))
-                    .max(Comparator.comparing(Order::getCreatedAt))
-                    .ifPresent(order -> summary.setLastOrderDate(order.getCreatedAt()));
+                summary.setOrderCount(toLong(row.get("order_count")));
+                summary.setLastOrderDate(toLocalDateTime(row.get("last_order_at")));
                 return summary;
             })
             .collect(Collectors.toList());
     }
 
-    private List<UserReportDTO.UserSpendingSummary> calculateTopUsersBySpending(List<Order> orders) {
-        Map<Long, BigDecimal> userSpending = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .collect(Collectors.groupingBy(
-                Order::getUserId,
-                Collectors.mapping(Order::getTotalPrice,
-                    Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-            ));
+    private List<UserReportDTO.UserSpendingSummary> calculateTopUsersBySpending(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Map<String, Object>> rows = orderRepository.findTopUsersBySpending(startTime, endTime, TOP_LIMIT);
+        Map<Long, User> users = getUsers(rows);
 
-        Map<Long, Long> userOrderCounts = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .collect(Collectors.groupingBy(Order::getUserId, Collectors.counting()));
-
-        return userSpending.entrySet().stream()
-            .sorted(Map.Entry.<Long, BigDecimal>comparingByValue().reversed())
-            .limit(10)
-            .map(entry -> {
+        return rows.stream()
+            .map(row -> {
                 UserReportDTO.UserSpendingSummary summary = new UserReportDTO.UserSpendingSummary();
-                summary.setUserId(entry.getKey());
-
-                // 查询用户信息并脱敏
-                Optional<User> userOpt = userRepository.findById(entry.getKey());
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    // 对敏感数据进行脱敏处理
-                    summary.setUsername(DataMaskingUtil.maskName(user.getUsername()));
-                    summary.setEmail(DataMaskingUtil.maskEmail(user.getEmail()));
-                    if (user.getPhone() != null) {
-                        summary.setPhone(DataMaskingUtil.maskPhone(user.getPhone()));
-                    }
-                } else {
-                    summary.setUsername(DataMaskingUtil.maskName("未知用户"));
-                    summary.setEmail("unknown@example.com");
-                }
+                Long userId = toLong(row.get("user_id"));
+                summary.setUserId(userId);
 
-                summary.setTotalSpending(entry.getValue());
-
-                Long orderCount = userOrderCounts.get(entry.getKey());
-                summary.setOrderCount(orderCount != null ? orderCount : 0L);
+                // 对敏感数据进行脱敏处理
+                User user = users.get(userId);
+                summary.setUsername(DataMaskingUtil.maskName(user != null ? user.getUsername() : "未知用户"));
+                summary.setEmail(user != null ? DataMaskingUtil.maskEmail(user.getEmail()) : "unknown@example.com");
 
+                summary.setTotalSpending(toBigDecimal(row.get("total_spending")));
+                summary.setOrderCount(toLong(row.get("order_count")));
                 if (summary.getOrderCount() > 0) {
-                    summary.setAverageOrderValue(
-                        entry.getValue().divide(BigDecimal.valueOf(summary.getOrderCount()), 2, RoundingMode.HALF_UP));
+                    summary.setAverageOrderValue(divide(summary.getTotalSpending(), summary.getOrderCount()));
                 }
-
                 return summary;
             })
             .collect(Collectors.toList());
     }
 
-    private List<UserReportDTO.UserRegistrationTrend> generateUserRegistrationTrends(List<User> users, LocalDate startDate, LocalDate endDate) {
+    private List<UserReportDTO.UserRegistrationTrend> generateUserRegistrationTrends(Map<LocalDate, Long> registrations,
+                                                                                    long usersBeforeStart,
+                                                                                    LocalDate startDate, LocalDate endDate) {
         List<UserReportDTO.UserRegistrationTrend> trends = new ArrayList<>();
-        LocalDate currentDate = startDate;
-        long cumulativeCount = users.stream()
-            .filter(user -> user.getCreatedAt().toLocalDate().isBefore(startDate))
-            .count();
+        long cumulativeCount = usersBeforeStart;
 
-        while (!currentDate.isAfter(endDate)) {
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
             UserReportDTO.UserRegistrationTrend trend = new UserReportDTO.UserRegistrationTrend();
-            String dateStr = currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            trend.setDate(dateStr);
-
-            long newUsersCount = users.stream()
-                .filter(user -> user.getCreatedAt().toLocalDate().equals(currentDate))
-                .count();
+            trend.setDate(date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
 
+            long newUsersCount = registrations.getOrDefault(date, 0L);
             trend.setNewUserCount(newUsersCount);
             cumulativeCount += newUsersCount;
             trend.setCumulativeUserCount(cumulativeCount);
 
             trends.add(trend);
-            currentDate = currentDate.plusDays(1);
         }
 
         return trends;
     }
 
-    private UserReportDTO.UserBehaviorAnalysis calculateUserBehaviorAnalysis(List<Order> orders) {
+    private UserReportDTO.UserBehaviorAnalysis calculateUserBehaviorAnalysis(Map<String, Object> activity) {
         UserReportDTO.UserBehaviorAnalysis analysis = new UserReportDTO.UserBehaviorAnalysis();
 
-        if (orders.isEmpty()) {
+        long activeUsers = toLong(activity.get("active_users"));
+        long orderCount = toLong(activity.get("order_count"));
+        if (activeUsers == 0) {
             analysis.setAverageOrdersPerUser(0.0);
             analysis.setAverageSpendingPerUser(BigDecimal.ZERO);
             analysis.setRepeatPurchaseRate(0.0);
             return analysis;
         }
 
-        Map<Long, Long> userOrderCounts = orders.stream()
-            .collect(Collectors.groupingBy(Order::getUserId, Collectors.counting()));
-
-        Map<Long, BigDecimal> userSpending = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .collect(Collectors.groupingBy(
-                Order::getUserId,
-                Collectors.mapping(Order::getTotalPrice,
-                    Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-            ));
-
         // 平均每用户订单数
-        analysis.setAverageOrdersPerUser(
-            orders.size() / (double) userOrderCounts.size());
+        analysis.setAverageOrdersPerUser(orderCount / (double) activeUsers);
 
-        // 平均每用户消费金额
-        BigDecimal totalSpending = userSpending.values().stream()
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 平均每用户消费金额（按有消费的用户计）
         analysis.setAverageSpendingPerUser(
-            totalSpending.divide(BigDecimal.valueOf(userSpending.size()), 2, RoundingMode.HALF_UP));
+            divide(toBigDecimal(activity.get("completed_spending")), toLong(activity.get("spending_users"))));
 
         // 重复购买率
-        long repeatUsers = userOrderCounts.values().stream()
-            .mapToLong(count -> count > 1 ? 1 : 0)
-            .sum();
-        analysis.setRepeatPurchaseRate((double) repeatUsers / userOrderCounts.size() * 100);
+        analysis.setRepeatPurchaseRate(percentage(toLong(activity.get("repeat_users")), activeUsers));
 
         // 预订时间分布（简化实现）
         Map<String, Long> timeDistribution = new HashMap<>();
-        timeDistribution.put("上午", orders.size() * 30L / 100L);
-        timeDistribution.put("下午", orders.size() * 45L / 100L);
-        timeDistribution.put("晚上", orders.size() * 25L / 100L);
+        timeDistribution.put("上午", orderCount * 30L / 100L);
+        timeDistribution.put("下午", orderCount * 45L / 100L);
+        timeDistribution.put("晚上", orderCount * 25L / 100L);
         analysis.setBookingTimeDistribution(timeDistribution);
 
         return analysis;
     }
 
-    private Double calculateOccupancyRate(List<Room> rooms, List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        if (rooms.isEmpty()) return 0.0;
-
-        long totalDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        long totalRoomDays = rooms.size() * totalDays;
-
-        long occupiedRoomDays = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .mapToLong(order -> ChronoUnit.DAYS.between(order.getCheckInDate(), order.getCheckOutDate()))
-            .sum();
-
-        return (double) occupiedRoomDays / totalRoomDays * 100;
-    }
-
-    private BigDecimal calculateAverageRoomRate(List<Room> rooms, List<Order> orders) {
-        if (orders.isEmpty()) return BigDecimal.ZERO;
-
-        return calculateTotalRevenue(orders)
-            .divide(BigDecimal.valueOf(orders.size()), 2, RoundingMode.HALF_UP);
-    }
+    private List<RoomReportDTO.RoomPerformance> calculateTopPerformingRooms(LocalDate startDate, LocalDate endDate,
+                                                                           Long roomTypeId, Map<Long, String> roomTypeNames) {
+        List<Map<String, Object>> rows = orderRepository.findTopRoomsByRevenue(
+            startDate.atStartOfDay(), endDate.atTime(23, 59, 59), roomTypeId, TOP_LIMIT);
+        List<Long> roomIds = rows.stream().map(row -> toLong(row.get("room_id"))).collect(Collectors.toList());
+        Map<Long, Room> rooms = roomIds.isEmpty() ? Collections.emptyMap() : roomRepository.selectBatchIds(roomIds).stream()
+            .collect(Collectors.toMap(Room::getId, Function.identity()));
 
-    private Map<String, Double> calculateRoomUtilization(List<Room> rooms, List<Order> orders) {
-        Map<String, Double> utilization = new HashMap<>();
-
-        // 按房型分组统计
-        Map<Long, List<Room>> roomsByType = rooms.stream()
-            .collect(Collectors.groupingBy(Room::getRoomTypeId));
-
-        for (Map.Entry<Long, List<Room>> entry : roomsByType.entrySet()) {
-            String roomTypeName = getRoomTypeNameById(entry.getKey());
-            List<Order> typeOrders = orders.stream()
-                .filter(order -> {
-                    Room room = rooms.stream()
-                        .filter(r -> r.getId().equals(order.getRoomId()))
-                        .findFirst()
-                        .orElse(null);
-                    return room != null && room.getRoomTypeId().equals(entry.getKey());
-                })
-                .collect(Collectors.toList());
-
-            // 计算该房型的入住率
-            Double typeOccupancyRate = calculateOccupancyRate(entry.getValue(), typeOrders,
-                LocalDate.now().minusDays(30), LocalDate.now());
-            utilization.put(roomTypeName, typeOccupancyRate);
-        }
-
-        return utilization;
-    }
-
-    private List<RoomReportDTO.RoomPerformance> calculateTopPerformingRooms(List<Room> rooms, List<Order> orders) {
-        Map<Long, List<Order>> roomOrders = orders.stream()
-            .filter(order -> "COMPLETED".equals(order.getStatus()))
-            .collect(Collectors.groupingBy(Order::getRoomId));
-
-        return roomOrders.entrySet().stream()
-            .map(entry -> {
+        return rows.stream()
+            .map(row -> {
                 RoomReportDTO.RoomPerformance performance = new RoomReportDTO.RoomPerformance();
-                performance.setRoomId(entry.getKey());
-
-                Room room = rooms.stream()
-                    .filter(r -> r.getId().equals(entry.getKey()))
-                    .findFirst()
-                    .orElse(null);
+                Long roomId = toLong(row.get("room_id"));
+                performance.setRoomId(roomId);
 
+                Room room = rooms.get(roomId);
                 if (room != null) {
                     performance.setRoomNumber(room.getRoomNumber());
-                    performance.setRoomTypeName(getRoomTypeName(room.getId()));
+                    performance.setRoomTypeName(roomTypeNames.getOrDefault(room.getRoomTypeId(), "未知房型"));
                 }
 
-                List<Order> roomOrderList = entry.getValue();
-                performance.setTotalOrders((long) roomOrderList.size());
-                performance.setTotalRevenue(calculateTotalRevenue(roomOrderList));
-                performance.setAverageRevenuePerOrder(calculateAverageOrderValue(roomOrderList));
+                performance.setTotalOrders(toLong(row.get("order_count")));
+                performance.setTotalRevenue(toBigDecimal(row.get("revenue")));
+                performance.setAverageRevenuePerOrder(divide(performance.getTotalRevenue(), performance.getTotalOrders()));
 
-                // 计算入住率和入住天数
-                int totalNights = roomOrderList.stream()
-                    .mapToInt(order -> (int) ChronoUnit.DAYS.between(order.getCheckInDate(), order.getCheckOutDate()))
-                    .sum();
+                // 入住天数及每晚收入
+                int totalNights = (int) toLong(row.get("nights"));
                 performance.setTotalNights(totalNights);
-
                 if (totalNights > 0) {
-                    performance.setRevenuePerNight(
-                        performance.getTotalRevenue().divide(BigDecimal.valueOf(totalNights), 2, RoundingMode.HALF_UP));
+                    performance.setRevenuePerNight(divide(performance.getTotalRevenue(), totalNights));
                 }
 
                 return performance;
             })
-            .sorted(Comparator.comparing(RoomReportDTO.RoomPerformance::getTotalRevenue).reversed())
-            .limit(10)
             .collect(Collectors.toList());
     }
 
-    private List<RoomReportDTO.RoomUtilizationTrend> generateRoomUtilizationTrends(List<Room> rooms, List<Order> orders, LocalDate startDate, LocalDate endDate) {
+    private List<RoomReportDTO.RoomUtilizationTrend> generateRoomUtilizationTrends(Map<LocalDate, FactTotals> totalsByDate,
+                                                                                  long totalRooms,
+                                                                                  LocalDate startDate, LocalDate endDate) {
         List<RoomReportDTO.RoomUtilizationTrend> trends = new ArrayList<>();
-        LocalDate currentDate = startDate;
 
-        while (!currentDate.isAfter(endDate)) {
-            RoomReportDTO.RoomUtilizationTrend trend = new RoomReportDTO.RoomUtilizationTrend();
-            String dateStr = currentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            trend.setDate(dateStr);
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            FactTotals day = totalsByDate.getOrDefault(date, new FactTotals());
 
-            // 当天的总房间数
-            long totalRooms = rooms.size();
+            RoomReportDTO.RoomUtilizationTrend trend = new RoomReportDTO.RoomUtilizationTrend();
+            trend.setDate(date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
             trend.setTotalRooms(totalRooms);
-
-            // 计算当天占用的房间数
-            long occupiedRooms = orders.stream()
-                .filter(order -> "COMPLETED".equals(order.getStatus()))
-                .filter(order -> !currentDate.isBefore(order.getCheckInDate()) &&
-                                currentDate.isBefore(order.getCheckOutDate()))
-                .map(Order::getRoomId)
-                .distinct()
-                .count();
-
-            trend.setOccupiedRooms(occupiedRooms);
-            trend.setAvailableRooms(totalRooms - occupiedRooms);
-
-            // 计算入住率
-            double occupancyRate = totalRooms == 0 ? 0.0 : (double) occupiedRooms / totalRooms * 100;
-            trend.setOccupancyRate(occupancyRate);
-
-            // 计算当日收入
-            BigDecimal dailyRevenue = orders.stream()
-                .filter(order -> "COMPLETED".equals(order.getStatus()) &&
-                                order.getCreatedAt().toLocalDate().equals(currentDate))
-                .map(Order::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            trend.setDailyRevenue(dailyRevenue);
-
+            trend.setOccupiedRooms(day.occupiedRooms);
+            trend.setAvailableRooms(totalRooms - day.occupiedRooms);
+            trend.setOccupancyRate(percentage(day.occupiedRooms, totalRooms));
+            trend.setDailyRevenue(day.revenue);
             trends.add(trend);
-            currentDate = currentDate.plusDays(1);
         }
 
         return trends;
     }
 
-    private List<RoomReportDTO.RoomTypePerformance> calculateRoomTypePerformances(List<Room> rooms, List<Order> orders) {
-        Map<Long, List<Room>> roomsByType = rooms.stream()
-            .collect(Collectors.groupingBy(Room::getRoomTypeId));
-
-        BigDecimal totalRevenue = calculateTotalRevenue(orders);
-
-        return roomsByType.entrySet().stream()
+    private List<RoomReportDTO.RoomTypePerformance> calculateRoomTypePerformances(Map<Long, Map<String, Long>> roomCounts,
+                                                                                 Map<Long, FactTotals> totalsByRoomType,
+                                                                                 Map<Long, String> roomTypeNames,
+                                                                                 BigDecimal totalRevenue, long totalDays) {
+        return roomCounts.entrySet().stream()
             .map(entry -> {
+                FactTotals typeTotals = totalsByRoomType.getOrDefault(entry.getKey(), new FactTotals());
+                long typeRooms = countRooms(Collections.singletonMap(entry.getKey(), entry.getValue()), null);
+
                 RoomReportDTO.RoomTypePerformance performance = new RoomReportDTO.RoomTypePerformance();
-                performance.setRoomTypeName(getRoomTypeNameById(entry.getKey()));
-                performance.setTotalRooms((long) entry.getValue().size());
-
-                // 筛选该房型的订单
-                List<Order> typeOrders = orders.stream()
-                    .filter(order -> {
-                        Room room = rooms.stream()
-                            .filter(r -> r.getId().equals(order.getRoomId()))
-                            .findFirst()
-                            .orElse(null);
-                        return room != null && room.getRoomTypeId().equals(entry.getKey());
-                    })
-                    .collect(Collectors.toList());
-
-                performance.setTotalOrders((long) typeOrders.size());
-                performance.setTotalRevenue(calculateTotalRevenue(typeOrders));
-
-                // 计算入住率
-                Double occupancyRate = calculateOccupancyRate(entry.getValue(), typeOrders,
-                    LocalDate.now().minusDays(30), LocalDate.now());
-                performance.setOccupancyRate(occupancyRate);
-
-                // 计算平均每日房价
-                performance.setAverageDailyRate(calculateAverageRoomRate(entry.getValue(), typeOrders));
-
-                // 计算每间可售房收入
-                long totalRoomDays = entry.getValue().size() * 30; // 30天的房间天数
-                if (totalRoomDays > 0) {
-                    performance.setRevenuePerAvailableRoom(
-                        performance.getTotalRevenue().divide(BigDecimal.valueOf(totalRoomDays), 2, RoundingMode.HALF_UP));
-                }
+                performance.setRoomTypeName(roomTypeNames.getOrDefault(entry.getKey(), "未知房型"));
+                performance.setTotalRooms(typeRooms);
+                performance.setTotalOrders(typeTotals.orderCount);
+                performance.setTotalRevenue(typeTotals.revenue);
+                performance.setOccupancyRate(percentage(typeTotals.occupiedRooms, typeRooms * totalDays));
+                performance.setAverageDailyRate(divide(typeTotals.revenue, typeTotals.orderCount));
+                performance.setRevenuePerAvailableRoom(divide(typeTotals.revenue, typeRooms * totalDays));
 
                 // 计算收入贡献百分比
                 performance.setRevenueContribution(
                     totalRevenue.compareTo(BigDecimal.ZERO) == 0 ? 0.0 :
-                    performance.getTotalRevenue().divide(totalRevenue, 4, RoundingMode.HALF_UP)
+                    typeTotals.revenue.divide(totalRevenue, 4, RoundingMode.HALF_UP)
                         .multiply(BigDecimal.valueOf(100)).doubleValue());
 
                 return performance;
@@ -1207,49 +840,91 @@ public class ReportServiceImpl implements ReportService {
         return stats;
     }
 
-    private Double calculateCurrentOccupancyRate() {
-        List<Room> allRooms = roomRepository.findAll();
-        if (allRooms.isEmpty()) return 0.0;
+    // ================= 辅助类和方法 =================
+
+    /**
+     * 日汇总数据的累计值
+     */
+    private static class FactTotals {
+        long orderCount;
+        long completedCount;
+        long occupiedRooms;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        void add(ReportDailyFact fact) {
+            orderCount += fact.getOrderCount();
+            completedCount += fact.getCompletedCount();
+            occupiedRooms += fact.getOccupiedRooms();
+            revenue = revenue.add(fact.getCompletedRevenue());
+        }
+
+        static FactTotals of(List<ReportDailyFact> facts) {
+            FactTotals totals = new FactTotals();
+            facts.forEach(totals::add);
+            return totals;
+        }
+
+        static <K extends Comparable<K>> Map<K, FactTotals> groupBy(List<ReportDailyFact> facts,
+                                                                    Function<ReportDailyFact, K> classifier) {
+            Map<K, FactTotals> grouped = new TreeMap<>();
+            for (ReportDailyFact fact : facts) {
+                grouped.computeIfAbsent(classifier.apply(fact), k -> new FactTotals()).add(fact);
+            }
+            return grouped;
+        }
+    }
+
+    private Map<Long, String> getRoomTypeNames(Collection<Long> roomTypeIds) {
+        List<Long> ids = roomTypeIds.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return roomTypeRepository.selectBatchIds(ids).stream()
+            .collect(Collectors.toMap(RoomType::getId, RoomType::getName, (a, b) -> a));
+    }
 
-        long occupiedRooms = allRooms.stream()
-            .filter(room -> "OCCUPIED".equals(room.getStatus()))
-            .count();
+    private Map<Long, User> getUsers(List<Map<String, Object>> rows) {
+        List<Long> userIds = rows.stream().map(row -> toLong(row.get("user_id"))).collect(Collectors.toList());
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRepository.selectBatchIds(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
 
-        return (double) occupiedRooms / allRooms.size() * 100;
+    private static BigDecimal divide(BigDecimal value, long divisor) {
+        return divisor > 0 ? value.divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
     }
 
-    // ================= 辅助类和方法 =================
+    private static Double percentage(long part, long total) {
+        return total > 0 ? (double) part / total * 100 : 0.0;
+    }
 
-    private static class OrderRoomTypeStats {
-        int orderCount;
-        BigDecimal revenue;
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
     }
 
-    private String getRoomTypeName(Long roomId) {
-        try {
-            Room room = roomRepository.findById(roomId).orElse(null);
-            if (room != null && room.getRoomTypeId() != null) {
-                return getRoomTypeNameById(room.getRoomTypeId());
-            }
-            return "未知房型";
-        } catch (Exception e) {
-            log.warn("查询房间类型失败，roomId: {}", roomId, e);
-            return "未知房型";
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
         }
+        return value instanceof Number ? BigDecimal.valueOf(((Number) value).doubleValue()) : BigDecimal.ZERO;
     }
 
-    private String getRoomTypeNameById(Long roomTypeId) {
-        try {
-            if (roomTypeRepository != null) {
-                Optional<RoomType> roomType = roomTypeRepository.findById(roomTypeId);
-                if (roomType.isPresent()) {
-                    return roomType.get().getName();
-                }
-            }
-            return "未知房型";
-        } catch (Exception e) {
-            log.warn("查询房间类型失败，roomTypeId: {}", roomTypeId, e);
-            return "未知房型";
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        }
+        return value instanceof LocalDate ? (LocalDate) value : LocalDate.parse(String.valueOf(value));
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime();
         }
+        return value instanceof LocalDateTime ? (LocalDateTime) value : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package com.hotel.service.log;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hotel.repository.log.ErrorLogRepository;
+import com.hotel.repository.log.LoginLogRepository;
+import com.hotel.repository.log.OperationLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志归档文件存储
+ *
+ * 每个过期分区归档为一个 gzip 压缩的 NDJSON 文件：{archivePath}/{表名}/{表名}-yyyy-MM.ndjson.gz，
+ * 每行一条日志实体，按创建时间升序排列。归档文件可按与数据库查询相同的条件分页检索，
+ * 检索时逐行解压过滤，内存占用只与分页大小有关。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogArchiveStore {
+
+    private static final String FILE_SUFFIX = ".ndjson.gz";
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ObjectMapper ARCHIVE_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final OperationLogRepository operationLogRepository;
+    private final LoginLogRepository loginLogRepository;
+    private final ErrorLogRepository errorLogRepository;
+
+    @Value("${hotel.log-storage.archive-path:./archives/logs}")
+    private String archivePath;
+
+    /**
+     * 把指定月份的日志写入归档文件，已存在的归档文件被覆盖
+     *
+     * 先写临时文件再原子重命名，写入失败时不会留下不完整的归档
+     *
+     * @return 归档的记录数
+     */
+    @Transactional(readOnly = true)
+    public long archive(LogTable table, YearMonth month) throws IOException {
+        Path target = archiveFile(table, month);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        long count = 0;
+        try {
+            try (Cursor<?> cursor = openCursor(table, month.atDay(1).atStartOfDay(),
+                    month.plusMonths(1).atDay(1).atStartOfDay());
+                 OutputStream out = new GZIPOutputStream(
+                         new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE), BUFFER_SIZE);
+                 SequenceWriter writer = ARCHIVE_MAPPER.writer().withRootValueSeparator("\n").writeValues(out)) {
+                for (Object row : cursor) {
+                    writer.write(row);
+                    count++;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count;
+    }
+
+    /**
+     * 指定月份是否已归档
+     */
+    public boolean isArchived(LogTable table, YearMonth month) {
+        return Files.isRegularFile(archiveFile(table, month));
+    }
+
+    /**
+     * 归档边界：最新归档月份的下个月第一天，更早的日志只在归档文件中，未归档过时返回 null
+     *
+     * 过期分区从最早的月份开始依次归档，已归档月份总是连续地早于数据库中的月份
+     */
+    public LocalDateTime archiveBoundary(LogTable table) throws IOException {
+        List<YearMonth> months = archivedMonths(table, null, null);
+        return months.isEmpty() ? null : months.get(months.size() - 1).plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    /**
+     * 读取最新的至多 limit 条匹配记录，按创建时间倒序，用于导出
+     *
+     * 月份从新到旧读取，每个月只保留尚需的最后若干条，内存占用不超过 limit 条记录
+     */
+    public <T> List<T> latest(LogTable table, Class<T> type, Predicate<T> filter,
+                              LocalDateTime startTime, LocalDateTime endTime, int limit) throws IOException {
+        List<T> records = new ArrayList<>();
+        List<YearMonth> months = archivedMonths(table, startTime, endTime);
+        for (int i = months.size() - 1; i >= 0 && records.size() < limit; i--) {
+            int remaining = limit - records.size();
+            ArrayDeque<T> monthRecords = new ArrayDeque<>();
+            read(archiveFile(table, months.get(i)), type, row -> {
+                if (filter.test(row)) {
+                    if (monthRecords.size() == remaining) {
+                        monthRecords.pollFirst();
+                    }
+                    monthRecords.addLast(row);
+                }
+            });
+            monthRecords.descendingIterator().forEachRemaining(records::add);
+        }
+        return records;
+    }
+
+    /**
+     * 分页检索归档日志
+     *
+     * 第一遍统计各月份的匹配数，第二遍只读取与当前页有交集的月份，按创建时间排序
+     *
+     * @param filter     检索条件，需包含时间条件
+     * @param startTime  开始时间，用于确定要读取的月份，为空时不限
+     * @param endTime    结束时间，用于确定要读取的月份，为空时不限
+     * @param descending 是否按创建时间倒序
+     * @param current    页码，从 1 开始
+     * @param size       每页记录数
+     */
+    public <T> IPage<T> search(LogTable table, Class<T> type, Predicate<T> filter,
+                               LocalDateTime startTime, LocalDateTime endTime,
+                               boolean descending, long current, long size) throws IOException {
+        long page = Math.max(1, current);
+
+        List<YearMonth> months = archivedMonths(table, startTime, endTime);
+        if (descending) {
+            Collections.reverse(months);
+        }
+        long[] counts = new long[months.size()];
+        long total = 0;
+        for (int i = 0; i < months.size(); i++) {
+            long[] count = new long[1];
+            read(archiveFile(table, months.get(i)), type, row -> {
+                if (filter.test(row)) {
+                    count[0]++;
+                }
+            });
+            counts[i] = count[0];
+            total += count[0];
+        }
+
+        List<T> records = new ArrayList<>();
+        long from = (page - 1) * size;
+        long to = from + size;
+        long offset = 0;
+        for (int i = 0; i < months.size() && offset < to; i++) {
+            long monthCount = counts[i];
+            if (offset + monthCount > from) {
+                // 月内按检索顺序的下标区间 [lo, hi)，文件内为升序，倒序时换算为升序下标
+                long lo = Math.max(0, from - offset);
+                long hi = Math.min(monthCount, to - offset);
+                long ascFrom = descending ? monthCount - hi : lo;
+                long ascTo = descending ? monthCount - lo : hi;
+                List<T> monthRecords = new ArrayList<>();
+                long[] index = new long[1];
+                read(archiveFile(table, months.get(i)), type, row -> {
+                    if (filter.test(row)) {
+                        if (index[0] >= ascFrom && index[0] < ascTo) {
+                            monthRecords.add(row);
+                        }
+                        index[0]++;
+                    }
+                });
+                if (descending) {
+                    Collections.reverse(monthRecords);
+                }
+                records.addAll(monthRecords);
+            }
+            offset += monthCount;
+        }
+
+        Page<T> result = new Page<>(page, size, total);
+        result.setRecords(records);
+        return result;
+    }
+
+    // 私有辅助方法
+
+    private Cursor<?> openCursor(LogTable table, LocalDateTime startTime, LocalDateTime endTime) {
+        switch (table) {
+            case OPERATION:
+                return operationLogRepository.streamArchive(startTime, endTime);
+            case LOGIN:
+                return loginLogRepository.streamArchive(startTime, endTime);
+            default:
+                return errorLogRepository.streamArchive(startTime, endTime);
+        }
+    }
+
+    /**
+     * 已归档且与时间范围有交集的月份，升序
+     */
+    private List<YearMonth> archivedMonths(LogTable table, LocalDateTime startTime, LocalDateTime endTime)
+            throws IOException {
+        List<YearMonth> months = new ArrayList<>();
+        Path dir = Paths.get(archivePath, table.getTableName());
+        if (!Files.isDirectory(dir)) {
+            return months;
+        }
+        String prefix = table.getTableName() + "-";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(name.substring(prefix.length(), name.length() - FILE_SUFFIX.length()),
+                            MONTH_FORMATTER);
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                if ((startTime == null || !month.isBefore(YearMonth.from(startTime)))
+                        && (endTime == null || !month.isAfter(YearMonth.from(endTime)))) {
+                    months.add(month);
+                }
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    private <T> void read(Path file, Class<T> type, Consumer<T> consumer) throws IOException {
+        try (InputStream in = new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+             MappingIterator<T> rows = ARCHIVE_MAPPER.readerFor(type).readValues(in)) {
+            while (rows.hasNext()) {
+                consumer.accept(rows.next());
+            }
+        }
+    }
+
+    private Path archiveFile(LogTable table, YearMonth month) {
+        return Paths.get(archivePath, table.getTableName(),
+                table.getTableName() + "-" + month.format(MONTH_FORMATTER) + FILE_SUFFIX);
+    }
+}
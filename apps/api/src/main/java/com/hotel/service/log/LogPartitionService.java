@@ -0,0 +1,192 @@
+package com.hotel.service.log;
+
+import com.hotel.repository.log.LogPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日志表分区维护服务
+ *
+ * 操作日志、登录日志、错误日志按 create_time 月份分区（pYYYYMM），数据库按创建时间把写入路由到对应分区，
+ * 带时间条件的查询只扫描范围内的分区。本服务每天预建未来月份的分区，
+ * 并把超过保留期的分区归档为压缩文件后删除，数据库中只保留最近几个月的日志。
+ *
+ * 多实例部署时每个实例都会触发维护，由 Redis 分布式锁保证同一时刻只有一个实例执行。
+ * 归档文件写在执行维护的实例上，而日志查询可能落在任一实例，因此只有声明归档目录为共享存储
+ * （所有实例挂载同一目录，或只部署单个实例）时才归档并删除过期分区，否则只预建分区。
+ * 各实例的全文索引由 {@link LogSearchIndex#prune} 按剩余分区自行清理。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogPartitionService {
+
+    /**
+     * 兜底分区，存放尚未建立月份分区的记录
+     */
+    static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter PARTITION_FORMATTER = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final DateTimeFormatter BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 分区维护的分布式锁
+     */
+    private static final String MAINTAIN_LOCK_KEY = "log_storage:partition_maintain";
+
+    private final LogPartitionRepository partitionRepository;
+    private final LogArchiveStore archiveStore;
+    private final RedissonClient redissonClient;
+
+    @Value("${hotel.log-storage.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.log-storage.retention-months:6}")
+    private int retentionMonths;
+
+    @Value("${hotel.log-storage.months-ahead:2}")
+    private int monthsAhead;
+
+    /**
+     * 归档目录是否对所有实例可见，为 false 时不归档删除过期分区
+     */
+    @Value("${hotel.log-storage.archive-shared:false}")
+    private boolean archiveShared;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    /**
+     * 每天凌晨预建分区并归档过期分区
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void scheduledMaintain() {
+        maintain();
+    }
+
+    /**
+     * 维护全部日志表的分区，单个表失败不影响其他表；其他实例正在维护时直接跳过
+     */
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(MAINTAIN_LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在维护日志表分区，本次跳过");
+            return;
+        }
+        try {
+            if (!archiveShared) {
+                log.warn("归档目录未声明为共享存储（hotel.log-storage.archive-shared），只预建分区，不归档删除过期分区");
+            }
+            YearMonth current = YearMonth.now();
+            for (LogTable table : LogTable.values()) {
+                try {
+                    List<String> partitions = partitionRepository.findPartitionNames(table.getTableName());
+                    if (!partitions.contains(FUTURE_PARTITION)) {
+                        log.warn("日志表未按月分区，跳过分区维护: {}", table.getTableName());
+                        continue;
+                    }
+                    createPartitions(table, partitions, current);
+                    if (archiveShared) {
+                        archiveExpiredPartitions(table, current);
+                    }
+                } catch (Exception e) {
+                    log.error("日志表分区维护失败: {}", table.getTableName(), e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从 p_future 拆出到 current + monthsAhead 为止的月份分区
+     *
+     * 首次运行时 p_future 中可能有历史记录，从最早记录所在月份开始建分区
+     */
+    void createPartitions(LogTable table, List<String> partitions, YearMonth current) {
+        YearMonth last = null;
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month != null && (last == null || month.isAfter(last))) {
+                last = month;
+            }
+        }
+
+        YearMonth target = current.plusMonths(monthsAhead);
+        YearMonth first;
+        if (last != null) {
+            first = last.plusMonths(1);
+        } else {
+            LocalDateTime earliest = partitionRepository.findMinCreateTimeInFuturePartition(table.getTableName());
+            first = earliest != null && YearMonth.from(earliest).isBefore(current) ? YearMonth.from(earliest) : current;
+        }
+
+        List<LogPartitionRepository.MonthPartition> created = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(target); month = month.plusMonths(1)) {
+            created.add(new LogPartitionRepository.MonthPartition(partitionName(month),
+                    month.plusMonths(1).atDay(1).atStartOfDay().format(BOUND_FORMATTER)));
+        }
+        if (created.isEmpty()) {
+            return;
+        }
+        partitionRepository.splitFuturePartition(table.getTableName(), created);
+        log.info("日志表分区已创建: {}, {} - {}", table.getTableName(), first, target);
+    }
+
+    /**
+     * 归档并删除早于 current - retentionMonths 的月份分区，按月份升序处理
+     */
+    void archiveExpiredPartitions(LogTable table, YearMonth current) throws Exception {
+        YearMonth cutoff = current.minusMonths(retentionMonths);
+        for (String partition : partitionRepository.findPartitionNames(table.getTableName())) {
+            YearMonth month = parseMonth(partition);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            long count = archiveStore.archive(table, month);
+            // 归档文件写入完成后才删除分区，归档失败时分区保留到下次重试
+            partitionRepository.dropPartition(table.getTableName(), partition);
+            log.info("日志分区已归档并删除: {}.{}, 记录数: {}, 耗时: {}ms",
+                    table.getTableName(), partition, count, System.currentTimeMillis() - start);
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return month.format(PARTITION_FORMATTER);
+    }
+
+    /**
+     * 解析月份分区名，非月份分区返回 null
+     */
+    static YearMonth parseMonth(String partition) {
+        if (partition == null || partition.length() != 7 || partition.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition, PARTITION_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,604 @@
+package com.hotel.service.log;
+
+import com.hotel.entity.log.ErrorLog;
+import com.hotel.entity.log.OperationLog;
+import com.hotel.repository.log.ErrorLogRepository;
+import com.hotel.repository.log.LogPartitionRepository;
+import com.hotel.repository.log.OperationLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * 日志全文倒排索引
+ *
+ * 操作日志和错误日志建立在本地磁盘上的 Lucene 索引，用户名、IP、模块按前缀匹配，
+ * 操作描述按分词后的词项匹配（最后一个词按前缀），配合创建时间范围过滤，
+ * 返回按创建时间排序的日志ID，再由调用方按ID从数据库加载当前页。
+ *
+ * 索引内容只来自数据库：启动时补建索引中缺少的记录，之后每个追踪周期（默认 1 秒）按主键读取新写入的行，
+ * 因此多实例部署时每个实例的索引都包含所有实例写入的日志。自增主键的提交顺序不一定与大小一致，
+ * 追踪进度只推进到创建时间早于稳定窗口的连续记录为止，窗口内的行每次都会重新读取，已索引的跳过。
+ * 补建完成前以及索引不可用时 {@link #search} 返回 null，调用方改用数据库查询。
+ *
+ * 过期分区由持有维护锁的实例归档删除，各实例按数据库中最早的月份分区定期自行清理索引中已删除的记录。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogSearchIndex {
+
+    private static final String FIELD_UID = "uid";
+    private static final String FIELD_TABLE = "table";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_CREATE_TIME = "createTime";
+
+    private static final int TAIL_BATCH_SIZE = 1000;
+
+    private final OperationLogRepository operationLogRepository;
+    private final ErrorLogRepository errorLogRepository;
+    private final LogPartitionRepository partitionRepository;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    @Value("${hotel.log-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.log-index.path:./data/log-index}")
+    private String indexPath;
+
+    /**
+     * 稳定窗口（毫秒），创建时间在窗口内的行可能还有更小主键的记录未提交，追踪进度不越过它们
+     */
+    @Value("${hotel.log-index.tail-settle-ms:10000}")
+    private long tailSettleMillis;
+
+    /**
+     * 各表的追踪进度，只在补建线程和追踪任务上串行访问
+     */
+    private final Map<LogTable, TailState> tails = new EnumMap<>(LogTable.class);
+
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+
+    /**
+     * 启动补建完成后才用于查询
+     */
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path dir = Paths.get(indexPath);
+            Files.createDirectories(dir);
+            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            writer = new IndexWriter(FSDirectory.open(dir), config);
+            searcherManager = new SearcherManager(writer, null);
+            log.info("日志全文索引已打开: {}, 文档数: {}", dir.toAbsolutePath(), writer.getDocStats().numDocs);
+        } catch (IOException e) {
+            // 例如同一目录已被其他实例锁定，日志查询继续使用数据库
+            log.error("打开日志全文索引失败，日志查询将使用数据库: {}", indexPath, e);
+            writer = null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (writer == null) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "log-index-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        ready = false;
+        IndexWriter current = writer;
+        writer = null;
+        if (current == null) {
+            return;
+        }
+        try {
+            searcherManager.close();
+            current.close();
+            current.getDirectory().close();
+        } catch (IOException e) {
+            log.error("关闭日志全文索引失败", e);
+        }
+    }
+
+    /**
+     * 直接写入已持久化的日志，ID 为空的记录跳过，失败时只记录错误；正常运行时由追踪任务从数据库写入
+     */
+    void index(LogTable table, List<?> rows) {
+        IndexWriter current = writer;
+        if (current == null) {
+            return;
+        }
+        try {
+            addDocuments(current, table, rows);
+        } catch (Exception e) {
+            log.warn("写入日志全文索引失败: {}, 条数: {}", table.getTableName(), rows.size(), e);
+        }
+    }
+
+    /**
+     * 删除创建时间早于 before 的索引文档
+     */
+    public void deleteBefore(LogTable table, LocalDateTime before) throws IOException {
+        IndexWriter current = writer;
+        if (current == null) {
+            return;
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_TABLE, table.name())), BooleanClause.Occur.FILTER)
+                .add(LongPoint.newRangeQuery(FIELD_CREATE_TIME, Long.MIN_VALUE, toEpochMilli(before) - 1),
+                        BooleanClause.Occur.FILTER)
+                .build();
+        current.deleteDocuments(query);
+    }
+
+    /**
+     * 查询匹配的日志ID
+     *
+     * @param descending 是否按创建时间倒序
+     * @param page       页码，从 1 开始
+     * @param size       每页记录数
+     * @return 命中总数及当前页的ID，索引不可用时返回 null
+     */
+    public Hits search(LogTable table, Criteria criteria, boolean descending, long page, long size)
+            throws IOException {
+        SearcherManager manager = searcherManager;
+        if (!ready || writer == null) {
+            return null;
+        }
+        Query query = buildQuery(table, criteria);
+        IndexSearcher searcher = manager.acquire();
+        try {
+            int total = searcher.count(query);
+            long from = (Math.max(1, page) - 1) * size;
+            if (from >= total) {
+                return new Hits(total, Collections.emptyList());
+            }
+            int limit = (int) Math.min(from + size, total);
+            Sort sort = new Sort(new SortField(FIELD_CREATE_TIME, SortField.Type.LONG, descending),
+                    new SortField(FIELD_ID, SortField.Type.LONG, descending));
+            TopFieldDocs top = searcher.search(query, limit, sort);
+            List<Long> ids = new ArrayList<>(limit - (int) from);
+            for (int i = (int) from; i < top.scoreDocs.length; i++) {
+                Document document = searcher.doc(top.scoreDocs[i].doc, Collections.singleton(FIELD_ID));
+                ids.add(document.getField(FIELD_ID).numericValue().longValue());
+            }
+            return new Hits(total, ids);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    /**
+     * 是否已可用于查询
+     */
+    public boolean isReady() {
+        return ready && writer != null;
+    }
+
+    /**
+     * 从数据库读取新写入的日志并使其可被查询，补建完成后才开始
+     */
+    @Scheduled(fixedDelayString = "${hotel.log-index.refresh-interval-ms:1000}")
+    public void refresh() {
+        SearcherManager manager = searcherManager;
+        if (!ready || writer == null || manager == null) {
+            return;
+        }
+        try {
+            tail(LogTable.OPERATION, operationLogRepository::findAfterId);
+            tail(LogTable.ERROR, errorLogRepository::findAfterId);
+            manager.maybeRefresh();
+        } catch (Exception e) {
+            log.warn("追踪日志写入全文索引失败", e);
+        }
+    }
+
+    /**
+     * 定期提交，进程异常退出时最多丢失一个提交周期的索引，重启后由补建恢复
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void commit() {
+        IndexWriter current = writer;
+        if (current == null || !current.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            current.commit();
+        } catch (Exception e) {
+            log.warn("提交日志全文索引失败", e);
+        }
+    }
+
+    /**
+     * 清理已删除分区的索引文档：表中最早的月份分区之前的记录已随分区归档删除
+     *
+     * 每个实例各自执行，不依赖执行分区维护的实例；表未按月分区时跳过。
+     */
+    @Scheduled(cron = "${hotel.log-index.prune-cron:0 10 * * * ?}")
+    public void prune() {
+        if (writer == null) {
+            return;
+        }
+        for (LogTable table : new LogTable[]{LogTable.OPERATION, LogTable.ERROR}) {
+            try {
+                List<String> partitions = partitionRepository.findPartitionNames(table.getTableName());
+                if (!partitions.contains(LogPartitionService.FUTURE_PARTITION)) {
+                    continue;
+                }
+                YearMonth oldest = null;
+                for (String partition : partitions) {
+                    YearMonth month = LogPartitionService.parseMonth(partition);
+                    if (month != null && (oldest == null || month.isBefore(oldest))) {
+                        oldest = month;
+                    }
+                }
+                if (oldest != null) {
+                    deleteBefore(table, oldest.atDay(1).atStartOfDay());
+                }
+            } catch (Exception e) {
+                log.warn("清理日志全文索引失败: {}", table.getTableName(), e);
+            }
+        }
+    }
+
+    /**
+     * 从数据库补建索引中缺少的记录，按主键从索引中最大的ID之后开始；
+     * 停机期间可能有分区被删除，补建后先清理再开放查询
+     */
+    void backfill() {
+        try {
+            long start = System.currentTimeMillis();
+            tails.put(LogTable.OPERATION, new TailState(maxIndexedId(LogTable.OPERATION)));
+            tails.put(LogTable.ERROR, new TailState(maxIndexedId(LogTable.ERROR)));
+            long operationLogs = tail(LogTable.OPERATION, operationLogRepository::findAfterId);
+            long errorLogs = tail(LogTable.ERROR, errorLogRepository::findAfterId);
+            prune();
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            log.info("日志全文索引补建完成，操作日志: {}, 错误日志: {}, 耗时: {}ms",
+                    operationLogs, errorLogs, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("日志全文索引补建失败，日志查询将使用数据库", e);
+        }
+    }
+
+    // 私有辅助方法
+
+    /**
+     * 读取追踪进度之后的全部记录，写入尚未索引的行，并把进度推进到稳定窗口之前的连续记录
+     *
+     * @return 新写入索引的记录数
+     */
+    private <T> long tail(LogTable table, BiFunction<Long, Integer, List<T>> loader) throws IOException {
+        TailState state = tails.get(table);
+        LocalDateTime settled = LocalDateTime.now().minusNanos(tailSettleMillis * 1_000_000L);
+        long afterId = state.watermark;
+        boolean advancing = true;
+        long count = 0;
+        while (writer != null) {
+            List<T> rows = loader.apply(afterId, TAIL_BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<T> fresh = new ArrayList<>(rows.size());
+            for (T row : rows) {
+                Long id = idOf(row);
+                if (state.indexed.add(id)) {
+                    fresh.add(row);
+                }
+                LocalDateTime createTime = createTimeOf(row);
+                advancing = advancing && (createTime == null || createTime.isBefore(settled));
+                if (advancing) {
+                    state.watermark = id;
+                }
+            }
+            addDocuments(writer, table, fresh);
+            afterId = idOf(rows.get(rows.size() - 1));
+            count += fresh.size();
+        }
+        long watermark = state.watermark;
+        state.indexed.removeIf(id -> id <= watermark);
+        return count;
+    }
+
+    private long maxIndexedId(LogTable table) throws IOException {
+        searcherManager.maybeRefreshBlocking();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopFieldDocs top = searcher.search(new TermQuery(new Term(FIELD_TABLE, table.name())), 1,
+                    new Sort(new SortField(FIELD_ID, SortField.Type.LONG, true)));
+            if (top.scoreDocs.length == 0) {
+                return 0;
+            }
+            Document document = searcher.doc(top.scoreDocs[0].doc, Collections.singleton(FIELD_ID));
+            return document.getField(FIELD_ID).numericValue().longValue();
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 按日志ID更新文档，同一条日志重复写入只保留一份
+     */
+    private void addDocuments(IndexWriter target, LogTable table, List<?> rows) throws IOException {
+        for (Object row : rows) {
+            Document document = toDocument(row);
+            if (document != null) {
+                target.updateDocument(new Term(FIELD_UID, table.name() + ":" + idOf(row)), document);
+            }
+        }
+    }
+
+    private Document toDocument(Object row) {
+        Document document = new Document();
+        LogTable table;
+        Long id;
+        LocalDateTime createTime;
+        if (row instanceof OperationLog) {
+            OperationLog operationLog = (OperationLog) row;
+            table = LogTable.OPERATION;
+            id = operationLog.getId();
+            createTime = operationLog.getCreateTime();
+            addKeyword(document, "username", operationLog.getUsername());
+            addKeyword(document, "ip", operationLog.getIp());
+            addKeyword(document, "status", operationLog.getStatus());
+            addText(document, "operation", operationLog.getOperation());
+        } else if (row instanceof ErrorLog) {
+            ErrorLog errorLog = (ErrorLog) row;
+            table = LogTable.ERROR;
+            id = errorLog.getId();
+            createTime = errorLog.getCreateTime();
+            addKeyword(document, "username", errorLog.getUsername());
+            addKeyword(document, "ip", errorLog.getIp());
+            addKeyword(document, "level", errorLog.getLevel());
+            addKeyword(document, "module", errorLog.getModule());
+        } else {
+            throw new IllegalArgumentException("不支持索引的日志类型: " + row.getClass().getName());
+        }
+        if (id == null || createTime == null) {
+            return null;
+        }
+        long time = toEpochMilli(createTime);
+        document.add(new StringField(FIELD_UID, table.name() + ":" + id, Field.Store.NO));
+        document.add(new StringField(FIELD_TABLE, table.name(), Field.Store.NO));
+        document.add(new StoredField(FIELD_ID, id));
+        document.add(new NumericDocValuesField(FIELD_ID, id));
+        document.add(new LongPoint(FIELD_CREATE_TIME, time));
+        document.add(new NumericDocValuesField(FIELD_CREATE_TIME, time));
+        return document;
+    }
+
+    private Query buildQuery(LogTable table, Criteria criteria) throws IOException {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_TABLE, table.name())), BooleanClause.Occur.FILTER);
+        for (Map.Entry<String, String> prefix : criteria.prefixes.entrySet()) {
+            builder.add(new PrefixQuery(new Term(prefix.getKey(), prefix.getValue())), BooleanClause.Occur.FILTER);
+        }
+        for (Map.Entry<String, String> term : criteria.terms.entrySet()) {
+            builder.add(new TermQuery(new Term(term.getKey(), term.getValue())), BooleanClause.Occur.FILTER);
+        }
+        for (Map.Entry<String, String> text : criteria.texts.entrySet()) {
+            List<String> tokens = analyze(text.getKey(), text.getValue());
+            for (int i = 0; i < tokens.size(); i++) {
+                Term term = new Term(text.getKey(), tokens.get(i));
+                // 最后一个词按前缀匹配，支持输入未完成的词
+                builder.add(i == tokens.size() - 1 ? new PrefixQuery(term) : new TermQuery(term),
+                        BooleanClause.Occur.FILTER);
+            }
+        }
+        if (criteria.startTime != null || criteria.endTime != null) {
+            builder.add(LongPoint.newRangeQuery(FIELD_CREATE_TIME,
+                    criteria.startTime != null ? toEpochMilli(criteria.startTime) : Long.MIN_VALUE,
+                    criteria.endTime != null ? toEpochMilli(criteria.endTime) : Long.MAX_VALUE),
+                    BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private List<String> analyze(String field, String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    private static void addKeyword(Document document, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            document.add(new StringField(field, value.toLowerCase(), Field.Store.NO));
+        }
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private static Long idOf(Object row) {
+        if (row instanceof OperationLog) {
+            return ((OperationLog) row).getId();
+        }
+        if (row instanceof ErrorLog) {
+            return ((ErrorLog) row).getId();
+        }
+        throw new IllegalArgumentException("不支持索引的日志类型: " + row.getClass().getName());
+    }
+
+    private static LocalDateTime createTimeOf(Object row) {
+        if (row instanceof OperationLog) {
+            return ((OperationLog) row).getCreateTime();
+        }
+        if (row instanceof ErrorLog) {
+            return ((ErrorLog) row).getCreateTime();
+        }
+        throw new IllegalArgumentException("不支持索引的日志类型: " + row.getClass().getName());
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 单张表的追踪进度
+     */
+    private static final class TailState {
+
+        /**
+         * 主键不大于该值的记录都已索引，且不会再有更小主键的记录提交
+         */
+        private long watermark;
+
+        /**
+         * 主键大于 watermark 且已索引的记录，避免窗口内的行重复写入
+         */
+        private final Set<Long> indexed = new HashSet<>();
+
+        private TailState(long watermark) {
+            this.watermark = watermark;
+        }
+    }
+
+    /**
+     * 索引查询条件，空值条件忽略
+     */
+    public static final class Criteria {
+
+        private final Map<String, String> prefixes = new LinkedHashMap<>();
+        private final Map<String, String> terms = new LinkedHashMap<>();
+        private final Map<String, String> texts = new LinkedHashMap<>();
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+
+        /**
+         * 字段值以 value 开头，忽略大小写
+         */
+        public Criteria prefix(String field, String value) {
+            if (value != null && !value.isEmpty()) {
+                prefixes.put(field, value.toLowerCase());
+            }
+            return this;
+        }
+
+        /**
+         * 字段值等于 value，忽略大小写
+         */
+        public Criteria term(String field, String value) {
+            if (value != null && !value.isEmpty()) {
+                terms.put(field, value.toLowerCase());
+            }
+            return this;
+        }
+
+        /**
+         * 分词后的每个词都出现在字段中
+         */
+        public Criteria text(String field, String value) {
+            if (value != null && !value.trim().isEmpty()) {
+                texts.put(field, value);
+            }
+            return this;
+        }
+
+        /**
+         * 创建时间在 [startTime, endTime] 内，为空时不限
+         */
+        public Criteria between(LocalDateTime startTime, LocalDateTime endTime) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            return this;
+        }
+    }
+
+    /**
+     * 索引查询结果
+     */
+    public static final class Hits {
+
+        private final long total;
+        private final List<Long> ids;
+
+        Hits(long total, List<Long> ids) {
+            this.total = total;
+            this.ids = ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * 当前页的日志ID，按查询的排序
+         */
+        public List<Long> getIds() {
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hotel.service.log;
+
+import com.hotel.entity.log.ErrorLog;
+import com.hotel.entity.log.LoginLog;
+import com.hotel.entity.log.OperationLog;
+
+/**
+ * 按月分区并归档的日志表
+ */
+public enum LogTable {
+
+    OPERATION("operation_logs", OperationLog.class),
+    LOGIN("login_logs", LoginLog.class),
+    ERROR("error_logs", ErrorLog.class);
+
+    private final String tableName;
+    private final Class<?> entityClass;
+
+    LogTable(String tableName, Class<?> entityClass) {
+        this.tableName = tableName;
+        this.entityClass = entityClass;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+}
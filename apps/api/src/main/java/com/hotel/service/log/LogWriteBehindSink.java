@@ -0,0 +1,134 @@
+package com.hotel.service.log;
+
+import com.hotel.entity.UserOperationHistory;
+import com.hotel.entity.log.ErrorLog;
+import com.hotel.entity.log.LoginLog;
+import com.hotel.entity.log.OperationLog;
+import com.hotel.repository.UserOperationHistoryRepository;
+import com.hotel.repository.log.ErrorLogRepository;
+import com.hotel.repository.log.LoginLogRepository;
+import com.hotel.repository.log.OperationLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * 日志异步批量写入
+ *
+ * 操作日志、登录日志、错误日志和用户操作历史在请求线程中构建好实体后交给本组件，
+ * 由各自的后台写线程按批量大小或刷新间隔合并为多行 INSERT 写入数据库，
+ * 请求线程不再等待日志写库。全文索引由 {@link LogSearchIndex} 从数据库追踪写入，不经过本组件。
+ * 应用关闭时写完缓冲区中剩余的记录。
+ *
+ * 日志写入不参与调用方的事务，调用方事务回滚时已提交的日志不会撤销。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogWriteBehindSink {
+
+    private final OperationLogRepository operationLogRepository;
+    private final LoginLogRepository loginLogRepository;
+    private final ErrorLogRepository errorLogRepository;
+    private final UserOperationHistoryRepository operationHistoryRepository;
+
+    @Value("${hotel.log-sink.capacity:8192}")
+    private int capacity;
+
+    @Value("${hotel.log-sink.batch-size:200}")
+    private int batchSize;
+
+    @Value("${hotel.log-sink.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${hotel.log-sink.offer-timeout-ms:20}")
+    private long offerTimeoutMillis;
+
+    private WriteBehindQueue<OperationLog> operationLogs;
+    private WriteBehindQueue<LoginLog> loginLogs;
+    private WriteBehindQueue<ErrorLog> errorLogs;
+    private WriteBehindQueue<UserOperationHistory> operationHistories;
+
+    @PostConstruct
+    public void start() {
+        operationLogs = new WriteBehindQueue<>("operation", capacity, batchSize, flushIntervalMillis,
+                offerTimeoutMillis, operationLogRepository::insertBatch, operationLogRepository::insert);
+        loginLogs = new WriteBehindQueue<>("login", capacity, batchSize, flushIntervalMillis,
+                offerTimeoutMillis, loginLogRepository::insertBatch, loginLogRepository::insert);
+        errorLogs = new WriteBehindQueue<>("error", capacity, batchSize, flushIntervalMillis,
+                offerTimeoutMillis, errorLogRepository::insertBatch, errorLogRepository::insert);
+        operationHistories = new WriteBehindQueue<>("history", capacity, batchSize, flushIntervalMillis,
+                offerTimeoutMillis, operationHistoryRepository::insertBatch, operationHistoryRepository::insert);
+        operationLogs.start();
+        loginLogs.start();
+        errorLogs.start();
+        operationHistories.start();
+        log.info("日志异步写入初始化完成，缓冲区容量: {}, 批量大小: {}, 刷新间隔: {}ms",
+                capacity, batchSize, flushIntervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        operationLogs.stop();
+        loginLogs.stop();
+        errorLogs.stop();
+        operationHistories.stop();
+    }
+
+    /**
+     * 提交操作日志
+     *
+     * @return 是否提交成功，缓冲区已满时返回 false
+     */
+    public boolean submit(OperationLog operationLog) {
+        return operationLogs.offer(operationLog);
+    }
+
+    /**
+     * 提交登录日志
+     */
+    public boolean submit(LoginLog loginLog) {
+        return loginLogs.offer(loginLog);
+    }
+
+    /**
+     * 提交错误日志
+     */
+    public boolean submit(ErrorLog errorLog) {
+        return errorLogs.offer(errorLog);
+    }
+
+    /**
+     * 提交用户操作历史
+     */
+    public boolean submit(UserOperationHistory history) {
+        return operationHistories.offer(history);
+    }
+
+    /**
+     * 因缓冲区已满而丢弃的记录总数
+     */
+    public long getDroppedCount() {
+        return operationLogs.getDropped() + loginLogs.getDropped() + errorLogs.getDropped()
+                + operationHistories.getDropped();
+    }
+
+    /**
+     * 写入数据库失败的记录总数
+     */
+    public long getFailedCount() {
+        return operationLogs.getFailed() + loginLogs.getFailed() + errorLogs.getFailed()
+                + operationHistories.getFailed();
+    }
+
+    /**
+     * 缓冲区中等待写入的记录总数
+     */
+    public int getPendingCount() {
+        return operationLogs.size() + loginLogs.size() + errorLogs.size() + operationHistories.size();
+    }
+}
@@ -0,0 +1,127 @@
+package com.hotel.service.log;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区，多生产者单消费者
+ *
+ * 每个槽位带一个序号：序号等于写入位置时槽位可写，等于写入位置 + 1 时元素已发布可读。
+ * 生产者通过 CAS 抢占写入位置，缓冲区满时 offer 立即返回 false，不阻塞也不加锁。
+ * poll 和 drainTo 只能由同一个消费线程调用。
+ *
+ * @param <E> 元素类型
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置，由生产者 CAS 递增
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置，只由消费线程修改
+     */
+    private volatile long head;
+
+    /**
+     * @param requestedCapacity 期望容量，向上取整为 2 的幂
+     */
+    MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("环形缓冲区容量至少为 2: " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素，缓冲区已满时返回 false
+     */
+    boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position;
+        while (true) {
+            position = tail.get();
+            long diff = sequences.get(index(position)) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // 槽位仍是上一轮未消费的元素
+                return false;
+            }
+            // diff > 0：其他生产者已抢占该位置，重读 tail
+        }
+        int index = index(position);
+        elements.lazySet(index, element);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 取出一个元素，没有已发布的元素时返回 null，仅限消费线程调用
+     */
+    E poll() {
+        long position = head;
+        int index = index(position);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // 槽位交还给下一轮的生产者
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * 取出最多 maxElements 个元素追加到 target，仅限消费线程调用
+     *
+     * @return 取出的元素数
+     */
+    int drainTo(List<? super E> target, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素数（近似值）
+     */
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private int index(long position) {
+        return (int) position & mask;
+    }
+}
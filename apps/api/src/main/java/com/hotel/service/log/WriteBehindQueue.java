@@ -0,0 +1,214 @@
+package com.hotel.service.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 异步批量写入队列
+ *
+ * 调用方把记录放入 {@link MpscRingBuffer} 后立即返回，单个后台写线程在积累到批量大小
+ * 或最早的记录等待超过刷新间隔时取出一批，通过多行 INSERT 一次写入。
+ * 缓冲区满时调用方最多等待 offerTimeout，仍无空位则丢弃并计数；批量写入失败时逐条重试，
+ * 单条仍失败的记录计为失败。停止时写完缓冲区中剩余的记录。
+ *
+ * @param <E> 记录类型
+ */
+@Slf4j
+final class WriteBehindQueue<E> {
+
+    /**
+     * 缓冲区满时调用方重试的间隔
+     */
+    private static final long OFFER_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /**
+     * 停止时等待写线程写完剩余记录的时间
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 10_000;
+
+    private final String name;
+    private final MpscRingBuffer<E> buffer;
+    private final Consumer<List<E>> batchWriter;
+    private final Consumer<E> rowWriter;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    /**
+     * @param name          队列名称，用于线程名和日志
+     * @param capacity      缓冲区容量
+     * @param batchSize     每批最多写入的记录数
+     * @param flushInterval 记录在缓冲区中的最长等待时间（毫秒）
+     * @param offerTimeout  缓冲区满时调用方的最长等待时间（毫秒），0 表示立即丢弃
+     * @param batchWriter   批量写入
+     * @param rowWriter     单条写入，批量写入失败时使用
+     */
+    WriteBehindQueue(String name, int capacity, int batchSize, long flushInterval, long offerTimeout,
+                     Consumer<List<E>> batchWriter, Consumer<E> rowWriter) {
+        this.name = name;
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushInterval));
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, offerTimeout));
+        this.batchWriter = batchWriter;
+        this.rowWriter = rowWriter;
+    }
+
+    void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "log-writer-" + name);
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止写线程并写完缓冲区中剩余的记录
+     */
+    void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("日志写入线程未能在 {}ms 内写完剩余记录: {}, 剩余: {}", STOP_TIMEOUT_MILLIS, name, buffer.size());
+        }
+        log.info("日志写入队列已停止: {}, 写入: {}, 丢弃: {}, 失败: {}", name, written.get(), dropped.get(), failed.get());
+    }
+
+    /**
+     * 放入一条记录，不抛出异常
+     *
+     * @return 是否放入成功，false 表示已丢弃
+     */
+    boolean offer(E record) {
+        if (buffer.offer(record)) {
+            if (buffer.size() >= batchSize) {
+                wakeUpWriter();
+            }
+            return true;
+        }
+
+        wakeUpWriter();
+        if (offerTimeoutNanos > 0 && running) {
+            long deadline = System.nanoTime() + offerTimeoutNanos;
+            while (System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(OFFER_RETRY_NANOS);
+                if (buffer.offer(record)) {
+                    return true;
+                }
+            }
+        }
+
+        long count = dropped.incrementAndGet();
+        // 避免持续积压时刷屏，丢弃数为 2 的幂时打印一次
+        if ((count & (count - 1)) == 0) {
+            log.warn("日志缓冲区已满，记录被丢弃: {}, 累计丢弃: {}", name, count);
+        }
+        return false;
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    long getFailed() {
+        return failed.get();
+    }
+
+    int size() {
+        return buffer.size();
+    }
+
+    // 私有辅助方法
+
+    private void run() {
+        List<E> batch = new ArrayList<>(batchSize);
+        long firstSeen = -1;
+        while (running) {
+            int size = buffer.size();
+            if (size == 0) {
+                firstSeen = -1;
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (firstSeen < 0) {
+                firstSeen = now;
+            }
+            long waited = now - firstSeen;
+            if (size >= batchSize || waited >= flushIntervalNanos) {
+                flush(batch);
+                firstSeen = -1;
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos - waited);
+            }
+        }
+        // 停止后写完剩余记录
+        while (buffer.size() > 0) {
+            if (flush(batch) == 0) {
+                break;
+            }
+        }
+    }
+
+    private int flush(List<E> batch) {
+        int count = buffer.drainTo(batch, batchSize);
+        if (count == 0) {
+            return 0;
+        }
+        try {
+            batchWriter.accept(batch);
+            written.addAndGet(count);
+        } catch (Exception e) {
+            log.warn("批量写入日志失败，改为逐条写入: {}, 条数: {}", name, count, e);
+            writeRows(batch);
+        } finally {
+            batch.clear();
+        }
+        return count;
+    }
+
+    private void writeRows(List<E> batch) {
+        for (E record : batch) {
+            try {
+                rowWriter.accept(record);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("写入日志失败: {}, 记录: {}", name, record, e);
+            }
+        }
+    }
+
+    private void wakeUpWriter() {
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.hotel.service.notification;
+
+import com.hotel.entity.User;
+import com.hotel.entity.notification.NotificationOutbox;
+import com.hotel.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 通知邮件发件箱投递器
+ *
+ * 定时检查发件箱，没有投递线程在运行时启动一个；投递线程循环认领并发送，直到发件箱取空。
+ * 认领到整批记录说明仍有积压，再启动一个投递线程，最多 hotel.notification.outbox.workers 个，
+ * 吞吐随线程数增加，空闲时每个轮询周期只有一次认领查询。
+ * 一批邮件通过一次 JavaMailSender#send(MimeMessage...) 发送，共用同一个 SMTP 连接，
+ * 按 MailSendException 中逐封的失败结果分别写回发送成功或重试。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxDispatcher {
+
+    private final NotificationOutboxService outboxService;
+    private final UserRepository userRepository;
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("notificationOutboxExecutor")
+    private final Executor notificationOutboxExecutor;
+
+    /**
+     * 运行中的投递线程数
+     */
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    @Value("${hotel.notification.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.notification.outbox.workers:4}")
+    private int workers;
+
+    @Value("${hotel.notification.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${hotel.notification.outbox.from:noreply@hotel.com}")
+    private String from;
+
+    /**
+     * 检查发件箱，没有投递线程在运行时启动一个
+     */
+    @Scheduled(fixedDelayString = "${hotel.notification.outbox.poll-interval-ms:1000}", initialDelay = 10000)
+    public void poll() {
+        if (enabled && activeWorkers.get() == 0) {
+            startWorker();
+        }
+    }
+
+    /**
+     * 运行中的投递线程数
+     */
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    /**
+     * 循环认领并发送，发件箱取空或出错时退出
+     */
+    void drain() {
+        try {
+            while (true) {
+                List<NotificationOutbox> batch = outboxService.claim(batchSize);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                if (batch.size() >= batchSize) {
+                    startWorker();
+                }
+                dispatch(batch);
+            }
+        } catch (Exception e) {
+            log.error("发件箱投递线程异常退出，已认领的记录将在租约到期后重新投递", e);
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * 发送一批已认领的邮件并写回结果
+     */
+    void dispatch(List<NotificationOutbox> batch) {
+        Map<Long, String> emails = userEmails(batch);
+
+        List<NotificationOutbox> sendable = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (NotificationOutbox outbox : batch) {
+            String recipient = outbox.getRecipient() != null ? outbox.getRecipient() : emails.get(outbox.getUserId());
+            if (recipient == null) {
+                outboxService.markFailed(outbox, "用户不存在或没有邮箱");
+                count("failed", 1);
+                continue;
+            }
+            try {
+                messages.add(buildMessage(outbox, recipient));
+                sendable.add(outbox);
+            } catch (MessagingException e) {
+                outboxService.markFailed(outbox, "构建邮件失败: " + e.getMessage());
+                count("failed", 1);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failedMessages = send(messages);
+
+        String claimToken = batch.get(0).getClaimToken();
+        List<Long> sentIds = new ArrayList<>(sendable.size());
+        int retried = 0;
+        int failed = 0;
+        for (int i = 0; i < sendable.size(); i++) {
+            NotificationOutbox outbox = sendable.get(i);
+            Exception error = failedMessages.get(messages.get(i));
+            if (error == null) {
+                sentIds.add(outbox.getId());
+            } else if (outboxService.markRetry(outbox, describe(error))) {
+                retried++;
+            } else {
+                failed++;
+            }
+        }
+        outboxService.markSent(claimToken, sentIds);
+
+        count("sent", sentIds.size());
+        count("retried", retried);
+        count("failed", failed);
+        if (retried > 0 || failed > 0) {
+            log.warn("邮件批量发送部分失败，成功: {}, 重试: {}, 最终失败: {}", sentIds.size(), retried, failed);
+        } else {
+            log.debug("邮件批量发送完成，数量: {}", sentIds.size());
+        }
+    }
+
+    // 私有辅助方法
+
+    /**
+     * 启动一个投递线程，已达上限或线程池拒绝时不启动
+     */
+    private void startWorker() {
+        while (true) {
+            int current = activeWorkers.get();
+            if (current >= workers) {
+                return;
+            }
+            if (activeWorkers.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        try {
+            notificationOutboxExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            activeWorkers.decrementAndGet();
+            log.warn("发件箱投递线程启动被拒绝: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 批量查询未指定收件地址的记录对应的用户邮箱
+     */
+    private Map<Long, String> userEmails(List<NotificationOutbox> batch) {
+        List<Long> userIds = batch.stream()
+                .filter(outbox -> outbox.getRecipient() == null)
+                .map(NotificationOutbox::getUserId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, String> emails = new HashMap<>();
+        for (User user : userRepository.selectBatchIds(userIds)) {
+            if (user.getEmail() != null) {
+                emails.put(user.getId(), user.getEmail());
+            }
+        }
+        return emails;
+    }
+
+    private MimeMessage buildMessage(NotificationOutbox outbox, String recipient) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(recipient);
+        helper.setSubject(outbox.getSubject());
+        helper.setFrom(from);
+        helper.setText(outbox.getBody(), true);
+        return message;
+    }
+
+    /**
+     * 通过一个 SMTP 连接发送整批邮件
+     *
+     * @return 发送失败的邮件及原因，以 MimeMessage 为键
+     */
+    private Map<Object, Exception> send(List<MimeMessage> messages) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+            return Collections.emptyMap();
+        } catch (MailSendException e) {
+            // 连接失败时全部邮件都在失败列表中；只有关闭连接失败时列表为空，此时邮件均已发出
+            return e.getFailedMessages();
+        } catch (MailException e) {
+            log.warn("邮件批量发送失败，数量: {}, 原因: {}", messages.size(), e.getMessage());
+            Map<Object, Exception> failedMessages = new HashMap<>();
+            for (MimeMessage message : messages) {
+                failedMessages.put(message, e);
+            }
+            return failedMessages;
+        } finally {
+            sample.stop(Timer.builder("hotel.notification.outbox.batch")
+                    .description("发件箱一批邮件的发送耗时")
+                    .register(meterRegistry));
+        }
+    }
+
+    private void count(String result, int amount) {
+        if (amount > 0) {
+            Counter.builder("hotel.notification.outbox.messages")
+                    .tag("result", result)
+                    .description("发件箱邮件投递结果")
+                    .register(meterRegistry)
+                    .increment(amount);
+        }
+    }
+
+    private static String describe(Exception error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+}
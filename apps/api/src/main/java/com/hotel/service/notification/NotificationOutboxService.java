@@ -0,0 +1,186 @@
+package com.hotel.service.notification;
+
+import com.hotel.entity.notification.NotificationOutbox;
+import com.hotel.repository.notification.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 通知邮件发件箱服务
+ *
+ * 邮件入队与业务数据在同一事务内写入发件箱表，事务回滚时邮件随之撤销，提交后不会因进程退出而丢失。
+ * 投递器按批认领记录：认领在短事务内用 FOR UPDATE SKIP LOCKED 锁定并标记为发送中，
+ * 多个投递线程、多个节点并发认领互不阻塞，也不会认领到同一行。
+ * 认领带租约，投递进程在发送途中退出时，租约到期的记录由定时任务退回待发送，
+ * 因此投递语义为至少一次：邮件已发出但状态未写回时会重复发送。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+
+    /**
+     * 每次清理的最大记录数
+     */
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    @Value("${hotel.notification.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${hotel.notification.outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${hotel.notification.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${hotel.notification.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${hotel.notification.outbox.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * 邮件入队，加入调用方事务
+     *
+     * @param userId      收件用户ID
+     * @param recipient   收件地址，为空时发送前按用户查询邮箱
+     * @param messageType 邮件类型
+     * @param subject     主题
+     * @param body        HTML 正文
+     */
+    @Transactional
+    public void enqueue(Long userId, String recipient, String messageType, String subject, String body) {
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setUserId(userId);
+        outbox.setRecipient(recipient);
+        outbox.setMessageType(messageType);
+        outbox.setSubject(subject);
+        outbox.setBody(body);
+        outbox.setStatus(NotificationOutbox.STATUS_PENDING);
+        outbox.setAttempts(0);
+        outbox.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.insert(outbox);
+
+        log.debug("邮件已入队，类型: {}, 用户: {}", messageType, userId);
+    }
+
+    /**
+     * 认领一批到期待发送的邮件
+     *
+     * @param batchSize 批大小
+     * @return 已标记为发送中的记录，没有待发送邮件时为空
+     */
+    @Transactional
+    public List<NotificationOutbox> claim(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.lockDueIds(now, batchSize);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String claimToken = UUID.randomUUID().toString();
+        outboxRepository.markSending(ids, claimToken, now.plusSeconds(leaseSeconds));
+        return outboxRepository.findByClaimToken(claimToken);
+    }
+
+    /**
+     * 标记同一批次内的记录发送成功
+     */
+    public void markSent(String claimToken, List<Long> ids) {
+        if (!ids.isEmpty()) {
+            outboxRepository.markSent(ids, claimToken);
+        }
+    }
+
+    /**
+     * 发送失败，未达发送次数上限时按指数退避重新排队，否则标记为最终失败
+     *
+     * @return 是否会重试
+     */
+    public boolean markRetry(NotificationOutbox outbox, String error) {
+        int attempts = outbox.getAttempts() != null ? outbox.getAttempts() : 0;
+        if (attempts >= maxAttempts) {
+            markFailed(outbox, error);
+            return false;
+        }
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+        outboxRepository.reschedule(outbox.getId(), outbox.getClaimToken(), nextAttemptAt, truncate(error));
+        return true;
+    }
+
+    /**
+     * 标记为最终失败，不再重试
+     */
+    public void markFailed(NotificationOutbox outbox, String error) {
+        outboxRepository.markFailed(outbox.getId(), outbox.getClaimToken(), truncate(error));
+        log.warn("邮件发送最终失败，发件箱ID: {}, 类型: {}, 发送次数: {}, 原因: {}",
+                outbox.getId(), outbox.getMessageType(), outbox.getAttempts(), error);
+    }
+
+    /**
+     * 第 attempts 次发送失败后的等待时间：从初始间隔起每次翻倍，不超过最大间隔
+     */
+    Duration backoff(int attempts) {
+        int exponent = Math.max(0, Math.min(attempts - 1, 30));
+        long seconds = initialBackoffSeconds << exponent;
+        return Duration.ofSeconds(seconds <= 0 ? maxBackoffSeconds : Math.min(seconds, maxBackoffSeconds));
+    }
+
+    /**
+     * 回收租约到期的发送中记录
+     */
+    @Scheduled(fixedDelayString = "${hotel.notification.outbox.lease-check-interval-ms:60000}", initialDelay = 30000)
+    public void recoverExpiredLeases() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int released = outboxRepository.releaseExpiredLeases(now, maxAttempts);
+            int failed = outboxRepository.failExpiredLeases(now, maxAttempts, "投递租约到期且已达最大发送次数");
+            if (released > 0 || failed > 0) {
+                log.warn("已回收租约到期的发件箱记录，重新排队: {}, 标记失败: {}", released, failed);
+            }
+        } catch (Exception e) {
+            log.error("回收发件箱租约失败", e);
+        }
+    }
+
+    /**
+     * 清理过期的发送成功记录，失败记录保留供排查
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void cleanupSent() {
+        try {
+            LocalDateTime sentBefore = LocalDateTime.now().minusDays(retentionDays);
+            int total = 0;
+            int deleted;
+            do {
+                deleted = outboxRepository.deleteSentBefore(sentBefore, CLEANUP_BATCH_SIZE);
+                total += deleted;
+            } while (deleted == CLEANUP_BATCH_SIZE);
+            if (total > 0) {
+                log.info("已清理过期发件箱记录，数量: {}", total);
+            }
+        } catch (Exception e) {
+            log.error("清理发件箱记录失败", e);
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,219 @@
+package com.hotel.service.notification;
+
+import com.hotel.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户未读通知计数
+ *
+ * 每个用户的未读数保存在 Redis 中，读取角标时只访问 Redis；计数不存在时查库一次并写入，带过期时间，
+ * 长期不活跃的用户自然淘汰。
+ * 新建、标记已读、删除通知时在事务提交后按实际变更的行数增减计数，事务回滚不影响计数；
+ * 计数不存在时不增减，下次读取时重新查库。
+ * 增减与查库回填之间存在竞争窗口，定时对账按数据库结果校正，对账期间计数有变化的用户跳过，留到下一轮。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationUnreadCounter {
+
+    static final String KEY_PREFIX = "notification:unread:";
+
+    /**
+     * 计数存在时增减，结果小于 0 说明计数已偏离，删除后由下次读取重新查库
+     */
+    private static final String INCREMENT_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return nil end " +
+            "local value = redis.call('incrby', KEYS[1], ARGV[1]) " +
+            "if value < 0 then redis.call('del', KEYS[1]) end " +
+            "return value";
+
+    /**
+     * 计数仍等于对账前读到的值时写入数据库结果，保留原有过期时间
+     */
+    private static final String RECONCILE_SCRIPT =
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "if ttl > 0 then redis.call('set', KEYS[1], ARGV[2], 'px', ttl) " +
+            "else redis.call('set', KEYS[1], ARGV[2]) end " +
+            "return 1";
+
+    private static final RedisScript<Long> INCREMENT = new DefaultRedisScript<>(INCREMENT_SCRIPT, Long.class);
+
+    private static final RedisScript<Long> RECONCILE = new DefaultRedisScript<>(RECONCILE_SCRIPT, Long.class);
+
+    /**
+     * 每次对账的用户数
+     */
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final NotificationRepository notificationRepository;
+
+    @Value("${hotel.notification.unread-counter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.notification.unread-counter.ttl-hours:24}")
+    private long ttlHours;
+
+    /**
+     * 用户未读通知数，Redis 不可用时直接查库
+     */
+    public int get(Long userId) {
+        if (!enabled) {
+            return notificationRepository.countUnreadByUserId(userId);
+        }
+        String key = key(userId);
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Math.max(0, Integer.parseInt(cached));
+            }
+            int count = notificationRepository.countUnreadByUserId(userId);
+            stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count), Duration.ofHours(ttlHours));
+            return count;
+        } catch (Exception e) {
+            log.warn("读取未读通知计数失败，改为查库，用户: {}, 原因: {}", userId, e.getMessage());
+            return notificationRepository.countUnreadByUserId(userId);
+        }
+    }
+
+    /**
+     * 当前事务提交后增减用户未读数，不在事务中时立即执行
+     *
+     * @param delta 变化量，标记已读和删除时为负数
+     */
+    public void add(Long userId, long delta) {
+        if (!enabled || userId == null || delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, delta);
+                }
+            });
+        } else {
+            apply(userId, delta);
+        }
+    }
+
+    /**
+     * 按数据库校正 Redis 中已有的未读计数
+     */
+    @Scheduled(fixedDelayString = "${hotel.notification.unread-counter.reconcile-interval-ms:300000}",
+            initialDelay = 60000)
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>(RECONCILE_BATCH_SIZE);
+            int corrected = 0;
+            for (String key : scanKeys()) {
+                keys.add(key);
+                if (keys.size() == RECONCILE_BATCH_SIZE) {
+                    corrected += reconcile(keys);
+                    keys.clear();
+                }
+            }
+            if (!keys.isEmpty()) {
+                corrected += reconcile(keys);
+            }
+            if (corrected > 0) {
+                log.info("未读通知计数对账完成，校正用户数: {}", corrected);
+            }
+        } catch (Exception e) {
+            log.error("未读通知计数对账失败", e);
+        }
+    }
+
+    // 私有辅助方法
+
+    private void apply(Long userId, long delta) {
+        try {
+            stringRedisTemplate.execute(INCREMENT, Collections.singletonList(key(userId)), String.valueOf(delta));
+        } catch (Exception e) {
+            // 增减失败时删除计数，下次读取重新查库；删除也失败时由对账校正
+            log.warn("更新未读通知计数失败，用户: {}, 变化: {}, 原因: {}", userId, delta, e.getMessage());
+            try {
+                stringRedisTemplate.delete(key(userId));
+            } catch (Exception ignored) {
+                // 忽略
+            }
+        }
+    }
+
+    private int reconcile(List<String> keys) {
+        List<String> cached = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (cached == null) {
+            return 0;
+        }
+        List<Long> userIds = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            userIds.add(Long.valueOf(key.substring(KEY_PREFIX.length())));
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Map<String, Object> row : notificationRepository.countUnreadByUserIds(userIds)) {
+            counts.put(((Number) row.get("user_id")).longValue(), ((Number) row.get("unread_count")).longValue());
+        }
+
+        int corrected = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            String expected = cached.get(i);
+            String actual = String.valueOf(counts.getOrDefault(userIds.get(i), 0L));
+            if (expected == null || expected.equals(actual)) {
+                continue;
+            }
+            Long result = stringRedisTemplate.execute(RECONCILE, Collections.singletonList(keys.get(i)), expected, actual);
+            if (result != null && result == 1L) {
+                corrected++;
+                log.debug("校正未读通知计数，用户: {}, {} -> {}", userIds.get(i), expected, actual);
+            }
+        }
+        return corrected;
+    }
+
+    private List<String> scanKeys() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        List<String> keys = stringRedisTemplate.execute((RedisCallback<List<String>>) connection -> scan(connection, options));
+        return keys != null ? keys : Collections.emptyList();
+    }
+
+    private static List<String> scan(RedisConnection connection, ScanOptions options) {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<byte[]> cursor = connection.scan(options)) {
+            while (cursor.hasNext()) {
+                keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
+            }
+        }
+        return keys;
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,167 @@
+package com.hotel.service.pricing;
+
+import com.hotel.entity.pricing.PricingRule;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 预编译的价格规则集合
+ *
+ * 对应一个 (hotelId, roomTypeId) 下所有激活的规则，构建时把 daysOfWeek JSON 解析为位掩码、
+ * 把日期范围转换为 epochDay 区间、把百分比调整预先换算为乘数。
+ * 实例不可变，可在线程间共享；计算结果与 PricingRule#isApplicableForDate / applyAdjustment 一致。
+ */
+public final class CompiledPricingRules {
+
+    /**
+     * 周一到周日对应位1-7
+     */
+    private static final int ALL_DAYS = 0b1111_1110;
+
+    private final long version;
+    private final CompiledRule[] rules;
+
+    /**
+     * @param rules 激活的规则，需已按优先级降序排列
+     * @param version 构建时的规则表版本号
+     */
+    public CompiledPricingRules(List<PricingRule> rules, long version) {
+        this.version = version;
+        this.rules = rules.stream()
+                .filter(rule -> Boolean.TRUE.equals(rule.getIsActive()))
+                .map(CompiledRule::new)
+                .toArray(CompiledRule[]::new);
+    }
+
+    private CompiledPricingRules(CompiledRule[] rules, long version) {
+        this.version = version;
+        this.rules = rules;
+    }
+
+    /**
+     * 复用已编译的规则，仅替换版本号
+     */
+    public CompiledPricingRules withVersion(long newVersion) {
+        return new CompiledPricingRules(rules, newVersion);
+    }
+
+    /**
+     * 构建时的规则表版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 规则数量
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * 判断两份预编译结果是否包含相同的规则，不比较版本号
+     */
+    public boolean hasSameRules(CompiledPricingRules other) {
+        return other != null && Arrays.equals(rules, other.rules);
+    }
+
+    /**
+     * 按优先级依次应用当天适用的规则
+     *
+     * @param basePrice 基础价格
+     * @param date 日期
+     * @return 调整后的价格
+     */
+    public BigDecimal apply(BigDecimal basePrice, LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int dayBit = 1 << date.getDayOfWeek().getValue();
+
+        BigDecimal price = basePrice;
+        for (CompiledRule rule : rules) {
+            if (rule.appliesTo(epochDay, dayBit)) {
+                price = rule.apply(price);
+            }
+        }
+        return price;
+    }
+
+    /**
+     * 单条预编译规则
+     */
+    private static final class CompiledRule {
+
+        private final long startEpochDay;
+        private final long endEpochDay;
+        private final int dayMask;
+        private final BigDecimal multiplier;
+        private final BigDecimal amount;
+
+        private CompiledRule(PricingRule rule) {
+            this.startEpochDay = rule.getStartDate() != null ? rule.getStartDate().toEpochDay() : Long.MIN_VALUE;
+            this.endEpochDay = rule.getEndDate() != null ? rule.getEndDate().toEpochDay() : Long.MAX_VALUE;
+
+            List<Integer> days = rule.getDaysOfWeekList();
+            int mask = 0;
+            for (Integer day : days) {
+                if (day != null && day >= 1 && day <= 7) {
+                    mask |= 1 << day;
+                }
+            }
+            this.dayMask = days.isEmpty() ? ALL_DAYS : mask;
+
+            if ("PERCENTAGE".equals(rule.getAdjustmentType())) {
+                this.multiplier = BigDecimal.ONE.add(rule.getAdjustmentValue().divide(BigDecimal.valueOf(100)));
+                this.amount = null;
+            } else if ("FIXED_AMOUNT".equals(rule.getAdjustmentType())) {
+                this.multiplier = null;
+                this.amount = rule.getAdjustmentValue();
+            } else {
+                this.multiplier = null;
+                this.amount = null;
+            }
+        }
+
+        private boolean appliesTo(long epochDay, int dayBit) {
+            return epochDay >= startEpochDay && epochDay <= endEpochDay && (dayMask & dayBit) != 0;
+        }
+
+        private BigDecimal apply(BigDecimal price) {
+            if (multiplier != null) {
+                return price.multiply(multiplier);
+            }
+            if (amount != null) {
+                return price.add(amount);
+            }
+            return price;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CompiledRule)) {
+                return false;
+            }
+            CompiledRule other = (CompiledRule) o;
+            return startEpochDay == other.startEpochDay
+                    && endEpochDay == other.endEpochDay
+                    && dayMask == other.dayMask
+                    && sameValue(multiplier, other.multiplier)
+                    && sameValue(amount, other.amount);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(startEpochDay) * 31 + dayMask;
+        }
+
+        private static boolean sameValue(BigDecimal a, BigDecimal b) {
+            return a == null ? b == null : b != null && a.compareTo(b) == 0;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.util.StringUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 价格规则业务逻辑层
@@ -27,7 +28,7 @@ import java.util.List;
 public class PricingRuleService {
 
     private final PricingRuleRepository pricingRuleRepository;
-    private final com.hotel.service.PricingService pricingService;
+    private final PricingRuleTable pricingRuleTable;
 
     /**
      * 创建价格规则
@@ -46,6 +47,7 @@ public class PricingRuleService {
         }
 
         pricingRuleRepository.insert(rule);
+        pricingRuleTable.invalidate(rule.getHotelId());
         log.info("创建价格规则成功: id={}, name={}", rule.getId(), rule.getName());
 
         return rule;
@@ -67,9 +69,12 @@ public class PricingRuleService {
 
         validateRule(rule);
 
-        // 检查规则名称是否已存在（排除当前规则）
+        Long previousHotelId = existingRule.getHotelId();
+        Long targetHotelId = rule.getHotelId();
+
+        // 检查规则名称在目标酒店下是否已存在（排除当前规则）
         int existingCount = pricingRuleRepository.countByName(
-            existingRule.getHotelId(), rule.getName(), id);
+            targetHotelId, rule.getName(), id);
         if (existingCount > 0) {
             throw new BusinessException("规则名称 '" + rule.getName() + "' 已存在");
         }
@@ -85,8 +90,14 @@ public class PricingRuleService {
         existingRule.setIsActive(rule.getIsActive());
         existingRule.setPriority(rule.getPriority());
         existingRule.setRoomTypeId(rule.getRoomTypeId());
+        existingRule.setHotelId(targetHotelId);
 
         pricingRuleRepository.updateById(existingRule);
+        // 规则移到其他酒店时，原酒店的规则表也要重建
+        pricingRuleTable.invalidate(targetHotelId);
+        if (!Objects.equals(previousHotelId, targetHotelId)) {
+            pricingRuleTable.invalidate(previousHotelId);
+        }
         log.info("更新价格规则成功: id={}, name={}", id, existingRule.getName());
 
         return existingRule;
@@ -106,6 +117,7 @@ public class PricingRuleService {
 
         // 软删除
         pricingRuleRepository.deleteById(id);
+        pricingRuleTable.invalidate(rule.getHotelId());
         log.info("删除价格规则成功: id={}, name={}", id, rule.getName());
     }
 
@@ -124,6 +136,7 @@ public class PricingRuleService {
 
         rule.setIsActive(active);
         pricingRuleRepository.updateById(rule);
+        pricingRuleTable.invalidate(rule.getHotelId());
 
         log.info("{}价格规则: id={}, name={}",
                 active ? "激活" : "停用", id, rule.getName());
@@ -236,6 +249,26 @@ public class PricingRuleService {
         return pricingRuleRepository.findApplicableRules(hotelId, roomTypeId, date);
     }
 
+    /**
+     * 获取预编译的规则表，供价格计算热路径使用
+     *
+     * @param hotelId 酒店ID
+     * @param roomTypeId 房间类型ID
+     * @return 预编译规则
+     */
+    public CompiledPricingRules getCompiledRules(Long hotelId, Long roomTypeId) {
+        return pricingRuleTable.get(hotelId, roomTypeId);
+    }
+
+    /**
+     * 获取规则表版本号，规则新增、修改、删除后递增
+     *
+     * @return 版本号
+     */
+    public long getRuleTableVersion() {
+        return pricingRuleTable.getVersion();
+    }
+
     /**
      * 批量删除规则
      *
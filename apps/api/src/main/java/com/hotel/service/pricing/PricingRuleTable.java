@@ -0,0 +1,195 @@
+package com.hotel.service.pricing;
+
+import com.hotel.repository.pricing.PricingRuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 预编译价格规则表
+ *
+ * 按 (hotelId, roomTypeId) 缓存 {@link CompiledPricingRules}，首次访问时从数据库加载。
+ * 规则新增、修改、删除后在事务提交时整体重建该酒店下已缓存的条目，并递增版本号，
+ * 调用方可通过版本号判断规则是否发生变化。
+ * 多实例部署时其他节点依靠定时刷新收敛，定时刷新只有在规则确实变化时才递增版本号。
+ * 重建会查询数据库，写入和重建之间用 ReentrantLock 互斥，虚拟线程等待时不会占住载体线程。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PricingRuleTable {
+
+    private final PricingRuleRepository pricingRuleRepository;
+
+    private final Map<Key, CompiledPricingRules> tables = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * 获取指定酒店和房间类型的预编译规则
+     *
+     * @param hotelId 酒店ID
+     * @param roomTypeId 房间类型ID
+     * @return 预编译规则，按优先级降序
+     */
+    public CompiledPricingRules get(Long hotelId, Long roomTypeId) {
+        Key key = new Key(hotelId, roomTypeId);
+        CompiledPricingRules rules = tables.get(key);
+        if (rules != null) {
+            return rules;
+        }
+
+        long loadVersion = version.get();
+        CompiledPricingRules loaded = compile(key, loadVersion);
+        rebuildLock.lock();
+        try {
+            // 加载期间规则已变更时不缓存，避免旧数据覆盖重建结果
+            if (version.get() == loadVersion) {
+                rules = tables.putIfAbsent(key, loaded);
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+        return rules != null ? rules : loaded;
+    }
+
+    /**
+     * 当前规则表版本号，每次规则变更后递增
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 规则变更后重建指定酒店的规则表，存在事务时在提交后执行
+     *
+     * @param hotelId 酒店ID
+     */
+    public void invalidate(Long hotelId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild(hotelId);
+                }
+            });
+        } else {
+            rebuild(hotelId);
+        }
+    }
+
+    /**
+     * 定时刷新全部已缓存的规则表，用于同步其他节点上的规则变更
+     */
+    @Scheduled(fixedRate = 300000) // 每5分钟执行一次
+    public void refreshAll() {
+        rebuildLock.lock();
+        try {
+            refreshLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // 私有辅助方法
+
+    private void rebuild(Long hotelId) {
+        rebuildLock.lock();
+        try {
+            rebuildLocked(hotelId);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildLocked(Long hotelId) {
+        long nextVersion = version.incrementAndGet();
+        List<Key> keys = new ArrayList<>(tables.keySet());
+        int rebuilt = 0;
+        for (Key key : keys) {
+            if (hotelId != null && !hotelId.equals(key.hotelId)) {
+                continue;
+            }
+            try {
+                tables.put(key, compile(key, nextVersion));
+                rebuilt++;
+            } catch (Exception e) {
+                log.error("重建价格规则表失败: hotelId={}, roomTypeId={}", key.hotelId, key.roomTypeId, e);
+                tables.remove(key);
+            }
+        }
+        log.debug("价格规则表已重建: hotelId={}, 条目数={}, version={}", hotelId, rebuilt, nextVersion);
+    }
+
+    private void refreshLocked() {
+        long currentVersion = version.get();
+        Map<Key, CompiledPricingRules> changed = new HashMap<>();
+        List<Key> failed = new ArrayList<>();
+        for (Map.Entry<Key, CompiledPricingRules> entry : tables.entrySet()) {
+            Key key = entry.getKey();
+            try {
+                CompiledPricingRules fresh = compile(key, currentVersion);
+                if (!fresh.hasSameRules(entry.getValue())) {
+                    changed.put(key, fresh);
+                }
+            } catch (Exception e) {
+                log.error("刷新价格规则表失败: hotelId={}, roomTypeId={}", key.hotelId, key.roomTypeId, e);
+                failed.add(key);
+            }
+        }
+        failed.forEach(tables::remove);
+
+        if (changed.isEmpty()) {
+            return;
+        }
+        long nextVersion = version.incrementAndGet();
+        changed.forEach((key, rules) -> tables.put(key, rules.withVersion(nextVersion)));
+        log.debug("价格规则表定时刷新发现变更: 条目数={}, version={}", changed.size(), nextVersion);
+    }
+
+    private CompiledPricingRules compile(Key key, long compileVersion) {
+        return new CompiledPricingRules(
+                pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(key.hotelId, key.roomTypeId),
+                compileVersion);
+    }
+
+    private static final class Key {
+
+        private final Long hotelId;
+        private final Long roomTypeId;
+
+        private Key(Long hotelId, Long roomTypeId) {
+            this.hotelId = hotelId;
+            this.roomTypeId = roomTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(hotelId, other.hotelId) && Objects.equals(roomTypeId, other.roomTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hotelId, roomTypeId);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.hotel.service.pricing;
+
+import com.hotel.entity.Room;
+import com.hotel.entity.RoomType;
+import com.hotel.entity.pricing.SpecialPrice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 日期范围价格计算引擎
+ *
+ * 由调用方一次性加载房间、房间类型和区间内的特殊价格，价格规则取自内存中的预编译规则表，
+ * 之后在内存中逐晚计算，计算规则与 PricingService#calculateRoomPrice 保持一致：
+ * 1. 房间特殊价格
+ * 2. 房间类型特殊价格
+ * 3. 基础价格叠加预编译的动态定价规则（按优先级降序）
+ */
+public class RangePricingEngine {
+
+    private final Room room;
+    private final RoomType roomType;
+    private final CompiledPricingRules rules;
+    private final Map<LocalDate, BigDecimal> roomSpecialPrices = new HashMap<>();
+    private final Map<LocalDate, BigDecimal> roomTypeSpecialPrices = new HashMap<>();
+
+    /**
+     * @param room 房间
+     * @param roomType 房间类型，可为空（仅当所有日期都命中特殊价格时）
+     * @param specialPrices 区间内该房间及其房间类型的特殊价格
+     * @param rules 房间所属酒店和房间类型的预编译规则
+     */
+    public RangePricingEngine(Room room, RoomType roomType, List<SpecialPrice> specialPrices, CompiledPricingRules rules) {
+        this.room = room;
+        this.roomType = roomType;
+        this.rules = rules;
+
+        for (SpecialPrice specialPrice : specialPrices) {
+            if (specialPrice.getRoomId() != null) {
+                if (specialPrice.getRoomId().equals(room.getId())) {
+                    roomSpecialPrices.putIfAbsent(specialPrice.getDate(), specialPrice.getPrice());
+                }
+            } else if (room.getRoomTypeId().equals(specialPrice.getRoomTypeId())) {
+                roomTypeSpecialPrices.putIfAbsent(specialPrice.getDate(), specialPrice.getPrice());
+            }
+        }
+    }
+
+    /**
+     * 计算 [startDate, endDate) 每晚的价格
+     *
+     * @return 按日期升序排列的日期到价格映射
+     */
+    public Map<LocalDate, BigDecimal> priceNights(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, BigDecimal> priceMap = new LinkedHashMap<>();
+        for (LocalDate date = startDate; date.isBefore(endDate); date = date.plusDays(1)) {
+            priceMap.put(date, priceFor(date));
+        }
+        return priceMap;
+    }
+
+    /**
+     * 计算 [startDate, endDate) 的总价
+     */
+    public BigDecimal totalPrice(LocalDate startDate, LocalDate endDate) {
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        for (LocalDate date = startDate; date.isBefore(endDate); date = date.plusDays(1)) {
+            totalPrice = totalPrice.add(priceFor(date));
+        }
+        return totalPrice;
+    }
+
+    /**
+     * 计算单晚价格
+     */
+    public BigDecimal priceFor(LocalDate date) {
+        BigDecimal specialPrice = roomSpecialPrices.get(date);
+        if (specialPrice != null) {
+            return specialPrice;
+        }
+        specialPrice = roomTypeSpecialPrices.get(date);
+        if (specialPrice != null) {
+            return specialPrice;
+        }
+
+        return rules.apply(basePrice(), date);
+    }
+
+    private BigDecimal basePrice() {
+        if (roomType == null) {
+            throw new IllegalArgumentException("房间类型不存在: " + room.getRoomTypeId());
+        }
+        BigDecimal basePrice = roomType.getBasePrice() != null ? roomType.getBasePrice() : room.getPrice();
+        if (basePrice == null) {
+            throw new IllegalStateException("房间和房间类型都没有设置价格");
+        }
+        return basePrice;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hotel.service.push;
+
+import com.hotel.service.BookingConflictService;
+import com.hotel.service.RoomStatusService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 将业务事件转为推送
+ *
+ * 事件在业务事务内发布，PushService 在事务提交后才发送
+ */
+@Component
+@RequiredArgsConstructor
+public class PushEventListener {
+
+    private final PushService pushService;
+
+    /**
+     * 等待列表中的用户有房可订
+     */
+    @EventListener
+    public void onRoomAvailable(BookingConflictService.RoomAvailableEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("roomId", event.getRoomId());
+        data.put("waitingListId", event.getWaitingListId());
+        pushService.publishToUser(event.getUserId(), PushService.TYPE_WAITING_LIST_ROOM_AVAILABLE, data);
+    }
+
+    /**
+     * 房间状态变更，字段与前端 RoomStatusUpdate 一致
+     */
+    @EventListener
+    public void onRoomStatusChanged(RoomStatusService.RoomStatusChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("roomId", event.getRoomId());
+        data.put("oldStatus", event.getOldStatus());
+        data.put("newStatus", event.getNewStatus());
+        data.put("timestamp", event.getChangedAt());
+        data.put("changedBy", event.getChangedBy());
+        data.put("reason", event.getReason());
+        pushService.publishRoomStatus(event.getRoomId(), data);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotel.service.push;
+
+import com.hotel.security.CustomUserDetails;
+import com.hotel.security.JwtAuthenticationCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+
+/**
+ * 推送连接握手时验证令牌
+ *
+ * 浏览器的 WebSocket API 不能设置请求头，令牌优先取 Authorization 头，其次取查询参数 token。
+ * 重连时客户端通过查询参数 lastEventId 带上收到的最后一个事件ID。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushHandshakeInterceptor implements HandshakeInterceptor {
+
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+
+        CustomUserDetails user = authenticate(resolveToken(servletRequest));
+        if (user == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(PushWebSocketHandler.ATTR_USER_ID, user.getId());
+
+        String lastEventId = servletRequest.getParameter("lastEventId");
+        if (StringUtils.hasText(lastEventId)) {
+            try {
+                attributes.put(PushWebSocketHandler.ATTR_LAST_EVENT_ID, Long.valueOf(lastEventId));
+            } catch (NumberFormatException e) {
+                log.debug("忽略无效的 lastEventId: {}", lastEventId);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    // 私有辅助方法
+
+    private CustomUserDetails authenticate(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            return jwtAuthenticationCache.authenticate(token);
+        } catch (Exception e) {
+            log.debug("推送连接令牌验证失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String resolveToken(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            return authorization.substring(7);
+        }
+        String token = request.getParameter("token");
+        return StringUtils.hasText(token) ? token : null;
+    }
+}
@@ -0,0 +1,311 @@
+package com.hotel.service.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 服务端推送
+ *
+ * 用户事件（新通知、已读、等待列表）在 Redis 中为每个用户分配递增序号，并保留最近若干条供断线重连后补发；
+ * 序号分配、写入补发记录和 pub/sub 广播在一个脚本内完成，各节点收到广播后投递给本节点上该用户的连接。
+ * 客户端重连时带上收到的最后一个事件ID，缺失的事件从补发记录中补齐；补发记录已被淘汰或序号已重置时
+ * 发送 RESYNC，客户端改为通过接口重新拉取。
+ * 房间状态事件是状态快照，只实时广播给订阅了该房间的连接，不补发。
+ * 事务内发布的事件在事务提交后发送，回滚的变更不会推送。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PushService implements MessageListener {
+
+    public static final String TYPE_NOTIFICATION_CREATED = "NOTIFICATION_CREATED";
+    public static final String TYPE_NOTIFICATION_READ = "NOTIFICATION_READ";
+    public static final String TYPE_NOTIFICATION_DELETED = "NOTIFICATION_DELETED";
+    public static final String TYPE_WAITING_LIST_ROOM_AVAILABLE = "WAITING_LIST_ROOM_AVAILABLE";
+    public static final String TYPE_ROOM_STATUS_CHANGED = "ROOM_STATUS_CHANGED";
+    public static final String TYPE_RESYNC = "RESYNC";
+    public static final String TYPE_PONG = "PONG";
+
+    /**
+     * 同一用户的序号和补发记录使用相同的 hash tag，集群模式下落在同一个槽
+     */
+    static final String KEY_PREFIX = "push:{";
+
+    /**
+     * 分配序号、写入补发记录并广播，返回序号
+     */
+    private static final String PUBLISH_SCRIPT =
+            "local seq = redis.call('incr', KEYS[1]) " +
+            "redis.call('pexpire', KEYS[1], ARGV[4]) " +
+            "redis.call('zadd', KEYS[2], seq, seq .. '|' .. ARGV[1]) " +
+            "redis.call('zremrangebyrank', KEYS[2], 0, -tonumber(ARGV[2]) - 1) " +
+            "redis.call('pexpire', KEYS[2], ARGV[3]) " +
+            "redis.call('publish', ARGV[5], 'u|' .. ARGV[6] .. '|' .. seq .. '|' .. ARGV[1]) " +
+            "return seq";
+
+    private static final RedisScript<Long> PUBLISH = new DefaultRedisScript<>(PUBLISH_SCRIPT, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final PushSessionRegistry sessionRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${hotel.push.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.push.channel:push:events}")
+    private String channel;
+
+    @Value("${hotel.push.replay-size:100}")
+    private int replaySize;
+
+    @Value("${hotel.push.replay-ttl:1h}")
+    private Duration replayTtl;
+
+    /**
+     * 序号保留时间，过期后序号从 1 重新开始，持有旧序号的客户端重连时收到 RESYNC
+     */
+    @Value("${hotel.push.sequence-ttl:30d}")
+    private Duration sequenceTtl;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        }
+    }
+
+    /**
+     * 向用户推送事件，当前事务提交后发送
+     *
+     * @param userId 用户ID
+     * @param type   事件类型
+     * @param data   事件数据，按接口相同的 JSON 格式序列化
+     */
+    public void publishToUser(Long userId, String type, Object data) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        String payload = toJson(type, data, "userId", userId);
+        if (payload != null) {
+            afterCommit(() -> publishUserEvent(userId, payload));
+        }
+    }
+
+    /**
+     * 向订阅了房间的连接推送房间状态变更，当前事务提交后发送
+     */
+    public void publishRoomStatus(Long roomId, Object data) {
+        if (!enabled || roomId == null) {
+            return;
+        }
+        String payload = toJson(TYPE_ROOM_STATUS_CHANGED, data, "roomId", roomId);
+        if (payload != null) {
+            afterCommit(() -> publishRoomEvent(roomId, payload));
+        }
+    }
+
+    /**
+     * 查询客户端重连时缺失的事件
+     *
+     * @param lastEventId 客户端收到的最后一个事件ID
+     * @return 补发结果，补发记录不完整时 resync 为 true
+     */
+    Replay replay(Long userId, long lastEventId) {
+        try {
+            String current = stringRedisTemplate.opsForValue().get(sequenceKey(userId));
+            long sequence = current != null ? Long.parseLong(current) : 0L;
+            if (lastEventId > sequence) {
+                // 序号已过期重置
+                return Replay.resync(sequence);
+            }
+            if (lastEventId == sequence) {
+                return Replay.of(lastEventId, Collections.emptyList());
+            }
+            Set<String> entries = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(logKey(userId), lastEventId + 1, Double.POSITIVE_INFINITY);
+            List<SequencedEvent> events = new ArrayList<>();
+            if (entries != null) {
+                for (String entry : entries) {
+                    events.add(parseLogEntry(entry));
+                }
+            }
+            if (events.isEmpty() || events.get(0).getSequence() != lastEventId + 1) {
+                // 缺失的事件已被淘汰
+                return Replay.resync(sequence);
+            }
+            return Replay.of(lastEventId, events);
+        } catch (Exception e) {
+            log.warn("读取推送补发记录失败，用户: {}, 原因: {}", userId, e.getMessage());
+            return Replay.resync(lastEventId);
+        }
+    }
+
+    /**
+     * 构建不带序号的消息
+     */
+    String message(String type, Object data) {
+        try {
+            return objectMapper.writeValueAsString(envelope(type, data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("推送消息序列化失败: " + type, e);
+        }
+    }
+
+    /**
+     * 接收各节点广播的事件并投递给本节点的连接
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (body.startsWith("u|")) {
+                String[] parts = body.split("\\|", 4);
+                Long userId = Long.valueOf(parts[1]);
+                if (sessionRegistry.hasUser(userId)) {
+                    long sequence = Long.parseLong(parts[2]);
+                    sessionRegistry.deliverToUser(userId, new SequencedEvent(sequence, withId(sequence, parts[3])));
+                }
+            } else if (body.startsWith("r|")) {
+                String[] parts = body.split("\\|", 3);
+                sessionRegistry.deliverToRoom(Long.valueOf(parts[1]), parts[2]);
+            }
+        } catch (Exception e) {
+            log.warn("处理推送广播失败: {}", e.getMessage());
+        }
+    }
+
+    // 私有辅助方法
+
+    private void publishUserEvent(Long userId, String payload) {
+        try {
+            stringRedisTemplate.execute(PUBLISH, Arrays.asList(sequenceKey(userId), logKey(userId)),
+                    payload, String.valueOf(replaySize), String.valueOf(replayTtl.toMillis()),
+                    String.valueOf(sequenceTtl.toMillis()), channel, String.valueOf(userId));
+        } catch (Exception e) {
+            // Redis 不可用时只投递给本节点的连接，事件不带序号，无法补发
+            log.warn("发布推送事件失败，仅投递到本节点，用户: {}, 原因: {}", userId, e.getMessage());
+            sessionRegistry.sendToUser(userId, payload);
+        }
+    }
+
+    private void publishRoomEvent(Long roomId, String payload) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, "r|" + roomId + "|" + payload);
+        } catch (Exception e) {
+            log.warn("发布房间状态事件失败，仅投递到本节点，房间: {}, 原因: {}", roomId, e.getMessage());
+            sessionRegistry.deliverToRoom(roomId, payload);
+        }
+    }
+
+    private String toJson(String type, Object data, String scopeKey, Long scopeId) {
+        Map<String, Object> message = envelope(type, data);
+        message.put(scopeKey, scopeId);
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.error("推送事件序列化失败，类型: {}", type, e);
+            return null;
+        }
+    }
+
+    /**
+     * 与前端 WebSocketMessage 一致的消息结构：type、data、timestamp
+     */
+    private static Map<String, Object> envelope(String type, Object data) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+        message.put("data", data != null ? data : Collections.emptyMap());
+        message.put("timestamp", LocalDateTime.now());
+        return message;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 补发记录格式为 "序号|JSON"
+     */
+    static SequencedEvent parseLogEntry(String entry) {
+        int separator = entry.indexOf('|');
+        long sequence = Long.parseLong(entry.substring(0, separator));
+        return new SequencedEvent(sequence, withId(sequence, entry.substring(separator + 1)));
+    }
+
+    /**
+     * 在 JSON 对象开头加入 id 字段
+     */
+    static String withId(long sequence, String json) {
+        return "{\"id\":\"" + sequence + "\"," + json.substring(1);
+    }
+
+    private static String sequenceKey(Long userId) {
+        return KEY_PREFIX + userId + "}:seq";
+    }
+
+    private static String logKey(Long userId) {
+        return KEY_PREFIX + userId + "}:log";
+    }
+
+    /**
+     * 补发结果
+     */
+    static final class Replay {
+
+        /**
+         * 客户端已收到的最大序号
+         */
+        final long baseline;
+        final List<SequencedEvent> events;
+        final boolean resync;
+
+        private Replay(long baseline, List<SequencedEvent> events, boolean resync) {
+            this.baseline = baseline;
+            this.events = events;
+            this.resync = resync;
+        }
+
+        static Replay of(long baseline, List<SequencedEvent> events) {
+            return new Replay(baseline, events, false);
+        }
+
+        static Replay resync(long baseline) {
+            return new Replay(baseline, Collections.emptyList(), true);
+        }
+    }
+}
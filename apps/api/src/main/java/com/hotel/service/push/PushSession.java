@@ -0,0 +1,143 @@
+package com.hotel.service.push;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个推送连接
+ *
+ * 用户事件带有该用户内递增的序号，每个连接只发送序号大于已发送序号的事件，
+ * 补发期间到达的实时事件先暂存，补发完成后按序号发送，保证不重复、不乱序。
+ * 底层会话应为 ConcurrentWebSocketSessionDecorator，并发发送由其缓冲，慢客户端超出限制时断开。
+ */
+@Slf4j
+class PushSession {
+
+    private final WebSocketSession session;
+    private final Long userId;
+
+    /**
+     * 订阅状态变更的房间
+     */
+    private final Set<Long> rooms = ConcurrentHashMap.newKeySet();
+
+    private long lastSequence;
+    private boolean replaying;
+    private List<SequencedEvent> pending;
+
+    private volatile long lastActiveAt = System.currentTimeMillis();
+
+    PushSession(WebSocketSession session, Long userId) {
+        this.session = session;
+        this.userId = userId;
+    }
+
+    String getId() {
+        return session.getId();
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    Set<Long> getRooms() {
+        return rooms;
+    }
+
+    long getLastActiveAt() {
+        return lastActiveAt;
+    }
+
+    void touch() {
+        lastActiveAt = System.currentTimeMillis();
+    }
+
+    boolean isOpen() {
+        return session.isOpen();
+    }
+
+    /**
+     * 进入补发状态，之后到达的用户事件暂存到补发完成
+     */
+    synchronized void beginReplay() {
+        replaying = true;
+        pending = new ArrayList<>();
+    }
+
+    /**
+     * 发送补发事件和补发期间暂存的实时事件
+     *
+     * @param baseline 客户端已收到的最大序号，只发送序号更大的事件
+     */
+    synchronized void finishReplay(long baseline, List<SequencedEvent> replayed) {
+        List<SequencedEvent> buffered = pending != null ? pending : new ArrayList<>();
+        replaying = false;
+        lastSequence = baseline;
+        pending = null;
+        for (SequencedEvent event : replayed) {
+            sendIfNewer(event);
+        }
+        buffered.sort(Comparator.comparingLong(SequencedEvent::getSequence));
+        for (SequencedEvent event : buffered) {
+            sendIfNewer(event);
+        }
+    }
+
+    /**
+     * 发送用户事件，序号不大于已发送序号的忽略
+     */
+    synchronized void deliver(SequencedEvent event) {
+        if (replaying) {
+            pending.add(event);
+            return;
+        }
+        sendIfNewer(event);
+    }
+
+    /**
+     * 发送不带序号的消息（房间状态、心跳响应等）
+     */
+    void send(String payload) {
+        try {
+            session.sendMessage(new TextMessage(payload));
+        } catch (Exception e) {
+            log.debug("推送消息发送失败，连接: {}, 原因: {}", session.getId(), e.getMessage());
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    void ping() {
+        try {
+            session.sendMessage(new PingMessage());
+        } catch (Exception e) {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    void close(CloseStatus status) {
+        try {
+            if (session.isOpen()) {
+                session.close(status);
+            }
+        } catch (Exception e) {
+            log.debug("关闭推送连接失败，连接: {}", session.getId(), e);
+        }
+    }
+
+    private void sendIfNewer(SequencedEvent event) {
+        if (event.getSequence() <= lastSequence) {
+            return;
+        }
+        lastSequence = event.getSequence();
+        send(event.getPayload());
+    }
+}
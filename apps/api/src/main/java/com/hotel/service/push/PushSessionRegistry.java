@@ -0,0 +1,174 @@
+package com.hotel.service.push;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本节点的推送连接表
+ *
+ * 按用户和订阅的房间索引连接，跨节点的事件由 {@link PushService} 通过 Redis pub/sub 分发到各节点后在这里投递。
+ * 定时向所有连接发送 ping 帧，超过空闲上限没有任何响应的连接视为已断开并关闭。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushSessionRegistry {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 连接ID -> 连接
+     */
+    private final Map<String, PushSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 连接
+     */
+    private final Map<Long, Set<PushSession>> userSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 房间ID -> 订阅该房间状态的连接
+     */
+    private final Map<Long, Set<PushSession>> roomSessions = new ConcurrentHashMap<>();
+
+    @Value("${hotel.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${hotel.push.max-rooms-per-connection:200}")
+    private int maxRoomsPerConnection;
+
+    @Value("${hotel.push.idle-timeout-ms:75000}")
+    private long idleTimeoutMs;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("hotel.push.connections", sessions, Map::size)
+                .description("本节点的推送连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 登记连接，用户连接数超过上限时关闭最早活跃的连接
+     */
+    void register(PushSession session) {
+        sessions.put(session.getId(), session);
+        Set<PushSession> owned = userSessions.computeIfAbsent(session.getUserId(), id -> ConcurrentHashMap.newKeySet());
+        owned.add(session);
+        if (owned.size() > maxConnectionsPerUser) {
+            owned.stream()
+                    .filter(other -> other != session)
+                    .min(Comparator.comparingLong(PushSession::getLastActiveAt))
+                    .ifPresent(oldest -> {
+                        log.debug("用户推送连接数超过上限，关闭最早的连接，用户: {}", session.getUserId());
+                        oldest.close(CloseStatus.POLICY_VIOLATION.withReason("too many connections"));
+                        unregister(oldest.getId());
+                    });
+        }
+    }
+
+    void unregister(String sessionId) {
+        PushSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        userSessions.computeIfPresent(session.getUserId(), (id, owned) -> {
+            owned.remove(session);
+            return owned.isEmpty() ? null : owned;
+        });
+        for (Long roomId : session.getRooms()) {
+            unsubscribeRoom(session, roomId);
+        }
+    }
+
+    PushSession get(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    /**
+     * 订阅房间状态变更
+     *
+     * @return 是否订阅成功，超过单连接订阅上限时返回 false
+     */
+    boolean subscribeRoom(PushSession session, Long roomId) {
+        if (!session.getRooms().contains(roomId) && session.getRooms().size() >= maxRoomsPerConnection) {
+            return false;
+        }
+        session.getRooms().add(roomId);
+        roomSessions.computeIfAbsent(roomId, id -> ConcurrentHashMap.newKeySet()).add(session);
+        return true;
+    }
+
+    void unsubscribeRoom(PushSession session, Long roomId) {
+        session.getRooms().remove(roomId);
+        roomSessions.computeIfPresent(roomId, (id, subscribers) -> {
+            subscribers.remove(session);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * 用户在本节点是否有连接，没有时跳过补发和投递
+     */
+    boolean hasUser(Long userId) {
+        return userSessions.containsKey(userId);
+    }
+
+    void deliverToUser(Long userId, SequencedEvent event) {
+        for (PushSession session : userSessions.getOrDefault(userId, Collections.emptySet())) {
+            session.deliver(event);
+        }
+    }
+
+    /**
+     * 发送不带序号的用户消息，Redis 不可用时使用，这类消息无法补发
+     */
+    void sendToUser(Long userId, String payload) {
+        for (PushSession session : userSessions.getOrDefault(userId, Collections.emptySet())) {
+            session.send(payload);
+        }
+    }
+
+    void deliverToRoom(Long roomId, String payload) {
+        for (PushSession session : roomSessions.getOrDefault(roomId, Collections.emptySet())) {
+            session.send(payload);
+        }
+    }
+
+    /**
+     * 心跳：向所有连接发送 ping 帧，关闭超时未响应的连接
+     */
+    @Scheduled(fixedDelayString = "${hotel.push.heartbeat-interval-ms:25000}", initialDelay = 25000)
+    public void heartbeat() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMs;
+        for (PushSession session : sessions.values()) {
+            if (!session.isOpen()) {
+                unregister(session.getId());
+            } else if (session.getLastActiveAt() < idleBefore) {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("heartbeat timeout"));
+                unregister(session.getId());
+            } else {
+                session.ping();
+            }
+        }
+    }
+
+    /**
+     * 本节点的连接数
+     */
+    public int size() {
+        return sessions.size();
+    }
+}
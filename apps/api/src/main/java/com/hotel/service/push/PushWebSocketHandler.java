@@ -0,0 +1,126 @@
+package com.hotel.service.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * 推送连接的 WebSocket 处理器
+ *
+ * 消息格式与前端 websocketService 一致：{type, data, timestamp}，用户事件另带 id。
+ * 客户端可发送：
+ * - PING：应用层心跳，回复 PONG
+ * - SUBSCRIBE_ROOM_STATUS / UNSUBSCRIBE_ROOM_STATUS：订阅或取消订阅房间状态，data 为 {roomId}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushWebSocketHandler extends TextWebSocketHandler {
+
+    static final String ATTR_USER_ID = "push.userId";
+    static final String ATTR_LAST_EVENT_ID = "push.lastEventId";
+
+    private final PushSessionRegistry sessionRegistry;
+    private final PushService pushService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 单条消息的发送超时，超过后断开连接
+     */
+    @Value("${hotel.push.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    /**
+     * 单个连接待发送消息的缓冲上限，慢客户端超出后断开
+     */
+    @Value("${hotel.push.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Long userId = (Long) session.getAttributes().get(ATTR_USER_ID);
+        Long lastEventId = (Long) session.getAttributes().get(ATTR_LAST_EVENT_ID);
+
+        PushSession pushSession = new PushSession(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferSizeLimit), userId);
+        if (lastEventId == null) {
+            sessionRegistry.register(pushSession);
+            return;
+        }
+
+        // 先登记再读取补发记录，两者之间广播的事件暂存在连接上，补发后按序号去重发送
+        pushSession.beginReplay();
+        sessionRegistry.register(pushSession);
+        PushService.Replay replay = pushService.replay(userId, lastEventId);
+        if (replay.resync) {
+            pushSession.send(pushService.message(PushService.TYPE_RESYNC, null));
+        }
+        pushSession.finishReplay(replay.baseline, replay.events);
+        log.debug("推送连接重连，用户: {}, 最后事件: {}, 补发: {}, 重新同步: {}",
+                userId, lastEventId, replay.events.size(), replay.resync);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        PushSession pushSession = sessionRegistry.get(session.getId());
+        if (pushSession == null) {
+            return;
+        }
+        pushSession.touch();
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            log.debug("忽略无法解析的推送消息，连接: {}", session.getId());
+            return;
+        }
+        JsonNode roomId = node.path("data").path("roomId");
+        switch (node.path("type").asText()) {
+            case "PING":
+                pushSession.send(pushService.message(PushService.TYPE_PONG, null));
+                break;
+            case "SUBSCRIBE_ROOM_STATUS":
+                if (roomId.canConvertToLong() && !sessionRegistry.subscribeRoom(pushSession, roomId.asLong())) {
+                    log.debug("房间订阅数超过上限，连接: {}", session.getId());
+                }
+                break;
+            case "UNSUBSCRIBE_ROOM_STATUS":
+                if (roomId.canConvertToLong()) {
+                    sessionRegistry.unsubscribeRoom(pushSession, roomId.asLong());
+                }
+                break;
+            default:
+                log.debug("忽略未知类型的推送消息: {}", node.path("type").asText());
+        }
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        PushSession pushSession = sessionRegistry.get(session.getId());
+        if (pushSession != null) {
+            pushSession.touch();
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("推送连接传输错误，连接: {}, 原因: {}", session.getId(), exception.getMessage());
+        sessionRegistry.unregister(session.getId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessionRegistry.unregister(session.getId());
+    }
+}
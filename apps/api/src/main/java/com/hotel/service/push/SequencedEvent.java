@@ -0,0 +1,15 @@
+package com.hotel.service.push;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 带用户内序号的推送事件，payload 为已包含 id 字段的 JSON
+ */
+@Getter
+@RequiredArgsConstructor
+class SequencedEvent {
+
+    private final long sequence;
+    private final String payload;
+}
@@ -0,0 +1,216 @@
+package com.hotel.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于 GCRA（通用信元速率算法）的分布式限流器
+ *
+ * 每个限流键在 Redis 中只保存一个理论到达时间（TAT），状态大小与请求量无关。
+ * limit/period 的配额等价于每 period/limit 发放一个令牌、容量为 limit 的令牌桶。
+ *
+ * 为减少 Redis 往返，本节点按键从 Redis 批量租用令牌，租约有效期内的请求直接在本地准入。
+ * 令牌在租用时已从全局配额中扣除，因此各节点合计的准入数不会超过配额；
+ * 租约批量按使用情况自适应：上一批用完则翻倍，过期时有剩余则回到 1，
+ * 剩余令牌在下一次租用时归还。配额较小的键批量恒为 1，每个请求都到 Redis 判定。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GcraRateLimiter {
+
+    static final String KEY_PREFIX = "rate_limit:gcra:";
+
+    /**
+     * 租用与归还令牌，返回 {本次租到的令牌数, 剩余可用令牌数}
+     * requested 为 0 时只查询不修改
+     */
+    private static final String ACQUIRE_SCRIPT =
+            "redis.replicate_commands() " +
+            "local key = KEYS[1] " +
+            "local interval = tonumber(ARGV[1]) " +
+            "local capacity = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "local refund = tonumber(ARGV[4]) " +
+
+            "local time = redis.call('time') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local tat = tonumber(redis.call('get', key)) or now " +
+            "if tat < now then tat = now end " +
+            "if refund > 0 then tat = math.max(now, tat - refund * interval) end " +
+
+            "local available = math.max(0, math.floor((now + capacity * interval - tat) / interval)) " +
+            "local granted = math.min(requested, available) " +
+            "if granted > 0 or refund > 0 then " +
+            "    tat = tat + granted * interval " +
+            "    redis.call('set', key, string.format('%.3f', tat), 'px', math.ceil(tat - now) + 1) " +
+            "end " +
+            "return {granted, available - granted}";
+
+    private static final RedisScript<List> REDIS_SCRIPT = new DefaultRedisScript<>(ACQUIRE_SCRIPT, List.class);
+
+    /**
+     * 本地租约批量上限与配额的比例，配额 10 以下时批量恒为 1
+     */
+    private static final int LEASE_DIVISOR = 10;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 限流键 -> 本地租约
+     */
+    private final Cache<String, Lease> leases = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    @Value("${hotel.rate-limit.lease-max-batch:20}")
+    private int leaseMaxBatch;
+
+    @Value("${hotel.rate-limit.lease-ttl-ms:1000}")
+    private long leaseTtlMs;
+
+    /**
+     * 尝试获取一个许可，Redis 异常时放行以免影响业务
+     *
+     * @param key    限流键
+     * @param limit  周期内允许的请求数
+     * @param period 周期
+     * @return 是否准入
+     */
+    public boolean tryAcquire(String key, int limit, Duration period) {
+        Lease lease = leases.get(key, k -> new Lease());
+        if (lease.tryTake()) {
+            return true;
+        }
+        // 续租期间会访问 Redis，使用 ReentrantLock 而不是 synchronized，虚拟线程等待时不会占住载体线程
+        lease.renewLock.lock();
+        try {
+            // 等锁期间其他线程可能已续租
+            if (lease.tryTake()) {
+                return true;
+            }
+            int leftover = lease.drain();
+            int batch = lease.nextBatch(leftover, maxBatch(limit));
+            try {
+                long granted = execute(key, limit, period, batch, leftover)[0];
+                if (granted <= 0) {
+                    return false;
+                }
+                lease.renew((int) granted - 1, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseTtlMs));
+                return true;
+            } catch (Exception e) {
+                log.error("Rate limit check failed for key: {}", key, e);
+                return true;
+            }
+        } finally {
+            lease.renewLock.unlock();
+        }
+    }
+
+    /**
+     * 剩余可用许可数，包含本节点已租用未使用的令牌
+     */
+    public int remaining(String key, int limit, Duration period) {
+        Lease lease = leases.getIfPresent(key);
+        int local = lease != null ? lease.available() : 0;
+        try {
+            return (int) Math.min(limit, execute(key, limit, period, 0, 0)[1] + local);
+        } catch (Exception e) {
+            log.error("查询剩余许可失败: {}", key, e);
+            return limit;
+        }
+    }
+
+    /**
+     * 清空限流键的状态
+     */
+    public void reset(String key) {
+        leases.invalidate(key);
+        stringRedisTemplate.delete(KEY_PREFIX + key);
+    }
+
+    // 私有辅助方法
+
+    private long[] execute(String key, int limit, Duration period, int requested, int refund) {
+        double interval = (double) period.toMillis() / limit;
+        List<?> result = stringRedisTemplate.execute(
+                REDIS_SCRIPT,
+                Collections.singletonList(KEY_PREFIX + key),
+                String.valueOf(interval),
+                String.valueOf(limit),
+                String.valueOf(requested),
+                String.valueOf(refund));
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("限流脚本返回结果无效: " + result);
+        }
+        return new long[]{((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue()};
+    }
+
+    private int maxBatch(int limit) {
+        return Math.max(1, Math.min(leaseMaxBatch, limit / LEASE_DIVISOR));
+    }
+
+    /**
+     * 本地令牌租约，tokens 无锁扣减，续租在 renewLock 内进行
+     */
+    static final class Lease {
+
+        private final ReentrantLock renewLock = new ReentrantLock();
+        private final AtomicInteger tokens = new AtomicInteger();
+        private volatile long expiresAt;
+        private int batch = 1;
+
+        boolean tryTake() {
+            if (System.nanoTime() - expiresAt > 0) {
+                return false;
+            }
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        int available() {
+            return System.nanoTime() - expiresAt > 0 ? 0 : Math.max(0, tokens.get());
+        }
+
+        /**
+         * 取出未使用的令牌用于归还
+         */
+        int drain() {
+            return Math.max(0, tokens.getAndSet(0));
+        }
+
+        /**
+         * 上一批用完则翻倍，有剩余则回到 1
+         */
+        int nextBatch(int leftover, int maxBatch) {
+            batch = leftover > 0 ? 1 : Math.min(maxBatch, batch * 2);
+            return batch;
+        }
+
+        void renew(int remainingTokens, long expiresAt) {
+            this.tokens.set(remainingTokens);
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.hotel.service.report;
+
+import com.hotel.dto.report.OrderReportDTO;
+import com.hotel.entity.Order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 订单报表指标聚合器
+ *
+ * 单次遍历订单得到订单报表的全部指标。按日、按月、按房型、按状态、按渠道的计数和收入
+ * 都累加在以偏移量为下标的 long 数组中，房间到房型的映射在构造时一次建好，
+ * 遍历过程中每个订单只做一次哈希查找，不创建中间集合。收入以分为单位累加，输出时再转换为金额。
+ *
+ * 非线程安全，每次生成报表新建一个实例。
+ */
+public final class OrderMetricsAggregator {
+
+    /**
+     * 渠道名称，下标与 {@link #channelIndex(Order)} 的返回值对应
+     */
+    static final String[] CHANNELS = {"官网", "微信", "电话", "其他"};
+
+    private static final String[] STATUSES = {"PENDING", "CONFIRMED", "COMPLETED", "CANCELLED"};
+    private static final int STATUS_COMPLETED = 2;
+    private static final int STATUS_CANCELLED = 3;
+    private static final int STATUS_OTHER = STATUSES.length;
+
+    private static final String UNKNOWN_ROOM_TYPE = "未知房型";
+    private static final int TOP_LIMIT = 10;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final LocalDate startDate;
+    private final long startEpochDay;
+    private final int startMonth;
+
+    /**
+     * 房间ID -> 房型下标，房型下标对应 {@link #roomTypeIds}，未知房型使用最后一个下标
+     */
+    private final Map<Long, Integer> roomTypeIndexByRoomId;
+    private final Long[] roomTypeIds;
+
+    private final long[] dailyOrders;
+    private final long[] dailyRevenue;
+    private final long[] monthlyCompleted;
+    private final long[] monthlyRevenue;
+    private final long[] roomTypeOrders;
+    private final long[] roomTypeRevenue;
+    private final long[] statusCounts = new long[STATUSES.length + 1];
+    private final long[] channelCounts = new long[CHANNELS.length];
+
+    /**
+     * 预置状态以外的订单状态计数，通常为空
+     */
+    private final Map<String, Long> otherStatusCounts = new HashMap<>();
+
+    private long totalOrders;
+    private long totalRevenue;
+
+    /**
+     * @param startDate 统计开始日期
+     * @param endDate 统计结束日期（含）
+     * @param roomTypeIdByRoomId 房间ID -> 房型ID
+     */
+    public OrderMetricsAggregator(LocalDate startDate, LocalDate endDate, Map<Long, Long> roomTypeIdByRoomId) {
+        this.startDate = startDate;
+        this.startEpochDay = startDate.toEpochDay();
+        this.startMonth = monthIndex(startDate.getYear(), startDate.getMonthValue());
+
+        int days = (int) (endDate.toEpochDay() - startEpochDay) + 1;
+        int months = monthIndex(endDate.getYear(), endDate.getMonthValue()) - startMonth + 1;
+        this.dailyOrders = new long[days];
+        this.dailyRevenue = new long[days];
+        this.monthlyCompleted = new long[months];
+        this.monthlyRevenue = new long[months];
+
+        Map<Long, Integer> roomTypeIndex = new HashMap<>();
+        List<Long> typeIds = new ArrayList<>();
+        this.roomTypeIndexByRoomId = new HashMap<>(roomTypeIdByRoomId.size() * 2);
+        for (Map.Entry<Long, Long> entry : roomTypeIdByRoomId.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            Integer index = roomTypeIndex.computeIfAbsent(entry.getValue(), typeId -> {
+                typeIds.add(typeId);
+                return typeIds.size() - 1;
+            });
+            roomTypeIndexByRoomId.put(entry.getKey(), index);
+        }
+        this.roomTypeIds = typeIds.toArray(new Long[0]);
+        this.roomTypeOrders = new long[roomTypeIds.length + 1];
+        this.roomTypeRevenue = new long[roomTypeIds.length + 1];
+    }
+
+    /**
+     * 累加一个订单
+     */
+    public void accept(Order order) {
+        totalOrders++;
+
+        int status = statusIndex(order.getStatus());
+        statusCounts[status]++;
+        if (status == STATUS_OTHER) {
+            otherStatusCounts.merge(String.valueOf(order.getStatus()), 1L, Long::sum);
+        }
+
+        // 只有已完成的订单计入收入
+        long revenue = status == STATUS_COMPLETED ? toCents(order.getTotalPrice()) : 0L;
+        totalRevenue += revenue;
+
+        LocalDateTime createdAt = order.getCreatedAt();
+        if (createdAt != null) {
+            int day = (int) (createdAt.toLocalDate().toEpochDay() - startEpochDay);
+            if (day >= 0 && day < dailyOrders.length) {
+                dailyOrders[day]++;
+                dailyRevenue[day] += revenue;
+            }
+            int month = monthIndex(createdAt.getYear(), createdAt.getMonthValue()) - startMonth;
+            if (status == STATUS_COMPLETED && month >= 0 && month < monthlyRevenue.length) {
+                monthlyCompleted[month]++;
+                monthlyRevenue[month] += revenue;
+            }
+        }
+
+        Integer roomType = roomTypeIndexByRoomId.get(order.getRoomId());
+        int roomTypeIndex = roomType != null ? roomType : roomTypeIds.length;
+        roomTypeOrders[roomTypeIndex]++;
+        roomTypeRevenue[roomTypeIndex] += revenue;
+
+        channelCounts[channelIndex(order)]++;
+    }
+
+    /**
+     * 累加一批订单
+     */
+    public OrderMetricsAggregator acceptAll(Iterable<Order> orders) {
+        for (Order order : orders) {
+            accept(order);
+        }
+        return this;
+    }
+
+    /**
+     * 出现过订单的房型ID，用于批量查询房型名称
+     */
+    public List<Long> getRoomTypeIds() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < roomTypeIds.length; i++) {
+            if (roomTypeOrders[i] > 0) {
+                ids.add(roomTypeIds[i]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 将聚合结果写入订单报表
+     *
+     * @param roomTypeNames 房型ID -> 房型名称
+     */
+    public void writeTo(OrderReportDTO report, Map<Long, String> roomTypeNames) {
+        report.setTotalOrders(totalOrders);
+        report.setTotalRevenue(toAmount(totalRevenue));
+        report.setAverageOrderValue(totalOrders == 0 ? BigDecimal.ZERO
+                : toAmount(totalRevenue).divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP));
+
+        Map<String, Long> ordersByStatus = new HashMap<>(otherStatusCounts);
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (statusCounts[i] > 0) {
+                ordersByStatus.put(STATUSES[i], statusCounts[i]);
+            }
+        }
+        report.setOrdersByStatus(ordersByStatus);
+
+        report.setOrdersByRoomType(ordersByRoomType(roomTypeNames));
+
+        Map<String, Long> ordersByDate = new LinkedHashMap<>();
+        List<OrderReportDTO.OrderTrendData> trends = new ArrayList<>(dailyOrders.length);
+        for (int day = 0; day < dailyOrders.length; day++) {
+            String date = startDate.plusDays(day).format(DATE_FORMAT);
+            ordersByDate.put(date, dailyOrders[day]);
+
+            OrderReportDTO.OrderTrendData trend = new OrderReportDTO.OrderTrendData();
+            trend.setDate(date);
+            trend.setOrderCount(dailyOrders[day]);
+            trend.setRevenue(toAmount(dailyRevenue[day]));
+            trends.add(trend);
+        }
+        report.setOrdersByDate(ordersByDate);
+        report.setOrderTrends(trends);
+
+        Map<String, BigDecimal> revenueByMonth = new TreeMap<>();
+        LocalDate firstMonth = startDate.withDayOfMonth(1);
+        for (int month = 0; month < monthlyRevenue.length; month++) {
+            if (monthlyCompleted[month] > 0) {
+                revenueByMonth.put(firstMonth.plusMonths(month).format(MONTH_FORMAT), toAmount(monthlyRevenue[month]));
+            }
+        }
+        report.setRevenueByMonth(revenueByMonth);
+
+        Map<String, Long> ordersByChannel = new HashMap<>();
+        for (int i = 0; i < CHANNELS.length; i++) {
+            if (channelCounts[i] > 0) {
+                ordersByChannel.put(CHANNELS[i], channelCounts[i]);
+            }
+        }
+        report.setOrdersByChannel(ordersByChannel);
+
+        report.setCompletionRate(percentage(statusCounts[STATUS_COMPLETED]));
+        report.setCancellationRate(percentage(statusCounts[STATUS_CANCELLED]));
+
+        report.setRoomTypePreferences(roomTypePreferences(roomTypeNames));
+    }
+
+    /**
+     * 根据订单特征判断渠道来源，返回 {@link #CHANNELS} 的下标
+     */
+    static int channelIndex(Order order) {
+        // 如果订单有特殊请求字段包含渠道信息，解析它
+        String requests = order.getSpecialRequests();
+        if (requests != null && !requests.trim().isEmpty()) {
+            requests = requests.toLowerCase();
+            if (requests.contains("官网") || requests.contains("online") || requests.contains("website")) {
+                return 0;
+            } else if (requests.contains("微信") || requests.contains("wechat") || requests.contains("小程序")) {
+                return 1;
+            } else if (requests.contains("电话") || requests.contains("tel") || requests.contains("call")) {
+                return 2;
+            }
+        }
+
+        // 基于创建时间判断（简化逻辑）
+        LocalDateTime createdAt = order.getCreatedAt();
+        if (createdAt != null) {
+            int hour = createdAt.getHour();
+            int dayOfWeek = createdAt.getDayOfWeek().getValue();
+
+            // 工作日工作时间（9:00-18:00）网站访问较多，其余时间更可能是移动端（微信）
+            return hour >= 9 && hour <= 18 && dayOfWeek <= 5 ? 0 : 1;
+        }
+
+        return 3;
+    }
+
+    // 私有辅助方法
+
+    private Map<String, Long> ordersByRoomType(Map<Long, String> roomTypeNames) {
+        Map<String, Long> ordersByRoomType = new HashMap<>();
+        for (int i = 0; i < roomTypeOrders.length; i++) {
+            if (roomTypeOrders[i] > 0) {
+                ordersByRoomType.merge(roomTypeName(i, roomTypeNames), roomTypeOrders[i], Long::sum);
+            }
+        }
+        return ordersByRoomType;
+    }
+
+    private List<OrderReportDTO.RoomTypePreference> roomTypePreferences(Map<Long, String> roomTypeNames) {
+        List<OrderReportDTO.RoomTypePreference> preferences = new ArrayList<>();
+        for (int i = 0; i < roomTypeOrders.length; i++) {
+            if (roomTypeOrders[i] == 0) {
+                continue;
+            }
+            OrderReportDTO.RoomTypePreference preference = new OrderReportDTO.RoomTypePreference();
+            preference.setRoomTypeName(roomTypeName(i, roomTypeNames));
+            preference.setOrderCount(roomTypeOrders[i]);
+            preference.setRevenue(toAmount(roomTypeRevenue[i]));
+            preference.setPercentage(percentage(roomTypeOrders[i]));
+            preferences.add(preference);
+        }
+        preferences.sort(Comparator.comparing(OrderReportDTO.RoomTypePreference::getOrderCount).reversed());
+        return preferences.size() > TOP_LIMIT ? new ArrayList<>(preferences.subList(0, TOP_LIMIT)) : preferences;
+    }
+
+    private String roomTypeName(int index, Map<Long, String> roomTypeNames) {
+        return index < roomTypeIds.length
+                ? roomTypeNames.getOrDefault(roomTypeIds[index], UNKNOWN_ROOM_TYPE)
+                : UNKNOWN_ROOM_TYPE;
+    }
+
+    private Double percentage(long count) {
+        return totalOrders == 0 ? 0.0 : (double) count / totalOrders * 100;
+    }
+
+    private static int statusIndex(String status) {
+        if (status == null) {
+            return STATUS_OTHER;
+        }
+        switch (status) {
+            case "PENDING":
+                return 0;
+            case "CONFIRMED":
+                return 1;
+            case "COMPLETED":
+                return STATUS_COMPLETED;
+            case "CANCELLED":
+                return STATUS_CANCELLED;
+            default:
+                return STATUS_OTHER;
+        }
+    }
+
+    private static int monthIndex(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        // 金额列为 DECIMAL(10,2)，常见情况下无需舍入
+        return amount.scale() == 2
+                ? amount.unscaledValue().longValue()
+                : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,408 @@
+package com.hotel.service.report;
+
+import com.hotel.dto.report.ReportExportRequest;
+import com.hotel.entity.report.ReportExportJob;
+import com.hotel.exception.ReportException;
+import com.hotel.repository.report.ReportExportJobRepository;
+import com.hotel.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 报表导出任务服务
+ *
+ * 导出请求提交后立即返回任务ID，报表在独立的有界线程池中生成，状态和进度写入任务表供轮询。
+ * 参数相同的请求在任务排队或执行期间共用同一个任务：本节点内通过内存表保证只创建一个任务，
+ * 其他节点提交的任务通过任务表查询复用。
+ * 进程重启后遗留的排队或执行中任务由超时检查标记为失败，过期文件定期清理。
+ *
+ * 任务记录生成文件的实例，文件路径相对导出目录保存。导出目录声明为共享存储（所有实例挂载同一目录，
+ * 或只部署单个实例）时任一实例都可下载，过期清理由 Redis 分布式锁保证同一时刻只有一个实例执行；
+ * 否则只有生成文件的实例能提供下载，各实例只清理自己生成的文件。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportExportJobService {
+
+    /**
+     * 每次清理的最大任务数
+     */
+    private static final int CLEANUP_BATCH_SIZE = 200;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    /**
+     * 共享存储下过期清理的分布式锁
+     */
+    private static final String CLEANUP_LOCK_KEY = "report_export:cleanup";
+
+    private final ReportExportJobRepository jobRepository;
+    private final ReportService reportService;
+    private final RedissonClient redissonClient;
+
+    @Qualifier("reportExportExecutor")
+    private final Executor reportExportExecutor;
+
+    /**
+     * 本节点排队或执行中的任务：参数摘要 -> 任务ID
+     */
+    private final ConcurrentMap<String, String> activeJobs = new ConcurrentHashMap<>();
+
+    @Value("${app.export.path:./exports/reports}")
+    private String exportPath;
+
+    @Value("${hotel.report-export.retention-hours:24}")
+    private int retentionHours;
+
+    @Value("${hotel.report-export.stale-minutes:30}")
+    private int staleMinutes;
+
+    /**
+     * 导出目录是否对所有实例可见
+     */
+    @Value("${hotel.report-export.shared-storage:false}")
+    private boolean sharedStorage;
+
+    /**
+     * 当前实例标识，未配置时使用主机名，需在重启后保持不变
+     */
+    @Value("${hotel.report-export.node-id:}")
+    private String nodeId;
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isEmpty()) {
+            nodeId = hostName();
+        }
+        if (!sharedStorage) {
+            log.warn("报表导出目录未声明为共享存储（hotel.report-export.shared-storage），"
+                    + "导出文件只能从生成它的实例下载，当前实例: {}", nodeId);
+        }
+    }
+
+    /**
+     * 提交导出任务，参数相同的任务仍在排队或执行时直接返回该任务
+     *
+     * @param request 导出请求
+     * @param userId  提交人ID
+     * @return 导出任务
+     */
+    public ReportExportJob submit(ReportExportRequest request, Long userId) {
+        String dedupKey = dedupKey(request);
+        // 复用的任务可能刚好结束，此时移除映射后重新提交一次
+        for (int attempt = 0; attempt < 2; attempt++) {
+            AtomicReference<ReportExportJob> created = new AtomicReference<>();
+            String jobId = activeJobs.computeIfAbsent(dedupKey, key -> {
+                ReportExportJob existing = jobRepository.findActiveByDedupKey(key);
+                if (existing != null) {
+                    return existing.getId();
+                }
+                created.set(createJob(request, key, userId));
+                return created.get().getId();
+            });
+            if (created.get() != null) {
+                dispatch(created.get());
+                return jobRepository.selectById(jobId);
+            }
+
+            ReportExportJob job = jobRepository.selectById(jobId);
+            if (job != null && job.isActive()) {
+                return job;
+            }
+            activeJobs.remove(dedupKey, jobId);
+            if (job != null && ReportExportJob.STATUS_SUCCEEDED.equals(job.getStatus()) && !isStale(job)) {
+                return job;
+            }
+        }
+        throw new ReportException("EXPORT_SUBMIT_FAILED", "导出任务提交失败，请稍后重试");
+    }
+
+    /**
+     * 查询导出任务
+     */
+    public ReportExportJob getJob(String jobId) {
+        ReportExportJob job = jobRepository.selectById(jobId);
+        if (job == null) {
+            throw new ReportException("EXPORT_JOB_NOT_FOUND", "导出任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 获取已完成任务的文件路径
+     *
+     * @throws ReportException 任务未完成、文件已过期，或导出目录非共享且文件由其他实例生成
+     */
+    public Path getFile(ReportExportJob job) {
+        if (!ReportExportJob.STATUS_SUCCEEDED.equals(job.getStatus())) {
+            throw new ReportException("EXPORT_JOB_NOT_READY", "导出任务尚未完成，当前状态: " + job.getStatus());
+        }
+        if (!isLocal(job)) {
+            throw new ReportException("EXPORT_FILE_ON_OTHER_NODE",
+                    "导出文件由实例 " + job.getNodeId() + " 生成，当前实例无法读取，请配置共享导出目录");
+        }
+        Path file = resolve(job.getFilePath());
+        if (!Files.isReadable(file)) {
+            throw new ReportException("EXPORT_FILE_EXPIRED", "导出文件已过期，请重新导出");
+        }
+        return file;
+    }
+
+    /**
+     * 标记超时任务为失败并清理过期任务
+     *
+     * 共享存储下只有取得分布式锁的实例清理全部过期任务；非共享存储下各实例只清理自己生成的文件，
+     * 以及没有文件的失败任务
+     */
+    @Scheduled(fixedDelay = 600000, initialDelay = 60000)
+    public void cleanup() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int staleJobs = jobRepository.failStaleJobs(now.minusMinutes(staleMinutes), "任务执行超时");
+            if (staleJobs > 0) {
+                log.warn("报表导出超时任务已标记为失败，数量: {}", staleJobs);
+            }
+
+            if (!sharedStorage) {
+                deleteExpiredJobs(now, nodeId);
+                return;
+            }
+            RLock lock = redissonClient.getLock(CLEANUP_LOCK_KEY);
+            if (!lock.tryLock()) {
+                log.debug("其他实例正在清理报表导出任务，本次跳过");
+                return;
+            }
+            try {
+                deleteExpiredJobs(now, null);
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            log.error("清理报表导出任务失败", e);
+        }
+    }
+
+    /**
+     * 执行导出任务，由导出线程池调用
+     */
+    void runJob(String jobId, String dedupKey) {
+        try {
+            ReportExportJob job = jobRepository.selectById(jobId);
+            if (job == null || !ReportExportJob.STATUS_QUEUED.equals(job.getStatus())) {
+                return;
+            }
+            ReportExportJob running = new ReportExportJob();
+            running.setId(jobId);
+            running.setStatus(ReportExportJob.STATUS_RUNNING);
+            running.setNodeId(nodeId);
+            running.setStartedAt(LocalDateTime.now());
+            jobRepository.updateById(running);
+
+            long start = System.currentTimeMillis();
+            byte[] content = reportService.renderReport(toRequest(job), progress -> updateProgress(jobId, progress));
+            Path file = writeFile(job, content);
+
+            ReportExportJob succeeded = new ReportExportJob();
+            succeeded.setId(jobId);
+            succeeded.setStatus(ReportExportJob.STATUS_SUCCEEDED);
+            succeeded.setProgress(100);
+            succeeded.setFilePath(Paths.get(exportPath).relativize(file).toString());
+            succeeded.setFileSize((long) content.length);
+            succeeded.setFinishedAt(LocalDateTime.now());
+            jobRepository.updateById(succeeded);
+
+            log.info("报表导出任务完成，任务ID: {}, 文件: {}, 大小: {} 字节, 耗时: {}ms",
+                    jobId, file, content.length, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("报表导出任务失败，任务ID: {}", jobId, e);
+            markFailed(jobId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            activeJobs.remove(dedupKey, jobId);
+        }
+    }
+
+    /**
+     * 导出参数摘要，相同摘要的请求生成的文件相同
+     */
+    static String dedupKey(ReportExportRequest request) {
+        String canonical = String.join("|",
+                String.valueOf(request.getReportType()),
+                String.valueOf(request.getExportFormat()).toUpperCase(),
+                String.valueOf(request.getStartDate()),
+                String.valueOf(request.getEndDate()),
+                String.valueOf(request.getRoomTypeId()),
+                String.valueOf(request.getOrderStatus()));
+        return DigestUtils.md5DigestAsHex(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 私有辅助方法
+
+    private ReportExportJob createJob(ReportExportRequest request, String dedupKey, Long userId) {
+        ReportExportJob job = new ReportExportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setDedupKey(dedupKey);
+        job.setStatus(ReportExportJob.STATUS_QUEUED);
+        job.setProgress(0);
+        job.setReportType(request.getReportType().name());
+        job.setExportFormat(request.getExportFormat().toUpperCase());
+        job.setStartDate(request.getStartDate());
+        job.setEndDate(request.getEndDate());
+        job.setRoomTypeId(request.getRoomTypeId());
+        job.setOrderStatus(request.getOrderStatus());
+        job.setFileName(fileName(request));
+        job.setCreatedBy(userId);
+        job.setCreatedAt(LocalDateTime.now());
+        jobRepository.insert(job);
+        return job;
+    }
+
+    /**
+     * 放入导出线程池，线程池已满时任务记为失败并拒绝提交
+     */
+    private void dispatch(ReportExportJob job) {
+        try {
+            reportExportExecutor.execute(() -> runJob(job.getId(), job.getDedupKey()));
+        } catch (TaskRejectedException e) {
+            activeJobs.remove(job.getDedupKey(), job.getId());
+            markFailed(job.getId(), "导出任务队列已满");
+            throw new ReportException("EXPORT_QUEUE_FULL", "当前导出任务较多，请稍后再试");
+        }
+        log.info("报表导出任务已提交，任务ID: {}, 类型: {}, 格式: {}", job.getId(), job.getReportType(), job.getExportFormat());
+    }
+
+    /**
+     * 删除过期任务及其文件
+     *
+     * @param owner 只删除该实例生成的文件和没有文件的任务，为 null 时不限
+     */
+    private void deleteExpiredJobs(LocalDateTime now, String owner) throws IOException {
+        List<ReportExportJob> expiredJobs = jobRepository.findFinishedBefore(
+                now.minusHours(retentionHours), owner, CLEANUP_BATCH_SIZE);
+        for (ReportExportJob job : expiredJobs) {
+            if (job.getFilePath() != null) {
+                Files.deleteIfExists(resolve(job.getFilePath()));
+            }
+            jobRepository.deleteById(job.getId());
+        }
+        if (!expiredJobs.isEmpty()) {
+            log.info("已清理过期报表导出任务，数量: {}", expiredJobs.size());
+        }
+    }
+
+    private void updateProgress(String jobId, int progress) {
+        ReportExportJob update = new ReportExportJob();
+        update.setId(jobId);
+        update.setProgress(Math.max(0, Math.min(99, progress)));
+        jobRepository.updateById(update);
+    }
+
+    private void markFailed(String jobId, String errorMessage) {
+        try {
+            ReportExportJob failed = new ReportExportJob();
+            failed.setId(jobId);
+            failed.setStatus(ReportExportJob.STATUS_FAILED);
+            failed.setErrorMessage(errorMessage.length() > MAX_ERROR_LENGTH
+                    ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage);
+            failed.setFinishedAt(LocalDateTime.now());
+            jobRepository.updateById(failed);
+        } catch (Exception e) {
+            log.error("更新报表导出任务状态失败，任务ID: {}", jobId, e);
+        }
+    }
+
+    /**
+     * 先写临时文件再原子重命名，下载方不会读到写了一半的文件
+     */
+    private Path writeFile(ReportExportJob job, byte[] content) throws IOException {
+        Path dir = Paths.get(exportPath, "jobs");
+        Files.createDirectories(dir);
+        Path target = dir.resolve(job.getId() + "." + extension(job.getExportFormat()));
+        Path temp = Files.createTempFile(dir, job.getId(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    /**
+     * 文件路径相对导出目录保存，各实例可以把共享目录挂载在不同位置；早期任务保存的绝对路径原样使用
+     */
+    private Path resolve(String filePath) {
+        return Paths.get(exportPath).resolve(filePath);
+    }
+
+    /**
+     * 共享存储下任一实例都能读取文件，否则只有生成文件的实例能读取
+     */
+    private boolean isLocal(ReportExportJob job) {
+        return sharedStorage || job.getNodeId() == null || nodeId.equals(job.getNodeId());
+    }
+
+    /**
+     * 已完成但已过保留期的任务不再复用
+     */
+    private boolean isStale(ReportExportJob job) {
+        return job.getFinishedAt() == null || job.getFinishedAt().isBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private static ReportExportRequest toRequest(ReportExportJob job) {
+        ReportExportRequest request = new ReportExportRequest();
+        request.setReportType(ReportExportRequest.ReportType.valueOf(job.getReportType()));
+        request.setExportFormat(job.getExportFormat());
+        request.setStartDate(job.getStartDate());
+        request.setEndDate(job.getEndDate());
+        request.setRoomTypeId(job.getRoomTypeId());
+        request.setOrderStatus(job.getOrderStatus());
+        return request;
+    }
+
+    private static String fileName(ReportExportRequest request) {
+        return String.format("%s_%s_%s.%s",
+                request.getReportType(),
+                request.getStartDate().format(DateTimeFormatter.BASIC_ISO_DATE),
+                request.getEndDate().format(DateTimeFormatter.BASIC_ISO_DATE),
+                extension(request.getExportFormat()));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("无法获取主机名，请配置 hotel.report-export.node-id", e);
+        }
+    }
+
+    private static String extension(String exportFormat) {
+        return "PDF".equalsIgnoreCase(exportFormat) ? "pdf" : "xlsx";
+    }
+}
@@ -0,0 +1,284 @@
+package com.hotel.service.report;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.hotel.entity.Order;
+import com.hotel.entity.Room;
+import com.hotel.entity.report.ReportDailyFact;
+import com.hotel.repository.OrderRepository;
+import com.hotel.repository.RoomRepository;
+import com.hotel.repository.report.ReportDailyFactRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 报表日汇总事实服务
+ *
+ * 维护 (统计日期, 酒店, 房型) 粒度的预聚合订单指标，报表直接读取汇总行，耗时不再随订单量增长。
+ * 按创建日期统计的指标（订单数、取消数、完成数、收入、间夜数）记在订单创建当天的行上，
+ * 在住房间数按入住日期记在每个入住夜的行上。
+ *
+ * 订单创建和取消在事务提交后累加增量；丢失的增量由每日对账按订单表重新汇总最近一段时间的行来修正。
+ * 完成等在应用外发生的状态变化会晚于创建日期出现，对账时还会按订单更新时间找出最近变化的订单，
+ * 重新汇总其创建日期的行，因此很早创建、近期才完成的订单也会计入完成数和完成收入。
+ *
+ * 多实例部署时每个实例都会触发回填和对账，由 Redis 分布式锁保证同一时刻只有一个实例执行。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportFactService {
+
+    /**
+     * 批量写入时每批的行数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 回填和对账共用的分布式锁
+     */
+    private static final String REBUILD_LOCK_KEY = "report_facts:rebuild";
+
+    private final ReportDailyFactRepository factRepository;
+    private final OrderRepository orderRepository;
+    private final RoomRepository roomRepository;
+    private final RedissonClient redissonClient;
+
+    @Value("${hotel.report-facts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotel.report-facts.reconcile-days:7}")
+    private int reconcileDays;
+
+    @Value("${hotel.report-facts.future-days:365}")
+    private int futureDays;
+
+    @Value("${hotel.report-facts.backfill-days:730}")
+    private int backfillDays;
+
+    /**
+     * 首次启动时回填历史数据，其他实例正在回填或对账时直接跳过
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(REBUILD_LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在重建报表事实表，跳过启动回填");
+            return;
+        }
+        try {
+            if (factRepository.selectCount(null) == 0) {
+                LocalDate today = LocalDate.now();
+                rebuild(today.minusDays(backfillDays), today.plusDays(futureDays));
+            }
+        } catch (Exception e) {
+            log.error("报表事实表回填失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 每天凌晨对账，修正最近的历史行、全部未来入住行，以及窗口之前创建但最近状态有变化的订单所在的行
+     */
+    @Scheduled(cron = "0 30 0 * * ?")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(REBUILD_LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在重建报表事实表，本次对账跳过");
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate windowStart = today.minusDays(reconcileDays);
+            rebuild(windowStart, today.plusDays(futureDays));
+            int refreshed = factRepository.refreshBookingFactsForUpdatedOrders(windowStart.atStartOfDay(), windowStart);
+            log.info("报表事实表按订单更新时间对账完成，自 {} 起，更新行数: {}", windowStart, refreshed);
+        } catch (Exception e) {
+            log.error("报表事实表对账失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按订单表重新汇总 [startDate, endDate] 内的事实行
+     *
+     * 对账期间提交的订单增量可能被重复计入，下一次对账时修正
+     */
+    @Transactional
+    public void rebuild(LocalDate startDate, LocalDate endDate) {
+        long start = System.currentTimeMillis();
+        factRepository.deleteByDateRange(startDate, endDate);
+        int bookingRows = factRepository.insertBookingFacts(startDate, endDate);
+
+        Map<Long, Room> rooms = loadRooms();
+        Map<String, ReportDailyFact> occupancy = new LinkedHashMap<>();
+        List<Order> orders = orderRepository.findOccupyingOrders(null, startDate, endDate.plusDays(1));
+        for (Order order : orders) {
+            Room room = rooms.get(order.getRoomId());
+            if (room == null) {
+                continue;
+            }
+            LocalDate from = order.getCheckInDate().isBefore(startDate) ? startDate : order.getCheckInDate();
+            LocalDate to = order.getCheckOutDate().isAfter(endDate) ? endDate.plusDays(1) : order.getCheckOutDate();
+            for (LocalDate night = from; night.isBefore(to); night = night.plusDays(1)) {
+                LocalDate date = night;
+                ReportDailyFact fact = occupancy.computeIfAbsent(key(date, room), k -> emptyFact(date, room));
+                fact.setOccupiedRooms(fact.getOccupiedRooms() + 1);
+            }
+        }
+        upsert(new ArrayList<>(occupancy.values()));
+
+        log.info("报表事实表重建完成，范围: {} - {}, 订单汇总行: {}, 在住汇总行: {}, 耗时: {}ms",
+                startDate, endDate, bookingRows, occupancy.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 查询日期范围内的事实行
+     *
+     * @param roomTypeId 房型ID，为空时查询所有房型
+     */
+    public List<ReportDailyFact> findFacts(LocalDate startDate, LocalDate endDate, Long roomTypeId) {
+        return factRepository.findByDateRange(startDate, endDate, roomTypeId);
+    }
+
+    /**
+     * 订单创建后累加增量，事务提交后生效
+     */
+    public void onOrderCreated(Order order) {
+        LocalDate bookingDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+        afterCommit(order.getRoomId(), room -> orderDeltas(order, room, bookingDate, 1, true));
+    }
+
+    /**
+     * 订单取消后累加增量，事务提交后生效
+     *
+     * @param previousStatus 取消前的订单状态，仅已确认或已完成的订单计入在住房间数
+     */
+    public void onOrderCancelled(Order order, String previousStatus) {
+        LocalDate bookingDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+        boolean occupying = "CONFIRMED".equals(previousStatus) || "COMPLETED".equals(previousStatus);
+        afterCommit(order.getRoomId(), room -> {
+            List<ReportDailyFact> deltas = orderDeltas(order, room, bookingDate, -1, occupying);
+            ReportDailyFact booking = deltas.get(0);
+            // 订单数不变，记为一次取消
+            booking.setOrderCount(0);
+            booking.setCancelledCount(1);
+            return deltas;
+        });
+    }
+
+    /**
+     * 一个订单对事实表的增量：首行为创建日期行，其后为各入住夜的在住行，同一日期合并为一行
+     *
+     * @param sign 1 表示计入，-1 表示撤销
+     */
+    static List<ReportDailyFact> orderDeltas(Order order, Room room, LocalDate bookingDate, int sign, boolean occupying) {
+        Map<LocalDate, ReportDailyFact> deltas = new LinkedHashMap<>();
+
+        ReportDailyFact booking = emptyFact(bookingDate, room);
+        booking.setOrderCount(sign);
+        booking.setBookedNights(sign * (int) ChronoUnit.DAYS.between(order.getCheckInDate(), order.getCheckOutDate()));
+        deltas.put(bookingDate, booking);
+
+        if (occupying) {
+            for (LocalDate night = order.getCheckInDate(); night.isBefore(order.getCheckOutDate()); night = night.plusDays(1)) {
+                ReportDailyFact fact = deltas.computeIfAbsent(night, d -> emptyFact(d, room));
+                fact.setOccupiedRooms(fact.getOccupiedRooms() + sign);
+            }
+        }
+        return new ArrayList<>(deltas.values());
+    }
+
+    // 私有辅助方法
+
+    private void afterCommit(Long roomId, Function<Room, List<ReportDailyFact>> deltas) {
+        if (!enabled) {
+            return;
+        }
+        Runnable apply = () -> {
+            try {
+                Room room = roomRepository.selectById(roomId);
+                if (room == null) {
+                    log.warn("房间不存在，跳过报表事实增量，roomId: {}", roomId);
+                    return;
+                }
+                upsert(deltas.apply(room));
+            } catch (Exception e) {
+                // 丢失的增量由每日对账修正
+                log.error("报表事实增量写入失败，roomId: {}", roomId, e);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private void upsert(List<ReportDailyFact> facts) {
+        for (int i = 0; i < facts.size(); i += BATCH_SIZE) {
+            factRepository.upsertDeltas(facts.subList(i, Math.min(i + BATCH_SIZE, facts.size())));
+        }
+    }
+
+    private Map<Long, Room> loadRooms() {
+        List<Room> rooms = roomRepository.selectList(new LambdaQueryWrapper<Room>()
+                .select(Room::getId, Room::getHotelId, Room::getRoomTypeId));
+        return rooms.stream()
+                .filter(room -> room.getHotelId() != null && room.getRoomTypeId() != null)
+                .collect(Collectors.toMap(Room::getId, Function.identity(), (a, b) -> a, HashMap::new));
+    }
+
+    private static String key(LocalDate date, Room room) {
+        return date + ":" + room.getHotelId() + ":" + room.getRoomTypeId();
+    }
+
+    private static ReportDailyFact emptyFact(LocalDate date, Room room) {
+        ReportDailyFact fact = new ReportDailyFact();
+        fact.setStatDate(date);
+        fact.setHotelId(Objects.requireNonNull(room.getHotelId()));
+        fact.setRoomTypeId(Objects.requireNonNull(room.getRoomTypeId()));
+        fact.setOrderCount(0);
+        fact.setCancelledCount(0);
+        fact.setCompletedCount(0);
+        fact.setCompletedRevenue(BigDecimal.ZERO);
+        fact.setBookedNights(0);
+        fact.setOccupiedRooms(0);
+        return fact;
+    }
+}
@@ -3,11 +3,14 @@ package com.hotel.util;
 import com.hotel.dto.report.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -25,6 +28,11 @@ public class ExcelExporter {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    /**
+     * 流式工作表在内存中保留的行数，超出窗口的行写入临时文件
+     */
+    private static final int STREAMING_WINDOW_SIZE = 100;
+
     /**
      * 导出订单报表到Excel
      */
@@ -747,6 +755,72 @@ public class ExcelExporter {
         sheet.autoSizeColumn(1);
     }
 
+    // ================= 流式导出 =================
+
+    /**
+     * 创建流式工作表，用于行数不确定的明细导出
+     *
+     * 基于 SXSSF，内存中只保留最近 {@value #STREAMING_WINDOW_SIZE} 行，内存占用与总行数无关。
+     * 调用方逐行填充后调用 {@link StreamingSheet#write(OutputStream)} 输出，并负责关闭以删除临时文件。
+     *
+     * @param sheetName 工作表名称
+     * @param headers 表头
+     */
+    public StreamingSheet createStreamingSheet(String sheetName, String[] headers) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW_SIZE);
+        // 临时文件压缩，减少大导出的磁盘占用
+        workbook.setCompressTempFiles(true);
+        StreamingSheet sheet = new StreamingSheet(workbook, workbook.createSheet(sheetName));
+
+        Row headerRow = sheet.createRow();
+        for (int i = 0; i < headers.length; i++) {
+            headerRow.createCell(i).setCellValue(headers[i]);
+        }
+        return sheet;
+    }
+
+    /**
+     * 流式工作表
+     */
+    public static class StreamingSheet implements Closeable {
+
+        private final SXSSFWorkbook workbook;
+        private final Sheet sheet;
+        private int rowCount;
+
+        private StreamingSheet(SXSSFWorkbook workbook, Sheet sheet) {
+            this.workbook = workbook;
+            this.sheet = sheet;
+        }
+
+        /**
+         * 追加一行
+         */
+        public Row createRow() {
+            return sheet.createRow(rowCount++);
+        }
+
+        /**
+         * 已写入的行数（含表头）
+         */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * 将工作簿写入输出流，不关闭输出流
+         */
+        public void write(OutputStream out) throws IOException {
+            workbook.write(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
     // ================= 辅助方法 =================
 
     private CellStyle createTitleStyle(XSSFWorkbook workbook) {
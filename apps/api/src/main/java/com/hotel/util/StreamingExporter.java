@@ -0,0 +1,332 @@
+package com.hotel.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 流式导出工具类
+ *
+ * 逐行遍历数据源（通常为 MyBatis Cursor）并按列定义写出 CSV、NDJSON 或 Excel，
+ * 行缓冲区在整个导出过程中复用，每 {@value #FLUSH_INTERVAL} 行刷新一次输出流，
+ * 内存占用与导出行数无关。CSV 和 NDJSON 可选在写出时 gzip 压缩。
+ *
+ * @author Hotel System
+ * @version 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingExporter {
+
+    /**
+     * 每写出多少行刷新一次输出流
+     */
+    static final int FLUSH_INTERVAL = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ExcelExporter excelExporter;
+
+    /**
+     * 导出数据到输出流
+     *
+     * @param rows      数据源，按遍历顺序写出
+     * @param columns   列定义
+     * @param format    导出格式
+     * @param gzip      是否 gzip 压缩，Excel 格式忽略
+     * @param sheetName Excel 工作表名称
+     * @param out       输出流，由调用方关闭
+     * @return 导出行数
+     */
+    public <T> long export(Iterable<T> rows, List<Column<T>> columns, Format format, boolean gzip,
+                           String sheetName, OutputStream out) throws IOException {
+        if (format == Format.EXCEL) {
+            return writeExcel(rows, columns, sheetName, out);
+        }
+
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        OutputStream target = gzipOut != null ? gzipOut : out;
+        long count = format == Format.CSV
+                ? writeCsv(rows, columns, target)
+                : writeNdjson(rows, columns, target);
+        if (gzipOut != null) {
+            // 写出 gzip 尾部但不关闭底层输出流
+            gzipOut.finish();
+        }
+        out.flush();
+        return count;
+    }
+
+    /**
+     * 响应的 Content-Type
+     */
+    public static String contentType(Format format, boolean gzip) {
+        return gzip && format.isCompressible() ? "application/gzip" : format.getContentType();
+    }
+
+    /**
+     * 带扩展名的文件名
+     */
+    public static String fileName(String baseName, Format format, boolean gzip) {
+        String fileName = baseName + "." + format.getExtension();
+        return gzip && format.isCompressible() ? fileName + ".gz" : fileName;
+    }
+
+    // 私有辅助方法
+
+    private <T> long writeExcel(Iterable<T> rows, List<Column<T>> columns, String sheetName,
+                                OutputStream out) throws IOException {
+        String[] headers = columns.stream().map(Column::getHeader).toArray(String[]::new);
+        try (ExcelExporter.StreamingSheet sheet = excelExporter.createStreamingSheet(sheetName, headers)) {
+            long count = 0;
+            for (T item : rows) {
+                Row row = sheet.createRow();
+                for (int i = 0; i < columns.size(); i++) {
+                    setCellValue(row.createCell(i), columns.get(i).getter.apply(item));
+                }
+                count++;
+            }
+            sheet.write(out);
+            out.flush();
+            return count;
+        }
+    }
+
+    private <T> long writeCsv(Iterable<T> rows, List<Column<T>> columns, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendCsv(line, columns.get(i).getHeader());
+        }
+        line.append('\n');
+        writer.append(line);
+
+        long count = 0;
+        for (T item : rows) {
+            line.setLength(0);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsv(line, format(columns.get(i).getter.apply(item)));
+            }
+            line.append('\n');
+            writer.append(line);
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        // 只刷新不关闭，输出流由调用方关闭
+        writer.flush();
+        return count;
+    }
+
+    private <T> long writeNdjson(Iterable<T> rows, List<Column<T>> columns, OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+
+            long count = 0;
+            for (T item : rows) {
+                generator.writeStartObject();
+                for (Column<T> column : columns) {
+                    generator.writeFieldName(column.getKey());
+                    writeJsonValue(generator, column.getter.apply(item));
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+            return count;
+        }
+    }
+
+    private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Long || value instanceof Integer) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(format(value));
+        }
+    }
+
+    private static void setCellValue(Cell cell, Object value) {
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else {
+            cell.setCellValue(format(value));
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).format(DATE_TIME_FORMATTER);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * 追加 CSV 字段，包含逗号、引号或换行时加引号转义
+     */
+    static void appendCsv(StringBuilder line, String field) {
+        boolean quote = false;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            line.append(field);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", false),
+        CSV("csv", "text/csv;charset=UTF-8", true),
+        NDJSON("ndjson", "application/x-ndjson", true);
+
+        private final String extension;
+        private final String contentType;
+        private final boolean compressible;
+
+        Format(String extension, String contentType, boolean compressible) {
+            this.extension = extension;
+            this.contentType = contentType;
+            this.compressible = compressible;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * 是否支持 gzip 压缩，Excel 文件本身已压缩
+         */
+        public boolean isCompressible() {
+            return compressible;
+        }
+
+        /**
+         * 解析导出格式参数
+         *
+         * @throws IllegalArgumentException 不支持的格式
+         */
+        public static Format of(String value) {
+            if (value != null) {
+                switch (value.toLowerCase()) {
+                    case "excel":
+                    case "xlsx":
+                        return EXCEL;
+                    case "csv":
+                        return CSV;
+                    case "ndjson":
+                    case "jsonl":
+                        return NDJSON;
+                    default:
+                        break;
+                }
+            }
+            throw new IllegalArgumentException("不支持的导出格式: " + value);
+        }
+    }
+
+    /**
+     * 导出列定义
+     *
+     * @param <T> 行类型
+     */
+    public static final class Column<T> {
+
+        private final String key;
+        private final String header;
+        private final Function<T, ?> getter;
+
+        private Column(String key, String header, Function<T, ?> getter) {
+            this.key = key;
+            this.header = header;
+            this.getter = getter;
+        }
+
+        /**
+         * @param key    NDJSON 字段名
+         * @param header CSV 和 Excel 表头
+         * @param getter 取值函数，返回 null 时输出空值
+         */
+        public static <T> Column<T> of(String key, String header, Function<T, ?> getter) {
+            return new Column<>(key, header, getter);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+    }
+}
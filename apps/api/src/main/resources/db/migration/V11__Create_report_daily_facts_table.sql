@@ -0,0 +1,18 @@
+-- 创建报表日汇总事实表
+-- 每行为 (统计日期, 酒店, 房型) 粒度的预聚合指标，由订单事件增量维护，每日对账修正
+CREATE TABLE `report_daily_facts` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `hotel_id` bigint NOT NULL COMMENT '酒店ID',
+  `room_type_id` bigint NOT NULL COMMENT '房型ID',
+  `order_count` int NOT NULL DEFAULT '0' COMMENT '当日创建的订单数',
+  `cancelled_count` int NOT NULL DEFAULT '0' COMMENT '当日创建且已取消的订单数',
+  `completed_count` int NOT NULL DEFAULT '0' COMMENT '当日创建且已完成的订单数',
+  `completed_revenue` decimal(14,2) NOT NULL DEFAULT '0.00' COMMENT '当日创建且已完成订单的收入',
+  `booked_nights` int NOT NULL DEFAULT '0' COMMENT '当日创建且未取消订单的间夜数',
+  `occupied_rooms` int NOT NULL DEFAULT '0' COMMENT '当日在住（已确认或已完成订单）的房间数',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_date_hotel_room_type` (`stat_date`, `hotel_id`, `room_type_id`),
+  KEY `idx_room_type_date` (`room_type_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报表日汇总事实表';
@@ -0,0 +1,26 @@
+-- 创建报表导出任务表
+-- 导出请求提交后在独立线程池中异步执行，任务状态与进度持久化，完成后按任务ID下载文件
+CREATE TABLE `report_export_jobs` (
+  `id` varchar(36) NOT NULL COMMENT '任务ID',
+  `dedup_key` varchar(64) NOT NULL COMMENT '导出参数摘要，相同参数的并发请求共用一个任务',
+  `status` varchar(20) NOT NULL COMMENT '状态：QUEUED/RUNNING/SUCCEEDED/FAILED',
+  `progress` int NOT NULL DEFAULT '0' COMMENT '进度百分比',
+  `report_type` varchar(20) NOT NULL COMMENT '报表类型',
+  `export_format` varchar(10) NOT NULL COMMENT '导出格式',
+  `start_date` date NOT NULL COMMENT '开始日期',
+  `end_date` date NOT NULL COMMENT '结束日期',
+  `room_type_id` bigint DEFAULT NULL COMMENT '房型ID',
+  `order_status` varchar(20) DEFAULT NULL COMMENT '订单状态',
+  `file_name` varchar(255) DEFAULT NULL COMMENT '文件名',
+  `file_path` varchar(500) DEFAULT NULL COMMENT '文件存储路径',
+  `file_size` bigint DEFAULT NULL COMMENT '文件大小（字节）',
+  `error_message` varchar(500) DEFAULT NULL COMMENT '失败原因',
+  `created_by` bigint DEFAULT NULL COMMENT '提交人ID',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '提交时间',
+  `started_at` datetime DEFAULT NULL COMMENT '开始执行时间',
+  `finished_at` datetime DEFAULT NULL COMMENT '结束时间',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_dedup_key_status` (`dedup_key`, `status`),
+  KEY `idx_status_updated_at` (`status`, `updated_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报表导出任务表';
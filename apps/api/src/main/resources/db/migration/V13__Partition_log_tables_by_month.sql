@@ -0,0 +1,31 @@
+-- 操作日志、登录日志、错误日志按 create_time 分区
+-- 分区表的主键必须包含分区列，主键改为 (id, create_time)
+-- 迁移只建立一个 p_future 分区，日志分区维护任务首次运行时把它拆分为按月分区（pYYYYMM），
+-- 之后每天预建未来月份的分区，并把超过保留期的分区归档到压缩文件后删除
+
+ALTER TABLE `operation_logs`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`, `create_time`);
+
+ALTER TABLE `operation_logs`
+  PARTITION BY RANGE COLUMNS (`create_time`) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+  );
+
+ALTER TABLE `login_logs`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`, `create_time`);
+
+ALTER TABLE `login_logs`
+  PARTITION BY RANGE COLUMNS (`create_time`) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+  );
+
+ALTER TABLE `error_logs`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`, `create_time`);
+
+ALTER TABLE `error_logs`
+  PARTITION BY RANGE COLUMNS (`create_time`) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+  );
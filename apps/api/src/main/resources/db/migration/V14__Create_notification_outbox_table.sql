@@ -0,0 +1,24 @@
+-- 创建通知邮件发件箱表
+-- 邮件与订单、站内通知在同一事务内写入，提交后由发件箱投递器分批认领并发送，发送失败按退避时间重试
+CREATE TABLE `notification_outbox` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `user_id` bigint DEFAULT NULL COMMENT '收件用户ID，未指定收件地址时发送前按用户查询邮箱',
+  `recipient` varchar(255) DEFAULT NULL COMMENT '收件地址',
+  `message_type` varchar(50) NOT NULL COMMENT '邮件类型',
+  `subject` varchar(255) NOT NULL COMMENT '邮件主题',
+  `body` mediumtext NOT NULL COMMENT '邮件正文（HTML）',
+  `status` varchar(20) NOT NULL DEFAULT 'PENDING' COMMENT '状态：PENDING/SENDING/SENT/FAILED',
+  `attempts` int NOT NULL DEFAULT '0' COMMENT '已认领发送次数',
+  `next_attempt_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次可发送时间',
+  `claim_token` varchar(36) DEFAULT NULL COMMENT '认领批次标识',
+  `lease_expires_at` datetime DEFAULT NULL COMMENT '认领租约到期时间，到期未完成视为投递进程异常退出',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `sent_at` datetime DEFAULT NULL COMMENT '发送成功时间',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_next_attempt_at` (`status`, `next_attempt_at`),
+  KEY `idx_status_lease_expires_at` (`status`, `lease_expires_at`),
+  KEY `idx_claim_token` (`claim_token`),
+  KEY `idx_status_sent_at` (`status`, `sent_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知邮件发件箱表';
@@ -0,0 +1,4 @@
+-- 通知表按用户查询未读的复合索引
+-- 全部标记已读、未读计数回填与对账只需扫描该用户的未读记录
+ALTER TABLE `notifications`
+  ADD KEY `idx_user_read_deleted` (`user_id`, `is_read`, `deleted`);
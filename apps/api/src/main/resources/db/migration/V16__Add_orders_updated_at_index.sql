@@ -0,0 +1,4 @@
+-- 订单表按更新时间查询的索引
+-- 报表事实表每日对账据此找出最近状态变化（完成、取消等）的订单，重新汇总其创建日期的行
+ALTER TABLE `orders`
+  ADD KEY `idx_updated_at` (`updated_at`);
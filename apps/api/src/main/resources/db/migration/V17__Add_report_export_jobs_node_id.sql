@@ -0,0 +1,4 @@
+-- 报表导出任务记录生成文件的实例
+-- 导出目录非共享存储时，只有生成文件的实例能提供下载，各实例只清理自己生成的文件
+ALTER TABLE `report_export_jobs`
+  ADD COLUMN `node_id` varchar(64) DEFAULT NULL COMMENT '生成文件的实例' AFTER `file_size`;
@@ -9,6 +9,7 @@ import com.hotel.enums.Role;
 import com.hotel.enums.UserStatus;
 import com.hotel.repository.UserRepository;
 import com.hotel.security.CustomUserDetails;
+import com.hotel.security.JwtAuthenticationCache;
 import com.hotel.util.PermissionUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,6 +48,9 @@ class AdminControllerTest {
     @MockBean
     private PermissionUtil permissionUtil;
 
+    @MockBean
+    private JwtAuthenticationCache jwtAuthenticationCache;
+
     private User testAdmin;
     private User testUser;
 
@@ -139,6 +143,8 @@ class AdminControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("更新用户角色成功"));
+
+        verify(jwtAuthenticationCache).revokeUser(2L);
     }
 
     @Test
@@ -157,6 +163,8 @@ class AdminControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("不能修改自己的角色"));
+
+        verify(jwtAuthenticationCache, never()).revokeUser(any());
     }
 
     @Test
@@ -176,6 +184,8 @@ class AdminControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("更新用户状态成功"));
+
+        verify(jwtAuthenticationCache).revokeUser(2L);
     }
 
     @Test
@@ -196,6 +206,25 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.message").value("不能禁用自己的账户"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testBatchUpdateUserStatus_RevokesTokens() throws Exception {
+        when(permissionUtil.getCurrentUserId()).thenReturn(1L);
+        when(userRepository.updateStatusBatch(Arrays.asList(2L, 3L), "INACTIVE")).thenReturn(2);
+
+        mockMvc.perform(put("/v1/admin/users/batch/status")
+                .with(csrf())
+                .param("status", "INACTIVE")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(2L, 3L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data").value(2));
+
+        verify(jwtAuthenticationCache).revokeUser(2L);
+        verify(jwtAuthenticationCache).revokeUser(3L);
+    }
+
     @Test
     @WithMockUser(roles = "USER") // 非管理员用户
     void testAdminEndpoint_RequiresAdminRole() throws Exception {
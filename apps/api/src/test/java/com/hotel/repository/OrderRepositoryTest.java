@@ -0,0 +1,97 @@
+package com.hotel.repository;
+
+import com.hotel.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OrderRepository 冲突查询测试
+ * 数据库判定与房间占用索引使用同一规则：区间 [入住日, 退房日)，CONFIRMED 和 COMPLETED 视为占用
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("订单Repository冲突查询测试")
+class OrderRepositoryTest {
+
+    private static final Long ROOM_ID = 9001L;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final LocalDate base = LocalDate.of(2030, 1, 10);
+
+    @BeforeEach
+    void setUp() {
+        insert(base, base.plusDays(3), "CONFIRMED");
+        insert(base.plusDays(5), base.plusDays(7), "COMPLETED");
+        insert(base.plusDays(8), base.plusDays(10), "CANCELLED");
+        insert(base.plusDays(10), base.plusDays(12), "PENDING");
+    }
+
+    @Test
+    @DisplayName("退房当天入住和入住前一天退房不应冲突")
+    void shouldTreatCheckOutDayAsFree() {
+        assertTrue(orderRepository.findConflictingOrders(ROOM_ID, base.plusDays(3), base.plusDays(5)).isEmpty());
+        assertTrue(orderRepository.findConflictingOrders(ROOM_ID, base.minusDays(2), base).isEmpty());
+    }
+
+    @Test
+    @DisplayName("任一晚重叠应判定为冲突")
+    void shouldDetectOverlappingNights() {
+        assertEquals(1, orderRepository.findConflictingOrders(ROOM_ID, base.plusDays(2), base.plusDays(4)).size());
+        assertEquals(1, orderRepository.findConflictingOrders(ROOM_ID, base.minusDays(1), base.plusDays(1)).size());
+        assertEquals(2, orderRepository.findConflictingOrders(ROOM_ID, base, base.plusDays(7)).size());
+    }
+
+    @Test
+    @DisplayName("已完成订单占用房间，已取消和待确认订单不占用")
+    void shouldUseIndexStatusSet() {
+        assertEquals(1, orderRepository.findConflictingOrders(ROOM_ID, base.plusDays(6), base.plusDays(7)).size());
+        assertTrue(orderRepository.findConflictingOrders(ROOM_ID, base.plusDays(8), base.plusDays(12)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("冲突查询应与占用索引的加载查询结果一致")
+    void shouldMatchOccupyingOrders() {
+        for (int from = -2; from < 14; from++) {
+            for (int to = from + 1; to <= 14; to++) {
+                LocalDate checkIn = base.plusDays(from);
+                LocalDate checkOut = base.plusDays(to);
+                assertEquals(ids(orderRepository.findOccupyingOrders(ROOM_ID, checkIn, checkOut)),
+                        ids(orderRepository.findConflictingOrders(ROOM_ID, checkIn, checkOut)),
+                        checkIn + " ~ " + checkOut);
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).sorted().collect(Collectors.toList());
+    }
+
+    private void insert(LocalDate checkIn, LocalDate checkOut, String status) {
+        Order order = new Order();
+        order.setOrderNumber("T" + UUID.randomUUID().toString().replace("-", "").substring(0, 20));
+        order.setUserId(1L);
+        order.setRoomId(ROOM_ID);
+        order.setCheckInDate(checkIn);
+        order.setCheckOutDate(checkOut);
+        order.setGuestCount(1);
+        order.setTotalPrice(new BigDecimal("100.00"));
+        order.setStatus(status);
+        orderRepository.insert(order);
+    }
+}
@@ -0,0 +1,145 @@
+package com.hotel.security;
+
+import com.hotel.enums.Permission;
+import com.hotel.service.UserDetailsServiceImpl;
+import com.hotel.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JWT 验证缓存测试")
+class JwtAuthenticationCacheTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private JwtAuthenticationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JwtAuthenticationCache(jwtUtil, userDetailsService, stringRedisTemplate, listenerContainer);
+        ReflectionTestUtils.setField(cache, "maximumSize", 1000L);
+        ReflectionTestUtils.setField(cache, "maxTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(cache, "revocationChannel", "auth:revocation");
+        ReflectionTestUtils.setField(cache, "revocationTtlSeconds", 604800L);
+        cache.init();
+
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(jwtUtil.parseToken(TOKEN)).thenReturn(tokenInfo("USER", System.currentTimeMillis() - 60_000));
+        lenient().when(valueOperations.get("auth:revoked:user:7")).thenReturn(null);
+    }
+
+    @Test
+    @DisplayName("同一令牌只解析一次，用户详情由声明构建")
+    void shouldParseTokenOnceAndBuildPrincipalFromClaims() {
+        CustomUserDetails first = cache.authenticate(TOKEN);
+        CustomUserDetails second = cache.authenticate(TOKEN);
+
+        assertSame(first, second);
+        assertEquals(7L, first.getId());
+        assertEquals("alice", first.getUsername());
+        assertTrue(first.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+        assertTrue(first.hasPermission(Permission.BOOKING_WRITE));
+        verify(jwtUtil, times(1)).parseToken(TOKEN);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("吊销用户后缓存的令牌应立即失效")
+    void shouldEvictRevokedUser() {
+        assertNotNull(cache.authenticate(TOKEN));
+
+        cache.revokeUser(7L);
+        when(valueOperations.get("auth:revoked:user:7")).thenReturn(String.valueOf(System.currentTimeMillis()));
+
+        assertNull(cache.authenticate(TOKEN));
+        assertNull(cache.authenticate(TOKEN));
+        verify(valueOperations).set(eq("auth:revoked:user:7"), anyString(), eq(Duration.ofSeconds(604800)));
+        verify(stringRedisTemplate).convertAndSend("auth:revocation", "7");
+        verify(jwtUtil, times(3)).parseToken(TOKEN);
+    }
+
+    @Test
+    @DisplayName("吊销后重新登录签发的令牌不受影响")
+    void shouldAcceptTokenIssuedAfterRevocation() {
+        long revokedAt = System.currentTimeMillis() - 30_000;
+        when(valueOperations.get("auth:revoked:user:7")).thenReturn(String.valueOf(revokedAt));
+        when(jwtUtil.parseToken("renewed")).thenReturn(tokenInfo("ADMIN", revokedAt + 1000));
+
+        assertNull(cache.authenticate(TOKEN));
+        CustomUserDetails renewed = cache.authenticate("renewed");
+
+        assertNotNull(renewed);
+        assertTrue(renewed.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @Test
+    @DisplayName("收到其他节点的吊销广播时应清理该用户的缓存")
+    void shouldEvictOnRevocationMessage() {
+        cache.authenticate(TOKEN);
+
+        cache.onMessage(new DefaultMessage("auth:revocation".getBytes(StandardCharsets.UTF_8),
+                "7".getBytes(StandardCharsets.UTF_8)), null);
+        cache.authenticate(TOKEN);
+
+        verify(jwtUtil, times(2)).parseToken(TOKEN);
+    }
+
+    @Test
+    @DisplayName("Redis 不可用时应按数据库中的用户状态判断")
+    void shouldFallBackToUserStatusWhenRedisUnavailable() {
+        when(valueOperations.get("auth:revoked:user:7"))
+                .thenThrow(new RedisConnectionFailureException("连接失败"));
+        when(userDetailsService.loadUserByUsername("alice")).thenThrow(new UsernameNotFoundException("用户已被禁用"));
+
+        assertNull(cache.authenticate(TOKEN));
+    }
+
+    @Test
+    @DisplayName("无效令牌应抛出异常且不缓存")
+    void shouldRejectInvalidToken() {
+        when(jwtUtil.parseToken("invalid")).thenThrow(new IllegalArgumentException("Invalid token"));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.authenticate("invalid"));
+        assertThrows(IllegalArgumentException.class, () -> cache.authenticate("invalid"));
+        verify(jwtUtil, times(2)).parseToken("invalid");
+    }
+
+    private static JwtUtil.TokenInfo tokenInfo(String role, long issuedAt) {
+        return new JwtUtil.TokenInfo("alice", 7L, role, new Date(issuedAt), new Date(issuedAt + 3600_000));
+    }
+}
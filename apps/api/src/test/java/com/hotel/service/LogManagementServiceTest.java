@@ -1,6 +1,7 @@
 package com.hotel.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotel.dto.log.LogExportRequest;
 import com.hotel.dto.log.LogSearchRequest;
 import com.hotel.entity.log.ErrorLog;
@@ -9,18 +10,31 @@ import com.hotel.entity.log.OperationLog;
 import com.hotel.repository.log.ErrorLogRepository;
 import com.hotel.repository.log.LoginLogRepository;
 import com.hotel.repository.log.OperationLogRepository;
+import com.hotel.service.log.LogArchiveStore;
+import com.hotel.service.log.LogSearchIndex;
+import com.hotel.util.ExcelExporter;
+import com.hotel.util.StreamingExporter;
+import org.apache.ibatis.cursor.Cursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -43,6 +57,15 @@ class LogManagementServiceTest {
     @Mock
     private ErrorLogRepository errorLogRepository;
 
+    @Mock
+    private LogArchiveStore logArchiveStore;
+
+    @Mock
+    private LogSearchIndex logSearchIndex;
+
+    @Spy
+    private StreamingExporter streamingExporter = new StreamingExporter(new ExcelExporter());
+
     @InjectMocks
     private LogManagementService logManagementService;
 
@@ -213,15 +236,11 @@ class LogManagementServiceTest {
     @DisplayName("导出操作日志 - CSV格式")
     void exportLogs_OperationLogCsvFormat() throws IOException {
         // Given
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(operationLog));
-
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(operationLog));
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
 
         // Then
         assertNotNull(result);
@@ -232,8 +251,8 @@ class LogManagementServiceTest {
         assertTrue(csvContent.contains("testuser"));
         assertTrue(csvContent.contains("CREATE_USER"));
 
-        verify(operationLogRepository, times(1)).searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any());
+        verify(operationLogRepository, times(1)).streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt());
     }
 
     @Test
@@ -241,15 +260,11 @@ class LogManagementServiceTest {
     void exportLogs_OperationLogExcelFormat() throws IOException {
         // Given
         exportRequest.setExportFormat("xlsx");
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(operationLog));
-
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(operationLog));
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
 
         // Then
         assertNotNull(result);
@@ -257,8 +272,8 @@ class LogManagementServiceTest {
         // Excel文件的魔数验证
         assertTrue(result[0] == 0x50 && result[1] == 0x4B && result[2] == 0x03 && result[3] == 0x04);
 
-        verify(operationLogRepository, times(1)).searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any());
+        verify(operationLogRepository, times(1)).streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt());
     }
 
     @Test
@@ -266,15 +281,11 @@ class LogManagementServiceTest {
     void exportLogs_LoginLogCsvFormat() throws IOException {
         // Given
         exportRequest.setLogType("login");
-        IPage<LoginLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(loginLog));
-
-        when(loginLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(loginLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(loginLog));
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
 
         // Then
         assertNotNull(result);
@@ -285,8 +296,8 @@ class LogManagementServiceTest {
         assertTrue(csvContent.contains("testuser"));
         assertTrue(csvContent.contains("PASSWORD"));
 
-        verify(loginLogRepository, times(1)).searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any());
+        verify(loginLogRepository, times(1)).streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt());
     }
 
     @Test
@@ -294,15 +305,11 @@ class LogManagementServiceTest {
     void exportLogs_ErrorLogCsvFormat() throws IOException {
         // Given
         exportRequest.setLogType("error");
-        IPage<ErrorLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(errorLog));
-
-        when(errorLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(errorLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(errorLog));
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
 
         // Then
         assertNotNull(result);
@@ -313,8 +320,8 @@ class LogManagementServiceTest {
         assertTrue(csvContent.contains("testuser"));
         assertTrue(csvContent.contains("NullPointerException"));
 
-        verify(errorLogRepository, times(1)).searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any());
+        verify(errorLogRepository, times(1)).streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt());
     }
 
     @Test
@@ -322,15 +329,11 @@ class LogManagementServiceTest {
     void exportLogs_WithSensitiveInfo() throws IOException {
         // Given
         exportRequest.setIncludeSensitiveInfo(true);
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(operationLog));
-
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(operationLog));
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
 
         // Then
         assertNotNull(result);
@@ -350,7 +353,7 @@ class LogManagementServiceTest {
 
         // When & Then
         assertThrows(IllegalArgumentException.class, () -> {
-            logManagementService.exportLogs(exportRequest);
+            export(exportRequest);
         });
     }
 
@@ -371,13 +374,10 @@ class LogManagementServiceTest {
         logWithComma.setStatus("SUCCESS");
         logWithComma.setCreateTime(LocalDateTime.now());
 
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(logWithComma));
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(logWithComma));
 
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
         String csvContent = new String(result);
 
         // Then
@@ -397,14 +397,11 @@ class LogManagementServiceTest {
         logWithQuotes.setStatus("SUCCESS");
         logWithQuotes.setCreateTime(LocalDateTime.now());
 
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(1L);
-        when(page.getRecords()).thenReturn(Arrays.asList(logWithQuotes));
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf(logWithQuotes));
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
         String csvContent = new String(result);
 
         // Then
@@ -415,15 +412,11 @@ class LogManagementServiceTest {
     @DisplayName("导出日志 - 空数据集")
     void exportLogs_EmptyDataSet() throws IOException {
         // Given
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(0L);
-        when(page.getRecords()).thenReturn(Arrays.asList());
-
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf());
 
         // When
-        byte[] result = logManagementService.exportLogs(exportRequest);
+        byte[] result = export(exportRequest);
 
         // Then
         assertNotNull(result);
@@ -449,19 +442,260 @@ class LogManagementServiceTest {
         exportRequest.setStartTime(LocalDateTime.now().minusDays(7));
         exportRequest.setEndTime(LocalDateTime.now());
 
-        IPage<OperationLog> page = mock(IPage.class);
-        when(page.getTotal()).thenReturn(0L);
-        when(page.getRecords()).thenReturn(Arrays.asList());
-        when(operationLogRepository.searchLogs(any(), any(), any(), any(), any(),
-                any(), any(), any(), any())).thenReturn(page);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(),
+                any(), anyInt())).thenReturn(cursorOf());
 
         // When
-        logManagementService.exportLogs(exportRequest);
+        export(exportRequest);
 
         // Then
-        verify(operationLogRepository, times(1)).searchLogs(
-                any(), eq("testuser"), eq("CREATE_USER"), any(), any(),
-                eq("127.0.0.1"), eq("SUCCESS"), any(), any()
+        verify(operationLogRepository, times(1)).streamExport(
+                eq("testuser"), eq("CREATE_USER"), any(), any(),
+                eq("127.0.0.1"), eq("SUCCESS"), eq(1000)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("导出日志 - 游标逐行读取并在结束后关闭")
+    void exportLogs_StreamsCursor() {
+        // Given
+        exportRequest.setMaxRecords(2500);
+        List<OperationLog> logs = new ArrayList<>();
+        for (long id = 2500; id > 0; id--) {
+            OperationLog log = new OperationLog();
+            log.setId(id);
+            log.setUsername("user" + id);
+            logs.add(log);
+        }
+        ListCursor<OperationLog> cursor = cursorOf(logs.toArray(new OperationLog[0]));
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(cursor);
+
+        // When
+        String csvContent = new String(export(exportRequest), StandardCharsets.UTF_8);
+
+        // Then
+        verify(operationLogRepository).streamExport(any(), any(), any(), any(), any(), any(), eq(2500));
+        assertEquals(2501, csvContent.split("\n").length);
+        assertTrue(csvContent.contains("user2500,"));
+        assertTrue(csvContent.contains("user1,"));
+        assertFalse(cursor.isOpen());
+    }
+
+    @Test
+    @DisplayName("导出日志 - NDJSON格式每行一个JSON对象")
+    void exportLogs_NdjsonFormat() {
+        // Given
+        exportRequest.setExportFormat("ndjson");
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(cursorOf(operationLog, operationLog));
+
+        // When
+        String content = new String(export(exportRequest), StandardCharsets.UTF_8);
+
+        // Then
+        String[] lines = content.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"username\":\"testuser\""));
+        assertTrue(lines[0].contains("\"operation\":\"CREATE_USER\""));
+        assertTrue(content.endsWith("}\n"));
+    }
+
+    @Test
+    @DisplayName("导出日志 - gzip压缩")
+    void exportLogs_Gzip() throws IOException {
+        // Given
+        exportRequest.setGzip(true);
+        when(operationLogRepository.streamExport(any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(cursorOf(operationLog));
+
+        // When
+        byte[] result = export(exportRequest);
+
+        // Then
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result))) {
+            String csvContent = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csvContent.startsWith("ID,用户名,操作,方法,IP,执行时长(ms),状态,创建时间\n"));
+            assertTrue(csvContent.contains("CREATE_USER"));
+        }
+    }
+
+    @Test
+    @DisplayName("导出日志 - 不支持的导出格式")
+    void exportLogs_UnsupportedFormat() {
+        // Given
+        exportRequest.setExportFormat("pdf");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> logManagementService.validateExportRequest(exportRequest));
+        verifyNoInteractions(operationLogRepository);
+    }
+
+    @Test
+    @DisplayName("查询范围跨越归档边界 - 倒序时数据库记录在前、归档记录在后")
+    void getOperationLogs_SpansArchiveBoundary() throws IOException {
+        // Given
+        LocalDateTime boundary = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LogSearchRequest request = new LogSearchRequest();
+        request.setPage(1);
+        request.setSize(3);
+        request.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        request.setEndTime(LocalDateTime.of(2024, 3, 31, 0, 0));
+        when(logArchiveStore.archiveBoundary(any())).thenReturn(boundary);
+
+        Page<OperationLog> live = new Page<>(1, 3, 2);
+        live.setRecords(Arrays.asList(operationLogWithId(3002L), operationLogWithId(3001L)));
+        when(operationLogRepository.searchLogs(any(), any(), any(), eq(boundary), any(), any(), any(), any(), any()))
+                .thenReturn(live);
+        Page<OperationLog> archived = new Page<>(1, 3, 5);
+        archived.setRecords(Arrays.asList(operationLogWithId(2005L), operationLogWithId(2004L),
+                operationLogWithId(2003L)));
+        when(logArchiveStore.search(any(), eq(OperationLog.class), any(), eq(request.getStartTime()),
+                eq(boundary.minusNanos(1)), eq(true), eq(1L), eq(3L)))
+                .thenReturn(archived);
+
+        // When
+        IPage<OperationLog> result = logManagementService.getOperationLogs(request);
+
+        // Then
+        assertEquals(7, result.getTotal());
+        assertEquals(Arrays.asList(3002L, 3001L, 2005L), ids(result.getRecords()));
+    }
+
+    @Test
+    @DisplayName("查询范围跨越归档边界 - 非创建时间排序应拒绝")
+    void getOperationLogs_SpansArchiveBoundaryWithOtherSort() throws IOException {
+        // Given
+        when(logArchiveStore.archiveBoundary(any())).thenReturn(searchRequest.getEndTime().minusDays(1));
+        searchRequest.setSortField("username");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> logManagementService.getOperationLogs(searchRequest));
+        verifyNoInteractions(operationLogRepository);
+    }
+
+    @Test
+    @DisplayName("导出范围跨越归档边界 - 数据库记录之后接上归档记录")
+    void exportLogs_IncludesArchivedMonths() throws IOException {
+        // Given
+        LocalDateTime boundary = LocalDateTime.of(2024, 3, 1, 0, 0);
+        exportRequest.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        exportRequest.setMaxRecords(3);
+        when(logArchiveStore.archiveBoundary(any())).thenReturn(boundary);
+        ListCursor<OperationLog> cursor = cursorOf(operationLogWithId(3002L), operationLogWithId(3001L));
+        when(operationLogRepository.streamExport(any(), any(), eq(boundary), any(), any(), any(), eq(3)))
+                .thenReturn(cursor);
+        when(logArchiveStore.latest(any(), eq(OperationLog.class), any(), eq(exportRequest.getStartTime()),
+                eq(boundary.minusNanos(1)), eq(1)))
+                .thenReturn(Arrays.asList(operationLogWithId(2005L)));
+
+        // When
+        String csvContent = new String(export(exportRequest), StandardCharsets.UTF_8);
+
+        // Then
+        String[] lines = csvContent.split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].startsWith("3002,"));
+        assertTrue(lines[2].startsWith("3001,"));
+        assertTrue(lines[3].startsWith("2005,"));
+        assertFalse(cursor.isOpen());
+    }
+
+    @Test
+    @DisplayName("导出范围全部在归档中 - 不查询数据库")
+    void exportLogs_ArchivedRangeOnly() throws IOException {
+        // Given
+        exportRequest.setEndTime(LocalDateTime.of(2024, 1, 31, 0, 0));
+        when(logArchiveStore.archiveBoundary(any())).thenReturn(LocalDateTime.of(2024, 3, 1, 0, 0));
+        when(logArchiveStore.latest(any(), eq(OperationLog.class), any(), isNull(),
+                eq(exportRequest.getEndTime()), eq(1000)))
+                .thenReturn(Arrays.asList(operationLogWithId(1002L), operationLogWithId(1001L)));
+
+        // When
+        String csvContent = new String(export(exportRequest), StandardCharsets.UTF_8);
+
+        // Then
+        assertEquals(3, csvContent.split("\n").length);
+        verifyNoInteractions(operationLogRepository);
+    }
+
+    private static OperationLog operationLogWithId(Long id) {
+        OperationLog log = new OperationLog();
+        log.setId(id);
+        log.setUsername("user" + id);
+        log.setStatus("SUCCESS");
+        return log;
+    }
+
+    private static List<Long> ids(List<OperationLog> logs) {
+        List<Long> ids = new ArrayList<>();
+        logs.forEach(log -> ids.add(log.getId()));
+        return ids;
+    }
+
+    private byte[] export(LogExportRequest request) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            logManagementService.exportLogs(request, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @SafeVarargs
+    private static <T> ListCursor<T> cursorOf(T... rows) {
+        return new ListCursor<>(Arrays.asList(rows));
+    }
+
+    /**
+     * 基于列表的游标
+     */
+    private static class ListCursor<T> implements Cursor<T> {
+
+        private final List<T> rows;
+        private boolean open = true;
+        private int index = -1;
+
+        ListCursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return index == rows.size() - 1;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return index;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            Iterator<T> iterator = rows.iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    index++;
+                    return iterator.next();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
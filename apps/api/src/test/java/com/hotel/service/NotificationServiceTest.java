@@ -0,0 +1,132 @@
+package com.hotel.service;
+
+import com.hotel.dto.notification.NotificationResponse;
+import com.hotel.entity.Notification;
+import com.hotel.repository.NotificationRepository;
+import com.hotel.service.notification.NotificationOutboxService;
+import com.hotel.service.notification.NotificationUnreadCounter;
+import com.hotel.service.push.PushService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("通知服务测试")
+class NotificationServiceTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationOutboxService outboxService;
+
+    @Mock
+    private NotificationUnreadCounter unreadCounter;
+
+    @Mock
+    private PushService pushService;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    @DisplayName("新建通知应增加未读数")
+    void shouldIncrementUnreadOnCreate() {
+        notificationService.createNotification(USER_ID, "标题", "内容", "INFO", "ORDER", null);
+
+        verify(notificationRepository).insert(any(Notification.class));
+        verify(unreadCounter).add(USER_ID, 1);
+        verify(pushService).publishToUser(eq(USER_ID), eq(PushService.TYPE_NOTIFICATION_CREATED),
+                any(NotificationResponse.class));
+    }
+
+    @Test
+    @DisplayName("全部标记已读应执行一条批量更新并按更新行数扣减未读数")
+    void shouldMarkAllAsReadWithSingleUpdate() {
+        when(notificationRepository.markAllReadByUserId(USER_ID)).thenReturn(12);
+
+        assertTrue(notificationService.markAllAsRead(USER_ID));
+
+        verify(notificationRepository, never()).findUnreadByUserId(anyLong());
+        verify(notificationRepository, never()).updateById(any(Notification.class));
+        verify(unreadCounter).add(USER_ID, -12);
+        verify(pushService).publishToUser(eq(USER_ID), eq(PushService.TYPE_NOTIFICATION_READ), any());
+    }
+
+    @Test
+    @DisplayName("标记未读通知为已读应扣减未读数")
+    void shouldDecrementUnreadOnMarkAsRead() {
+        when(notificationRepository.markReadById(1L, USER_ID)).thenReturn(1);
+
+        assertTrue(notificationService.markAsRead(1L, USER_ID));
+
+        verify(unreadCounter).add(USER_ID, -1);
+        verify(notificationRepository, never()).selectById(anyLong());
+    }
+
+    @Test
+    @DisplayName("重复标记已读不应重复扣减未读数")
+    void shouldNotDecrementWhenAlreadyRead() {
+        when(notificationRepository.markReadById(1L, USER_ID)).thenReturn(0);
+        when(notificationRepository.selectById(1L)).thenReturn(notification(1L, USER_ID, true));
+
+        assertTrue(notificationService.markAsRead(1L, USER_ID));
+
+        verify(unreadCounter, never()).add(anyLong(), anyLong());
+        verifyNoInteractions(pushService);
+    }
+
+    @Test
+    @DisplayName("标记其他用户的通知应返回失败")
+    void shouldRejectMarkAsReadForOtherUser() {
+        when(notificationRepository.markReadById(1L, USER_ID)).thenReturn(0);
+        when(notificationRepository.selectById(1L)).thenReturn(notification(1L, 99L, false));
+
+        assertFalse(notificationService.markAsRead(1L, USER_ID));
+
+        verify(unreadCounter, never()).add(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("删除未读通知应扣减未读数，删除已读通知不扣减")
+    void shouldDecrementUnreadOnlyWhenDeletingUnread() {
+        when(notificationRepository.selectById(1L)).thenReturn(notification(1L, USER_ID, false));
+        when(notificationRepository.deleteUnreadById(1L, USER_ID)).thenReturn(1);
+        when(notificationRepository.selectById(2L)).thenReturn(notification(2L, USER_ID, true));
+        when(notificationRepository.deleteById(2L)).thenReturn(1);
+
+        assertTrue(notificationService.deleteNotification(1L, USER_ID));
+        assertTrue(notificationService.deleteNotification(2L, USER_ID));
+
+        verify(unreadCounter, times(1)).add(USER_ID, -1);
+        verify(notificationRepository, never()).deleteUnreadById(eq(2L), anyLong());
+    }
+
+    @Test
+    @DisplayName("未读数应读取计数而不查询数据库")
+    void shouldReadUnreadCountFromCounter() {
+        when(unreadCounter.get(USER_ID)).thenReturn(5);
+
+        assertEquals(5, notificationService.countUnreadByUserId(USER_ID));
+
+        verify(notificationRepository, never()).selectCount(any());
+        verify(notificationRepository, never()).countUnreadByUserId(anyLong());
+    }
+
+    private static Notification notification(Long id, Long userId, boolean read) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId(userId);
+        notification.setIsRead(read);
+        return notification;
+    }
+}
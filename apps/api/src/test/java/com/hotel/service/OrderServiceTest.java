@@ -89,7 +89,7 @@ class OrderServiceTest {
             when(roomRepository.selectById(1L)).thenReturn(mockRoom);
             when(hotelRepository.selectById(1L)).thenReturn(mockHotel);
             when(userRepository.selectById(1L)).thenReturn(mockUser);
-            when(orderRepository.findConflictingOrders(anyLong(), any(), any(), anyString()))
+            when(orderRepository.findConflictingOrders(anyLong(), any(), any()))
                     .thenReturn(Collections.emptyList());
             when(orderRepository.countTodayOrders(anyString())).thenReturn(0);
 
@@ -133,7 +133,7 @@ class OrderServiceTest {
             conflictingOrder.setId(1L);
             List<Order> conflictingOrders = Arrays.asList(conflictingOrder);
 
-            when(orderRepository.findConflictingOrders(anyLong(), any(), any(), anyString()))
+            when(orderRepository.findConflictingOrders(anyLong(), any(), any()))
                     .thenReturn(conflictingOrders);
 
             assertThrows(RuntimeException.class, () -> orderService.createOrder(validRequest));
@@ -199,7 +199,7 @@ class OrderServiceTest {
             when(roomRepository.selectById(1L)).thenReturn(mockRoom);
             when(hotelRepository.selectById(1L)).thenReturn(mockHotel);
             when(userRepository.selectById(1L)).thenReturn(mockUser);
-            when(orderRepository.findConflictingOrders(anyLong(), any(), any(), anyString()))
+            when(orderRepository.findConflictingOrders(anyLong(), any(), any()))
                     .thenReturn(Collections.emptyList());
             when(orderRepository.countTodayOrders(anyString())).thenReturn(0);
 
@@ -1,5 +1,6 @@
 package com.hotel.service;
 
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotel.dto.room.RoomSearchRequestDto;
 import com.hotel.dto.room.RoomSearchResultDto;
 import com.hotel.entity.Room;
@@ -9,6 +10,7 @@ import com.hotel.exception.BusinessException;
 import com.hotel.repository.RoomRepository;
 import com.hotel.repository.RoomTypeRepository;
 import com.hotel.repository.HotelRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -17,9 +19,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
@@ -53,6 +52,9 @@ class RoomServiceTest {
     @Mock
     private PricingService pricingService;
 
+    @Mock
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
     @InjectMocks
     private RoomService roomService;
 
@@ -104,6 +106,9 @@ class RoomServiceTest {
 
         // 使用反射设置测试用的hotelId
         ReflectionTestUtils.setField(roomService, "currentHotelId", 1L);
+
+        // 默认索引未覆盖请求日期，搜索走数据库查询
+        lenient().when(roomAvailabilityIndex.covers(any(), any())).thenReturn(false);
     }
 
     @Nested
@@ -114,15 +119,15 @@ class RoomServiceTest {
         @DisplayName("应该成功返回可用房间列表")
         void shouldReturnAvailableRooms_WhenValidRequest() {
             // Given
-            Page<Room> roomPage = new PageImpl<>(Arrays.asList(testRoom));
+            Page<Room> roomPage = pageOf(Arrays.asList(testRoom));
             when(roomRepository.searchAvailableRooms(any(Page.class), eq(searchRequest)))
                     .thenReturn(roomPage);
-            when(roomTypeRepository.selectById(testRoom.getRoomTypeId()))
-                    .thenReturn(testRoomType);
-            when(hotelRepository.selectById(testRoom.getHotelId()))
-                    .thenReturn(testHotel);
-            when(pricingService.calculateTotalPrice(anyLong(), any(), any(), anyInt()))
-                    .thenReturn(new BigDecimal("299.00"));
+            when(roomTypeRepository.selectBatchIds(anyList()))
+                    .thenReturn(Arrays.asList(testRoomType));
+            when(hotelRepository.selectBatchIds(anyList()))
+                    .thenReturn(Arrays.asList(testHotel));
+            when(pricingService.calculateTotalPrices(anyList(), anyMap(), any(), any()))
+                    .thenReturn(Collections.singletonMap(testRoom.getId(), new BigDecimal("299.00")));
 
             // When
             RoomSearchResultDto result = roomService.searchAvailableRooms(searchRequest);
@@ -136,16 +141,78 @@ class RoomServiceTest {
             assertEquals(1, result.getTotalPages());
 
             verify(roomRepository).searchAvailableRooms(any(Page.class), eq(searchRequest));
-            verify(roomTypeRepository).selectById(testRoom.getRoomTypeId());
-            verify(hotelRepository).selectById(testRoom.getHotelId());
-            verify(pricingService).calculateTotalPrice(anyLong(), any(), any(), anyInt());
+            verify(roomRepository, never()).searchAvailableRoomsByIds(any(), any(), anyList());
+            verify(roomAvailabilityIndex, never()).findAvailableRoomIds(any(), any(), any(), any());
+            verify(roomTypeRepository).selectBatchIds(Arrays.asList(testRoom.getRoomTypeId()));
+            verify(hotelRepository).selectBatchIds(Arrays.asList(testRoom.getHotelId()));
+            verify(pricingService).calculateTotalPrices(anyList(), anyMap(), any(), any());
+        }
+
+        @Test
+        @DisplayName("索引覆盖日期时应按候选ID查询并批量组装结果")
+        void shouldSearchByCandidateIds_WhenIndexCoversDates() {
+            // Given
+            Room otherRoom = new Room();
+            otherRoom.setId(2L);
+            otherRoom.setHotelId(1L);
+            otherRoom.setRoomTypeId(1L);
+            otherRoom.setRoomNumber("102");
+            otherRoom.setStatus(Room.RoomStatus.AVAILABLE);
+            List<Long> candidateIds = Arrays.asList(1L, 2L);
+
+            when(roomAvailabilityIndex.covers(searchRequest.getCheckInDate(), searchRequest.getCheckOutDate()))
+                    .thenReturn(true);
+            when(roomAvailabilityIndex.findAvailableRoomIds(1L, 1L,
+                    searchRequest.getCheckInDate(), searchRequest.getCheckOutDate()))
+                    .thenReturn(candidateIds);
+            when(roomRepository.searchAvailableRoomsByIds(any(Page.class), eq(searchRequest), eq(candidateIds)))
+                    .thenReturn(pageOf(Arrays.asList(testRoom, otherRoom)));
+            when(roomTypeRepository.selectBatchIds(anyList())).thenReturn(Arrays.asList(testRoomType));
+            when(hotelRepository.selectBatchIds(anyList())).thenReturn(Arrays.asList(testHotel));
+            when(pricingService.calculateTotalPrices(anyList(), anyMap(), any(), any()))
+                    .thenReturn(Collections.singletonMap(testRoom.getId(), new BigDecimal("299.00")));
+
+            // When
+            RoomSearchResultDto result = roomService.searchAvailableRooms(searchRequest);
+
+            // Then
+            assertEquals(2, result.getRooms().size());
+            assertEquals(2, result.getTotal());
+
+            verify(roomRepository, never()).searchAvailableRooms(any(), any());
+            verify(roomTypeRepository, times(1)).selectBatchIds(Arrays.asList(1L));
+            verify(hotelRepository, times(1)).selectBatchIds(Arrays.asList(1L));
+            verify(pricingService, times(1)).calculateTotalPrices(anyList(), anyMap(),
+                    eq(searchRequest.getCheckInDate()), eq(searchRequest.getCheckOutDate()));
+        }
+
+        @Test
+        @DisplayName("索引判定无可用房间时不应访问数据库")
+        void shouldSkipDatabase_WhenIndexFindsNoCandidates() {
+            // Given
+            when(roomAvailabilityIndex.covers(searchRequest.getCheckInDate(), searchRequest.getCheckOutDate()))
+                    .thenReturn(true);
+            when(roomAvailabilityIndex.findAvailableRoomIds(any(), any(), any(), any()))
+                    .thenReturn(Collections.emptyList());
+
+            // When
+            RoomSearchResultDto result = roomService.searchAvailableRooms(searchRequest);
+
+            // Then
+            assertTrue(result.getRooms().isEmpty());
+            assertEquals(0, result.getTotal());
+
+            verify(roomRepository, never()).searchAvailableRooms(any(), any());
+            verify(roomRepository, never()).searchAvailableRoomsByIds(any(), any(), anyList());
+            verify(roomTypeRepository, never()).selectBatchIds(anyList());
+            verify(pricingService, never()).calculateTotalPrices(anyList(), anyMap(), any(), any());
         }
 
         @Test
         @DisplayName("应该返回空结果当没有可用房间时")
         void shouldReturnEmptyResult_WhenNoRoomsAvailable() {
             // Given
-            Page<Room> emptyPage = new PageImpl<>(Collections.emptyList());
+            Page<Room> emptyPage = pageOf(Collections.emptyList());
             when(roomRepository.searchAvailableRooms(any(Page.class), eq(searchRequest)))
                     .thenReturn(emptyPage);
 
@@ -191,7 +258,7 @@ class RoomServiceTest {
         void shouldUseDefaultSort_WhenInvalidSortField() {
             // Given
             searchRequest.setSortBy("INVALID_FIELD");
-            Page<Room> roomPage = new PageImpl<>(Arrays.asList(testRoom));
+            Page<Room> roomPage = pageOf(Arrays.asList(testRoom));
             when(roomRepository.searchAvailableRooms(any(Page.class), any(RoomSearchRequestDto.class)))
                     .thenReturn(roomPage);
 
@@ -278,7 +345,7 @@ class RoomServiceTest {
             // Given
             searchRequest.setGuestCount(10); // 设置一个很大的值
 
-            Page<Room> roomPage = new PageImpl<>(Collections.emptyList());
+            Page<Room> roomPage = pageOf(Collections.emptyList());
             when(roomRepository.searchAvailableRooms(any(Page.class), eq(searchRequest)))
                     .thenReturn(roomPage);
 
@@ -293,7 +360,7 @@ class RoomServiceTest {
             searchRequest.setPriceMin(BigDecimal.ZERO);
             searchRequest.setPriceMax(BigDecimal.valueOf(999999));
 
-            Page<Room> roomPage = new PageImpl<>(Arrays.asList(testRoom));
+            Page<Room> roomPage = pageOf(Arrays.asList(testRoom));
             when(roomRepository.searchAvailableRooms(any(Page.class), eq(searchRequest)))
                     .thenReturn(roomPage);
 
@@ -308,7 +375,7 @@ class RoomServiceTest {
             searchRequest.setCheckInDate(LocalDate.now());
             searchRequest.setCheckOutDate(LocalDate.now().plusDays(1));
 
-            Page<Room> roomPage = new PageImpl<>(Arrays.asList(testRoom));
+            Page<Room> roomPage = pageOf(Arrays.asList(testRoom));
             when(roomRepository.searchAvailableRooms(any(Page.class), eq(searchRequest)))
                     .thenReturn(roomPage);
 
@@ -325,15 +392,15 @@ class RoomServiceTest {
         @DisplayName("应该处理大量搜索结果")
         void shouldHandleLargeResultSet() {
             // Given
-            List<Room> rooms = Collections.nCopies(100, testRoom);
-            Page<Room> roomPage = new PageImpl<>(rooms, PageRequest.of(0, 20), 100);
+            List<Room> rooms = Collections.nCopies(20, testRoom);
+            Page<Room> roomPage = pageOf(rooms, 100);
 
             when(roomRepository.searchAvailableRooms(any(Page.class), eq(searchRequest)))
                     .thenReturn(roomPage);
-            when(roomTypeRepository.selectById(anyLong())).thenReturn(testRoomType);
-            when(hotelRepository.selectById(anyLong())).thenReturn(testHotel);
-            when(pricingService.calculateTotalPrice(anyLong(), any(), any(), anyInt()))
-                    .thenReturn(new BigDecimal("299.00"));
+            when(roomTypeRepository.selectBatchIds(anyList())).thenReturn(Arrays.asList(testRoomType));
+            when(hotelRepository.selectBatchIds(anyList())).thenReturn(Arrays.asList(testHotel));
+            when(pricingService.calculateTotalPrices(anyList(), anyMap(), any(), any()))
+                    .thenReturn(Collections.singletonMap(testRoom.getId(), new BigDecimal("299.00")));
 
             // When
             long startTime = System.currentTimeMillis();
@@ -345,6 +412,24 @@ class RoomServiceTest {
             assertEquals(20, result.getRooms().size()); // 分页结果
             assertEquals(100, result.getTotal()); // 总数
             assertTrue(endTime - startTime < 1000); // 应该在1秒内完成
+
+            // 关联数据按批加载，查询次数不随结果数量增长
+            verify(roomTypeRepository, times(1)).selectBatchIds(anyList());
+            verify(hotelRepository, times(1)).selectBatchIds(anyList());
+            verify(pricingService, times(1)).calculateTotalPrices(anyList(), anyMap(), any(), any());
+            verify(roomTypeRepository, never()).selectById(any());
+            verify(hotelRepository, never()).selectById(any());
+            verify(roomAvailabilityIndex, never()).findAvailableRoomIds(any(), any(), any(), any());
         }
     }
+
+    private Page<Room> pageOf(List<Room> records) {
+        return pageOf(records, records.size());
+    }
+
+    private Page<Room> pageOf(List<Room> records, long total) {
+        Page<Room> page = new Page<>(0, 20, total);
+        page.setRecords(records);
+        return page;
+    }
 }
\ No newline at end of file
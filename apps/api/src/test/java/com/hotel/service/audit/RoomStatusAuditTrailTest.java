@@ -0,0 +1,107 @@
+package com.hotel.service.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("房间状态审计记录测试")
+class RoomStatusAuditTrailTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private RoomStatusAuditTrail auditTrail;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().when(stringRedisTemplate.<Object, Object>opsForStream()).thenReturn(streamOperations);
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        // 管道回调直接作用在模板上
+        lenient().when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(stringRedisTemplate);
+            return Collections.emptyList();
+        });
+        auditTrail = new RoomStatusAuditTrail(stringRedisTemplate);
+    }
+
+    @Test
+    @DisplayName("记录事件应写入用户和房间的 Stream 并计入用户的滑动窗口")
+    void shouldAppendToUserAndRoomStreams() {
+        auditTrail.record("ROOM_STATUS_CHANGE_ATTEMPT", 7L, 101L, "AVAILABLE -> CLEANING", true);
+
+        verify(streamOperations).add(argThat(record -> "audit:room_status:user:7".equals(record.getStream())));
+        verify(streamOperations).add(argThat(record -> "audit:room_status:room:101".equals(record.getStream())));
+        verify(streamOperations).trim("audit:room_status:user:7", 1000, true);
+        verify(streamOperations).trim("audit:room_status:room:101", 500, true);
+        verify(zSetOperations).add(eq("audit:room_status:window:7"), anyString(), anyDouble());
+        verify(zSetOperations).removeRangeByScore(eq("audit:room_status:window:7"), eq(0.0), anyDouble());
+        verify(stringRedisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    @DisplayName("不计入窗口且没有房间的事件只写用户 Stream")
+    void shouldSkipWindowAndRoomStream() {
+        auditTrail.record("SUSPICIOUS_ACTIVITY", 7L, null, "Too many operations", false);
+
+        verify(streamOperations, times(1)).add(any(MapRecord.class));
+        verify(streamOperations).trim("audit:room_status:user:7", 1000, true);
+        verifyNoInteractions(zSetOperations);
+    }
+
+    @Test
+    @DisplayName("滑动窗口计数应使用 ZCOUNT 查询当前用户的有序集合")
+    void shouldCountRecentOperationsWithZCount() {
+        when(zSetOperations.count(eq("audit:room_status:window:7"), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(21L);
+
+        long count = auditTrail.countRecentOperations(7L, Duration.ofHours(1));
+
+        assertEquals(21L, count);
+        assertThrows(IllegalArgumentException.class, () -> auditTrail.countRecentOperations(7L, Duration.ofDays(2)));
+    }
+
+    @Test
+    @DisplayName("最近事件应按 Stream 倒序读取并转换为 JSON")
+    void shouldReadRecentEventsAsJson() {
+        MapRecord<String, Object, Object> record = StreamRecords.newRecord()
+                .in("audit:room_status:room:101")
+                .withId(RecordId.of("1700000000000-0"))
+                .ofMap(Map.<Object, Object>of("eventType", "ROOM_STATUS_CHANGE_ATTEMPT"));
+        when(streamOperations.reverseRange(eq("audit:room_status:room:101"), any(), any()))
+                .thenReturn(List.of(record));
+
+        List<String> events = auditTrail.recentRoomEvents(101L, 10);
+
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).contains("\"id\":\"1700000000000-0\""));
+        assertTrue(events.get(0).contains("\"eventType\":\"ROOM_STATUS_CHANGE_ATTEMPT\""));
+        assertTrue(auditTrail.recentUserEvents(7L, 0).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.hotel.service.availability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("订单区间树测试")
+class OrderIntervalTreeTest {
+
+    @Test
+    @DisplayName("退房当天不应算作重叠")
+    void shouldTreatCheckOutDayAsFree() {
+        OrderIntervalTree tree = OrderIntervalTree.EMPTY
+                .insert(11L, 2, 5)
+                .insert(12L, 8, 10);
+
+        assertFalse(tree.overlaps(5, 8));
+        assertFalse(tree.overlaps(0, 2));
+        assertTrue(tree.overlaps(9, 11));
+        assertEquals(Arrays.asList(11L, 12L), tree.overlapping(4, 9));
+    }
+
+    @Test
+    @DisplayName("重复插入同一订单不应产生重复节点")
+    void shouldBeIdempotentForRepeatedInsert() {
+        OrderIntervalTree tree = OrderIntervalTree.EMPTY
+                .insert(14L, 6, 7)
+                .insert(14L, 6, 7);
+
+        assertEquals(1, tree.size());
+        assertEquals(Arrays.asList(14L), tree.overlapping(6, 7));
+    }
+
+    @Test
+    @DisplayName("区间树查询结果应与逐条比较一致")
+    void shouldMatchBruteForce() {
+        Random random = new Random(42);
+        OrderIntervalTree tree = OrderIntervalTree.EMPTY;
+        Map<Long, long[]> expected = new HashMap<>();
+
+        for (int i = 0; i < 2000; i++) {
+            long orderId = random.nextInt(200);
+            long[] existing = expected.remove(orderId);
+            if (existing != null) {
+                tree = tree.remove(orderId, existing[0]);
+            }
+            if (random.nextInt(4) > 0) {
+                long start = random.nextInt(365);
+                long end = start + 1 + random.nextInt(14);
+                tree = tree.insert(orderId, start, end);
+                expected.put(orderId, new long[]{start, end});
+            }
+
+            long queryStart = random.nextInt(380);
+            long queryEnd = queryStart + 1 + random.nextInt(14);
+            Set<Long> overlapping = new HashSet<>();
+            for (Map.Entry<Long, long[]> entry : expected.entrySet()) {
+                if (entry.getValue()[0] < queryEnd && entry.getValue()[1] > queryStart) {
+                    overlapping.add(entry.getKey());
+                }
+            }
+
+            List<Long> actual = new ArrayList<>(tree.overlapping(queryStart, queryEnd));
+            assertEquals(overlapping, new HashSet<>(actual));
+            assertEquals(!overlapping.isEmpty(), tree.overlaps(queryStart, queryEnd));
+            assertEquals(expected.size(), tree.size());
+        }
+    }
+}
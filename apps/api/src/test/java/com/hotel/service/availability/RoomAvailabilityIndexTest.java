@@ -0,0 +1,210 @@
+package com.hotel.service.availability;
+
+import com.hotel.entity.Order;
+import com.hotel.entity.Room;
+import com.hotel.repository.OrderRepository;
+import com.hotel.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("房间占用索引测试")
+class RoomAvailabilityIndexTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @InjectMocks
+    private RoomAvailabilityIndex index;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "horizonDays", 365);
+
+        when(roomRepository.selectList(any())).thenReturn(Arrays.asList(
+                room(1L, 10L, 100L),
+                room(2L, 10L, 100L),
+                room(3L, 20L, 200L)
+        ));
+        when(orderRepository.findOccupyingOrders(isNull(), eq(today), any())).thenReturn(Arrays.asList(
+                order(11L, 1L, today.plusDays(2), today.plusDays(5)),
+                order(31L, 3L, today.plusDays(60), today.plusDays(70)),
+                order(32L, 3L, today.plusDays(400), today.plusDays(402))
+        ));
+
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("应该排除日期区间有重叠的房间")
+    void shouldExcludeOverlappingRooms() {
+        List<Long> ids = index.findAvailableRoomIds(null, null, today.plusDays(4), today.plusDays(6));
+
+        assertFalse(ids.contains(1L));
+        assertTrue(ids.contains(2L));
+        assertTrue(ids.contains(3L));
+    }
+
+    @Test
+    @DisplayName("退房当天应该可以再次入住")
+    void shouldTreatCheckOutDayAsFree() {
+        assertTrue(index.isAvailable(1L, today.plusDays(5), today.plusDays(7)));
+        assertTrue(index.isAvailable(1L, today, today.plusDays(2)));
+        assertFalse(index.isAvailable(1L, today.plusDays(1), today.plusDays(3)));
+    }
+
+    @Test
+    @DisplayName("应该处理跨越64天字边界的区间")
+    void shouldHandleRangesAcrossWordBoundary() {
+        assertFalse(index.isAvailable(3L, today.plusDays(50), today.plusDays(65)));
+        assertTrue(index.isAvailable(3L, today.plusDays(70), today.plusDays(130)));
+    }
+
+    @Test
+    @DisplayName("应该按酒店和房型过滤")
+    void shouldFilterByHotelAndRoomType() {
+        List<Long> ids = index.findAvailableRoomIds(10L, 100L, today, today.plusDays(1));
+
+        assertEquals(2, ids.size());
+        assertFalse(ids.contains(3L));
+    }
+
+    @Test
+    @DisplayName("新订单确认后应该立即标记占用")
+    void shouldMarkConfirmedOrder() {
+        index.onOrderConfirmed(order(21L, 2L, today.plusDays(10), today.plusDays(12)));
+
+        assertFalse(index.isAvailable(2L, today.plusDays(11), today.plusDays(13)));
+    }
+
+    @Test
+    @DisplayName("应该列出冲突订单且不受窗口限制")
+    void shouldFindConflictingOrdersBeyondHorizon() {
+        assertEquals(Arrays.asList(11L), index.findConflictingOrderIds(1L, today, today.plusDays(30)));
+        assertTrue(index.hasConflict(3L, today.plusDays(401), today.plusDays(403)));
+        assertFalse(index.hasConflict(3L, today.plusDays(402), today.plusDays(403)));
+        assertFalse(index.covers(today.plusDays(401), today.plusDays(403)));
+    }
+
+    @Test
+    @DisplayName("重复确认同一订单不应产生重复结果")
+    void shouldBeIdempotentForRepeatedConfirm() {
+        Order created = order(22L, 2L, today.plusDays(6), today.plusDays(7));
+        index.onOrderConfirmed(created);
+        index.onOrderConfirmed(created);
+
+        assertEquals(Arrays.asList(22L), index.findConflictingOrderIds(2L, today.plusDays(6), today.plusDays(7)));
+    }
+
+    @Test
+    @DisplayName("收到其他节点的变更通知应该重新加载房间")
+    void shouldReloadRoomOnRemoteChange() {
+        when(roomRepository.selectById(2L)).thenReturn(room(2L, 10L, 100L));
+        when(orderRepository.findOccupyingOrders(eq(2L), eq(today), any())).thenReturn(Collections.singletonList(
+                order(23L, 2L, today.plusDays(3), today.plusDays(4))));
+
+        index.onMessage(message("other-node|2"), null);
+
+        assertFalse(index.isAvailable(2L, today.plusDays(3), today.plusDays(4)));
+        assertTrue(index.hasConflict(2L, today.plusDays(3), today.plusDays(4)));
+    }
+
+    @Test
+    @DisplayName("应该忽略本节点发布的变更通知")
+    void shouldIgnoreOwnChangeNotification() {
+        index.onOrderConfirmed(order(24L, 2L, today.plusDays(10), today.plusDays(12)));
+
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(stringRedisTemplate).convertAndSend(any(), published.capture());
+        index.onMessage(message((String) published.getValue()), null);
+
+        verify(roomRepository, never()).selectById(any());
+    }
+
+    @Test
+    @DisplayName("订单取消后应该从数据库重新加载房间占用")
+    void shouldReloadRoomOnRelease() {
+        when(orderRepository.findOccupyingOrders(eq(1L), eq(today), any())).thenReturn(Collections.emptyList());
+
+        index.onOrderReleased(1L);
+
+        assertTrue(index.isAvailable(1L, today.plusDays(2), today.plusDays(5)));
+    }
+
+    @Test
+    @DisplayName("重建期间到达的变更只在新快照上重放")
+    void shouldReplayChangesArrivingDuringRebuild() {
+        ReflectionTestUtils.setField(index, "rebuilding", true);
+        index.onOrderConfirmed(order(21L, 2L, today.plusDays(10), today.plusDays(12)));
+
+        assertTrue(index.isAvailable(2L, today.plusDays(10), today.plusDays(12)));
+
+        ReflectionTestUtils.setField(index, "rebuilding", false);
+        index.rebuild();
+
+        assertFalse(index.isAvailable(2L, today.plusDays(10), today.plusDays(12)));
+    }
+
+    @Test
+    @DisplayName("超出窗口的日期范围不应由索引回答")
+    void shouldNotCoverRangeBeyondHorizon() {
+        assertTrue(index.covers(today, today.plusDays(365)));
+        assertFalse(index.covers(today, today.plusDays(366)));
+        assertFalse(index.covers(today.minusDays(1), today.plusDays(1)));
+    }
+
+    private Room room(Long id, Long hotelId, Long roomTypeId) {
+        Room room = new Room();
+        room.setId(id);
+        room.setHotelId(hotelId);
+        room.setRoomTypeId(roomTypeId);
+        return room;
+    }
+
+    private Order order(Long id, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        Order order = new Order();
+        order.setId(id);
+        order.setRoomId(roomId);
+        order.setCheckInDate(checkIn);
+        order.setCheckOutDate(checkOut);
+        return order;
+    }
+
+    private Message message(String body) {
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return message;
+    }
+}
@@ -0,0 +1,337 @@
+package com.hotel.service.booking;
+
+import com.hotel.entity.Order;
+import com.hotel.entity.Room;
+import com.hotel.repository.OrderRepository;
+import com.hotel.repository.RoomRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("分片预订准入服务测试")
+class BookingAdmissionServiceTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    private BookingAdmissionService admissionService;
+
+    private final LocalDate today = LocalDate.now();
+
+    private final AtomicLong orderIds = new AtomicLong();
+
+    /**
+     * 模拟订单表，按房间存放已提交订单
+     */
+    private final Map<Long, List<Order>> persisted = new ConcurrentHashMap<>();
+
+    /**
+     * 访问订单表的线程名
+     */
+    private final Set<String> queryThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        persist(order(1L, today.plusDays(2), today.plusDays(5)));
+
+        when(roomRepository.selectList(any())).thenReturn(LongStream.rangeClosed(1, 10)
+                .mapToObj(this::room)
+                .collect(Collectors.toList()));
+        lenient().when(roomRepository.selectById(any())).thenAnswer(inv -> room(inv.<Long>getArgument(0)));
+        when(orderRepository.findOccupyingOrders(any(), any(), any())).thenAnswer(inv -> {
+            Long roomId = inv.getArgument(0);
+            queryThreads.add(Thread.currentThread().getName());
+            List<Order> orders = new ArrayList<>();
+            persisted.forEach((id, roomOrders) -> {
+                if (roomId == null || roomId.equals(id)) {
+                    synchronized (roomOrders) {
+                        orders.addAll(roomOrders);
+                    }
+                }
+            });
+            return orders;
+        });
+
+        roomAvailabilityIndex = new RoomAvailabilityIndex(roomRepository, orderRepository, stringRedisTemplate, listenerContainer);
+        roomAvailabilityIndex.rebuild();
+
+        admissionService = new BookingAdmissionService(roomAvailabilityIndex);
+        ReflectionTestUtils.setField(admissionService, "shardCount", 4);
+        admissionService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        admissionService.stop();
+    }
+
+    @Test
+    @DisplayName("应该拒绝与已有订单重叠的预订")
+    void shouldRejectOverlappingBooking() {
+        assertFalse(admissionService.tryAdmit(1L, today.plusDays(4), today.plusDays(6)));
+        assertFalse(admissionService.isAvailable(1L, today.plusDays(1), today.plusDays(3)));
+    }
+
+    @Test
+    @DisplayName("退房当天应该可以再次入住")
+    void shouldTreatCheckOutDayAsFree() {
+        assertFalse(admitInTransaction(1L, today.plusDays(5), today.plusDays(7)).isEmpty());
+        assertFalse(admitInTransaction(1L, today, today.plusDays(2)).isEmpty());
+        assertFalse(admissionService.isAvailable(1L, today.plusDays(6), today.plusDays(8)));
+    }
+
+    @Test
+    @DisplayName("订单取消后应该可以再次预订")
+    void shouldAdmitAfterCancellation() {
+        commit(admitInTransaction(2L, today.plusDays(10), today.plusDays(12)), order(2L, today.plusDays(10), today.plusDays(12)));
+        assertFalse(admissionService.tryAdmit(2L, today.plusDays(11), today.plusDays(13)));
+
+        persisted.remove(2L);
+        roomAvailabilityIndex.onOrderReleased(2L);
+
+        assertTrue(admissionService.tryAdmit(2L, today.plusDays(11), today.plusDays(13)));
+    }
+
+    @Test
+    @DisplayName("未冲突时应直接读取占用索引，不访问数据库")
+    void shouldNotQueryDatabaseWithoutConflict() {
+        clearInvocations(orderRepository);
+
+        assertTrue(admissionService.isAvailable(3L, today, today.plusDays(1)));
+        assertTrue(admissionService.tryAdmit(3L, today, today.plusDays(1)));
+
+        verify(orderRepository, never()).findOccupyingOrders(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("判定重叠时应从数据库重新加载，其他节点已取消的订单不应阻塞预订")
+    void shouldReloadFromDatabaseBeforeRejecting() {
+        assertFalse(admissionService.isAvailable(1L, today.plusDays(3), today.plusDays(4)));
+
+        // 订单在其他节点取消，本节点尚未收到变更通知
+        persisted.remove(1L);
+        clearInvocations(orderRepository);
+
+        assertTrue(admissionService.tryAdmit(1L, today.plusDays(3), today.plusDays(4)));
+        verify(orderRepository, times(1)).findOccupyingOrders(eq(1L), any(), any());
+        // 重载在调用线程上完成，分片写线程不访问数据库
+        assertTrue(queryThreads.stream().noneMatch(name -> name.startsWith("booking-admission-")));
+    }
+
+    @Test
+    @DisplayName("分片处理超过等待时间时调用方失败，写线程随后不应留下占位")
+    void shouldNotLeakHoldWhenShardIsSlowerThanTimeout() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RoomAvailabilityIndex slowIndex = spy(roomAvailabilityIndex);
+        doAnswer(inv -> {
+            if (Thread.currentThread().getName().startsWith("booking-admission-")) {
+                entered.countDown();
+                release.await();
+            }
+            return inv.callRealMethod();
+        }).when(slowIndex).hasConflict(any(), any(), any());
+
+        BookingAdmissionService slowService = new BookingAdmissionService(slowIndex);
+        ReflectionTestUtils.setField(slowService, "shardCount", 1);
+        ReflectionTestUtils.setField(slowService, "timeoutMillis", 100L);
+        slowService.start();
+        try {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                assertThrows(RuntimeException.class,
+                        () -> slowService.tryAdmit(5L, today.plusDays(1), today.plusDays(3)));
+                assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+            // 写线程在调用方放弃后才完成判定
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            // 非事务准入排在被放弃的任务之后，之后读取到的占位即为最终状态
+            assertTrue(slowService.tryAdmit(5L, today.plusDays(1), today.plusDays(3)));
+            assertTrue(slowService.isAvailable(5L, today.plusDays(1), today.plusDays(3)));
+        } finally {
+            release.countDown();
+            slowService.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("未结束事务的占位应阻止重叠预订，回滚后应释放")
+    void shouldHoldPendingReservationUntilCompletion() {
+        List<TransactionSynchronization> open = admitInTransaction(6L, today.plusDays(1), today.plusDays(3));
+
+        assertFalse(admissionService.tryAdmit(6L, today.plusDays(2), today.plusDays(4)));
+        assertFalse(admissionService.isAvailable(6L, today.plusDays(2), today.plusDays(4)));
+
+        open.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // 完成回调在分片写线程上异步执行，下一次准入排在其后
+        assertTrue(admissionService.tryAdmit(6L, today.plusDays(2), today.plusDays(4)));
+    }
+
+    @Test
+    @DisplayName("事务提交后订单应由占用索引继续阻止重叠预订")
+    void shouldKeepReservationAfterCommit() {
+        commit(admitInTransaction(7L, today.plusDays(1), today.plusDays(3)), order(7L, today.plusDays(1), today.plusDays(3)));
+
+        assertFalse(admissionService.isAvailable(7L, today.plusDays(2), today.plusDays(4)));
+        assertFalse(admissionService.tryAdmit(7L, today.plusDays(2), today.plusDays(4)));
+    }
+
+    @Test
+    @DisplayName("同一房间应该始终路由到同一分片且分布均匀")
+    void shouldRouteRoomsConsistently() {
+        int[] counts = new int[4];
+        for (long roomId = 1; roomId <= 4000; roomId++) {
+            int shard = admissionService.shardOf(roomId);
+            assertEquals(shard, admissionService.shardOf(roomId));
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 500, "分片分布不均: " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("并发提交相互重叠但不相同的区间时只应准入互不重叠的预订")
+    void shouldAdmitOnlyNonOverlappingUnderContention() throws InterruptedException {
+        int threads = 16;
+        List<long[]> admitted = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            pool.execute(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < 50; i++) {
+                    LocalDate checkIn = today.plusDays(30 + (offset + i) % 20);
+                    LocalDate checkOut = checkIn.plusDays(1 + (i % 3));
+                    List<TransactionSynchronization> open = admitInTransaction(9L, checkIn, checkOut);
+                    if (!open.isEmpty()) {
+                        admitted.add(new long[]{checkIn.toEpochDay(), checkOut.toEpochDay()});
+                        commit(open, order(9L, checkIn, checkOut));
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertFalse(admitted.isEmpty());
+        assertEquals(0, countOverlaps(admitted));
+    }
+
+    private static int countOverlaps(List<long[]> intervals) {
+        Set<Integer> overlapping = new HashSet<>();
+        List<long[]> copy = new ArrayList<>(intervals);
+        for (int i = 0; i < copy.size(); i++) {
+            for (int j = i + 1; j < copy.size(); j++) {
+                if (copy.get(i)[0] < copy.get(j)[1] && copy.get(j)[0] < copy.get(i)[1]) {
+                    overlapping.add(j);
+                }
+            }
+        }
+        return overlapping.size();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在模拟事务中准入，返回事务未结束时注册的回调；未准入时返回空列表
+     */
+    private List<TransactionSynchronization> admitInTransaction(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            return admissionService.tryAdmit(roomId, checkIn, checkOut)
+                    ? new ArrayList<>(TransactionSynchronizationManager.getSynchronizations())
+                    : Collections.emptyList();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * 模拟 OrderService 提交订单：写入订单表，afterCommit 阶段更新占用索引，最后执行准入的完成回调
+     */
+    private void commit(List<TransactionSynchronization> open, Order order) {
+        assertFalse(open.isEmpty());
+        persist(order);
+        roomAvailabilityIndex.onOrderConfirmed(order);
+        open.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private void persist(Order order) {
+        persisted.computeIfAbsent(order.getRoomId(), k -> Collections.synchronizedList(new ArrayList<>())).add(order);
+    }
+
+    private Order order(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        Order order = new Order();
+        order.setId(orderIds.incrementAndGet());
+        order.setRoomId(roomId);
+        order.setCheckInDate(checkIn);
+        order.setCheckOutDate(checkOut);
+        return order;
+    }
+
+    private Room room(Long id) {
+        Room room = new Room();
+        room.setId(id);
+        room.setHotelId(1L);
+        room.setRoomTypeId(1L);
+        return room;
+    }
+}
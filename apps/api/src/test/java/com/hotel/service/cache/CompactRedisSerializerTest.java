@@ -0,0 +1,174 @@
+package com.hotel.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.config.CacheConfig;
+import com.hotel.dto.order.OrderResponse;
+import com.hotel.dto.review.incentive.ReviewLeaderboardDTO;
+import com.hotel.dto.room.RoomResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("紧凑二进制缓存序列化器测试")
+class CompactRedisSerializerTest {
+
+    private Jackson2JsonRedisSerializer<Object> json;
+
+    private CompactRedisSerializer binary;
+
+    @BeforeEach
+    void setUp() {
+        json = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+        CacheConfig.configureObjectMapper(objectMapper);
+        json.setObjectMapper(objectMapper);
+
+        binary = new CompactRedisSerializer(CacheConfig::configureObjectMapper, json, true, true, 1024);
+    }
+
+    @Test
+    @DisplayName("二进制格式应能还原缓存对象")
+    void shouldRoundTripDtos() {
+        RoomResponse room = room(1);
+        assertEquals(room, binary.deserialize(binary.serialize(room)));
+
+        OrderResponse.PriceBreakdown breakdown = priceBreakdown();
+        assertEquals(breakdown, binary.deserialize(binary.serialize(breakdown)));
+
+        ReviewLeaderboardDTO leaderboard = leaderboard(100);
+        byte[] bytes = binary.serialize(leaderboard);
+        assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(leaderboard, binary.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("超过阈值时应压缩并能正确解压")
+    void shouldCompressLargeValues() {
+        List<RoomResponse> rooms = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rooms.add(room(i));
+        }
+
+        byte[] bytes = binary.serialize(rooms);
+        assertEquals(1, bytes[2] & 0x01);
+        assertEquals(rooms, binary.deserialize(bytes));
+
+        CompactRedisSerializer uncompressed = new CompactRedisSerializer(CacheConfig::configureObjectMapper, json, true, true, 0);
+        assertTrue(bytes.length < uncompressed.serialize(rooms).length);
+    }
+
+    @Test
+    @DisplayName("迁移模式下应能读取原 JSON 条目及纯文本数值")
+    void shouldReadLegacyJson() {
+        RoomResponse room = room(2);
+        assertEquals(room, binary.deserialize(json.serialize(room)));
+        assertEquals(5, binary.deserialize("5".getBytes(StandardCharsets.UTF_8)));
+        assertNull(binary.deserialize(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("JSON 写入模式应能读取二进制条目")
+    void shouldReadBinaryWhenWritingJson() {
+        CompactRedisSerializer jsonWriter = new CompactRedisSerializer(CacheConfig::configureObjectMapper, json, false, false, 1024);
+        RoomResponse room = room(3);
+
+        assertEquals('[', jsonWriter.serialize(room)[0]);
+        assertEquals(room, jsonWriter.deserialize(binary.serialize(room)));
+        assertEquals(room, jsonWriter.deserialize(json.serialize(room)));
+    }
+
+    @Test
+    @DisplayName("关闭迁移模式或版本未知时应拒绝读取")
+    void shouldRejectUnknownFormats() {
+        CompactRedisSerializer strict = new CompactRedisSerializer(CacheConfig::configureObjectMapper, json, true, false, 1024);
+        assertThrows(SerializationException.class, () -> strict.deserialize(json.serialize(room(4))));
+
+        byte[] bytes = binary.serialize(room(4));
+        bytes[1] = (byte) (CompactRedisSerializer.VERSION + 1);
+        assertThrows(SerializationException.class, () -> binary.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("二进制格式应比 JSON 更小")
+    void shouldBeSmallerThanJson() {
+        List<RoomResponse> rooms = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rooms.add(room(i));
+        }
+        List<Object> samples = Arrays.asList(room(1), priceBreakdown(), rooms, leaderboard(10), leaderboard(100));
+        List<String> names = Arrays.asList("RoomResponse", "PriceBreakdown", "List<RoomResponse>(50)",
+                "ReviewLeaderboardDTO(10)", "ReviewLeaderboardDTO(100)");
+
+        for (int i = 0; i < samples.size(); i++) {
+            Object sample = samples.get(i);
+            assertTrue(binary.serialize(sample).length < json.serialize(sample).length, names.get(i));
+        }
+    }
+
+    private RoomResponse room(int i) {
+        RoomResponse room = new RoomResponse();
+        room.setId((long) i);
+        room.setHotelId(1L);
+        room.setRoomTypeId(1L + i % 4);
+        room.setRoomNumber(String.valueOf(1000 + i));
+        room.setFloor(1 + i / 20);
+        room.setArea(35);
+        room.setStatus("AVAILABLE");
+        room.setPrice(new BigDecimal("388.00"));
+        room.setImages(Arrays.asList("/images/rooms/" + i + "-1.jpg", "/images/rooms/" + i + "-2.jpg"));
+        room.setCreatedAt(LocalDateTime.of(2024, 12, 1, 10, 0));
+        room.setUpdatedAt(LocalDateTime.of(2024, 12, 7, 18, 30));
+        room.setRoomTypeName("豪华大床房");
+        room.setCalculatedPrice(new BigDecimal("358.00"));
+        room.setPriceChanged(true);
+        room.setPriceChange(new BigDecimal("-30.00"));
+        room.setPriceChangePercentage("-7.73%");
+        return room;
+    }
+
+    private OrderResponse.PriceBreakdown priceBreakdown() {
+        OrderResponse.PriceBreakdown breakdown = new OrderResponse.PriceBreakdown();
+        breakdown.setRoomFee(new BigDecimal("1164.00"));
+        breakdown.setServiceFee(new BigDecimal("58.20"));
+        breakdown.setDiscountAmount(new BigDecimal("50.00"));
+        breakdown.setTotalPrice(new BigDecimal("1172.20"));
+        breakdown.setNights(3);
+        breakdown.setRoomRate(new BigDecimal("388.00"));
+        breakdown.setTaxAmount(BigDecimal.ZERO);
+        breakdown.setCouponCode("WINTER50");
+        return breakdown;
+    }
+
+    private ReviewLeaderboardDTO leaderboard(int size) {
+        ReviewLeaderboardDTO leaderboard = new ReviewLeaderboardDTO();
+        leaderboard.setPeriodType("monthly");
+        leaderboard.setPeriod("2024-12");
+        leaderboard.setUpdatedAt(LocalDateTime.of(2024, 12, 7, 0, 0));
+        List<ReviewLeaderboardDTO.LeaderboardEntryDTO> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ReviewLeaderboardDTO.LeaderboardEntryDTO entry = new ReviewLeaderboardDTO.LeaderboardEntryDTO();
+            entry.setUserId((long) i);
+            entry.setUserName("user" + i);
+            entry.setUserAvatar("/avatars/" + i + ".png");
+            entry.setRank(i + 1);
+            entry.setTotalReviews(100 - i % 100);
+            entry.setQualityScore(90);
+            entry.setTotalPoints(5000 - i * 10);
+            entry.setIsCurrentUser(false);
+            entries.add(entry);
+        }
+        leaderboard.setEntries(entries);
+        return leaderboard;
+    }
+}
@@ -0,0 +1,63 @@
+package com.hotel.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("两级缓存管理器测试")
+class TwoLevelCacheManagerTest {
+
+    @Mock
+    private CacheManager remoteCacheManager;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private Cache remote;
+
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoLevelCacheManager(remoteCacheManager, redisTemplate, "cache:invalidation",
+                Collections.singletonMap("rooms", Duration.ofHours(1)), Duration.ofMinutes(30),
+                Duration.ofSeconds(60), 100, Set.of("rooms"));
+    }
+
+    @Test
+    @DisplayName("配置的缓存应包装为两级缓存并复用同一实例")
+    void shouldWrapConfiguredCache() {
+        when(remoteCacheManager.getCache("rooms")).thenReturn(remote);
+
+        Cache cache = cacheManager.getCache("rooms");
+
+        assertTrue(cache instanceof TwoLevelCache);
+        assertSame(cache, cacheManager.getCache("rooms"));
+        assertEquals(Set.of("rooms"), cacheManager.caches().keySet());
+    }
+
+    @Test
+    @DisplayName("未配置的缓存应直接返回 Redis 缓存")
+    void shouldReturnRemoteCacheForOtherNames() {
+        when(remoteCacheManager.getCache("booking-pricing")).thenReturn(remote);
+
+        assertSame(remote, cacheManager.getCache("booking-pricing"));
+        assertTrue(cacheManager.caches().isEmpty());
+        assertTrue(cacheManager.getStatistics().isEmpty());
+    }
+}
@@ -0,0 +1,140 @@
+package com.hotel.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotel.dto.admin.cache.CacheTierStatisticsDTO;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("两级缓存测试")
+class TwoLevelCacheTest {
+
+    @Mock
+    private Cache remote;
+
+    private final List<String> published = new ArrayList<>();
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumWeight(100)
+                .weigher(CacheEntryWeigher.INSTANCE)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+        cache = new TwoLevelCache("rooms", local, remote,
+                (name, key) -> published.add(name + ":" + key));
+    }
+
+    @Test
+    @DisplayName("L2 命中后应回填 L1，再次读取不访问 Redis")
+    void shouldBackfillLocalOnRemoteHit() {
+        when(remote.get(1L)).thenReturn(new SimpleValueWrapper("room-1"));
+
+        assertEquals("room-1", cache.get(1L).get());
+        assertEquals("room-1", cache.get(1L, String.class));
+
+        verify(remote, times(1)).get(1L);
+        CacheTierStatisticsDTO statistics = cache.statistics();
+        assertEquals(1, statistics.getLocalHits());
+        assertEquals(1, statistics.getLocalMisses());
+        assertEquals(1, statistics.getRemoteHits());
+    }
+
+    @Test
+    @DisplayName("未命中时不应缓存空值")
+    void shouldNotCacheMisses() {
+        assertNull(cache.get(2L));
+        assertNull(cache.get(2L));
+
+        verify(remote, times(2)).get(2L);
+        assertEquals(2, cache.statistics().getRemoteMisses());
+    }
+
+    @Test
+    @DisplayName("写入和失效应同时作用于两级并广播")
+    void shouldWriteThroughAndPublish() {
+        cache.put(3L, "room-3");
+        verify(remote).put(3L, "room-3");
+        assertEquals("room-3", cache.get(3L).get());
+        verify(remote, never()).get(3L);
+
+        cache.evict(3L);
+        verify(remote).evict(3L);
+        assertNull(cache.get(3L));
+
+        cache.clear();
+        verify(remote).clear();
+        assertEquals(List.of("rooms:3", "rooms:3", "rooms:null"), published);
+    }
+
+    @Test
+    @DisplayName("收到其他节点的失效消息后只清理 L1")
+    void shouldInvalidateLocalOnly() {
+        cache.put(4L, "room-4");
+        cache.invalidateLocal("4");
+
+        assertNull(cache.get(4L));
+        verify(remote, never()).evict(any());
+        verify(remote).get(4L);
+    }
+
+    @Test
+    @DisplayName("超出权重上限时应淘汰 L1 条目")
+    void shouldEvictByWeight() {
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            large.add(i);
+        }
+        cache.put("a", large);
+        cache.put("b", new ArrayList<>(large));
+        cache.put("c", "room");
+
+        CacheTierStatisticsDTO statistics = cache.statistics();
+        assertTrue(statistics.getLocalWeight() <= 100);
+        assertTrue(statistics.getLocalEvictions() >= 1);
+    }
+
+    @Test
+    @DisplayName("指标应反映分层命中和同步加载次数")
+    void shouldExposeTierMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        when(remote.get(5L)).thenReturn(new SimpleValueWrapper("room-5"));
+        when(remote.get(eq(6L), any(Callable.class)))
+                .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(1).call());
+
+        cache.get(5L);
+        cache.get(5L);
+        assertEquals("room-6", cache.get(6L, () -> "room-6"));
+
+        assertEquals(1, registry.get("hotel.cache.gets").tags("cache", "rooms", "tier", "l1", "result", "hit")
+                .functionCounter().count());
+        assertEquals(2, registry.get("hotel.cache.gets").tags("tier", "l1", "result", "miss")
+                .functionCounter().count());
+        assertEquals(1, registry.get("hotel.cache.gets").tags("tier", "l2", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("hotel.cache.gets").tags("tier", "l2", "result", "miss")
+                .functionCounter().count());
+        FunctionTimer load = registry.get("hotel.cache.load").functionTimer();
+        assertEquals(1, load.count());
+        assertEquals(2, registry.get("hotel.cache.size").gauge().value());
+    }
+}
@@ -0,0 +1,193 @@
+package com.hotel.service.log;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.hotel.entity.log.OperationLog;
+import com.hotel.repository.log.ErrorLogRepository;
+import com.hotel.repository.log.LoginLogRepository;
+import com.hotel.repository.log.OperationLogRepository;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("日志归档存储测试")
+class LogArchiveStoreTest {
+
+    @Mock
+    private OperationLogRepository operationLogRepository;
+
+    @Mock
+    private LoginLogRepository loginLogRepository;
+
+    @Mock
+    private ErrorLogRepository errorLogRepository;
+
+    @TempDir
+    Path archiveDir;
+
+    private LogArchiveStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LogArchiveStore(operationLogRepository, loginLogRepository, errorLogRepository);
+        ReflectionTestUtils.setField(store, "archivePath", archiveDir.toString());
+    }
+
+    @Test
+    @DisplayName("归档应写入按月命名的压缩文件")
+    void shouldArchiveMonthToCompressedFile() throws Exception {
+        YearMonth month = YearMonth.of(2024, 1);
+        archive(month, 5);
+
+        assertTrue(store.isArchived(LogTable.OPERATION, month));
+        assertFalse(store.isArchived(LogTable.OPERATION, month.plusMonths(1)));
+        Path file = archiveDir.resolve("operation_logs").resolve("operation_logs-2024-01.ndjson.gz");
+        assertTrue(Files.size(file) > 0);
+        verify(operationLogRepository).streamArchive(
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0));
+    }
+
+    @Test
+    @DisplayName("检索归档应跨月份按创建时间倒序分页")
+    void shouldPageAcrossMonthsDescending() throws Exception {
+        archive(YearMonth.of(2024, 1), 5);
+        archive(YearMonth.of(2024, 2), 5);
+
+        IPage<OperationLog> firstPage = store.search(LogTable.OPERATION, OperationLog.class, log -> true,
+                null, LocalDateTime.of(2024, 2, 29, 23, 59), true, 1, 3);
+        IPage<OperationLog> secondPage = store.search(LogTable.OPERATION, OperationLog.class, log -> true,
+                null, LocalDateTime.of(2024, 2, 29, 23, 59), true, 2, 3);
+
+        assertEquals(10, firstPage.getTotal());
+        assertEquals(List.of(2005L, 2004L, 2003L), ids(firstPage));
+        // 第二页跨越两个月份
+        assertEquals(List.of(2002L, 2001L, 1005L), ids(secondPage));
+    }
+
+    @Test
+    @DisplayName("检索归档应按条件过滤并按创建时间升序分页")
+    void shouldFilterAscending() throws Exception {
+        archive(YearMonth.of(2024, 1), 6);
+
+        IPage<OperationLog> page = store.search(LogTable.OPERATION, OperationLog.class,
+                log -> "FAILED".equals(log.getStatus()),
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 1, 31, 0, 0), false, 1, 10);
+
+        assertEquals(3, page.getTotal());
+        assertEquals(List.of(1002L, 1004L, 1006L), ids(page));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 10, 0), page.getRecords().get(0).getCreateTime());
+    }
+
+    @Test
+    @DisplayName("时间范围外的月份不应读取")
+    void shouldSkipMonthsOutsideRange() throws Exception {
+        archive(YearMonth.of(2024, 1), 2);
+        archive(YearMonth.of(2024, 3), 2);
+
+        IPage<OperationLog> page = store.search(LogTable.OPERATION, OperationLog.class, log -> true,
+                LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 3, 31, 0, 0), false, 1, 10);
+
+        assertEquals(List.of(3001L, 3002L), ids(page));
+    }
+
+    @Test
+    @DisplayName("归档边界应为最新归档月份的下个月第一天")
+    void shouldReportArchiveBoundary() throws Exception {
+        assertNull(store.archiveBoundary(LogTable.OPERATION));
+
+        archive(YearMonth.of(2024, 1), 1);
+        archive(YearMonth.of(2024, 2), 1);
+
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), store.archiveBoundary(LogTable.OPERATION));
+    }
+
+    @Test
+    @DisplayName("读取最新记录应跨月份按创建时间倒序并限制条数")
+    void shouldReadLatestAcrossMonths() throws Exception {
+        archive(YearMonth.of(2024, 1), 5);
+        archive(YearMonth.of(2024, 2), 2);
+
+        List<OperationLog> latest = store.latest(LogTable.OPERATION, OperationLog.class,
+                log -> "SUCCESS".equals(log.getStatus()), null, null, 3);
+
+        assertEquals(List.of(2001L, 1005L, 1003L),
+                latest.stream().map(OperationLog::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * 归档指定月份，ID 为 月份 * 1000 + 序号，偶数序号为失败记录
+     */
+    private void archive(YearMonth month, int count) throws Exception {
+        List<OperationLog> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            OperationLog row = new OperationLog();
+            row.setId(month.getMonthValue() * 1000L + i);
+            row.setUsername("admin");
+            row.setOperation("更新订单");
+            row.setStatus(i % 2 == 0 ? "FAILED" : "SUCCESS");
+            row.setCreateTime(month.atDay(i).atTime(10, 0));
+            rows.add(row);
+        }
+        when(operationLogRepository.streamArchive(month.atDay(1).atStartOfDay(),
+                month.plusMonths(1).atDay(1).atStartOfDay())).thenReturn(new ListCursor<>(rows));
+
+        assertEquals(count, store.archive(LogTable.OPERATION, month));
+    }
+
+    private static List<Long> ids(IPage<OperationLog> page) {
+        return page.getRecords().stream().map(OperationLog::getId).collect(Collectors.toList());
+    }
+
+    private static class ListCursor<T> implements Cursor<T> {
+
+        private final List<T> rows;
+        private boolean open = true;
+
+        ListCursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return false;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return -1;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return rows.iterator();
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
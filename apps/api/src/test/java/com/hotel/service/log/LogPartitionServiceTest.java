@@ -0,0 +1,159 @@
+package com.hotel.service.log;
+
+import com.hotel.repository.log.LogPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("日志分区维护服务测试")
+class LogPartitionServiceTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2024, 10);
+
+    @Mock
+    private LogPartitionRepository partitionRepository;
+
+    @Mock
+    private LogArchiveStore archiveStore;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    private LogPartitionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LogPartitionService(partitionRepository, archiveStore, redissonClient);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "retentionMonths", 6);
+        ReflectionTestUtils.setField(service, "monthsAhead", 2);
+    }
+
+    @Test
+    @DisplayName("首次运行应从最早记录所在月份拆分出按月分区")
+    void shouldSplitFuturePartitionFromEarliestRecord() {
+        when(partitionRepository.findMinCreateTimeInFuturePartition("operation_logs"))
+                .thenReturn(LocalDateTime.of(2024, 7, 15, 8, 30));
+
+        service.createPartitions(LogTable.OPERATION, List.of("p_future"), CURRENT);
+
+        List<LogPartitionRepository.MonthPartition> partitions = captureSplit();
+        assertEquals(List.of("p202407", "p202408", "p202409", "p202410", "p202411", "p202412"),
+                partitions.stream().map(LogPartitionRepository.MonthPartition::getName).collect(Collectors.toList()));
+        assertEquals("2024-08-01 00:00:00", partitions.get(0).getLessThan());
+        assertEquals("2025-01-01 00:00:00", partitions.get(5).getLessThan());
+    }
+
+    @Test
+    @DisplayName("已有月份分区时只预建缺少的未来月份")
+    void shouldOnlyCreateMissingMonths() {
+        service.createPartitions(LogTable.OPERATION, List.of("p202410", "p202411", "p_future"), CURRENT);
+
+        List<LogPartitionRepository.MonthPartition> partitions = captureSplit();
+        assertEquals(1, partitions.size());
+        assertEquals("p202412", partitions.get(0).getName());
+        verify(partitionRepository, never()).findMinCreateTimeInFuturePartition(anyString());
+    }
+
+    @Test
+    @DisplayName("未来分区已足够时不应修改表结构")
+    void shouldSkipWhenPartitionsExist() {
+        service.createPartitions(LogTable.LOGIN, List.of("p202411", "p202412", "p_future"), CURRENT);
+
+        verify(partitionRepository, never()).splitFuturePartition(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("过期分区应先归档再删除，保留期内的分区不动")
+    void shouldArchiveThenDropExpiredPartitions() throws Exception {
+        when(partitionRepository.findPartitionNames("error_logs"))
+                .thenReturn(List.of("p202402", "p202403", "p202404", "p202410", "p_future"));
+
+        service.archiveExpiredPartitions(LogTable.ERROR, CURRENT);
+
+        InOrder order = inOrder(archiveStore, partitionRepository);
+        order.verify(archiveStore).archive(LogTable.ERROR, YearMonth.of(2024, 2));
+        order.verify(partitionRepository).dropPartition("error_logs", "p202402");
+        order.verify(archiveStore).archive(LogTable.ERROR, YearMonth.of(2024, 3));
+        order.verify(partitionRepository).dropPartition("error_logs", "p202403");
+        verify(archiveStore, never()).archive(LogTable.ERROR, YearMonth.of(2024, 4));
+        verify(partitionRepository, never()).dropPartition("error_logs", "p_future");
+    }
+
+    @Test
+    @DisplayName("归档失败时不应删除分区")
+    void shouldKeepPartitionWhenArchiveFails() throws Exception {
+        when(partitionRepository.findPartitionNames("operation_logs")).thenReturn(List.of("p202401", "p_future"));
+        when(archiveStore.archive(LogTable.OPERATION, YearMonth.of(2024, 1)))
+                .thenThrow(new IOException("磁盘已满"));
+
+        assertThrows(IOException.class,
+                () -> service.archiveExpiredPartitions(LogTable.OPERATION, CURRENT));
+        verify(partitionRepository, never()).dropPartition(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("其他实例持有维护锁时应跳过")
+    void shouldSkipWhenAnotherInstanceMaintains() {
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(false);
+
+        service.maintain();
+
+        verifyNoInteractions(partitionRepository, archiveStore);
+        verify(lock, never()).unlock();
+    }
+
+    @Test
+    @DisplayName("归档目录未声明为共享时只预建分区，不归档删除")
+    void shouldNotArchiveWithoutSharedArchive() throws Exception {
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(true);
+        when(partitionRepository.findPartitionNames(anyString())).thenReturn(List.of("p202001", "p_future"));
+
+        service.maintain();
+
+        verify(partitionRepository, times(LogTable.values().length)).splitFuturePartition(anyString(), anyList());
+        verify(archiveStore, never()).archive(any(), any());
+        verify(partitionRepository, never()).dropPartition(anyString(), anyString());
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("分区名解析")
+    void shouldParsePartitionNames() {
+        assertEquals(YearMonth.of(2024, 3), LogPartitionService.parseMonth("p202403"));
+        assertEquals("p202403", LogPartitionService.partitionName(YearMonth.of(2024, 3)));
+        assertNull(LogPartitionService.parseMonth("p_future"));
+        assertNull(LogPartitionService.parseMonth("p2024031"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LogPartitionRepository.MonthPartition> captureSplit() {
+        ArgumentCaptor<List<LogPartitionRepository.MonthPartition>> captor = ArgumentCaptor.forClass(List.class);
+        verify(partitionRepository).splitFuturePartition(anyString(), captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,241 @@
+package com.hotel.service.log;
+
+import com.hotel.entity.log.ErrorLog;
+import com.hotel.entity.log.OperationLog;
+import com.hotel.repository.log.ErrorLogRepository;
+import com.hotel.repository.log.LogPartitionRepository;
+import com.hotel.repository.log.OperationLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("日志全文索引测试")
+class LogSearchIndexTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 10, 1, 9, 0);
+
+    @Mock
+    private OperationLogRepository operationLogRepository;
+
+    @Mock
+    private ErrorLogRepository errorLogRepository;
+
+    @Mock
+    private LogPartitionRepository partitionRepository;
+
+    @TempDir
+    Path indexDir;
+
+    private LogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new LogSearchIndex(operationLogRepository, errorLogRepository, partitionRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "indexPath", indexDir.toString());
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("补建完成前不应用于查询")
+    void shouldNotServeQueriesBeforeBackfill() throws Exception {
+        assertFalse(index.isReady());
+        assertNull(index.search(LogTable.OPERATION, new LogSearchIndex.Criteria(), true, 1, 10));
+    }
+
+    @Test
+    @DisplayName("启动补建应从数据库读取索引中缺少的记录")
+    void shouldBackfillFromDatabase() throws Exception {
+        when(operationLogRepository.findAfterId(0L, 1000))
+                .thenReturn(List.of(operationLog(1, "admin", "更新订单", "10.0.0.1", 0)));
+        when(operationLogRepository.findAfterId(1L, 1000)).thenReturn(Collections.emptyList());
+        when(errorLogRepository.findAfterId(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+
+        index.backfill();
+
+        assertTrue(index.isReady());
+        LogSearchIndex.Hits hits = index.search(LogTable.OPERATION,
+                new LogSearchIndex.Criteria().prefix("username", "adm"), true, 1, 10);
+        assertEquals(List.of(1L), hits.getIds());
+    }
+
+    @Test
+    @DisplayName("用户名和IP应按前缀匹配，结果按创建时间倒序")
+    void shouldMatchPrefixesInTimeOrder() throws Exception {
+        ready();
+        index.index(LogTable.OPERATION, List.of(
+                operationLog(1, "admin", "更新订单", "192.168.1.10", 0),
+                operationLog(2, "administrator", "删除房间", "192.168.2.20", 2),
+                operationLog(3, "guest", "更新订单", "192.168.1.11", 1),
+                operationLog(4, "Admin", "查询报表", "10.0.0.1", 3)));
+        index.refresh();
+
+        LogSearchIndex.Hits admins = index.search(LogTable.OPERATION,
+                new LogSearchIndex.Criteria().prefix("username", "ADMIN"), true, 1, 10);
+        LogSearchIndex.Hits subnet = index.search(LogTable.OPERATION,
+                new LogSearchIndex.Criteria().prefix("ip", "192.168.1."), false, 1, 10);
+
+        assertEquals(3, admins.getTotal());
+        assertEquals(List.of(4L, 2L, 1L), admins.getIds());
+        assertEquals(List.of(1L, 3L), subnet.getIds());
+    }
+
+    @Test
+    @DisplayName("操作描述应按分词匹配并支持时间范围和分页")
+    void shouldMatchTextWithinTimeRange() throws Exception {
+        ready();
+        for (int i = 1; i <= 6; i++) {
+            index.index(LogTable.OPERATION, List.of(operationLog(i, "admin", i % 2 == 0 ? "更新订单" : "删除订单", "10.0.0.1", i)));
+        }
+        index.refresh();
+
+        LogSearchIndex.Criteria criteria = new LogSearchIndex.Criteria()
+                .text("operation", "更新订")
+                .between(BASE_TIME.plusHours(2), BASE_TIME.plusHours(6));
+        LogSearchIndex.Hits firstPage = index.search(LogTable.OPERATION, criteria, true, 1, 2);
+        LogSearchIndex.Hits secondPage = index.search(LogTable.OPERATION, criteria, true, 2, 2);
+
+        assertEquals(3, firstPage.getTotal());
+        assertEquals(List.of(6L, 4L), firstPage.getIds());
+        assertEquals(List.of(2L), secondPage.getIds());
+    }
+
+    @Test
+    @DisplayName("重复写入同一条日志只应保留一份，不同日志类型互不干扰")
+    void shouldDeduplicateAndSeparateTables() throws Exception {
+        ready();
+        OperationLog operationLog = operationLog(1, "admin", "更新订单", "10.0.0.1", 0);
+        index.index(LogTable.OPERATION, List.of(operationLog));
+        index.index(LogTable.OPERATION, List.of(operationLog));
+        ErrorLog errorLog = new ErrorLog();
+        errorLog.setId(1L);
+        errorLog.setUsername("admin");
+        errorLog.setModule("BUSINESS");
+        errorLog.setCreateTime(BASE_TIME);
+        index.index(LogTable.ERROR, List.of(errorLog));
+        index.refresh();
+
+        assertEquals(1, index.search(LogTable.OPERATION,
+                new LogSearchIndex.Criteria().prefix("username", "admin"), true, 1, 10).getTotal());
+        LogSearchIndex.Hits errors = index.search(LogTable.ERROR,
+                new LogSearchIndex.Criteria().prefix("module", "bus"), true, 1, 10);
+        assertEquals(List.of(1L), errors.getIds());
+    }
+
+    @Test
+    @DisplayName("归档后应删除早于分区边界的文档")
+    void shouldDeleteDocumentsBeforeBoundary() throws Exception {
+        ready();
+        index.index(LogTable.OPERATION, List.of(
+                operationLog(1, "admin", "更新订单", "10.0.0.1", -48),
+                operationLog(2, "admin", "更新订单", "10.0.0.1", 0)));
+
+        index.deleteBefore(LogTable.OPERATION, BASE_TIME.minusHours(1));
+        index.refresh();
+
+        LogSearchIndex.Hits hits = index.search(LogTable.OPERATION,
+                new LogSearchIndex.Criteria().prefix("username", "admin"), true, 1, 10);
+        assertEquals(List.of(2L), hits.getIds());
+    }
+
+    @Test
+    @DisplayName("其他实例删除分区后应按最早的剩余分区自行清理索引")
+    void shouldPruneDocumentsOfDroppedPartitions() throws Exception {
+        ready();
+        index.index(LogTable.OPERATION, List.of(
+                operationLog(1, "admin", "更新订单", "10.0.0.1", -48),
+                operationLog(2, "admin", "更新订单", "10.0.0.1", 0)));
+        when(partitionRepository.findPartitionNames("operation_logs"))
+                .thenReturn(List.of("p202410", "p202411", "p_future"));
+
+        index.prune();
+        index.refresh();
+
+        LogSearchIndex.Hits hits = index.search(LogTable.OPERATION,
+                new LogSearchIndex.Criteria().prefix("username", "admin"), true, 1, 10);
+        assertEquals(1, hits.getTotal());
+        assertEquals(List.of(2L), hits.getIds());
+    }
+
+    @Test
+    @DisplayName("应从数据库追踪其他实例写入的日志，包括主键较小但提交较晚的记录")
+    void shouldTailRowsCommittedOutOfOrder() throws Exception {
+        ReflectionTestUtils.setField(index, "tailSettleMillis", 60000L);
+        List<OperationLog> table = Collections.synchronizedList(new ArrayList<>());
+        when(operationLogRepository.findAfterId(anyLong(), anyInt())).thenAnswer(inv -> {
+            long afterId = inv.getArgument(0);
+            int limit = inv.getArgument(1);
+            synchronized (table) {
+                return table.stream()
+                        .filter(row -> row.getId() > afterId)
+                        .sorted(Comparator.comparing(OperationLog::getId))
+                        .limit(limit)
+                        .collect(Collectors.toList());
+            }
+        });
+        when(errorLogRepository.findAfterId(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        table.add(operationLog(1, "admin", "更新订单", "10.0.0.1", 0));
+        index.backfill();
+
+        table.add(recent(operationLog(5, "admin", "删除房间", "10.0.0.2", 0)));
+        index.refresh();
+        assertEquals(List.of(1L, 5L), searchAdmins(false).getIds());
+
+        // 主键较小的记录晚于 5 提交，仍在稳定窗口内，应被下一次追踪读到
+        table.add(recent(operationLog(3, "admin", "查询报表", "10.0.0.3", 0)));
+        index.refresh();
+        assertEquals(3, searchAdmins(false).getTotal());
+    }
+
+    private LogSearchIndex.Hits searchAdmins(boolean descending) throws Exception {
+        return index.search(LogTable.OPERATION, new LogSearchIndex.Criteria().prefix("username", "admin"),
+                descending, 1, 10);
+    }
+
+    private static OperationLog recent(OperationLog operationLog) {
+        operationLog.setCreateTime(LocalDateTime.now().withNano(0));
+        return operationLog;
+    }
+
+    private void ready() {
+        when(operationLogRepository.findAfterId(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        when(errorLogRepository.findAfterId(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        index.backfill();
+        assertTrue(index.isReady());
+    }
+
+    private static OperationLog operationLog(long id, String username, String operation, String ip, int hours) {
+        OperationLog operationLog = new OperationLog();
+        operationLog.setId(id);
+        operationLog.setUsername(username);
+        operationLog.setOperation(operation);
+        operationLog.setIp(ip);
+        operationLog.setStatus("SUCCESS");
+        operationLog.setCreateTime(BASE_TIME.plusHours(hours));
+        return operationLog;
+    }
+}
@@ -0,0 +1,202 @@
+package com.hotel.service.log;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("日志异步批量写入队列测试")
+class WriteBehindQueueTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final List<Integer> rows = new CopyOnWriteArrayList<>();
+
+    private WriteBehindQueue<Integer> queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("环形缓冲区应按写入顺序取出，满时拒绝写入")
+    void ringBufferShouldBeBoundedAndFifo() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @DisplayName("多个线程并发写入时每条记录只应取出一次")
+    void ringBufferShouldNotLoseRecordsUnderContention() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        boolean[] seen = new boolean[producers * perProducer];
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < seen.length && System.nanoTime() < deadline) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            assertFalse(seen[value], "重复取出: " + value);
+            seen[value] = true;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(seen.length, received);
+    }
+
+    @Test
+    @DisplayName("积累到批量大小时应合并为一批写入")
+    void shouldWriteFullBatch() throws Exception {
+        queue = queue(64, 10, 60_000, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        awaitWritten(10);
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).size());
+    }
+
+    @Test
+    @DisplayName("不足一批的记录应在刷新间隔后写入")
+    void shouldFlushPartialBatchAfterInterval() throws Exception {
+        queue = queue(64, 100, 50, 0);
+
+        queue.offer(1);
+        queue.offer(2);
+
+        awaitWritten(2);
+        assertEquals(List.of(1, 2), batches.get(0));
+    }
+
+    @Test
+    @DisplayName("缓冲区已满时应丢弃并计数")
+    void shouldDropWhenFull() {
+        // 未启动写线程，缓冲区不会被消费
+        queue = queue(4, 100, 60_000, 0);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertFalse(queue.offer(5));
+
+        assertEquals(2, queue.getDropped());
+        assertEquals(4, queue.size());
+    }
+
+    @Test
+    @DisplayName("批量写入失败时应逐条重试，单条失败计入失败数")
+    void shouldFallBackToRowWrites() throws Exception {
+        queue = new WriteBehindQueue<>("test", 64, 3, 60_000, 0,
+                batch -> {
+                    throw new IllegalStateException("批量写入失败");
+                },
+                row -> {
+                    if (row == 2) {
+                        throw new IllegalStateException("字段超长");
+                    }
+                    rows.add(row);
+                });
+        queue.start();
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getFailed() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(1, 3), rows);
+        assertEquals(2, queue.getWritten());
+        assertEquals(1, queue.getFailed());
+    }
+
+    @Test
+    @DisplayName("停止时应写完缓冲区中剩余的记录")
+    void shouldFlushRemainingOnStop() {
+        queue = queue(64, 100, 60_000, 0);
+        queue.start();
+
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        queue.stop();
+
+        assertEquals(5, queue.getWritten());
+        List<Integer> written = new ArrayList<>();
+        batches.forEach(written::addAll);
+        Collections.sort(written);
+        assertEquals(List.of(0, 1, 2, 3, 4), written);
+        queue = null;
+    }
+
+    private WriteBehindQueue<Integer> queue(int capacity, int batchSize, long flushInterval, long offerTimeout) {
+        return new WriteBehindQueue<>("test", capacity, batchSize, flushInterval,
+                offerTimeout, batch -> batches.add(new ArrayList<>(batch)), rows::add);
+    }
+
+    /**
+     * 启动写线程并等待写入指定条数
+     */
+    private void awaitWritten(long expected) throws InterruptedException {
+        queue.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getWritten() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, queue.getWritten());
+    }
+}
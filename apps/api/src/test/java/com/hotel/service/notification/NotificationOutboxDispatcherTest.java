@@ -0,0 +1,213 @@
+package com.hotel.service.notification;
+
+import com.hotel.entity.User;
+import com.hotel.entity.notification.NotificationOutbox;
+import com.hotel.repository.UserRepository;
+import com.hotel.repository.notification.NotificationOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("通知邮件发件箱投递器测试")
+class NotificationOutboxDispatcherTest {
+
+    private static final String CLAIM_TOKEN = "claim-1";
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private NotificationOutboxService outboxService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new NotificationOutboxService(outboxRepository);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxService, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(outboxService, "maxBackoffSeconds", 3600L);
+        ReflectionTestUtils.setField(outboxService, "leaseSeconds", 300L);
+    }
+
+    @Test
+    @DisplayName("一批邮件应通过一次发送全部投递并标记成功")
+    void shouldSendBatchAndMarkSent() throws Exception {
+        when(userRepository.selectBatchIds(anyCollection())).thenReturn(Arrays.asList(
+                user(10L, "alice@example.com"), user(11L, "bob@example.com")));
+        NotificationOutboxDispatcher dispatcher = dispatcher(smtpPort());
+
+        dispatcher.dispatch(Arrays.asList(
+                outbox(1L, 10L, null, 1),
+                outbox(2L, 11L, null, 1),
+                outbox(3L, null, "carol@example.com", 1)));
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("预订确认 - 1", received[0].getSubject());
+        verify(userRepository, times(1)).selectBatchIds(anyCollection());
+        verify(outboxRepository).markSent(Arrays.asList(1L, 2L, 3L), CLAIM_TOKEN);
+        verify(outboxRepository, never()).reschedule(anyLong(), anyString(), any(), anyString());
+        assertEquals(3.0, meterRegistry.get("hotel.notification.outbox.messages").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    @DisplayName("SMTP 不可用时应按退避时间重新排队")
+    void shouldRescheduleWhenSmtpUnavailable() throws IOException {
+        NotificationOutboxDispatcher dispatcher = dispatcher(unusedPort());
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch(Arrays.asList(
+                outbox(1L, null, "alice@example.com", 1),
+                outbox(2L, null, "bob@example.com", 2)));
+
+        verify(outboxRepository).reschedule(eq(1L), eq(CLAIM_TOKEN),
+                argThat(time -> !time.isBefore(before.plusSeconds(30)) && time.isBefore(before.plusSeconds(40))),
+                anyString());
+        verify(outboxRepository).reschedule(eq(2L), eq(CLAIM_TOKEN),
+                argThat(time -> !time.isBefore(before.plusSeconds(60)) && time.isBefore(before.plusSeconds(70))),
+                anyString());
+        verify(outboxRepository, never()).markSent(anyList(), anyString());
+        assertEquals(2.0, meterRegistry.get("hotel.notification.outbox.messages").tag("result", "retried").counter().count());
+    }
+
+    @Test
+    @DisplayName("达到最大发送次数后应标记为最终失败")
+    void shouldFailAfterMaxAttempts() throws IOException {
+        NotificationOutboxDispatcher dispatcher = dispatcher(unusedPort());
+
+        dispatcher.dispatch(Collections.singletonList(outbox(1L, null, "alice@example.com", 3)));
+
+        verify(outboxRepository).markFailed(eq(1L), eq(CLAIM_TOKEN), anyString());
+        verify(outboxRepository, never()).reschedule(anyLong(), anyString(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("用户没有邮箱时应直接标记失败而不重试")
+    void shouldFailWhenUserHasNoEmail() {
+        when(userRepository.selectBatchIds(anyCollection())).thenReturn(Collections.singletonList(user(10L, null)));
+        NotificationOutboxDispatcher dispatcher = dispatcher(smtpPort());
+
+        dispatcher.dispatch(Collections.singletonList(outbox(1L, 10L, null, 1)));
+
+        verify(outboxRepository).markFailed(1L, CLAIM_TOKEN, "用户不存在或没有邮箱");
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    @DisplayName("投递线程应循环认领直到发件箱取空")
+    void shouldDrainUntilEmpty() {
+        AtomicReference<String> claimToken = new AtomicReference<>();
+        when(outboxRepository.lockDueIds(any(LocalDateTime.class), eq(50)))
+                .thenReturn(Collections.singletonList(1L))
+                .thenReturn(Collections.emptyList());
+        when(outboxRepository.markSending(anyList(), anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            claimToken.set(invocation.getArgument(1));
+            return 1;
+        });
+        when(outboxRepository.findByClaimToken(anyString())).thenAnswer(invocation -> {
+            NotificationOutbox outbox = outbox(1L, null, "alice@example.com", 1);
+            outbox.setClaimToken(invocation.getArgument(0));
+            return Collections.singletonList(outbox);
+        });
+        NotificationOutboxDispatcher dispatcher = dispatcher(smtpPort());
+
+        dispatcher.poll();
+
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        verify(outboxRepository, times(2)).lockDueIds(any(LocalDateTime.class), eq(50));
+        verify(outboxRepository).markSent(Collections.singletonList(1L), claimToken.get());
+        assertEquals(0, dispatcher.getActiveWorkers());
+    }
+
+    @Test
+    @DisplayName("重试间隔应逐次翻倍且不超过上限")
+    void shouldBackoffExponentially() {
+        assertEquals(Duration.ofSeconds(30), outboxService.backoff(1));
+        assertEquals(Duration.ofSeconds(60), outboxService.backoff(2));
+        assertEquals(Duration.ofSeconds(1920), outboxService.backoff(7));
+        assertEquals(Duration.ofSeconds(3600), outboxService.backoff(8));
+        assertEquals(Duration.ofSeconds(3600), outboxService.backoff(100));
+    }
+
+    // 辅助方法
+
+    private NotificationOutboxDispatcher dispatcher(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        mailSender.setDefaultEncoding("UTF-8");
+
+        NotificationOutboxDispatcher dispatcher = new NotificationOutboxDispatcher(
+                outboxService, userRepository, mailSender, meterRegistry, Runnable::run);
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "workers", 2);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "from", "noreply@hotel.com");
+        return dispatcher;
+    }
+
+    private static int smtpPort() {
+        return greenMail.getSmtp().getPort();
+    }
+
+    /**
+     * 取一个当前没有监听的端口，模拟 SMTP 服务不可用
+     */
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static NotificationOutbox outbox(Long id, Long userId, String recipient, int attempts) {
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setId(id);
+        outbox.setUserId(userId);
+        outbox.setRecipient(recipient);
+        outbox.setMessageType("BOOKING_CONFIRMATION");
+        outbox.setSubject("预订确认 - " + id);
+        outbox.setBody("<p>订单 " + id + " 已确认</p>");
+        outbox.setStatus(NotificationOutbox.STATUS_SENDING);
+        outbox.setAttempts(attempts);
+        outbox.setClaimToken(CLAIM_TOKEN);
+        return outbox;
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -6,7 +6,6 @@ import com.hotel.enums.AdjustmentType;
 import com.hotel.repository.pricing.PricingRuleRepository;
 import com.hotel.exception.BusinessException;
 import com.hotel.exception.ResourceNotFoundException;
-import com.hotel.service.PricingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -32,7 +31,7 @@ class PricingRuleServiceTest {
     private PricingRuleRepository pricingRuleRepository;
 
     @Mock
-    private PricingService pricingService;
+    private PricingRuleTable pricingRuleTable;
 
     @InjectMocks
     private PricingRuleService pricingRuleService;
@@ -127,6 +126,7 @@ class PricingRuleServiceTest {
     void testUpdateRule_Success() {
         // Given
         PricingRule updateRequest = new PricingRule();
+        updateRequest.setHotelId(1L);
         updateRequest.setName("更新后的规则");
         updateRequest.setRuleType("HOLIDAY");
         updateRequest.setAdjustmentType("FIXED_AMOUNT");
@@ -152,6 +152,32 @@ class PricingRuleServiceTest {
         verify(pricingRuleRepository).updateById(any(PricingRule.class));
     }
 
+    @Test
+    @DisplayName("测试更新价格规则 - 移到其他酒店时两个酒店的规则表都应重建")
+    void testUpdateRule_MoveHotelInvalidatesBoth() {
+        // Given
+        PricingRule updateRequest = new PricingRule();
+        updateRequest.setHotelId(2L);
+        updateRequest.setName("周末价格上浮");
+        updateRequest.setRuleType("WEEKEND");
+        updateRequest.setAdjustmentType("PERCENTAGE");
+        updateRequest.setAdjustmentValue(new BigDecimal("20.00"));
+        updateRequest.setIsActive(true);
+        updateRequest.setPriority(100);
+
+        when(pricingRuleRepository.selectById(1L)).thenReturn(testRule);
+        when(pricingRuleRepository.countByName(eq(2L), anyString(), eq(1L))).thenReturn(0);
+        when(pricingRuleRepository.updateById(any(PricingRule.class))).thenReturn(1);
+
+        // When
+        PricingRule result = pricingRuleService.updateRule(1L, updateRequest);
+
+        // Then
+        assertEquals(2L, result.getHotelId());
+        verify(pricingRuleTable).invalidate(1L);
+        verify(pricingRuleTable).invalidate(2L);
+    }
+
     @Test
     @DisplayName("测试更新价格规则 - 规则不存在")
     void testUpdateRule_RuleNotFound() {
@@ -19,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -64,6 +65,8 @@ class PricingServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(pricingService, "pricingRuleTable", new PricingRuleTable(pricingRuleRepository));
+
         // 设置测试房间类型
         testRoomType = new RoomType();
         testRoomType.setId(1L);
@@ -127,9 +130,9 @@ class PricingServiceTest {
         // Given
         when(roomRepository.selectById(1L)).thenReturn(testRoom);
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class()))).thenReturn(List.of());
+        when(specialPriceRepository.findForRoomInDateRange(anyLong(), anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of());
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(1L, 1L)).thenReturn(List.of());
 
         LocalDate testDate = LocalDate.of(2025, 1, 15); // 周三
 
@@ -137,7 +140,7 @@ class PricingServiceTest {
         BigDecimal price = pricingService.calculateRoomPrice(1L, testDate);
 
         // Then
-        assertEquals(new BigDecimal("200.00"), price);
+        assertEquals(0, new BigDecimal("200.00").compareTo(price));
     }
 
     @Test
@@ -146,9 +149,9 @@ class PricingServiceTest {
         // Given
         when(roomRepository.selectById(1L)).thenReturn(testRoom);
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class()))).thenReturn(List.of(weekendRule));
+        when(specialPriceRepository.findForRoomInDateRange(anyLong(), anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of());
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(1L, 1L)).thenReturn(List.of(weekendRule));
 
         LocalDate testDate = LocalDate.of(2025, 1, 18); // 周六
 
@@ -156,7 +159,7 @@ class PricingServiceTest {
         BigDecimal price = pricingService.calculateRoomPrice(1L, testDate);
 
         // Then
-        assertEquals(new BigDecimal("240.00"), price); // 200 * 1.2
+        assertEquals(0, new BigDecimal("240.00").compareTo(price)); // 200 * 1.2
     }
 
     @Test
@@ -165,8 +168,9 @@ class PricingServiceTest {
         // Given
         when(roomRepository.selectById(1L)).thenReturn(testRoom);
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(specialPrice);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class()))).thenReturn(List.of(weekendRule, holidayRule));
+        when(specialPriceRepository.findForRoomInDateRange(anyLong(), anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of(specialPrice));
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(1L, 1L)).thenReturn(List.of(holidayRule, weekendRule));
 
         LocalDate testDate = LocalDate.of(2025, 1, 1); // 元旦（周三）
 
@@ -174,7 +178,7 @@ class PricingServiceTest {
         BigDecimal price = pricingService.calculateRoomPrice(1L, testDate);
 
         // Then
-        assertEquals(new BigDecimal("299.00"), price); // 特殊价格优先，不应用其他规则
+        assertEquals(0, new BigDecimal("299.00").compareTo(price)); // 特殊价格优先，不应用其他规则
     }
 
     @Test
@@ -187,14 +191,14 @@ class PricingServiceTest {
         customRule.setAdjustmentType("FIXED_AMOUNT");
         customRule.setAdjustmentValue(new BigDecimal("50.00"));
         customRule.setIsActive(true);
-        customRule.setPriority(50);
+        customRule.setPriority(150);
 
         when(roomRepository.selectById(1L)).thenReturn(testRoom);
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class())))
-                .thenReturn(List.of(customRule, weekendRule)); // 按优先级排序
+        when(specialPriceRepository.findForRoomInDateRange(anyLong(), anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of());
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(1L, 1L))
+                .thenReturn(List.of(customRule, weekendRule)); // 按优先级降序
 
         LocalDate testDate = LocalDate.of(2025, 1, 18); // 周六
 
@@ -204,7 +208,7 @@ class PricingServiceTest {
         // Then
         // 基础价格200 + 固定金额50 = 250
         // 然后应用周末20%上浮: 250 * 1.2 = 300
-        assertEquals(new BigDecimal("300.00"), price);
+        assertEquals(0, new BigDecimal("300.00").compareTo(price));
     }
 
     @Test
@@ -213,9 +217,9 @@ class PricingServiceTest {
         // Given
         when(roomRepository.selectById(1L)).thenReturn(testRoom);
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class()))).thenReturn(List.of(weekendRule));
+        when(specialPriceRepository.findForRoomInDateRange(anyLong(), anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of());
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(1L, 1L)).thenReturn(List.of(weekendRule));
 
         LocalDate startDate = LocalDate.of(2025, 1, 17); // 周五
         LocalDate endDate = LocalDate.of(2025, 1, 19); // 周日
@@ -225,9 +229,9 @@ class PricingServiceTest {
 
         // Then
         assertEquals(3, prices.size());
-        assertEquals(new BigDecimal("200.00"), prices.get(LocalDate.of(2025, 1, 17))); // 周五
-        assertEquals(new BigDecimal("240.00"), prices.get(LocalDate.of(2025, 1, 18))); // 周六
-        assertEquals(new BigDecimal("240.00"), prices.get(LocalDate.of(2025, 1, 19))); // 周日
+        assertEquals(0, new BigDecimal("200.00").compareTo(prices.get(LocalDate.of(2025, 1, 17)))); // 周五
+        assertEquals(0, new BigDecimal("240.00").compareTo(prices.get(LocalDate.of(2025, 1, 18)))); // 周六
+        assertEquals(0, new BigDecimal("240.00").compareTo(prices.get(LocalDate.of(2025, 1, 19)))); // 周日
     }
 
     @Test
@@ -235,8 +239,8 @@ class PricingServiceTest {
     void testCalculateRoomTypePrice() {
         // Given
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class()))).thenReturn(List.of(weekendRule));
+        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class))).thenReturn(null);
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(1L, 1L)).thenReturn(List.of(weekendRule));
 
         LocalDate testDate = LocalDate.of(2025, 1, 18); // 周六
 
@@ -244,14 +248,14 @@ class PricingServiceTest {
         BigDecimal price = pricingService.calculateRoomTypePrice(1L, 1L, testDate);
 
         // Then
-        assertEquals(new BigDecimal("240.00"), price); // 200 * 1.2
+        assertEquals(0, new BigDecimal("240.00").compareTo(price)); // 200 * 1.2
     }
 
     @Test
     @DisplayName("测试节假日检查")
     void testIsHoliday() {
         // Given
-        when(holidayRepository.isHoliday(any(LocalDate.class()))).thenReturn(true);
+        when(holidayRepository.isHoliday(any(LocalDate.class))).thenReturn(true);
 
         LocalDate testDate = LocalDate.of(2025, 1, 1);
 
@@ -267,7 +271,7 @@ class PricingServiceTest {
     @DisplayName("测试获取节假日信息")
     void testGetHoliday() {
         // Given
-        when(holidayRepository.findByDate(any(LocalDate.class()))).thenReturn(holiday);
+        when(holidayRepository.findByDate(any(LocalDate.class))).thenReturn(holiday);
 
         LocalDate testDate = LocalDate.of(2025, 1, 1);
 
@@ -353,8 +357,7 @@ class PricingServiceTest {
         // Given
         testRoomType.setBasePrice(null);
         when(roomTypeRepository.selectById(1L)).thenReturn(testRoomType);
-        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class()))).thenReturn(null);
-        when(pricingRuleRepository.findApplicableRules(anyLong(), anyLong(), any(LocalDate.class()))).thenReturn(List.of());
+        when(specialPriceRepository.findByRoomTypeIdAndDate(anyLong(), any(LocalDate.class))).thenReturn(null);
 
         LocalDate testDate = LocalDate.of(2025, 1, 15);
 
@@ -364,6 +367,6 @@ class PricingServiceTest {
                 () -> pricingService.calculateRoomTypePrice(1L, 1L, testDate)
         );
 
-        assertEquals("房间和房间类型都没有设置价格", exception.getMessage());
+        assertEquals("房间类型没有设置基础价格", exception.getMessage());
     }
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+package com.hotel.service.pricing;
+
+import com.hotel.entity.Room;
+import com.hotel.entity.RoomType;
+import com.hotel.entity.pricing.PricingRule;
+import com.hotel.entity.pricing.SpecialPrice;
+import com.hotel.repository.RoomRepository;
+import com.hotel.repository.RoomTypeRepository;
+import com.hotel.repository.pricing.HolidayRepository;
+import com.hotel.repository.pricing.PriceHistoryRepository;
+import com.hotel.repository.pricing.PricingRuleRepository;
+import com.hotel.repository.pricing.SpecialPriceRepository;
+import com.hotel.service.PricingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 日期范围价格引擎与实体规则语义的一致性测试
+ *
+ * 仓储桩按SQL条件从同一份测试数据中过滤；参考价格在测试中直接用
+ * PricingRule#isApplicableForDate / applyAdjustment 逐条计算，被测路径使用预编译规则表。
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("日期范围价格引擎测试")
+class RangePricingEngineTest {
+
+    @Mock
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Mock
+    private SpecialPriceRepository specialPriceRepository;
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private HolidayRepository holidayRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private RoomTypeRepository roomTypeRepository;
+
+    @InjectMocks
+    private PricingService pricingService;
+
+    private final List<SpecialPrice> specialPrices = new ArrayList<>();
+    private final List<PricingRule> rules = new ArrayList<>();
+    private RoomType roomType;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pricingService, "pricingRuleTable", new PricingRuleTable(pricingRuleRepository));
+
+        roomType = new RoomType();
+        roomType.setId(1L);
+        roomType.setHotelId(1L);
+        roomType.setBasePrice(new BigDecimal("200.00"));
+
+        Room room = new Room();
+        room.setId(1L);
+        room.setHotelId(1L);
+        room.setRoomTypeId(1L);
+        room.setPrice(new BigDecimal("180.00"));
+
+        // 房间级特殊价格、房间类型级特殊价格、其他房间的特殊价格
+        specialPrices.add(specialPrice(1L, 1L, 1L, LocalDate.of(2025, 1, 20), "299.00"));
+        specialPrices.add(specialPrice(2L, 1L, null, LocalDate.of(2025, 1, 21), "259.00"));
+        specialPrices.add(specialPrice(3L, 1L, null, LocalDate.of(2025, 1, 20), "199.00"));
+        specialPrices.add(specialPrice(4L, 1L, 2L, LocalDate.of(2025, 1, 22), "999.00"));
+
+        // 周末上浮、季节性固定加价、停用规则、其他房型规则
+        rules.add(rule(1L, 1L, "PERCENTAGE", "20.00", 100, null, null, Arrays.asList(6, 7), true));
+        rules.add(rule(2L, null, "FIXED_AMOUNT", "50.00", 200,
+                LocalDate.of(2025, 1, 23), LocalDate.of(2025, 1, 26), null, true));
+        rules.add(rule(3L, 1L, "PERCENTAGE", "-50.00", 300, null, null, null, false));
+        rules.add(rule(4L, 2L, "FIXED_AMOUNT", "80.00", 50, null, null, null, true));
+
+        when(roomRepository.selectById(1L)).thenReturn(room);
+        when(roomTypeRepository.selectById(1L)).thenReturn(roomType);
+
+        when(specialPriceRepository.findForRoomInDateRange(anyLong(), anyLong(), any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(inv -> {
+                    Long roomId = inv.getArgument(0);
+                    Long roomTypeId = inv.getArgument(1);
+                    LocalDate start = inv.getArgument(2);
+                    LocalDate end = inv.getArgument(3);
+                    return specialPrices.stream()
+                            .filter(sp -> roomId.equals(sp.getRoomId())
+                                    || (sp.getRoomId() == null && roomTypeId.equals(sp.getRoomTypeId())))
+                            .filter(sp -> !sp.getDate().isBefore(start) && !sp.getDate().isAfter(end))
+                            .collect(Collectors.toList());
+                });
+        when(pricingRuleRepository.findActiveByHotelIdAndRoomTypeId(anyLong(), anyLong()))
+                .thenAnswer(inv -> candidateRules(inv.getArgument(1), LocalDate.MIN, LocalDate.MAX));
+    }
+
+    @Test
+    @DisplayName("批量计算结果应与实体规则逐晚计算一致")
+    void shouldMatchPerNightCalculation() {
+        LocalDate startDate = LocalDate.of(2025, 1, 15);
+        LocalDate endDate = LocalDate.of(2025, 2, 5);
+
+        Map<LocalDate, BigDecimal> batch = pricingService.calculateRoomPricesForDateRange(1L, startDate, endDate);
+
+        assertEquals(22, batch.size());
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            assertEquals(0, referencePrice(date).compareTo(batch.get(date)), "日期 " + date);
+        }
+    }
+
+    @Test
+    @DisplayName("单晚价格应走预编译规则并与实体规则计算一致")
+    void shouldPriceSingleNightThroughCompiledRules() {
+        for (LocalDate date = LocalDate.of(2025, 1, 18); date.isBefore(LocalDate.of(2025, 1, 26)); date = date.plusDays(1)) {
+            assertEquals(0, referencePrice(date).compareTo(pricingService.calculateRoomPrice(1L, date)), "日期 " + date);
+        }
+
+        verify(pricingRuleRepository, times(1)).findActiveByHotelIdAndRoomTypeId(1L, 1L);
+        verify(pricingRuleRepository, never()).findApplicableRules(anyLong(), anyLong(), any());
+        verify(specialPriceRepository, never()).findByRoomIdAndDate(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("总价应与逐晚计算之和一致")
+    void shouldMatchPerNightTotal() {
+        LocalDate checkIn = LocalDate.of(2025, 1, 17);
+        LocalDate checkOut = LocalDate.of(2025, 1, 31);
+
+        BigDecimal expected = BigDecimal.ZERO;
+        for (LocalDate date = checkIn; date.isBefore(checkOut); date = date.plusDays(1)) {
+            expected = expected.add(referencePrice(date));
+        }
+
+        assertEquals(0, expected.compareTo(pricingService.calculateTotalPrice(1L, checkIn, checkOut)));
+    }
+
+    @Test
+    @DisplayName("14晚报价的数据库查询次数应为常数")
+    void shouldUseConstantQueriesForRange() {
+        pricingService.calculateTotalPrice(1L, LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 29));
+
+        verify(roomRepository, times(1)).selectById(1L);
+        verify(roomTypeRepository, times(1)).selectById(1L);
+        verify(specialPriceRepository, times(1)).findForRoomInDateRange(anyLong(), anyLong(), any(), any());
+        verify(pricingRuleRepository, times(1)).findActiveByHotelIdAndRoomTypeId(1L, 1L);
+        verify(specialPriceRepository, never()).findByRoomIdAndDate(anyLong(), any());
+        verify(pricingRuleRepository, never()).findApplicableRules(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("规则表在未变更时应复用，变更后应重建并递增版本")
+    void shouldReuseCompiledRulesUntilInvalidated() {
+        PricingRuleTable table = (PricingRuleTable) ReflectionTestUtils.getField(pricingService, "pricingRuleTable");
+        CompiledPricingRules first = table.get(1L, 1L);
+        assertSame(first, table.get(1L, 1L));
+
+        rules.get(0).setIsActive(false);
+        table.invalidate(1L);
+
+        CompiledPricingRules rebuilt = table.get(1L, 1L);
+        assertNotSame(first, rebuilt);
+        assertTrue(rebuilt.getVersion() > first.getVersion());
+        assertEquals(first.size() - 1, rebuilt.size());
+    }
+
+    @Test
+    @DisplayName("定时刷新在规则未变化时不应递增版本")
+    void shouldKeepVersionWhenRefreshFindsNoChange() {
+        PricingRuleTable table = (PricingRuleTable) ReflectionTestUtils.getField(pricingService, "pricingRuleTable");
+        CompiledPricingRules first = table.get(1L, 1L);
+        long version = table.getVersion();
+
+        table.refreshAll();
+
+        assertEquals(version, table.getVersion());
+        assertSame(first, table.get(1L, 1L));
+
+        rules.get(1).setAdjustmentValue(new BigDecimal("60.00"));
+        table.refreshAll();
+
+        assertTrue(table.getVersion() > version);
+        assertNotSame(first, table.get(1L, 1L));
+    }
+
+    @Test
+    @DisplayName("特殊价格应按房间级优先于房间类型级")
+    void shouldPreferRoomSpecialPrice() {
+        Map<LocalDate, BigDecimal> prices = pricingService.calculateRoomPricesForDateRange(
+                1L, LocalDate.of(2025, 1, 20), LocalDate.of(2025, 1, 22));
+
+        assertEquals(0, new BigDecimal("299.00").compareTo(prices.get(LocalDate.of(2025, 1, 20))));
+        assertEquals(0, new BigDecimal("259.00").compareTo(prices.get(LocalDate.of(2025, 1, 21))));
+        assertEquals(0, new BigDecimal("200.00").compareTo(prices.get(LocalDate.of(2025, 1, 22))));
+    }
+
+    /**
+     * 按实体语义计算参考价格：房间级特殊价格、房间类型级特殊价格，否则基础价格逐条应用规则
+     */
+    private BigDecimal referencePrice(LocalDate date) {
+        for (SpecialPrice sp : specialPrices) {
+            if (Long.valueOf(1L).equals(sp.getRoomId()) && sp.getDate().equals(date)) {
+                return sp.getPrice();
+            }
+        }
+        for (SpecialPrice sp : specialPrices) {
+            if (sp.getRoomId() == null && Long.valueOf(1L).equals(sp.getRoomTypeId()) && sp.getDate().equals(date)) {
+                return sp.getPrice();
+            }
+        }
+        BigDecimal price = roomType.getBasePrice();
+        for (PricingRule rule : candidateRules(1L, date, date)) {
+            if (rule.isApplicableForDate(date)) {
+                price = rule.applyAdjustment(price);
+            }
+        }
+        return price;
+    }
+
+    private List<PricingRule> candidateRules(Long roomTypeId, LocalDate start, LocalDate end) {
+        return rules.stream()
+                .filter(r -> r.getRoomTypeId() == null || r.getRoomTypeId().equals(roomTypeId))
+                .filter(r -> Boolean.TRUE.equals(r.getIsActive()))
+                .filter(r -> r.getStartDate() == null || !r.getStartDate().isAfter(end))
+                .filter(r -> r.getEndDate() == null || !r.getEndDate().isBefore(start))
+                .sorted(Comparator.comparing(PricingRule::getPriority).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private SpecialPrice specialPrice(Long id, Long roomTypeId, Long roomId, LocalDate date, String price) {
+        SpecialPrice specialPrice = new SpecialPrice();
+        specialPrice.setId(id);
+        specialPrice.setHotelId(1L);
+        specialPrice.setRoomTypeId(roomTypeId);
+        specialPrice.setRoomId(roomId);
+        specialPrice.setDate(date);
+        specialPrice.setPrice(new BigDecimal(price));
+        return specialPrice;
+    }
+
+    private PricingRule rule(Long id, Long roomTypeId, String adjustmentType, String value, int priority,
+                             LocalDate startDate, LocalDate endDate, List<Integer> daysOfWeek, boolean active) {
+        PricingRule rule = new PricingRule();
+        rule.setId(id);
+        rule.setHotelId(1L);
+        rule.setRoomTypeId(roomTypeId);
+        rule.setName("规则" + id);
+        rule.setAdjustmentType(adjustmentType);
+        rule.setAdjustmentValue(new BigDecimal(value));
+        rule.setPriority(priority);
+        rule.setStartDate(startDate);
+        rule.setEndDate(endDate);
+        rule.setDaysOfWeekList(daysOfWeek);
+        rule.setIsActive(active);
+        return rule;
+    }
+}
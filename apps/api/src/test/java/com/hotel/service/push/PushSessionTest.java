@@ -0,0 +1,97 @@
+package com.hotel.service.push;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("推送连接测试")
+class PushSessionTest {
+
+    @Mock
+    private WebSocketSession webSocketSession;
+
+    private final List<String> sent = new ArrayList<>();
+
+    private PushSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (message instanceof TextMessage) {
+                sent.add(((TextMessage) message).getPayload());
+            }
+            return null;
+        }).when(webSocketSession).sendMessage(any());
+        session = new PushSession(webSocketSession, 7L);
+    }
+
+    @Test
+    @DisplayName("实时事件按序号去重")
+    void shouldSkipDuplicateEvents() {
+        session.deliver(event(1));
+        session.deliver(event(2));
+        session.deliver(event(2));
+        session.deliver(event(1));
+
+        assertEquals(Arrays.asList(payload(1), payload(2)), sent);
+    }
+
+    @Test
+    @DisplayName("补发期间到达的实时事件在补发之后按序号发送且不重复")
+    void shouldBufferLiveEventsDuringReplay() {
+        session.beginReplay();
+        session.deliver(event(13));
+        session.deliver(event(12));
+        assertTrue(sent.isEmpty());
+
+        session.finishReplay(10, Arrays.asList(event(11), event(12)));
+
+        assertEquals(Arrays.asList(payload(11), payload(12), payload(13)), sent);
+    }
+
+    @Test
+    @DisplayName("不发送序号不大于客户端已收到序号的事件")
+    void shouldSkipEventsAtOrBelowBaseline() {
+        session.beginReplay();
+        session.deliver(event(5));
+
+        session.finishReplay(5, Collections.emptyList());
+        session.deliver(event(6));
+
+        assertEquals(Arrays.asList(payload(6)), sent);
+    }
+
+    @Test
+    @DisplayName("补发记录解析后带上事件ID")
+    void shouldParseLogEntryWithId() {
+        SequencedEvent event = PushService.parseLogEntry("42|{\"type\":\"NOTIFICATION_CREATED\",\"data\":{}}");
+
+        assertEquals(42L, event.getSequence());
+        assertEquals("{\"id\":\"42\",\"type\":\"NOTIFICATION_CREATED\",\"data\":{}}", event.getPayload());
+    }
+
+    private static SequencedEvent event(long sequence) {
+        return new SequencedEvent(sequence, payload(sequence));
+    }
+
+    private static String payload(long sequence) {
+        return "{\"id\":\"" + sequence + "\"}";
+    }
+}
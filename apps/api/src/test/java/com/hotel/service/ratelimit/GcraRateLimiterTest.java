@@ -0,0 +1,122 @@
+package com.hotel.service.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GCRA 限流器测试")
+class GcraRateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private GcraRateLimiter rateLimiter;
+
+    /**
+     * 以固定的全局剩余令牌数模拟 Redis 中的桶，时间不流逝
+     */
+    private long bucket;
+
+    /**
+     * 每次脚本调用的 {requested, refund}
+     */
+    private final List<long[]> calls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new GcraRateLimiter(stringRedisTemplate);
+        ReflectionTestUtils.setField(rateLimiter, "leaseMaxBatch", 20);
+        ReflectionTestUtils.setField(rateLimiter, "leaseTtlMs", 60_000L);
+        lenient().when(stringRedisTemplate.execute(any(RedisScript.class), anyList(),
+                anyString(), anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            long requested = Long.parseLong(invocation.getArgument(4));
+            long refund = Long.parseLong(invocation.getArgument(5));
+            calls.add(new long[]{requested, refund});
+            bucket += refund;
+            long granted = Math.min(requested, bucket);
+            bucket -= granted;
+            return List.of(granted, bucket);
+        });
+    }
+
+    @Test
+    @DisplayName("本地租约应承接大部分请求且总准入数不超过配额")
+    void shouldPreAdmitLocallyWithoutExceedingLimit() {
+        bucket = 100;
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(rateLimiter.tryAcquire("api:user:1", 100, Duration.ofSeconds(1)));
+        }
+        // 批量依次为 2、4、8，之后以配额的 1/10 为上限
+        assertTrue(calls.size() <= 12, "Redis 调用次数: " + calls.size());
+        assertTrue(calls.stream().allMatch(call -> call[0] <= 10));
+
+        for (int i = 0; i < 20; i++) {
+            assertFalse(rateLimiter.tryAcquire("api:user:1", 100, Duration.ofSeconds(1)));
+        }
+        assertEquals(0, bucket);
+    }
+
+    @Test
+    @DisplayName("配额较小时每个请求都应到 Redis 判定")
+    void shouldNotLeaseForSmallLimits() {
+        bucket = 5;
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire("batch:1", 5, Duration.ofMinutes(5)));
+        }
+        assertFalse(rateLimiter.tryAcquire("batch:1", 5, Duration.ofMinutes(5)));
+
+        assertEquals(6, calls.size());
+        assertTrue(calls.stream().allMatch(call -> call[0] == 1 && call[1] == 0));
+    }
+
+    @Test
+    @DisplayName("租约过期时剩余令牌应归还并将批量回到 1")
+    void shouldRefundLeftoverTokens() {
+        ReflectionTestUtils.setField(rateLimiter, "leaseTtlMs", -1L);
+        bucket = 100;
+
+        assertTrue(rateLimiter.tryAcquire("api:ip:1", 100, Duration.ofSeconds(1)));
+        assertTrue(rateLimiter.tryAcquire("api:ip:1", 100, Duration.ofSeconds(1)));
+
+        assertArrayEquals(new long[]{2, 0}, calls.get(0));
+        assertArrayEquals(new long[]{1, 1}, calls.get(1));
+        assertEquals(98, bucket);
+    }
+
+    @Test
+    @DisplayName("剩余许可应包含本地未使用的令牌")
+    void shouldIncludeLocalTokensInRemaining() {
+        bucket = 100;
+        rateLimiter.tryAcquire("api:user:2", 100, Duration.ofSeconds(1));
+
+        assertEquals(99, rateLimiter.remaining("api:user:2", 100, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("Redis 异常时应放行请求")
+    void shouldAllowWhenRedisUnavailable() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(),
+                anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("连接失败"));
+
+        assertTrue(rateLimiter.tryAcquire("api:user:3", 10, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.hotel.service.report;
+
+import com.hotel.dto.report.OrderReportDTO;
+import com.hotel.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("订单报表指标聚合器测试")
+class OrderMetricsAggregatorTest {
+
+    private final LocalDate startDate = LocalDate.of(2024, 11, 29);
+    private final LocalDate endDate = LocalDate.of(2024, 12, 2);
+
+    private OrderMetricsAggregator aggregator;
+
+    private final Map<Long, String> roomTypeNames = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        Map<Long, Long> roomTypeIdByRoomId = new HashMap<>();
+        roomTypeIdByRoomId.put(1L, 10L);
+        roomTypeIdByRoomId.put(2L, 10L);
+        roomTypeIdByRoomId.put(3L, 20L);
+        aggregator = new OrderMetricsAggregator(startDate, endDate, roomTypeIdByRoomId);
+
+        roomTypeNames.put(10L, "标准间");
+        roomTypeNames.put(20L, "豪华套房");
+    }
+
+    @Test
+    @DisplayName("单次遍历应得到全部订单报表指标")
+    void shouldAggregateAllMetrics() {
+        aggregator.acceptAll(Arrays.asList(
+                order(1L, "COMPLETED", "300.00", LocalDateTime.of(2024, 11, 29, 10, 0)),
+                order(2L, "COMPLETED", "200.50", LocalDateTime.of(2024, 11, 30, 20, 0)),
+                order(3L, "COMPLETED", "999.99", LocalDateTime.of(2024, 12, 1, 9, 30)),
+                order(3L, "CANCELLED", "999.99", LocalDateTime.of(2024, 12, 1, 11, 0)),
+                order(99L, "PENDING", "100.00", LocalDateTime.of(2024, 12, 2, 8, 0))
+        ));
+
+        OrderReportDTO report = new OrderReportDTO();
+        aggregator.writeTo(report, roomTypeNames);
+
+        assertEquals(5L, report.getTotalOrders());
+        assertEquals(new BigDecimal("1500.49"), report.getTotalRevenue());
+        assertEquals(new BigDecimal("300.10"), report.getAverageOrderValue());
+        assertEquals(3L, report.getOrdersByStatus().get("COMPLETED"));
+        assertEquals(1L, report.getOrdersByStatus().get("CANCELLED"));
+        assertEquals(60.0, report.getCompletionRate(), 1e-9);
+        assertEquals(20.0, report.getCancellationRate(), 1e-9);
+
+        assertEquals(Arrays.asList(1L, 1L, 2L, 1L), Arrays.asList(report.getOrdersByDate().values().toArray()));
+        assertEquals(new BigDecimal("999.99"), report.getOrderTrends().get(2).getRevenue());
+        assertEquals(new BigDecimal("500.50"), report.getRevenueByMonth().get("2024-11"));
+        assertEquals(new BigDecimal("999.99"), report.getRevenueByMonth().get("2024-12"));
+
+        assertEquals(2L, report.getOrdersByRoomType().get("标准间"));
+        assertEquals(2L, report.getOrdersByRoomType().get("豪华套房"));
+        assertEquals(1L, report.getOrdersByRoomType().get("未知房型"));
+        assertEquals(3, report.getRoomTypePreferences().size());
+        assertEquals(new BigDecimal("500.50"), report.getRoomTypePreferences().stream()
+                .filter(preference -> "标准间".equals(preference.getRoomTypeName()))
+                .findFirst().orElseThrow(AssertionError::new).getRevenue());
+    }
+
+    @Test
+    @DisplayName("应按特殊要求和下单时间判断渠道")
+    void shouldDetermineChannel() {
+        Order online = order(1L, "PENDING", "100.00", LocalDateTime.of(2024, 12, 1, 3, 0));
+        online.setSpecialRequests("Booked on WEBSITE");
+        Order phone = order(1L, "PENDING", "100.00", LocalDateTime.of(2024, 12, 1, 3, 0));
+        phone.setSpecialRequests("电话预订");
+
+        assertEquals("官网", OrderMetricsAggregator.CHANNELS[OrderMetricsAggregator.channelIndex(online)]);
+        assertEquals("电话", OrderMetricsAggregator.CHANNELS[OrderMetricsAggregator.channelIndex(phone)]);
+        // 2024-12-02 为周一
+        assertEquals("官网", OrderMetricsAggregator.CHANNELS[OrderMetricsAggregator.channelIndex(
+                order(1L, "PENDING", "100.00", LocalDateTime.of(2024, 12, 2, 10, 0)))]);
+        assertEquals("微信", OrderMetricsAggregator.CHANNELS[OrderMetricsAggregator.channelIndex(
+                order(1L, "PENDING", "100.00", LocalDateTime.of(2024, 12, 1, 10, 0)))]);
+        assertEquals("其他", OrderMetricsAggregator.CHANNELS[OrderMetricsAggregator.channelIndex(
+                order(1L, "PENDING", "100.00", null))]);
+    }
+
+    @Test
+    @DisplayName("没有订单时比率为零且每天都有趋势数据")
+    void shouldHandleEmptyInput() {
+        OrderReportDTO report = new OrderReportDTO();
+        aggregator.writeTo(report, roomTypeNames);
+
+        assertEquals(0L, report.getTotalOrders());
+        assertEquals(BigDecimal.ZERO, report.getAverageOrderValue());
+        assertEquals(0.0, report.getCompletionRate());
+        assertEquals(4, report.getOrderTrends().size());
+        assertTrue(report.getRevenueByMonth().isEmpty());
+        assertTrue(report.getRoomTypePreferences().isEmpty());
+        assertTrue(aggregator.getRoomTypeIds().isEmpty());
+    }
+
+    private Order order(Long roomId, String status, String totalPrice, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setRoomId(roomId);
+        order.setStatus(status);
+        order.setTotalPrice(new BigDecimal(totalPrice));
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+}
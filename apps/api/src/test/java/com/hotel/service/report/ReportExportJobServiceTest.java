@@ -0,0 +1,261 @@
+package com.hotel.service.report;
+
+import com.hotel.dto.report.ReportExportRequest;
+import com.hotel.entity.report.ReportExportJob;
+import com.hotel.exception.ReportException;
+import com.hotel.repository.report.ReportExportJobRepository;
+import com.hotel.service.ReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("报表导出任务服务测试")
+class ReportExportJobServiceTest {
+
+    @Mock
+    private ReportExportJobRepository jobRepository;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    @TempDir
+    Path exportDir;
+
+    /**
+     * 以内存表模拟任务表
+     */
+    private final Map<String, ReportExportJob> jobs = new HashMap<>();
+
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jobRepository.insert(any(ReportExportJob.class))).thenAnswer(invocation -> {
+            ReportExportJob job = invocation.getArgument(0);
+            jobs.put(job.getId(), job);
+            return 1;
+        });
+        lenient().when(jobRepository.selectById(anyString()))
+                .thenAnswer(invocation -> jobs.get(invocation.<String>getArgument(0)));
+        lenient().when(jobRepository.updateById(any(ReportExportJob.class))).thenAnswer(invocation -> {
+            ReportExportJob update = invocation.getArgument(0);
+            ReportExportJob job = jobs.get(update.getId());
+            if (update.getStatus() != null) {
+                job.setStatus(update.getStatus());
+            }
+            if (update.getProgress() != null) {
+                job.setProgress(update.getProgress());
+            }
+            if (update.getNodeId() != null) {
+                job.setNodeId(update.getNodeId());
+            }
+            if (update.getFilePath() != null) {
+                job.setFilePath(update.getFilePath());
+            }
+            if (update.getFileSize() != null) {
+                job.setFileSize(update.getFileSize());
+            }
+            if (update.getErrorMessage() != null) {
+                job.setErrorMessage(update.getErrorMessage());
+            }
+            return 1;
+        });
+    }
+
+    @Test
+    @DisplayName("参数相同的任务执行期间重复提交应返回同一任务")
+    void shouldDeduplicateIdenticalRequests() {
+        ReportExportJobService service = service(queuedTasks::add);
+
+        ReportExportJob first = service.submit(request("EXCEL"), 1L);
+        ReportExportJob second = service.submit(request("EXCEL"), 2L);
+        ReportExportJob other = service.submit(request("PDF"), 1L);
+
+        assertEquals(first.getId(), second.getId());
+        assertNotEquals(first.getId(), other.getId());
+        assertEquals(ReportExportJob.STATUS_QUEUED, first.getStatus());
+        assertEquals(2, queuedTasks.size());
+        verify(jobRepository, times(2)).insert(any(ReportExportJob.class));
+    }
+
+    @Test
+    @DisplayName("任务完成后应写入文件并记录进度，之后的相同请求创建新任务")
+    void shouldRunJobAndWriteFile() throws Exception {
+        byte[] content = {1, 2, 3, 4};
+        when(reportService.renderReport(any(ReportExportRequest.class), any(IntConsumer.class))).thenAnswer(invocation -> {
+            IntConsumer progress = invocation.getArgument(1);
+            progress.accept(60);
+            assertEquals(ReportExportJob.STATUS_RUNNING, jobs.values().iterator().next().getStatus());
+            assertEquals(60, jobs.values().iterator().next().getProgress());
+            return content;
+        });
+        ReportExportJobService service = service(queuedTasks::add);
+
+        ReportExportJob job = service.submit(request("EXCEL"), 1L);
+        queuedTasks.remove(0).run();
+
+        assertEquals(ReportExportJob.STATUS_SUCCEEDED, job.getStatus());
+        assertEquals(100, job.getProgress());
+        assertEquals(4L, job.getFileSize());
+        Path file = service.getFile(job);
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertEquals(exportDir.resolve("jobs"), file.getParent());
+        assertEquals("node-a", job.getNodeId());
+        assertFalse(Path.of(job.getFilePath()).isAbsolute());
+        assertEquals("ORDER_20241201_20241231.xlsx", job.getFileName());
+
+        ReportExportJob next = service.submit(request("EXCEL"), 1L);
+        assertNotEquals(job.getId(), next.getId());
+    }
+
+    @Test
+    @DisplayName("生成失败时任务应标记为失败并记录原因")
+    void shouldMarkJobFailed() {
+        when(reportService.renderReport(any(ReportExportRequest.class), any(IntConsumer.class)))
+                .thenThrow(new IllegalArgumentException("不支持的报表类型"));
+        ReportExportJobService service = service(Runnable::run);
+
+        ReportExportJob job = service.submit(request("EXCEL"), 1L);
+
+        assertEquals(ReportExportJob.STATUS_FAILED, job.getStatus());
+        assertEquals("不支持的报表类型", job.getErrorMessage());
+        ReportException e = assertThrows(ReportException.class, () -> service.getFile(job));
+        assertEquals("EXPORT_JOB_NOT_READY", e.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("导出队列已满时应拒绝提交")
+    void shouldRejectWhenQueueFull() {
+        ReportExportJobService service = service(task -> {
+            throw new TaskRejectedException("队列已满");
+        });
+
+        ReportException e = assertThrows(ReportException.class, () -> service.submit(request("EXCEL"), 1L));
+
+        assertEquals("EXPORT_QUEUE_FULL", e.getErrorCode());
+        assertEquals(ReportExportJob.STATUS_FAILED, jobs.values().iterator().next().getStatus());
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    @DisplayName("其他节点提交的相同任务应直接复用")
+    void shouldReuseActiveJobFromDatabase() {
+        ReportExportJob existing = new ReportExportJob();
+        existing.setId("existing-job");
+        existing.setStatus(ReportExportJob.STATUS_RUNNING);
+        jobs.put(existing.getId(), existing);
+        when(jobRepository.findActiveByDedupKey(ReportExportJobService.dedupKey(request("EXCEL")))).thenReturn(existing);
+        ReportExportJobService service = service(queuedTasks::add);
+
+        ReportExportJob job = service.submit(request("EXCEL"), 1L);
+
+        assertEquals("existing-job", job.getId());
+        assertTrue(queuedTasks.isEmpty());
+        verify(jobRepository, never()).insert(any(ReportExportJob.class));
+    }
+
+    @Test
+    @DisplayName("非共享存储时其他实例生成的文件不应从本实例下载")
+    void shouldRejectFileFromOtherNodeWithoutSharedStorage() throws Exception {
+        ReportExportJob job = succeededJob("node-b");
+
+        ReportException e = assertThrows(ReportException.class, () -> service(Runnable::run).getFile(job));
+        assertEquals("EXPORT_FILE_ON_OTHER_NODE", e.getErrorCode());
+
+        ReportExportJobService shared = service(Runnable::run);
+        ReflectionTestUtils.setField(shared, "sharedStorage", true);
+        assertEquals(exportDir.resolve(job.getFilePath()), shared.getFile(job));
+    }
+
+    @Test
+    @DisplayName("非共享存储时只清理本实例生成的过期任务")
+    void shouldCleanupOwnJobsWithoutSharedStorage() throws Exception {
+        ReportExportJob job = succeededJob("node-a");
+        when(jobRepository.findFinishedBefore(any(LocalDateTime.class), eq("node-a"), anyInt()))
+                .thenReturn(List.of(job));
+
+        service(Runnable::run).cleanup();
+
+        assertFalse(Files.exists(exportDir.resolve(job.getFilePath())));
+        verify(jobRepository).deleteById(job.getId());
+        verifyNoInteractions(redissonClient);
+    }
+
+    @Test
+    @DisplayName("共享存储时未取得清理锁应跳过，取得后清理全部实例的过期任务")
+    void shouldCleanupUnderLockWithSharedStorage() throws Exception {
+        ReportExportJob job = succeededJob("node-b");
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(false, true);
+        when(jobRepository.findFinishedBefore(any(LocalDateTime.class), isNull(), anyInt())).thenReturn(List.of(job));
+        ReportExportJobService service = service(Runnable::run);
+        ReflectionTestUtils.setField(service, "sharedStorage", true);
+
+        service.cleanup();
+        verify(jobRepository, never()).findFinishedBefore(any(), any(), anyInt());
+
+        service.cleanup();
+        assertFalse(Files.exists(exportDir.resolve(job.getFilePath())));
+        verify(jobRepository).deleteById(job.getId());
+        verify(lock).unlock();
+    }
+
+    private ReportExportJob succeededJob(String nodeId) throws Exception {
+        Path dir = Files.createDirectories(exportDir.resolve("jobs"));
+        ReportExportJob job = new ReportExportJob();
+        job.setId("finished-job");
+        job.setStatus(ReportExportJob.STATUS_SUCCEEDED);
+        job.setNodeId(nodeId);
+        job.setFilePath("jobs/finished-job.xlsx");
+        Files.write(dir.resolve("finished-job.xlsx"), new byte[]{1});
+        return job;
+    }
+
+    private ReportExportJobService service(Executor executor) {
+        ReportExportJobService service = new ReportExportJobService(jobRepository, reportService, redissonClient, executor);
+        ReflectionTestUtils.setField(service, "exportPath", exportDir.toString());
+        ReflectionTestUtils.setField(service, "retentionHours", 24);
+        ReflectionTestUtils.setField(service, "staleMinutes", 30);
+        ReflectionTestUtils.setField(service, "nodeId", "node-a");
+        return service;
+    }
+
+    private ReportExportRequest request(String format) {
+        ReportExportRequest request = new ReportExportRequest();
+        request.setReportType(ReportExportRequest.ReportType.ORDER);
+        request.setExportFormat(format);
+        request.setStartDate(LocalDate.of(2024, 12, 1));
+        request.setEndDate(LocalDate.of(2024, 12, 31));
+        return request;
+    }
+}
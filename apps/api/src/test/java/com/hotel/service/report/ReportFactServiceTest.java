@@ -0,0 +1,223 @@
+package com.hotel.service.report;
+
+import com.hotel.entity.Order;
+import com.hotel.entity.Room;
+import com.hotel.entity.report.ReportDailyFact;
+import com.hotel.repository.OrderRepository;
+import com.hotel.repository.RoomRepository;
+import com.hotel.repository.report.ReportDailyFactRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("报表日汇总事实服务测试")
+class ReportFactServiceTest {
+
+    @Mock
+    private ReportDailyFactRepository factRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock lock;
+
+    @InjectMocks
+    private ReportFactService service;
+
+    private final LocalDate today = LocalDate.of(2024, 12, 1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("订单增量应包含创建日期行和每个入住夜的在住行")
+    void shouldBuildOrderDeltas() {
+        Order order = order(1L, today.plusDays(1), today.plusDays(4));
+
+        List<ReportDailyFact> deltas = ReportFactService.orderDeltas(order, room(1L, 2L), today, 1, true);
+
+        assertEquals(4, deltas.size());
+        assertEquals(today, deltas.get(0).getStatDate());
+        assertEquals(1, deltas.get(0).getOrderCount());
+        assertEquals(3, deltas.get(0).getBookedNights());
+        assertEquals(0, deltas.get(0).getOccupiedRooms());
+        for (int i = 1; i < deltas.size(); i++) {
+            assertEquals(today.plusDays(i), deltas.get(i).getStatDate());
+            assertEquals(1, deltas.get(i).getOccupiedRooms());
+            assertEquals(2L, deltas.get(i).getRoomTypeId());
+        }
+    }
+
+    @Test
+    @DisplayName("当天入住的订单应合并到同一行")
+    void shouldMergeSameDayRows() {
+        Order order = order(1L, today, today.plusDays(2));
+
+        List<ReportDailyFact> deltas = ReportFactService.orderDeltas(order, room(1L, 2L), today, -1, true);
+
+        assertEquals(2, deltas.size());
+        assertEquals(-1, deltas.get(0).getOrderCount());
+        assertEquals(-1, deltas.get(0).getOccupiedRooms());
+        assertEquals(-1, deltas.get(1).getOccupiedRooms());
+    }
+
+    @Test
+    @DisplayName("取消待确认订单只记一次取消，不影响在住房间数")
+    @SuppressWarnings("unchecked")
+    void shouldRecordCancellationOfPendingOrder() {
+        Order order = order(1L, today.plusDays(1), today.plusDays(3));
+        order.setCreatedAt(today.atTime(10, 0));
+        when(roomRepository.selectById(1L)).thenReturn(room(1L, 2L));
+
+        service.onOrderCancelled(order, "PENDING");
+
+        ArgumentCaptor<List<ReportDailyFact>> captor = ArgumentCaptor.forClass(List.class);
+        verify(factRepository).upsertDeltas(captor.capture());
+        List<ReportDailyFact> deltas = captor.getValue();
+        assertEquals(1, deltas.size());
+        assertEquals(0, deltas.get(0).getOrderCount());
+        assertEquals(1, deltas.get(0).getCancelledCount());
+        assertEquals(-2, deltas.get(0).getBookedNights());
+    }
+
+    @Test
+    @DisplayName("重建时应按入住夜汇总在住房间数并截断到重建范围")
+    @SuppressWarnings("unchecked")
+    void shouldRebuildOccupancy() {
+        when(roomRepository.selectList(any())).thenReturn(Arrays.asList(room(1L, 2L), room(2L, 2L), room(3L, 3L)));
+        when(orderRepository.findOccupyingOrders(isNull(), eq(today), eq(today.plusDays(3)))).thenReturn(Arrays.asList(
+                order(1L, today.minusDays(2), today.plusDays(1)),
+                order(2L, today, today.plusDays(5)),
+                order(3L, today.plusDays(1), today.plusDays(2)),
+                order(99L, today, today.plusDays(1))
+        ));
+        List<ReportDailyFact> upserted = new ArrayList<>();
+        doAnswer(invocation -> upserted.addAll(invocation.getArgument(0)))
+                .when(factRepository).upsertDeltas(anyList());
+
+        service.rebuild(today, today.plusDays(2));
+
+        verify(factRepository).deleteByDateRange(today, today.plusDays(2));
+        verify(factRepository).insertBookingFacts(today, today.plusDays(2));
+        assertEquals(Arrays.asList(2, 1, 1, 1), occupied(upserted, today, today.plusDays(1), today.plusDays(2)));
+        assertTrue(upserted.stream().noneMatch(fact -> fact.getStatDate().isAfter(today.plusDays(2))));
+    }
+
+    @Test
+    @DisplayName("对账应重新汇总窗口之前创建但最近有更新的订单")
+    void shouldRefreshFactsOfRecentlyUpdatedOrders() {
+        ReflectionTestUtils.setField(service, "reconcileDays", 7);
+        ReflectionTestUtils.setField(service, "futureDays", 365);
+        LocalDate windowStart = LocalDate.now().minusDays(7);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(true);
+
+        service.scheduledReconcile();
+
+        verify(factRepository).deleteByDateRange(windowStart, LocalDate.now().plusDays(365));
+        verify(factRepository).refreshBookingFactsForUpdatedOrders(windowStart.atStartOfDay(), windowStart);
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("其他实例持有重建锁时应跳过启动回填和对账")
+    void shouldSkipRebuildWhenLockHeldByOtherInstance() {
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(false);
+
+        service.onApplicationReady();
+        service.scheduledReconcile();
+
+        verifyNoInteractions(factRepository, orderRepository);
+        verify(lock, never()).unlock();
+    }
+
+    @Test
+    @DisplayName("事实表为空时启动回填应在持锁期间重建并释放锁")
+    void shouldBackfillUnderLock() {
+        ReflectionTestUtils.setField(service, "backfillDays", 730);
+        ReflectionTestUtils.setField(service, "futureDays", 365);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock()).thenReturn(true);
+        when(factRepository.selectCount(null)).thenReturn(0L);
+
+        service.onApplicationReady();
+
+        verify(factRepository).deleteByDateRange(LocalDate.now().minusDays(730), LocalDate.now().plusDays(365));
+        verify(lock).unlock();
+    }
+
+    @Test
+    @DisplayName("禁用时不写入增量")
+    void shouldSkipWhenDisabled() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+
+        service.onOrderCreated(order(1L, today, today.plusDays(1)));
+
+        verifyNoInteractions(roomRepository, factRepository);
+    }
+
+    /**
+     * 依次返回：当天房型2、次日房型2、次日房型3、第三天房型2 的在住房间数
+     */
+    private List<Integer> occupied(List<ReportDailyFact> facts, LocalDate first, LocalDate second, LocalDate third) {
+        return Arrays.asList(
+                occupied(facts, first, 2L),
+                occupied(facts, second, 2L),
+                occupied(facts, second, 3L),
+                occupied(facts, third, 2L));
+    }
+
+    private int occupied(List<ReportDailyFact> facts, LocalDate date, Long roomTypeId) {
+        return facts.stream()
+                .filter(fact -> fact.getStatDate().equals(date) && fact.getRoomTypeId().equals(roomTypeId))
+                .mapToInt(ReportDailyFact::getOccupiedRooms)
+                .sum();
+    }
+
+    private Order order(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        Order order = new Order();
+        order.setRoomId(roomId);
+        order.setCheckInDate(checkIn);
+        order.setCheckOutDate(checkOut);
+        order.setCreatedAt(LocalDateTime.of(2024, 11, 20, 9, 0));
+        order.setStatus("CONFIRMED");
+        return order;
+    }
+
+    private Room room(Long id, Long roomTypeId) {
+        Room room = new Room();
+        room.setId(id);
+        room.setHotelId(1L);
+        room.setRoomTypeId(roomTypeId);
+        return room;
+    }
+}
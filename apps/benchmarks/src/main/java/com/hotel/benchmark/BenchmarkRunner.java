@@ -0,0 +1,58 @@
+package com.hotel.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 基准测试入口
+ *
+ * 运行全部或按正则筛选的基准，结果以 JSON 写入 results/hotel-api-{版本}.json，
+ * 提交到仓库后可按版本对比。命令行参数与 JMH 自带入口一致，显式指定的参数优先：
+ * <pre>
+ * java -jar target/benchmarks.jar                      # 全部基准
+ * java -jar target/benchmarks.jar Pricing -prof gc     # 名称匹配 Pricing 的基准，附带 GC 统计
+ * java -jar target/benchmarks.jar -rff /tmp/run.json   # 指定结果文件
+ * </pre>
+ * 各基准的预热、测量轮次、fork 数和堆大小在类上固定，夹具数据使用固定随机种子生成，
+ * 同一机器上的多次运行结果可直接比较。
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULTS_DIR = "results";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(ResultFormatType.JSON);
+
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("com\\.hotel\\.benchmark\\..*");
+        }
+        if (!commandLine.getResult().hasValue()) {
+            Path result = Paths.get(RESULTS_DIR, "hotel-api-" + version() + ".json");
+            Files.createDirectories(result.getParent());
+            options.result(result.toString());
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    private static String version() {
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+}
@@ -0,0 +1,236 @@
+package com.hotel.benchmark.booking;
+
+import com.hotel.benchmark.fixture.InMemoryMappers;
+import com.hotel.entity.Order;
+import com.hotel.entity.Room;
+import com.hotel.repository.OrderRepository;
+import com.hotel.repository.RoomRepository;
+import com.hotel.service.availability.RoomAvailabilityIndex;
+import com.hotel.service.booking.BookingAdmissionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * 预订准入基准
+ *
+ * 高竞争下对比分片准入与原先按房间加锁的路径：少量房间、8 个线程，80% 可用性查询、20% 预订。
+ * 数据库往返用 parkNanos 模拟；分片路径读取房间占用索引，持久化在分片写线程之外进行，
+ * 提交时先更新索引再结束占位，与生产一致。
+ * 每轮测量前重建服务和订单数据，避免房间被订满后全部走拒绝分支。
+ * 运行：java -jar target/benchmarks.jar BookingAdmission
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Threads(8)
+public class BookingAdmissionBenchmark {
+
+    /**
+     * 参与竞争的房间数
+     */
+    @Param({"4"})
+    private int rooms;
+
+    /**
+     * 模拟一次数据库往返的耗时（纳秒）
+     */
+    @Param({"50000"})
+    private long dbLatencyNanos;
+
+    private final LocalDate today = LocalDate.now();
+
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+    private BookingAdmissionService admissionService;
+    private Map<Long, List<Order>> persisted;
+    private final AtomicLong orderIds = new AtomicLong();
+    private LockPath lockPath;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        persisted = new ConcurrentHashMap<>();
+        RoomRepository roomRepository = InMemoryMappers.of(RoomRepository.class)
+                .on("selectList", args -> LongStream.rangeClosed(1, rooms)
+                        .mapToObj(BookingAdmissionBenchmark::room)
+                        .collect(Collectors.toList()))
+                .on("selectById", args -> room((Long) args[0]))
+                .build();
+        OrderRepository orderRepository = InMemoryMappers.of(OrderRepository.class)
+                .on("findOccupyingOrders", args -> {
+                    LockSupport.parkNanos(dbLatencyNanos);
+                    if (args[0] == null) {
+                        return persisted.values().stream().flatMap(List::stream).collect(Collectors.toList());
+                    }
+                    List<Order> orders = persisted.getOrDefault((Long) args[0], Collections.emptyList());
+                    synchronized (orders) {
+                        return new ArrayList<>(orders);
+                    }
+                })
+                .build();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate() {
+            @Override
+            public void convertAndSend(String channel, Object message) {
+                // 单进程基准，不需要通知其他节点
+            }
+        };
+        roomAvailabilityIndex = new RoomAvailabilityIndex(roomRepository, orderRepository, redisTemplate, null);
+        roomAvailabilityIndex.rebuild();
+        admissionService = new BookingAdmissionService(roomAvailabilityIndex);
+        admissionService.start();
+        lockPath = new LockPath(dbLatencyNanos);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        admissionService.stop();
+    }
+
+    @Benchmark
+    public boolean shardAdmission() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long roomId = 1 + random.nextInt(rooms);
+        LocalDate checkIn = today.plusDays(10 + random.nextInt(300));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+        if (random.nextInt(10) < 8) {
+            return admissionService.isAvailable(roomId, checkIn, checkOut);
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            if (!admissionService.tryAdmit(roomId, checkIn, checkOut)) {
+                return false;
+            }
+            // 持久化在分片写线程之外进行
+            LockSupport.parkNanos(dbLatencyNanos);
+            Order order = order(orderIds.incrementAndGet(), roomId, checkIn, checkOut);
+            persisted.computeIfAbsent(roomId, k -> Collections.synchronizedList(new ArrayList<>())).add(order);
+            roomAvailabilityIndex.onOrderConfirmed(order);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCommit();
+            }
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            return true;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Benchmark
+    public boolean lockPerRoom() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long roomId = 1 + random.nextInt(rooms);
+        LocalDate checkIn = today.plusDays(10 + random.nextInt(300));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+        return random.nextInt(10) < 8
+                ? lockPath.isAvailable(roomId, checkIn, checkOut)
+                : lockPath.tryBook(roomId, checkIn, checkOut);
+    }
+
+    private static Room room(Long id) {
+        Room room = new Room();
+        room.setId(id);
+        room.setHotelId(1L);
+        room.setRoomTypeId(1L);
+        return room;
+    }
+
+    private static Order order(Long id, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        Order order = new Order();
+        order.setId(id);
+        order.setRoomId(roomId);
+        order.setCheckInDate(checkIn);
+        order.setCheckOutDate(checkOut);
+        order.setStatus("CONFIRMED");
+        return order;
+    }
+
+    /**
+     * 原 ConcurrentBookingConflictService 的加锁路径：
+     * 可用性检查持有房间锁，预订持有按房间和精确日期构造的锁，每次检查和写入都访问数据库
+     */
+    private static final class LockPath {
+
+        private final long dbLatencyNanos;
+        private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+        private final Map<Long, List<long[]>> orders = new ConcurrentHashMap<>();
+
+        private LockPath(long dbLatencyNanos) {
+            this.dbLatencyNanos = dbLatencyNanos;
+        }
+
+        private boolean isAvailable(long roomId, LocalDate checkIn, LocalDate checkOut) {
+            ReentrantLock lock = locks.computeIfAbsent("room_availability:room:" + roomId, k -> new ReentrantLock());
+            lock.lock();
+            try {
+                return query(roomId, checkIn, checkOut);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean tryBook(long roomId, LocalDate checkIn, LocalDate checkOut) {
+            String key = "conflict_detect:room:" + roomId + ":dates:" + checkIn + "_" + checkOut;
+            ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+            lock.lock();
+            try {
+                if (!query(roomId, checkIn, checkOut)) {
+                    return false;
+                }
+                LockSupport.parkNanos(dbLatencyNanos);
+                orders.computeIfAbsent(roomId, k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(new long[]{checkIn.toEpochDay(), checkOut.toEpochDay()});
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean query(long roomId, LocalDate checkIn, LocalDate checkOut) {
+            LockSupport.parkNanos(dbLatencyNanos);
+            List<long[]> roomOrders = orders.getOrDefault(roomId, Collections.emptyList());
+            synchronized (roomOrders) {
+                for (long[] order : roomOrders) {
+                    if (order[0] < checkOut.toEpochDay() && order[1] > checkIn.toEpochDay()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
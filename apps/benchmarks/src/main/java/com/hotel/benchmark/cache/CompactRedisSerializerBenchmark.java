@@ -0,0 +1,148 @@
+package com.hotel.benchmark.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotel.config.CacheConfig;
+import com.hotel.dto.review.incentive.ReviewLeaderboardDTO;
+import com.hotel.dto.room.RoomResponse;
+import com.hotel.service.cache.CompactRedisSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存序列化基准
+ *
+ * 对比原 JSON 序列化器与紧凑二进制序列化器的编解码耗时，样本为缓存中常见的单个房间、房间列表和评价排行榜。
+ * 二进制格式更小这一点由单元测试断言，这里只测速度。
+ * 运行：java -jar target/benchmarks.jar CompactRedisSerializer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class CompactRedisSerializerBenchmark {
+
+    /**
+     * 缓存样本：room 单个房间，rooms 50 个房间的列表，leaderboard 100 条的排行榜
+     */
+    @Param({"room", "rooms", "leaderboard"})
+    private String sample;
+
+    private Jackson2JsonRedisSerializer<Object> json;
+    private CompactRedisSerializer binary;
+
+    private Object value;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        json = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+        CacheConfig.configureObjectMapper(objectMapper);
+        json.setObjectMapper(objectMapper);
+        binary = new CompactRedisSerializer(CacheConfig::configureObjectMapper, json, true, true, 1024);
+
+        value = sampleValue(sample);
+        jsonBytes = json.serialize(value);
+        binaryBytes = binary.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return json.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binary.serialize(value);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    private static Object sampleValue(String sample) {
+        switch (sample) {
+            case "room":
+                return room(1);
+            case "rooms":
+                List<RoomResponse> rooms = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    rooms.add(room(i));
+                }
+                return rooms;
+            case "leaderboard":
+                return leaderboard(100);
+            default:
+                throw new IllegalArgumentException("未知样本: " + sample);
+        }
+    }
+
+    private static RoomResponse room(int i) {
+        RoomResponse room = new RoomResponse();
+        room.setId((long) i);
+        room.setHotelId(1L);
+        room.setRoomTypeId(1L + i % 4);
+        room.setRoomNumber(String.valueOf(1000 + i));
+        room.setFloor(1 + i / 20);
+        room.setArea(35);
+        room.setStatus("AVAILABLE");
+        room.setPrice(new BigDecimal("388.00"));
+        room.setImages(Arrays.asList("/images/rooms/" + i + "-1.jpg", "/images/rooms/" + i + "-2.jpg"));
+        room.setCreatedAt(LocalDateTime.of(2024, 12, 1, 10, 0));
+        room.setUpdatedAt(LocalDateTime.of(2024, 12, 7, 18, 30));
+        room.setRoomTypeName("豪华大床房");
+        room.setCalculatedPrice(new BigDecimal("358.00"));
+        room.setPriceChanged(true);
+        room.setPriceChange(new BigDecimal("-30.00"));
+        room.setPriceChangePercentage("-7.73%");
+        return room;
+    }
+
+    private static ReviewLeaderboardDTO leaderboard(int size) {
+        ReviewLeaderboardDTO leaderboard = new ReviewLeaderboardDTO();
+        leaderboard.setPeriodType("monthly");
+        leaderboard.setPeriod("2024-12");
+        leaderboard.setUpdatedAt(LocalDateTime.of(2024, 12, 7, 0, 0));
+        List<ReviewLeaderboardDTO.LeaderboardEntryDTO> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ReviewLeaderboardDTO.LeaderboardEntryDTO entry = new ReviewLeaderboardDTO.LeaderboardEntryDTO();
+            entry.setUserId((long) i);
+            entry.setUserName("user" + i);
+            entry.setUserAvatar("/avatars/" + i + ".png");
+            entry.setRank(i + 1);
+            entry.setTotalReviews(100 - i % 100);
+            entry.setQualityScore(90);
+            entry.setTotalPoints(5000 - i * 10);
+            entry.setIsCurrentUser(false);
+            entries.add(entry);
+        }
+        leaderboard.setEntries(entries);
+        return leaderboard;
+    }
+}
@@ -0,0 +1,229 @@
+package com.hotel.benchmark.fixture;
+
+import com.hotel.entity.Review;
+import com.hotel.entity.Room;
+import com.hotel.entity.RoomType;
+import com.hotel.entity.pricing.PricingRule;
+import com.hotel.entity.pricing.SpecialPrice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试夹具数据
+ *
+ * 所有数据由固定随机种子生成，同一参数下每次运行完全相同。
+ */
+public final class Fixtures {
+
+    public static final long SEED = 42L;
+
+    public static final long HOTEL_ID = 1L;
+
+    public static final LocalDate BASE_DATE = LocalDate.of(2025, 1, 1);
+
+    private static final String[] REVIEW_PHRASES = {
+            "房间很干净", "服务态度热情周到", "早餐种类丰富", "位置交通方便", "离地铁站很近",
+            "前台办理入住很快", "隔音效果一般", "空调有点吵", "床很舒适", "卫生间有异味",
+            "性价比很高", "下次还会入住", "推荐给朋友", "设施有些陈旧", "停车不太方便",
+            "窗外风景不错", "热水供应稳定", "网络速度很快", "房间面积偏小", "服务员帮忙搬行李",
+            "excellent location", "very clean and comfortable", "good breakfast", "would recommend"
+    };
+
+    private static final String[] XSS_PAYLOADS = {
+            "<script>alert('xss')</script>",
+            "<img src=x onerror=alert(1)>",
+            "<a href=\"javascript:alert(1)\">点击查看</a>",
+            "<iframe src=\"http://evil.example\"></iframe>",
+            "<div style=\"width: expression(alert(1))\">",
+            "\\u003cscript\\u003e"
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * 房间类型，ID 从 1 开始
+     */
+    public static List<RoomType> roomTypes(int count) {
+        List<RoomType> roomTypes = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            RoomType roomType = new RoomType();
+            roomType.setId(id);
+            roomType.setHotelId(HOTEL_ID);
+            roomType.setName("房型" + id);
+            roomType.setCapacity((int) (id % 4 + 1));
+            roomType.setBasePrice(BigDecimal.valueOf(199 + id * 40));
+            roomType.setStatus("ACTIVE");
+            roomTypes.add(roomType);
+        }
+        return roomTypes;
+    }
+
+    /**
+     * 房间，ID 从 1 开始，按 ID 轮流分配房间类型
+     */
+    public static List<Room> rooms(int count, int roomTypeCount) {
+        List<Room> rooms = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Room room = new Room();
+            room.setId(id);
+            room.setHotelId(HOTEL_ID);
+            room.setRoomTypeId(id % roomTypeCount + 1);
+            room.setRoomNumber(String.valueOf(100 * (id / 40 + 1) + id % 40));
+            room.setStatus("AVAILABLE");
+            rooms.add(room);
+        }
+        return rooms;
+    }
+
+    /**
+     * 价格规则：每个房间类型若干条，另有全酒店通用规则，覆盖百分比和固定金额、日期范围和星期限制
+     */
+    public static List<PricingRule> pricingRules(int roomTypeCount, int rulesPerRoomType) {
+        Random random = new Random(SEED);
+        List<PricingRule> rules = new ArrayList<>();
+        long id = 1;
+        rules.add(rule(id++, null, "周末上浮", "PERCENTAGE", BigDecimal.valueOf(20), null, null, "[5,6]", 10));
+        rules.add(rule(id++, null, "春节旺季", "PERCENTAGE", BigDecimal.valueOf(50),
+                LocalDate.of(2025, 1, 25), LocalDate.of(2025, 2, 8), null, 20));
+        for (long roomTypeId = 1; roomTypeId <= roomTypeCount; roomTypeId++) {
+            for (int i = 0; i < rulesPerRoomType; i++) {
+                LocalDate start = BASE_DATE.plusDays(random.nextInt(300));
+                boolean percentage = random.nextBoolean();
+                BigDecimal value = percentage
+                        ? BigDecimal.valueOf(random.nextInt(41) - 20)
+                        : BigDecimal.valueOf(random.nextInt(101) - 50);
+                String days = random.nextInt(3) == 0 ? "[1,2,3,4]" : null;
+                PricingRule rule = rule(id++, roomTypeId, "规则" + roomTypeId + "-" + i,
+                        percentage ? "PERCENTAGE" : "FIXED_AMOUNT", value,
+                        start, start.plusDays(30 + random.nextInt(60)), days, random.nextInt(10));
+                rule.setIsActive(random.nextInt(10) != 0);
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * 特殊价格：部分房间和房间类型在个别日期有固定价格
+     */
+    public static List<SpecialPrice> specialPrices(int roomCount, int roomTypeCount, int count) {
+        Random random = new Random(SEED + 1);
+        List<SpecialPrice> specialPrices = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            SpecialPrice specialPrice = new SpecialPrice();
+            specialPrice.setId(id);
+            specialPrice.setHotelId(HOTEL_ID);
+            if (random.nextBoolean()) {
+                long roomId = 1 + random.nextInt(roomCount);
+                specialPrice.setRoomId(roomId);
+                specialPrice.setRoomTypeId(roomId % roomTypeCount + 1);
+            } else {
+                specialPrice.setRoomTypeId(1L + random.nextInt(roomTypeCount));
+            }
+            specialPrice.setDate(BASE_DATE.plusDays(random.nextInt(365)));
+            specialPrice.setPrice(BigDecimal.valueOf(150 + random.nextInt(500)));
+            specialPrices.add(specialPrice);
+        }
+        return specialPrices;
+    }
+
+    /**
+     * 评价，评论长度、图片数量和分项评分的分布覆盖质量评分的各个分支
+     */
+    public static List<Review> reviews(int count) {
+        Random random = new Random(SEED + 2);
+        List<Review> reviews = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Review review = new Review();
+            review.setId(id);
+            review.setHotelId(HOTEL_ID);
+            review.setOverallRating(1 + random.nextInt(5));
+            review.setCleanlinessRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+            review.setServiceRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+            review.setFacilitiesRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+            review.setLocationRating(random.nextInt(4) == 0 ? null : 1 + random.nextInt(5));
+            review.setComment(comment(random, 1 + random.nextInt(25)));
+            int images = random.nextInt(6);
+            StringBuilder imageUrls = new StringBuilder();
+            for (int i = 0; i < images; i++) {
+                if (i > 0) {
+                    imageUrls.append(',');
+                }
+                imageUrls.append("/uploads/reviews/").append(id).append('-').append(i).append(".jpg");
+            }
+            review.setImages(imageUrls.length() > 0 ? imageUrls.toString() : null);
+            review.setStatus("PENDING");
+            reviews.add(review);
+        }
+        return reviews;
+    }
+
+    /**
+     * 多条评价拼接成的词云输入文本
+     */
+    public static String reviewCorpus(int reviewCount) {
+        Random random = new Random(SEED + 3);
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < reviewCount; i++) {
+            corpus.append(comment(random, 1 + random.nextInt(12))).append('\n');
+        }
+        return corpus.toString();
+    }
+
+    /**
+     * 用户输入，按比例混入常见 XSS 载荷
+     *
+     * @param count           条数
+     * @param maliciousPercent 含攻击载荷的百分比
+     */
+    public static List<String> userInputs(int count, int maliciousPercent) {
+        Random random = new Random(SEED + 4);
+        List<String> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String text = comment(random, 1 + random.nextInt(8));
+            if (random.nextInt(100) < maliciousPercent) {
+                int position = random.nextInt(text.length() + 1);
+                text = text.substring(0, position) + XSS_PAYLOADS[random.nextInt(XSS_PAYLOADS.length)]
+                        + text.substring(position);
+            }
+            inputs.add(text);
+        }
+        return inputs;
+    }
+
+    // 私有辅助方法
+
+    private static String comment(Random random, int phrases) {
+        StringBuilder comment = new StringBuilder();
+        for (int i = 0; i < phrases; i++) {
+            if (i > 0) {
+                comment.append(random.nextBoolean() ? "，" : "。");
+            }
+            comment.append(REVIEW_PHRASES[random.nextInt(REVIEW_PHRASES.length)]);
+        }
+        return comment.append('。').toString();
+    }
+
+    private static PricingRule rule(long id, Long roomTypeId, String name, String adjustmentType, BigDecimal value,
+                                    LocalDate startDate, LocalDate endDate, String daysOfWeek, int priority) {
+        PricingRule rule = new PricingRule();
+        rule.setId(id);
+        rule.setHotelId(HOTEL_ID);
+        rule.setRoomTypeId(roomTypeId);
+        rule.setName(name);
+        rule.setRuleType(daysOfWeek != null ? "WEEKEND" : "SEASONAL");
+        rule.setAdjustmentType(adjustmentType);
+        rule.setAdjustmentValue(value);
+        rule.setStartDate(startDate);
+        rule.setEndDate(endDate);
+        rule.setDaysOfWeek(daysOfWeek);
+        rule.setIsActive(true);
+        rule.setPriority(priority);
+        return rule;
+    }
+}
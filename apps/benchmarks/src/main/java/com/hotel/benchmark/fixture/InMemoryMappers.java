@@ -0,0 +1,63 @@
+package com.hotel.benchmark.fixture;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 基于动态代理的内存 Mapper
+ *
+ * 只实现基准路径实际调用的方法，按方法名分派到给定的处理函数，其余方法抛出异常，
+ * 避免基准在不知情时走到未准备数据的查询。
+ */
+public final class InMemoryMappers {
+
+    private InMemoryMappers() {
+    }
+
+    public static <T> Builder<T> of(Class<T> mapperType) {
+        return new Builder<>(mapperType);
+    }
+
+    public static final class Builder<T> {
+
+        private final Class<T> mapperType;
+        private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+        private Builder(Class<T> mapperType) {
+            this.mapperType = mapperType;
+        }
+
+        /**
+         * @param methodName 方法名，重载方法共用同一个处理函数
+         * @param handler    参数数组到返回值的函数
+         */
+        public Builder<T> on(String methodName, Function<Object[], Object> handler) {
+            handlers.put(methodName, handler);
+            return this;
+        }
+
+        public T build() {
+            Object proxy = Proxy.newProxyInstance(mapperType.getClassLoader(), new Class<?>[]{mapperType},
+                    (self, method, args) -> {
+                        Function<Object[], Object> handler = handlers.get(method.getName());
+                        if (handler != null) {
+                            return handler.apply(args);
+                        }
+                        switch (method.getName()) {
+                            case "toString":
+                                return "InMemory" + mapperType.getSimpleName();
+                            case "hashCode":
+                                return System.identityHashCode(self);
+                            case "equals":
+                                return self == args[0];
+                            default:
+                                throw new UnsupportedOperationException(
+                                        mapperType.getSimpleName() + "." + method.getName() + " 未在基准夹具中实现");
+                        }
+                    });
+            return mapperType.cast(proxy);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hotel.benchmark.pricing;
+
+import com.hotel.benchmark.fixture.Fixtures;
+import com.hotel.entity.pricing.PricingRule;
+import com.hotel.service.pricing.CompiledPricingRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 价格规则匹配基准
+ *
+ * 对一个房间类型的全部规则按 90 晚逐晚匹配和调整价格，对比实体上的
+ * PricingRule#isApplicableForDate / applyAdjustment（每次匹配都解析 daysOfWeek JSON）
+ * 与预编译的 {@link CompiledPricingRules}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class PricingRuleBenchmark {
+
+    private static final int NIGHTS = 90;
+
+    private static final BigDecimal BASE_PRICE = BigDecimal.valueOf(399);
+
+    private List<PricingRule> rules;
+    private CompiledPricingRules compiledRules;
+    private LocalDate[] dates;
+
+    @Setup
+    public void setUp() {
+        rules = Fixtures.pricingRules(12, 8).stream()
+                .filter(rule -> rule.getRoomTypeId() == null || rule.getRoomTypeId() == 1L)
+                .filter(rule -> Boolean.TRUE.equals(rule.getIsActive()))
+                .sorted((a, b) -> Integer.compare(b.getPriority(), a.getPriority()))
+                .collect(Collectors.toList());
+        compiledRules = new CompiledPricingRules(rules, 0);
+        dates = new LocalDate[NIGHTS];
+        for (int i = 0; i < NIGHTS; i++) {
+            dates[i] = Fixtures.BASE_DATE.plusDays(i);
+        }
+    }
+
+    @Benchmark
+    public void isApplicableForDate(Blackhole blackhole) {
+        for (LocalDate date : dates) {
+            for (PricingRule rule : rules) {
+                blackhole.consume(rule.isApplicableForDate(date));
+            }
+        }
+    }
+
+    @Benchmark
+    public void ruleApplyAdjustment(Blackhole blackhole) {
+        for (LocalDate date : dates) {
+            BigDecimal price = BASE_PRICE;
+            for (PricingRule rule : rules) {
+                if (rule.isApplicableForDate(date)) {
+                    price = rule.applyAdjustment(price);
+                }
+            }
+            blackhole.consume(price);
+        }
+    }
+
+    @Benchmark
+    public void compiledApply(Blackhole blackhole) {
+        for (LocalDate date : dates) {
+            blackhole.consume(compiledRules.apply(BASE_PRICE, date));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.hotel.benchmark.pricing;
+
+import com.hotel.benchmark.fixture.Fixtures;
+import com.hotel.benchmark.fixture.InMemoryMappers;
+import com.hotel.dto.order.PriceBreakdown;
+import com.hotel.dto.order.PricingRequest;
+import com.hotel.entity.Room;
+import com.hotel.entity.RoomType;
+import com.hotel.entity.pricing.PricingRule;
+import com.hotel.entity.pricing.SpecialPrice;
+import com.hotel.repository.RoomRepository;
+import com.hotel.repository.RoomTypeRepository;
+import com.hotel.repository.pricing.PricingRuleRepository;
+import com.hotel.repository.pricing.SpecialPriceRepository;
+import com.hotel.service.BookingPricingService;
+import com.hotel.service.PricingService;
+import com.hotel.service.pricing.PricingRuleTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 房价计算基准
+ *
+ * PricingService 与 BookingPricingService 直接实例化，仓储由内存 Mapper 提供，
+ * 不经过 Spring 代理，因此 @Cacheable 不生效，每次调用都完整计算。
+ * 规则表在预热阶段编译完成，测得的是稳定状态下的单次报价开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class PricingServiceBenchmark {
+
+    private static final int ROOM_TYPES = 12;
+    private static final int ROOMS = 500;
+
+    /**
+     * 入住晚数
+     */
+    @Param({"1", "7", "30"})
+    private int nights;
+
+    private PricingService pricingService;
+    private BookingPricingService bookingPricingService;
+
+    private long[] roomIds;
+    private LocalDate[] checkInDates;
+    private PricingRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Map<Long, Room> rooms = Fixtures.rooms(ROOMS, ROOM_TYPES).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<Long, RoomType> roomTypes = Fixtures.roomTypes(ROOM_TYPES).stream()
+                .collect(Collectors.toMap(RoomType::getId, Function.identity()));
+        List<PricingRule> rules = Fixtures.pricingRules(ROOM_TYPES, 8);
+        List<SpecialPrice> specialPrices = Fixtures.specialPrices(ROOMS, ROOM_TYPES, 2000);
+
+        RoomRepository roomRepository = InMemoryMappers.of(RoomRepository.class)
+                .on("selectById", args -> rooms.get((Long) args[0]))
+                .build();
+        RoomTypeRepository roomTypeRepository = InMemoryMappers.of(RoomTypeRepository.class)
+                .on("selectById", args -> roomTypes.get((Long) args[0]))
+                .build();
+        PricingRuleRepository pricingRuleRepository = InMemoryMappers.of(PricingRuleRepository.class)
+                .on("findActiveByHotelIdAndRoomTypeId", args -> activeRules(rules, (Long) args[0], (Long) args[1]))
+                .build();
+        // 按房间和房间类型预先分组，夹具查询的开销不计入被测代码
+        Map<Long, List<SpecialPrice>> roomSpecialPrices = specialPrices.stream()
+                .filter(price -> price.getRoomId() != null)
+                .collect(Collectors.groupingBy(SpecialPrice::getRoomId));
+        Map<Long, List<SpecialPrice>> roomTypeSpecialPrices = specialPrices.stream()
+                .filter(price -> price.getRoomId() == null)
+                .collect(Collectors.groupingBy(SpecialPrice::getRoomTypeId));
+        SpecialPriceRepository specialPriceRepository = InMemoryMappers.of(SpecialPriceRepository.class)
+                .on("findForRoomInDateRange", args -> {
+                    LocalDate startDate = (LocalDate) args[2];
+                    LocalDate endDate = (LocalDate) args[3];
+                    List<SpecialPrice> result = new ArrayList<>();
+                    addInRange(result, roomSpecialPrices.get((Long) args[0]), startDate, endDate);
+                    addInRange(result, roomTypeSpecialPrices.get((Long) args[1]), startDate, endDate);
+                    return result;
+                })
+                .build();
+
+        // 价格历史和节假日仓储不在报价路径上
+        pricingService = new PricingService(pricingRuleRepository, specialPriceRepository, null, null,
+                roomRepository, roomTypeRepository, new PricingRuleTable(pricingRuleRepository));
+        // 不使用优惠券，优惠券仓储不会被访问
+        bookingPricingService = new BookingPricingService(roomRepository, roomTypeRepository, null, pricingService);
+
+        // 固定顺序轮换房间和入住日期，避免只测到单一分支
+        int samples = 1024;
+        roomIds = new long[samples];
+        checkInDates = new LocalDate[samples];
+        requests = new PricingRequest[samples];
+        Random random = new Random(Fixtures.SEED);
+        for (int i = 0; i < samples; i++) {
+            roomIds[i] = 1 + random.nextInt(ROOMS);
+            checkInDates[i] = Fixtures.BASE_DATE.plusDays(random.nextInt(330));
+
+            PricingRequest request = new PricingRequest();
+            request.setRoomId(roomIds[i]);
+            request.setCheckInDate(checkInDates[i].toString());
+            request.setCheckOutDate(checkInDates[i].plusDays(nights).toString());
+            request.setGuestCount(2);
+            requests[i] = request;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotalPrice() {
+        int i = nextIndex();
+        return pricingService.calculateTotalPrice(roomIds[i], checkInDates[i], checkInDates[i].plusDays(nights));
+    }
+
+    @Benchmark
+    public PriceBreakdown bookingCalculatePrice() {
+        return bookingPricingService.calculatePrice(requests[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) & (roomIds.length - 1);
+        return i;
+    }
+
+    private static void addInRange(List<SpecialPrice> result, List<SpecialPrice> candidates,
+                                   LocalDate startDate, LocalDate endDate) {
+        if (candidates == null) {
+            return;
+        }
+        for (SpecialPrice price : candidates) {
+            if (!price.getDate().isBefore(startDate) && !price.getDate().isAfter(endDate)) {
+                result.add(price);
+            }
+        }
+    }
+
+    private static List<PricingRule> activeRules(List<PricingRule> rules, Long hotelId, Long roomTypeId) {
+        return rules.stream()
+                .filter(rule -> hotelId.equals(rule.getHotelId()))
+                .filter(rule -> rule.getRoomTypeId() == null || rule.getRoomTypeId().equals(roomTypeId))
+                .filter(rule -> Boolean.TRUE.equals(rule.getIsActive()))
+                .sorted((a, b) -> Integer.compare(b.getPriority(), a.getPriority()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,148 @@
+package com.hotel.benchmark.report;
+
+import com.hotel.dto.report.OrderReportDTO;
+import com.hotel.entity.Order;
+import com.hotel.service.report.OrderMetricsAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 订单报表聚合基准测试
+ *
+ * 对比单次遍历的 {@link OrderMetricsAggregator} 与原先按指标逐个遍历订单列表的实现。
+ * 运行：java -jar target/benchmarks.jar OrderMetricsAggregator -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class OrderMetricsAggregatorBenchmark {
+
+    private static final String[] STATUSES = {"PENDING", "CONFIRMED", "COMPLETED", "COMPLETED", "CANCELLED"};
+
+    @Param({"1000000"})
+    private int orderCount;
+
+    @Param({"90"})
+    private int days;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<Long, Long> roomTypeIdByRoomId;
+    private Map<Long, String> roomTypeNames;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        startDate = LocalDate.of(2024, 10, 1);
+        endDate = startDate.plusDays(days - 1L);
+
+        roomTypeIdByRoomId = new HashMap<>();
+        roomTypeNames = new HashMap<>();
+        for (long roomId = 1; roomId <= 500; roomId++) {
+            roomTypeIdByRoomId.put(roomId, roomId % 12 + 1);
+        }
+        for (long roomTypeId = 1; roomTypeId <= 12; roomTypeId++) {
+            roomTypeNames.put(roomTypeId, "房型" + roomTypeId);
+        }
+
+        orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setId((long) i);
+            order.setRoomId(1L + random.nextInt(500));
+            order.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            order.setTotalPrice(BigDecimal.valueOf(20000 + random.nextInt(200000), 2));
+            order.setCreatedAt(startDate.plusDays(random.nextInt(days)).atTime(random.nextInt(24), random.nextInt(60)));
+            if (random.nextInt(10) == 0) {
+                order.setSpecialRequests("wechat 小程序预订");
+            }
+            orders.add(order);
+        }
+    }
+
+    @Benchmark
+    public OrderReportDTO singlePass() {
+        OrderReportDTO report = new OrderReportDTO();
+        new OrderMetricsAggregator(startDate, endDate, roomTypeIdByRoomId)
+                .acceptAll(orders)
+                .writeTo(report, roomTypeNames);
+        return report;
+    }
+
+    /**
+     * 原实现：每个指标单独遍历一次订单，按日统计对每一天再遍历一次全部订单
+     */
+    @Benchmark
+    public OrderReportDTO streamPerMetric() {
+        OrderReportDTO report = new OrderReportDTO();
+        report.setTotalOrders((long) orders.size());
+        report.setTotalRevenue(completedRevenue(orders));
+        report.setOrdersByStatus(orders.stream()
+                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting())));
+        report.setOrdersByRoomType(orders.stream()
+                .collect(Collectors.groupingBy(
+                        order -> roomTypeNames.get(roomTypeIdByRoomId.get(order.getRoomId())),
+                        Collectors.counting())));
+        report.setRevenueByMonth(orders.stream()
+                .filter(order -> "COMPLETED".equals(order.getStatus()))
+                .collect(Collectors.groupingBy(
+                        order -> order.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM")),
+                        Collectors.mapping(Order::getTotalPrice,
+                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)))));
+        report.setCompletionRate((double) orders.stream()
+                .filter(order -> "COMPLETED".equals(order.getStatus())).count() / orders.size() * 100);
+        report.setCancellationRate((double) orders.stream()
+                .filter(order -> "CANCELLED".equals(order.getStatus())).count() / orders.size() * 100);
+
+        Map<String, Long> ordersByDate = new LinkedHashMap<>();
+        List<OrderReportDTO.OrderTrendData> trends = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            LocalDate current = date;
+            List<Order> dayOrders = orders.stream()
+                    .filter(order -> order.getCreatedAt().toLocalDate().equals(current))
+                    .collect(Collectors.toList());
+            ordersByDate.put(current.toString(), (long) dayOrders.size());
+
+            OrderReportDTO.OrderTrendData trend = new OrderReportDTO.OrderTrendData();
+            trend.setDate(current.toString());
+            trend.setOrderCount((long) dayOrders.size());
+            trend.setRevenue(completedRevenue(dayOrders));
+            trends.add(trend);
+        }
+        report.setOrdersByDate(ordersByDate);
+        report.setOrderTrends(trends);
+        return report;
+    }
+
+    private static BigDecimal completedRevenue(List<Order> orders) {
+        return orders.stream()
+                .filter(order -> "COMPLETED".equals(order.getStatus()))
+                .map(Order::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,70 @@
+package com.hotel.benchmark.review;
+
+import com.hotel.benchmark.fixture.Fixtures;
+import com.hotel.config.TextAnalysisConfig;
+import com.hotel.dto.review.statistics.WordCloudDTO;
+import com.hotel.entity.Review;
+import com.hotel.service.ReviewQualityService;
+import com.hotel.service.TextAnalysisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评价文本处理基准
+ *
+ * 词云按一家酒店的评价语料整体生成；质量评分只走纯计算路径，
+ * 依赖的仓储和 Redis 不参与，传入 null。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ReviewTextBenchmark {
+
+    /**
+     * 参与词云统计的评价条数
+     */
+    @Param({"100", "1000"})
+    private int corpusSize;
+
+    private TextAnalysisService textAnalysisService;
+    private ReviewQualityService reviewQualityService;
+
+    private String corpus;
+    private Review[] reviews;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        textAnalysisService = new TextAnalysisService(new TextAnalysisConfig());
+        reviewQualityService = new ReviewQualityService(null, null, null, null, null);
+        corpus = Fixtures.reviewCorpus(corpusSize);
+        reviews = Fixtures.reviews(1024).toArray(new Review[0]);
+    }
+
+    @Benchmark
+    public List<WordCloudDTO> generateWordCloud() {
+        return textAnalysisService.generateWordCloud(corpus, Fixtures.HOTEL_ID, 50);
+    }
+
+    @Benchmark
+    public int calculateQualityScore() {
+        Review review = reviews[next];
+        next = (next + 1) & (reviews.length - 1);
+        return reviewQualityService.calculateQualityScore(review);
+    }
+}
@@ -0,0 +1,61 @@
+package com.hotel.benchmark.security;
+
+import com.hotel.benchmark.fixture.Fixtures;
+import com.hotel.util.XssSanitizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XSS 过滤基准
+ *
+ * 输入为评价类短文本，按比例混入常见攻击载荷；0% 对应绝大多数正常请求的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class XssSanitizerBenchmark {
+
+    /**
+     * 含攻击载荷的输入百分比
+     */
+    @Param({"0", "20"})
+    private int maliciousPercent;
+
+    private String[] inputs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        inputs = Fixtures.userInputs(1024, maliciousPercent).toArray(new String[0]);
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return XssSanitizer.sanitize(nextInput());
+    }
+
+    @Benchmark
+    public boolean containsXss() {
+        return XssSanitizer.containsXss(nextInput());
+    }
+
+    private String nextInput() {
+        String input = inputs[next];
+        next = (next + 1) & (inputs.length - 1);
+        return input;
+    }
+}
@@ -1,4 +1,5 @@
 import { apiClient } from '@/utils/apiClient'
+import { initializeWebSocket, websocketService } from '@/services/websocketService'
 
 export interface Notification {
   id: number
@@ -149,7 +150,8 @@ export class NotificationManager {
       await Notification.requestPermission()
     }
 
-    // 定期检查新通知
+    // 通过 WebSocket 接收通知变更，未连接时退回轮询
+    this.connectPush()
     this.startPolling()
   }
 
@@ -190,6 +192,58 @@ export class NotificationManager {
     }
   }
 
+  // 订阅服务端推送的通知事件
+  private connectPush() {
+    initializeWebSocket(apiClient.defaults.baseURL || '')
+    const ws = websocketService
+    if (!ws) {
+      return
+    }
+
+    ws.registerMessageHandler('NOTIFICATION_CREATED', message => this.handleCreated(message.data as Notification))
+    ws.registerMessageHandler('NOTIFICATION_READ', message => this.handleRead(message.data))
+    ws.registerMessageHandler('NOTIFICATION_DELETED', message => this.handleDeleted(message.data))
+    // 断线期间的事件无法补发时重新拉取
+    ws.registerMessageHandler('RESYNC', () => this.refreshNotifications())
+  }
+
+  private handleCreated(notification: Notification) {
+    if (this.notifications.some(item => item.id === notification.id)) {
+      return
+    }
+    this.notifications = [notification, ...this.notifications]
+    if (!notification.isRead) {
+      this.unreadCount++
+    }
+    this.notifyListeners()
+
+    if ('Notification' in window && Notification.permission === 'granted') {
+      this.showBrowserNotification(notification)
+    }
+  }
+
+  // notificationId 为空表示全部已读
+  private handleRead(data: { notificationId: number | null; readCount: number }) {
+    if (data.notificationId == null) {
+      this.notifications = this.notifications.map(item => ({ ...item, isRead: true }))
+      this.unreadCount = 0
+    } else {
+      this.notifications = this.notifications.map(item =>
+        item.id === data.notificationId ? { ...item, isRead: true } : item
+      )
+      this.unreadCount = Math.max(0, this.unreadCount - data.readCount)
+    }
+    this.notifyListeners()
+  }
+
+  private handleDeleted(data: { notificationId: number; unread: boolean }) {
+    this.notifications = this.notifications.filter(item => item.id !== data.notificationId)
+    if (data.unread) {
+      this.unreadCount = Math.max(0, this.unreadCount - 1)
+    }
+    this.notifyListeners()
+  }
+
   // 显示浏览器通知
   private showBrowserNotification(notification: Notification) {
     if (!notification.isRead) {
@@ -201,10 +255,12 @@ export class NotificationManager {
     }
   }
 
-  // 开始轮询检查新通知
+  // WebSocket 未连接（如重连失败）时轮询检查新通知
   private startPolling() {
     setInterval(() => {
-      this.refreshNotifications()
+      if (!websocketService?.isConnected()) {
+        this.refreshNotifications()
+      }
     }, 30000) // 30秒检查一次
   }
 
@@ -3,6 +3,8 @@ import { useUserStore } from '@/stores/user';
 import { ElMessage } from 'element-plus';
 
 export interface WebSocketMessage {
+  // 用户事件的序号，重连时带上最后收到的序号补发缺失的事件
+  id?: string;
   type: string;
   data: any;
   timestamp: string;
@@ -42,6 +44,9 @@ export class WebSocketService {
   private messageHandlers: Map<string, ((message: WebSocketMessage) => void)[]> = new Map();
   private connectionPromise: Promise<void> | null = null;
   private isManualClose = false;
+  private lastEventId: string | null = null;
+  private subscribedRooms: Set<number> = new Set();
+  private connectionListeners: ((connected: boolean) => void)[] = [];
 
   private constructor(config: WebSocketConfig) {
     this.config = {
@@ -58,6 +63,7 @@ export class WebSocketService {
     // 注册默认消息处理器
     this.registerMessageHandler('ROOM_STATUS_CHANGED', this.handleRoomStatusChanged.bind(this));
     this.registerMessageHandler('PONG', this.handlePong.bind(this));
+    this.registerMessageHandler('RESYNC', this.handleResync.bind(this));
 
     // 监听页面关闭事件，主动断开连接
     if (typeof window !== 'undefined') {
@@ -103,8 +109,11 @@ export class WebSocketService {
           return;
         }
 
-        // 构建WebSocket URL，包含认证token
-        const wsUrl = `${this.config.url}?token=${encodeURIComponent(token)}`;
+        // 构建WebSocket URL，包含认证token；重连时带上最后收到的事件ID
+        let wsUrl = `${this.config.url}?token=${encodeURIComponent(token)}`;
+        if (this.lastEventId) {
+          wsUrl += `&lastEventId=${encodeURIComponent(this.lastEventId)}`;
+        }
 
         this.ws = new WebSocket(wsUrl, this.config.protocols);
 
@@ -113,6 +122,8 @@ export class WebSocketService {
           this.reconnectAttempts = 0;
           this.isManualClose = false;
           this.startHeartbeat();
+          this.resubscribeRooms();
+          this.notifyConnectionListeners(true);
           resolve();
         };
 
@@ -124,6 +135,7 @@ export class WebSocketService {
           console.log('WebSocket disconnected:', event.code, event.reason);
           this.stopHeartbeat();
           this.connectionPromise = null;
+          this.notifyConnectionListeners(false);
 
           if (!this.isManualClose && this.reconnectAttempts < this.maxReconnectAttempts) {
             this.scheduleReconnect();
@@ -161,6 +173,8 @@ export class WebSocketService {
     }
 
     this.connectionPromise = null;
+    // 主动断开（如退出登录）后不再续接之前的事件
+    this.lastEventId = null;
   }
 
   /**
@@ -211,10 +225,26 @@ export class WebSocketService {
     };
   }
 
+  /**
+   * 监听连接状态变化
+   */
+  onConnectionChange(listener: (connected: boolean) => void): () => void {
+    this.connectionListeners.push(listener);
+    return () => {
+      const index = this.connectionListeners.indexOf(listener);
+      if (index > -1) {
+        this.connectionListeners.splice(index, 1);
+      }
+    };
+  }
+
   /**
    * 订阅房间状态变更
    */
   subscribeToRoomStatus(roomId: number, callback: (roomId: number, oldStatus: string, newStatus: string) => void): () => void {
+    // 记录订阅的房间，重连后重新订阅
+    this.subscribedRooms.add(roomId);
+
     // 发送订阅消息
     this.send({
       type: 'SUBSCRIBE_ROOM_STATUS',
@@ -235,6 +265,7 @@ export class WebSocketService {
    * 取消订阅房间状态
    */
   unsubscribeFromRoomStatus(roomId: number): void {
+    this.subscribedRooms.delete(roomId);
     this.send({
       type: 'UNSUBSCRIBE_ROOM_STATUS',
       data: { roomId },
@@ -250,6 +281,14 @@ export class WebSocketService {
       const message: WebSocketMessage = JSON.parse(event.data);
       console.log('WebSocket message received:', message);
 
+      // 重连补发与实时推送可能重复，已处理过的事件直接忽略
+      if (message.id) {
+        if (this.lastEventId && Number(message.id) <= Number(this.lastEventId)) {
+          return;
+        }
+        this.lastEventId = message.id;
+      }
+
       const handlers = this.messageHandlers.get(message.type);
       if (handlers) {
         handlers.forEach(handler => {
@@ -291,6 +330,36 @@ export class WebSocketService {
     console.log('WebSocket PONG received');
   }
 
+  /**
+   * 处理RESYNC：缺失的事件已无法补发，之前的事件ID作废，由各模块通过接口重新拉取
+   */
+  private handleResync(): void {
+    this.lastEventId = null;
+  }
+
+  /**
+   * 重连后重新订阅房间状态
+   */
+  private resubscribeRooms(): void {
+    this.subscribedRooms.forEach(roomId => {
+      this.send({
+        type: 'SUBSCRIBE_ROOM_STATUS',
+        data: { roomId },
+        timestamp: new Date().toISOString()
+      });
+    });
+  }
+
+  private notifyConnectionListeners(connected: boolean): void {
+    this.connectionListeners.forEach(listener => {
+      try {
+        listener(connected);
+      } catch (error) {
+        console.error('Error in WebSocket connection listener:', error);
+      }
+    });
+  }
+
   /**
    * 安排重连
    */
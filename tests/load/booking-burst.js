@@ -0,0 +1,93 @@
+// 预订确认突发压测：对比平台线程池与虚拟线程模式下的下单延迟
+// 用法见 tests/load/README.md
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+// 下单接口按用户限流 10 次/分钟，用户数需覆盖目标速率
+const USERS = parseInt(__ENV.USERS || '300', 10);
+const ROOMS = parseInt(__ENV.ROOMS || '100', 10);
+const PEAK_RATE = parseInt(__ENV.PEAK_RATE || '40', 10);
+const MODE = __ENV.MODE || 'platform';
+
+const createOrderDuration = new Trend('create_order_duration', true);
+
+export const options = {
+  scenarios: {
+    booking_burst: {
+      executor: 'ramping-arrival-rate',
+      startRate: 5,
+      timeUnit: '1s',
+      preAllocatedVUs: 200,
+      maxVUs: 1000,
+      stages: [
+        { target: 5, duration: '30s' },
+        { target: PEAK_RATE, duration: '10s' },
+        { target: PEAK_RATE, duration: '2m' },
+        { target: 5, duration: '30s' },
+      ],
+    },
+  },
+  thresholds: {
+    'create_order_duration{status:200}': ['p(95)<800', 'p(99)<2000'],
+  },
+  tags: { mode: MODE },
+};
+
+export function setup() {
+  const runId = Date.now().toString(36);
+  const tokens = [];
+  for (let i = 0; i < USERS; i++) {
+    const username = `load_${runId}_${i}`;
+    const password = 'LoadTest#2024';
+    http.post(`${BASE_URL}/v1/auth/register`, JSON.stringify({
+      username,
+      email: `${username}@load.test`,
+      phone: `139${String(i).padStart(8, '0')}`,
+      password,
+    }), { headers: { 'Content-Type': 'application/json' } });
+
+    const login = http.post(`${BASE_URL}/v1/auth/login`, JSON.stringify({
+      identifier: username,
+      password,
+    }), { headers: { 'Content-Type': 'application/json' } });
+    const token = login.json('data.token');
+    if (token) {
+      tokens.push(token);
+    }
+  }
+  if (tokens.length === 0) {
+    throw new Error('没有可用的压测用户，检查注册和登录接口');
+  }
+  return { tokens };
+}
+
+export default function (data) {
+  const token = data.tokens[(__VU + __ITER) % data.tokens.length];
+  // 入住日期分散在一年后的 300 天内，绝大多数请求不冲突，测的是正常下单路径
+  const offset = 365 + Math.floor(Math.random() * 300);
+  const checkIn = new Date(Date.now() + offset * 86400000);
+  const checkOut = new Date(checkIn.getTime() + (1 + Math.floor(Math.random() * 3)) * 86400000);
+
+  const response = http.post(`${BASE_URL}/v1/orders`, JSON.stringify({
+    roomId: 1 + Math.floor(Math.random() * ROOMS),
+    checkInDate: checkIn.toISOString().slice(0, 10),
+    checkOutDate: checkOut.toISOString().slice(0, 10),
+    guestCount: 2,
+    guestName: '压测用户',
+    guestPhone: '13900000000',
+  }), {
+    headers: {
+      'Content-Type': 'application/json',
+      Authorization: `Bearer ${token}`,
+    },
+    tags: { name: 'createOrder' },
+  });
+
+  createOrderDuration.add(response.timings.duration, { status: String(response.status) });
+  check(response, {
+    '下单成功或日期冲突': (r) => r.status === 200 || r.status === 409,
+    '未被限流': (r) => r.status !== 429,
+  });
+}